@@ -0,0 +1,98 @@
+package cgeo.geocaching.brouter;
+
+import cgeo.geocaching.brouter.core.OsmPathElement;
+import cgeo.geocaching.brouter.core.OsmTrack;
+import cgeo.geocaching.brouter.core.RoutingEngine;
+import cgeo.geocaching.brouter.mapaccess.NodesCache;
+import cgeo.geocaching.utils.Log;
+
+import android.os.Bundle;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+public class BRouterWorkerTest {
+
+    // start and destination in Munich, routing tile E10_N45.rd5 needs to be installed for the routing tests
+    private static final double[] LATS = {48.137, 48.152};
+    private static final double[] LONS = {11.575, 11.560};
+
+    @Test
+    public void testMatrixFormatRoundTrip() {
+        final int[][] matrix = {{0, 1200, RoutingEngine.MATRIX_NO_ROUTE}, {1150, 0, 830}};
+        final String formatted = BRouterWorker.formatMatrix(matrix);
+        assertThat(formatted).startsWith(BRouterConstants.MATRIX_RESULT_PREFIX);
+        assertThat(BRouterWorker.parseMatrix(formatted, 2, 3)).isEqualTo(matrix);
+    }
+
+    @Test
+    public void testParseMatrixRejectsErrors() {
+        assertThat(BRouterWorker.parseMatrix(null, 1, 1)).isNull();
+        assertThat(BRouterWorker.parseMatrix("datafile E10_N45.rd5 not found", 1, 1)).isNull();
+        assertThat(BRouterWorker.parseMatrix(BRouterConstants.MATRIX_RESULT_PREFIX + "0,1\n", 1, 3)).isNull();
+        assertThat(BRouterWorker.parseMatrix(BRouterConstants.MATRIX_RESULT_PREFIX + "0,x\n", 1, 2)).isNull();
+    }
+
+    @Test
+    public void testTrackPoints() {
+        final OsmTrack track = new OsmTrack();
+        track.nodes.add(OsmPathElement.create(191575000, 138137000, (short) 2076, null));
+        track.nodes.add(OsmPathElement.create(168440000, 89990000, Short.MIN_VALUE, null));
+
+        final Bundle result = BRouterWorker.toTrackPoints(track);
+        assertThat(result.getDoubleArray(BRouterConstants.TRACK_LATS_RESULTKEY)).containsExactly(48.137, -0.01);
+        assertThat(result.getDoubleArray(BRouterConstants.TRACK_LONS_RESULTKEY)).containsExactly(11.575, -11.56);
+        final float[] elevations = result.getFloatArray(BRouterConstants.TRACK_ELEVATIONS_RESULTKEY);
+        assertThat(elevations[0]).isEqualTo(519f);
+        assertThat(Float.isNaN(elevations[1])).isTrue();
+    }
+
+    /**
+     * Routes with map data kept from previous requests, partly reused and partly decoded in the background, have to
+     * be the same as routes with freshly decoded map data.
+     */
+    @Test
+    public void testWarmNodesCacheRoutesLikeFreshCache() throws InterruptedException {
+        NodesCache.clearWarmCache();
+        final Bundle first = routeTrackPoints(0);
+        if (!first.containsKey(BRouterConstants.TRACK_LATS_RESULTKEY)) {
+            Log.w("BRouterWorkerTest: no route found, routing tile E10_N45.rd5 is missing");
+            return;
+        }
+        // give the background decoding of the segments woven by the first request some time
+        Thread.sleep(500);
+        final Bundle warm = routeTrackPoints(1);
+        final Bundle warmAgain = routeTrackPoints(0);
+
+        NodesCache.clearWarmCache();
+        final Bundle fresh = routeTrackPoints(1);
+        assertSameTrack(warm, fresh);
+        assertSameTrack(warmAgain, first);
+    }
+
+    private static Bundle routeTrackPoints(final int startShift) {
+        return createWorker().getTrackPointsFromParams(createParams(new double[]{LATS[0] + startShift * 0.0002, LATS[1]}, new double[]{LONS[0], LONS[1]}));
+    }
+
+    private static void assertSameTrack(final Bundle actual, final Bundle expected) {
+        assertThat(actual.getDoubleArray(BRouterConstants.TRACK_LATS_RESULTKEY)).containsExactly(expected.getDoubleArray(BRouterConstants.TRACK_LATS_RESULTKEY));
+        assertThat(actual.getDoubleArray(BRouterConstants.TRACK_LONS_RESULTKEY)).containsExactly(expected.getDoubleArray(BRouterConstants.TRACK_LONS_RESULTKEY));
+    }
+
+    private static Bundle createParams(final double[] lats, final double[] lons) {
+        final Bundle params = new Bundle();
+        params.putDoubleArray("lats", lats);
+        params.putDoubleArray("lons", lons);
+        params.putString("v", "foot");
+        return params;
+    }
+
+    private static BRouterWorker createWorker() {
+        final BRouterWorker worker = new BRouterWorker();
+        worker.profileFilename = BRouterConstants.BROUTER_PROFILE_WALK_DEFAULT;
+        worker.nogoList = new ArrayList<>();
+        return worker;
+    }
+}
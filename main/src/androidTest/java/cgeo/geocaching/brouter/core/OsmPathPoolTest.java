@@ -0,0 +1,43 @@
+package cgeo.geocaching.brouter.core;
+
+import org.junit.Test;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+public class OsmPathPoolTest {
+
+    @Test
+    public void testRecycledPathIsReset() {
+        final OsmPathPool pool = new OsmPathPool(new StdModel());
+        final OsmPath path = pool.obtain();
+        path.cost = 1000;
+        path.airdistance = -1;
+        path.treedepth = 5;
+        path.originElement = new OsmPathElement();
+        path.message = new MessageData();
+
+        pool.recycle(path);
+        final OsmPath reused = pool.obtain();
+
+        assertThat(reused).isSameAs(path);
+        assertThat(reused.cost).isEqualTo(0);
+        assertThat(reused.airdistance).isEqualTo(0);
+        assertThat(reused.treedepth).isEqualTo(0);
+        assertThat(reused.originElement).isNull();
+        assertThat(reused.message).isNull();
+        assertThat(reused.getNextForLink()).isNull();
+        assertThat(reused.didEnterDestinationArea()).isFalse();
+        assertThat(pool.toString()).isEqualTo("paths created=1 reused=1");
+    }
+
+    @Test
+    public void testCreatesNewPathsWhenEmpty() {
+        final OsmPathPool pool = new OsmPathPool(new KinematicModel());
+        final OsmPath first = pool.obtain();
+        final OsmPath second = pool.obtain();
+
+        assertThat(first).isInstanceOf(KinematicPath.class);
+        assertThat(second).isNotSameAs(first);
+        assertThat(pool.isFor(new KinematicModel())).isFalse();
+        assertThat(pool.toString()).isEqualTo("paths created=2 reused=0");
+    }
+}
@@ -0,0 +1,155 @@
+package cgeo.geocaching.brouter.expressions;
+
+import cgeo.geocaching.brouter.util.DefaultFilesUtils;
+import cgeo.geocaching.storage.ContentStorage;
+import cgeo.geocaching.storage.PersistableFolder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+public class BExpressionProgramTest {
+
+    private static final String[] PROFILES = {"trekking.brf", "fastbike.brf", "car-fast.brf"};
+
+    // tag combinations as they occur when decoding routing tiles
+    private static final String[] WAY_HIGHWAYS = {"residential", "service", "track", "unclassified", "footway", "tertiary", "path", "secondary", "primary", "cycleway", "trunk", "motorway", "steps", "pedestrian"};
+    private static final String[] WAY_SURFACES = {null, "asphalt", "gravel", "unpaved", "ground", "paving_stones"};
+    private static final String[] WAY_EXTRAS = {null, "oneway=yes", "bicycle=no", "access=private", "tracktype=grade3", "smoothness=bad", "maxspeed=30", "incline=10%"};
+    private static final String[] NODE_TAGS = {"barrier=gate", "barrier=bollard", "barrier=lift_gate", "barrier=stile", "highway=traffic_signals", "crossing=zebra", "access=no", "access=private"};
+
+    private static final class Contexts {
+        final BExpressionContextWay way;
+        final BExpressionContextNode node;
+
+        Contexts(final String profile) {
+            DefaultFilesUtils.checkDefaultFiles();
+            final BExpressionMetaData meta = new BExpressionMetaData();
+            // no result caching, so that each description is evaluated
+            way = new BExpressionContextWay(0, meta);
+            node = new BExpressionContextNode(0, meta);
+            node.setForeignContext(way);
+            meta.readMetaData();
+            final ContentStorage.FileInformation fi = ContentStorage.get().getFileInfo(PersistableFolder.ROUTING_BASE.getFolder(), profile);
+            way.parseFile(fi.uri, "global");
+            node.parseFile(fi.uri, "global");
+        }
+
+        void setCompiledEvaluation(final boolean compiled) {
+            way.setCompiledEvaluation(compiled);
+            node.setCompiledEvaluation(compiled);
+        }
+    }
+
+    @Test
+    public void testCompiledResultsAreIdentical() {
+        for (String profile : PROFILES) {
+            final Contexts contexts = new Contexts(profile);
+            final List<byte[]> ways = recordWayDescriptions(contexts.way);
+            final List<byte[]> nodes = recordNodeDescriptions(contexts.node);
+            assertThat(ways).isNotEmpty();
+            assertThat(nodes).isNotEmpty();
+
+            for (int i = 0; i < ways.size(); i++) {
+                for (int d = 0; d < 2; d++) {
+                    final boolean inverseDirection = d == 1;
+                    final byte[] nodeDescription = nodes.get(i % nodes.size());
+
+                    contexts.setCompiledEvaluation(false);
+                    final int[] interpreted = evaluate(contexts, inverseDirection, ways.get(i), nodeDescription);
+                    contexts.setCompiledEvaluation(true);
+                    final int[] compiled = evaluate(contexts, inverseDirection, ways.get(i), nodeDescription);
+
+                    assertThat(compiled).as(profile + ": " + contexts.way.getKeyValueDescription(inverseDirection, ways.get(i))).isEqualTo(interpreted);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testShortCuts() {
+        final BExpressionProgram.Builder builder = new BExpressionProgram.Builder();
+        // variable 0 = -0 and (1 / 0)
+        builder.emit(BExpressionProgram.NUMBER, 0, builder.addConstant(-0f));
+        final int and = builder.emit(BExpressionProgram.AND_SKIP, 0, 0);
+        emitDivisionByZero(builder);
+        builder.patchJump(and);
+        builder.emit(BExpressionProgram.ASSIGN, 0, 0);
+        // variable 1 = 2 or (1 / 0)
+        builder.emit(BExpressionProgram.NUMBER, 0, builder.addConstant(2f));
+        final int or = builder.emit(BExpressionProgram.OR_SKIP, 0, 0);
+        emitDivisionByZero(builder);
+        builder.patchJump(or);
+        builder.emit(BExpressionProgram.ASSIGN, 0, 1);
+        final BExpressionProgram program = builder.build();
+
+        final float[] variables = new float[2];
+        program.execute(new float[program.getRegisterCount()], variables, new int[0], null);
+        assertThat(Float.floatToRawIntBits(variables[0])).isEqualTo(Float.floatToRawIntBits(0f));
+        assertThat(variables[1]).isEqualTo(1f);
+    }
+
+    private static void emitDivisionByZero(final BExpressionProgram.Builder builder) {
+        builder.emit(BExpressionProgram.NUMBER, 0, builder.addConstant(1f));
+        builder.emit(BExpressionProgram.NUMBER, 1, builder.addConstant(0f));
+        builder.emit(BExpressionProgram.DIVIDE, 0, 1);
+        builder.emit(BExpressionProgram.BOOLEAN, 0, 0);
+    }
+
+    private static int[] evaluate(final Contexts contexts, final boolean inverseDirection, final byte[] way, final byte[] node) {
+        final int wayVars = contexts.way.getBuildInVariableNames().length;
+        final int nodeVars = contexts.node.getBuildInVariableNames().length;
+        final int[] result = new int[wayVars + nodeVars];
+
+        contexts.way.evaluate(inverseDirection, way);
+        for (int i = 0; i < wayVars; i++) {
+            result[i] = Float.floatToIntBits(contexts.way.getBuildInVariable(i));
+        }
+        contexts.node.evaluate(false, node);
+        for (int i = 0; i < nodeVars; i++) {
+            result[wayVars + i] = Float.floatToIntBits(contexts.node.getBuildInVariable(i));
+        }
+        return result;
+    }
+
+    private static List<byte[]> recordWayDescriptions(final BExpressionContextWay ctx) {
+        final List<byte[]> descriptions = new ArrayList<>();
+        for (String highway : WAY_HIGHWAYS) {
+            for (String surface : WAY_SURFACES) {
+                for (String extra : WAY_EXTRAS) {
+                    final byte[] description = encode(ctx, "highway=" + highway, surface == null ? null : "surface=" + surface, extra);
+                    if (description != null) {
+                        descriptions.add(description);
+                    }
+                }
+            }
+        }
+        return descriptions;
+    }
+
+    private static List<byte[]> recordNodeDescriptions(final BExpressionContextNode ctx) {
+        final List<byte[]> descriptions = new ArrayList<>();
+        for (String tag : NODE_TAGS) {
+            for (String extra : NODE_TAGS) {
+                final byte[] description = encode(ctx, tag, extra.equals(tag) ? null : extra);
+                if (description != null) {
+                    descriptions.add(description);
+                }
+            }
+        }
+        return descriptions;
+    }
+
+    private static byte[] encode(final BExpressionContext ctx, final String... tags) {
+        final int[] lookupData = ctx.createNewLookupData();
+        for (String tag : tags) {
+            if (tag != null) {
+                final int idx = tag.indexOf('=');
+                ctx.addLookupValue(tag.substring(0, idx), tag.substring(idx + 1), lookupData);
+            }
+        }
+        return ctx.encode(lookupData);
+    }
+}
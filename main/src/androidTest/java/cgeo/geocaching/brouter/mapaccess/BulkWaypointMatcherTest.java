@@ -0,0 +1,71 @@
+package cgeo.geocaching.brouter.mapaccess;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+public class BulkWaypointMatcherTest {
+
+    // around lat 48, lon 11
+    private static final OsmNode NODE_A = new OsmNode(191000000, 138000000);
+    private static final OsmNode NODE_B = new OsmNode(191002000, 138000000);
+    private static final OsmNode NODE_D = new OsmNode(191002000, 138004000);
+    private static final OsmNode TRANSFER = new OsmNode(191003000, 138002000);
+
+    @Test
+    public void testMatchesNearestWay() {
+        final MatchedWaypoint nearA = createPoint(191001000, 138000500); // about 55m north of the way A-B
+        final MatchedWaypoint far = createPoint(191001000, 138010000); // more than 1km away from both ways
+        final MatchedWaypoint nearTransfer = createPoint(191003100, 138002000); // few meters east of the bend of way B-D
+        final List<MatchedWaypoint> points = new ArrayList<>();
+        points.add(nearA);
+        points.add(far);
+        points.add(nearTransfer);
+
+        final BulkWaypointMatcher matcher = new BulkWaypointMatcher(points, 250.);
+        assertThat(matcher.start(NODE_A.ilon, NODE_A.ilat, NODE_B.ilon, NODE_B.ilat)).isTrue();
+        matcher.end();
+        assertThat(matcher.start(NODE_B.ilon, NODE_B.ilat, NODE_D.ilon, NODE_D.ilat)).isTrue();
+        matcher.transferNode(TRANSFER.ilon, TRANSFER.ilat);
+        matcher.end();
+
+        assertThat(nearA.crosspoint).isNotNull();
+        assertThat(Math.abs(nearA.crosspoint.ilon - 191001000)).isLessThanOrEqualTo(1);
+        assertThat(Math.abs(nearA.crosspoint.ilat - 138000000)).isLessThanOrEqualTo(1);
+        assertThat(nearA.node1.getIdFromPos()).isEqualTo(NODE_A.getIdFromPos());
+        assertThat(nearA.node2.getIdFromPos()).isEqualTo(NODE_B.getIdFromPos());
+        assertThat(nearA.radius).isBetween(50., 60.);
+
+        assertThat(far.crosspoint).isNull();
+
+        assertThat(nearTransfer.crosspoint).isNotNull();
+        assertThat(nearTransfer.node1.getIdFromPos()).isEqualTo(NODE_B.getIdFromPos());
+        assertThat(nearTransfer.node2.getIdFromPos()).isEqualTo(NODE_D.getIdFromPos());
+        assertThat(nearTransfer.radius).isLessThan(10.);
+    }
+
+    @Test
+    public void testKeepsNearestOfSeveralWays() {
+        final MatchedWaypoint point = createPoint(191001000, 138001000);
+        final List<MatchedWaypoint> points = new ArrayList<>();
+        points.add(point);
+
+        final BulkWaypointMatcher matcher = new BulkWaypointMatcher(points, 250.);
+        // way B-D is about 75m away, way A-B about 110m
+        matcher.start(NODE_B.ilon, NODE_B.ilat, NODE_D.ilon, NODE_D.ilat);
+        matcher.end();
+        matcher.start(NODE_A.ilon, NODE_A.ilat, NODE_B.ilon, NODE_B.ilat);
+        matcher.end();
+
+        assertThat(point.node1.getIdFromPos()).isEqualTo(NODE_B.getIdFromPos());
+        assertThat(point.node2.getIdFromPos()).isEqualTo(NODE_D.getIdFromPos());
+    }
+
+    private static MatchedWaypoint createPoint(final int ilon, final int ilat) {
+        final MatchedWaypoint mwp = new MatchedWaypoint();
+        mwp.waypoint = new OsmNode(ilon, ilat);
+        return mwp;
+    }
+}
@@ -0,0 +1,80 @@
+package cgeo.geocaching.brouter.mapaccess;
+
+import cgeo.geocaching.brouter.codec.DataBuffers;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+public class PhysicalFileTest {
+
+    private static final int HEADER_SIZE = 200;
+
+    @Test
+    public void testMappedReadsEqualChannelReads() throws IOException {
+        final File file = createSyntheticTile(1024 * 1024);
+        final PhysicalFile mapped = new PhysicalFile(file.getName(), new FileInputStream(file), new DataBuffers(), -1, true);
+        final PhysicalFile read = new PhysicalFile(file.getName(), new FileInputStream(file), new DataBuffers(), -1, false);
+        try {
+            assertThat(mapped.isMemoryMapped()).isTrue();
+            assertThat(read.isMemoryMapped()).isFalse();
+            assertThat(mapped.fileIndex).isEqualTo(read.fileIndex);
+
+            final byte[] bufferMapped = new byte[10000];
+            final byte[] bufferRead = new byte[10000];
+            final Random random = new Random(42);
+            for (int i = 0; i < 100; i++) {
+                final int length = 1 + random.nextInt(bufferMapped.length);
+                final long pos = random.nextInt((int) file.length() - length);
+                mapped.readFully(pos, length, bufferMapped);
+                read.readFully(pos, length, bufferRead);
+                assertThat(bufferMapped).isEqualTo(bufferRead);
+            }
+        } finally {
+            mapped.close();
+            read.close();
+            file.delete();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testMappedReadBeyondEndOfFile() throws IOException {
+        final File file = createSyntheticTile(1000);
+        final PhysicalFile mapped = new PhysicalFile(file.getName(), new FileInputStream(file), new DataBuffers(), -1, true);
+        try {
+            mapped.readFully(file.length() - 10, 20, new byte[20]);
+        } finally {
+            mapped.close();
+            file.delete();
+        }
+    }
+
+    /**
+     * Creates a file with a valid rd5 header (old format without checksums) followed by random data
+     */
+    private static File createSyntheticTile(final int size) throws IOException {
+        final byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        // file index: 25 offsets, the last one is the end of the data
+        for (int i = 0; i < 25; i++) {
+            final long offset = i == 24 ? size : HEADER_SIZE + (long) (size - HEADER_SIZE) * i / 24;
+            for (int b = 0; b < 8; b++) {
+                data[i * 8 + b] = (byte) (offset >>> (56 - 8 * b));
+            }
+        }
+        final File file = File.createTempFile("cgeo-test-" + System.currentTimeMillis(), ".rd5");
+        final FileOutputStream fos = new FileOutputStream(file);
+        try {
+            IOUtils.write(data, fos);
+        } finally {
+            IOUtils.closeQuietly(fos);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,73 @@
+package cgeo.geocaching.brouter.util;
+
+import java.util.Random;
+
+import org.junit.Test;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+public class PairingHeapTest {
+
+    @Test
+    public void testRandomKeysArePoppedInOrder() {
+        final PairingHeap<String> heap = new PairingHeap<>();
+        final Random rnd = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            int val = rnd.nextInt(1000000);
+            heap.add(val, "" + val);
+            val = rnd.nextInt(1000000);
+            heap.add(val, "" + val);
+            heap.popLowestKeyValue();
+        }
+        assertThat(heap.getSize()).isEqualTo(100000);
+
+        int cnt = 0;
+        int lastval = 0;
+        for (String s = heap.popLowestKeyValue(); s != null; s = heap.popLowestKeyValue()) {
+            cnt++;
+            final int val = Integer.parseInt(s);
+            assertThat(val).isGreaterThanOrEqualTo(lastval);
+            lastval = val;
+        }
+        assertThat(cnt).isEqualTo(100000);
+        assertThat(heap.getSize()).isEqualTo(0);
+    }
+
+    @Test
+    public void testSameOrderAsSortedHeap() {
+        final PairingHeap<Integer> heap = new PairingHeap<>();
+        final SortedHeap<Integer> sortedHeap = new SortedHeap<>();
+        final Random rnd = new Random(7);
+        for (int i = 0; i < 50000; i++) {
+            // distinct keys, as the order of equal keys differs
+            final int key = i * 31 % 50000 + (rnd.nextBoolean() ? 50000 : 0);
+            heap.add(key, key);
+            sortedHeap.add(key, key);
+            if (i % 3 == 0) {
+                assertThat(heap.popLowestKeyValue()).isEqualTo(sortedHeap.popLowestKeyValue());
+            }
+        }
+        for (Integer value = sortedHeap.popLowestKeyValue(); value != null; value = sortedHeap.popLowestKeyValue()) {
+            assertThat(heap.popLowestKeyValue()).isEqualTo(value);
+        }
+        assertThat(heap.popLowestKeyValue()).isNull();
+    }
+
+    @Test
+    public void testClearAndReuse() {
+        final PairingHeap<String> heap = new PairingHeap<>();
+        for (int i = 0; i < 5000; i++) {
+            heap.add(5000 - i, "a" + i);
+        }
+        heap.clear();
+        assertThat(heap.getSize()).isEqualTo(0);
+        assertThat(heap.popLowestKeyValue()).isNull();
+
+        heap.add(3, "c");
+        heap.add(1, "a");
+        heap.add(2, "b");
+        assertThat(heap.popLowestKeyValue()).isEqualTo("a");
+        assertThat(heap.popLowestKeyValue()).isEqualTo("b");
+        assertThat(heap.popLowestKeyValue()).isEqualTo("c");
+        assertThat(heap.popLowestKeyValue()).isNull();
+    }
+}
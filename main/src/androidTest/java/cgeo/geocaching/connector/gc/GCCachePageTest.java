@@ -0,0 +1,83 @@
+package cgeo.geocaching.connector.gc;
+
+import cgeo.geocaching.connector.gc.GCCachePage.Anchor;
+import cgeo.geocaching.test.CgeoTestUtils;
+import cgeo.geocaching.test.R;
+import cgeo.geocaching.test.mock.MockedCache;
+import cgeo.geocaching.utils.TextUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+
+import org.junit.Test;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+public class GCCachePageTest {
+
+    private static List<String> getCachePages() {
+        final List<String> pages = new ArrayList<>();
+        for (final MockedCache mockedCache : MockedCache.MOCKED_CACHES) {
+            pages.add(mockedCache.getData());
+        }
+        for (final int resourceId : new int[]{R.raw.gc430fm_published, R.raw.gc431f2_published, R.raw.gc352y3_owner_view, R.raw.gc366bq,
+                R.raw.gc45w92, R.raw.gc6xyb6, R.raw.own_cache}) {
+            pages.add(CgeoTestUtils.getFileContent(resourceId));
+        }
+        return pages;
+    }
+
+    @Test
+    public void testAnchorsStartAllMatches() {
+        for (final String pageIn : getCachePages()) {
+            final String page = TextUtils.replaceWhitespace(pageIn);
+            for (final Anchor anchor : Anchor.values()) {
+                if (anchor.pattern == null) {
+                    continue;
+                }
+                final Matcher matcher = anchor.pattern.matcher(page);
+                while (matcher.find()) {
+                    assertThat(page.startsWith(anchor.text, matcher.start())).as(anchor.name()).isTrue();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSameResultsAsWholePage() {
+        for (final String pageIn : getCachePages()) {
+            final GCCachePage cachePage = new GCCachePage(pageIn);
+            final String page = TextUtils.replaceWhitespace(pageIn);
+            assertThat(cachePage.getPage()).isEqualTo(page);
+
+            final int details = page.indexOf(GCConstants.STRING_CACHEDETAILS);
+            assertThat(details).isGreaterThanOrEqualTo(0);
+            final String tableInside = page.substring(details);
+            for (final Anchor anchor : Anchor.values()) {
+                assertThat(cachePage.indexOf(anchor)).as(anchor.name()).isEqualTo(page.indexOf(anchor.text));
+                if (anchor.pattern == null) {
+                    continue;
+                }
+                assertThat(cachePage.matches(anchor)).as(anchor.name()).isEqualTo(TextUtils.matches(page, anchor.pattern));
+                assertThat(cachePage.matches(anchor, details)).as(anchor.name()).isEqualTo(TextUtils.matches(tableInside, anchor.pattern));
+                for (int group = 0; group <= anchor.pattern.matcher("").groupCount(); group++) {
+                    assertThat(cachePage.getMatch(anchor, 0, false, group, "notFound")).as(anchor.name() + " group " + group)
+                            .isEqualTo(TextUtils.getMatch(page, anchor.pattern, false, group, "notFound", false));
+                    assertThat(cachePage.getMatch(anchor, details, false, group, "notFound")).as(anchor.name() + " group " + group + " in details")
+                            .isEqualTo(TextUtils.getMatch(tableInside, anchor.pattern, false, group, "notFound", false));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMissingAnchor() {
+        final GCCachePage page = new GCCachePage("<html>\n  <body>" + GCConstants.STRING_CACHEDETAILS + "</body>\n</html>");
+        assertThat(page.getPage()).isEqualTo("<html> <body>" + GCConstants.STRING_CACHEDETAILS + "</body> </html>");
+        assertThat(page.indexOf(Anchor.CACHE_DETAILS)).isEqualTo(13);
+        assertThat(page.contains(Anchor.WAYPOINTS)).isFalse();
+        assertThat(page.getSearchStart(Anchor.HINT, 0)).isEqualTo(-1);
+        assertThat(page.matches(Anchor.FOUND)).isFalse();
+        assertThat(page.getMatch(Anchor.GEOCODE, true, "default")).isEqualTo("default");
+    }
+}
@@ -13,10 +13,13 @@ import cgeo.geocaching.storage.DataStore;
 import android.net.Uri;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import org.apache.commons.io.Charsets;
 import org.apache.commons.io.IOUtils;
@@ -65,6 +68,38 @@ public class ExportTest {
         assertCanExport(cache);
     }
 
+    @Test
+    public void testGpxExportCompressed() throws InterruptedException, ExecutionException, IOException {
+        final Geocache cache = new Geocache();
+        cache.setGeocode("GCX1234");
+        cache.setCoords(new Geopoint("N 49 44.000 E 8 37.000"));
+        cache.setDetailed(true);
+        DataStore.saveCache(cache, LoadFlags.SAVE_ALL);
+
+        Uri result = null;
+        try {
+            final GpxExportTask task = new GpxExportTask(null, "export", "geocache.gpx", "GPX", true);
+            task.execute(cache.getGeocode());
+            result = task.get();
+        } finally {
+            DataStore.removeCache(cache.getGeocode(), LoadFlags.REMOVE_ALL);
+        }
+        assertThat(result).isNotNull();
+
+        try (ZipInputStream zip = new ZipInputStream(ContentStorage.get().openForRead(result))) {
+            final ZipEntry entry = zip.getNextEntry();
+            assertThat(entry).isNotNull();
+            assertThat(entry.getName()).isEqualTo("geocache.gpx");
+            final String gpx = IOUtils.toString(zip, StandardCharsets.UTF_8);
+            assertThat(gpx).contains("<wpt");
+            assertThat(gpx).contains(cache.getGeocode());
+            assertThat(gpx.trim()).endsWith("</gpx>");
+            assertThat(zip.getNextEntry()).isNull();
+        } finally {
+            ContentStorage.get().delete(result);
+        }
+    }
+
     private static void assertCanExport(final Geocache cache) throws InterruptedException, ExecutionException, IOException {
         // enforce storing in database, as GPX will not take information from cache
         cache.setDetailed(true);
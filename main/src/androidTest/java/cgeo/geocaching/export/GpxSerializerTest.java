@@ -18,9 +18,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.commons.io.IOUtils;
@@ -61,6 +64,26 @@ public class GpxSerializerTest {
         assertThat(1).as("Progress listener not called").isEqualTo(importedCount.get().intValue());
     }
 
+    @Test
+    public void testExportOfSeveralBatches() throws IOException, ParserException {
+        final AtomicReference<Integer> importedCount = new AtomicReference<>(0);
+        final StringWriter writer = new StringWriter();
+
+        final Geocache cache = CgeoTestUtils.loadCacheFromResource(R.raw.gc1bkp3_gpx101);
+        assertThat(cache).isNotNull();
+
+        // the only stored cache comes after some batches of unknown geocodes
+        final List<String> geocodes = new ArrayList<>();
+        for (int i = 0; i < GpxSerializer.CACHES_PER_BATCH * 4; i++) {
+            geocodes.add(String.format(Locale.US, "GCZZ%03X", i));
+        }
+        geocodes.add("GC1BKP3");
+        new GpxSerializer().writeGPX(geocodes, writer, importedCount::set);
+        assertThat(importedCount.get().intValue()).isEqualTo(1);
+        assertThat(writer.toString()).contains("<name>GC1BKP3</name>");
+        assertThat(writer.toString().trim()).endsWith("</gpx>");
+    }
+
     /**
      * This test verifies that a loop of import, export, import leads to the same cache information.
      */
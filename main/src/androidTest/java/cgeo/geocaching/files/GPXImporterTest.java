@@ -373,7 +373,8 @@ public class GPXImporterTest {
             msg1.copyFrom(msg);
             if (msg1.what == TERMINATION_MESSAGE) {
                 receivedTerminationMessage = true;
-            } else {
+            } else if (msg1.what != GPXImporter.IMPORT_STEP_WRITE_RATE) {
+                // the write rate is reported per stored batch, it is no import step
                 messages.add(msg1);
             }
             lastMessage = System.currentTimeMillis();
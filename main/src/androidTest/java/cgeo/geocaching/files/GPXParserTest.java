@@ -23,8 +23,10 @@ import cgeo.geocaching.utils.SynchronizedDateFormat;
 
 import androidx.annotation.RawRes;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -34,6 +36,9 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.compress.utils.IOUtils;
 import org.junit.Rule;
@@ -84,6 +89,20 @@ public class GPXParserTest  {
         assertThat(cache.getAttributes()).hasSize(10);
     }
 
+    @Test
+    public void testImportWithoutLogs() throws IOException, ParserException {
+        // logs of earlier imports would be kept
+        DataStore.removeCache("GC1BKP3", LoadFlags.REMOVE_ALL);
+        final GPX10Parser parser = new GPX10Parser(tempList.getListId());
+        parser.setImportLogs(false);
+        final List<Geocache> caches = readVersionedGPX(parser, R.raw.gc1bkp3_gpx101);
+        assertThat(caches).hasSize(1);
+        final Geocache cache = caches.get(0);
+        assertThat(cache.getName()).isEqualTo("Die Schatzinsel / treasure island");
+        assertThat(cache.getAttributes()).hasSize(10);
+        assertThat(DataStore.loadLogs(cache.getGeocode())).isEmpty();
+    }
+
     @Test
     public void testOC() throws IOException, ParserException {
         final List<Geocache> caches = readGPX10(R.raw.oc5952_gpx);
@@ -127,6 +146,136 @@ public class GPXParserTest  {
         assertGc31j2hWaypoints(cache);
     }
 
+    @Test
+    public void testGc31j2hWptsInSameBatch() throws IOException, ParserException {
+        CgeoTestUtils.removeCacheCompletely("GC31J2H");
+        // waypoints directly following their cache get merged before the cache is stored
+        final String gpx = CgeoTestUtils.getFileContent(R.raw.gc31j2h);
+        final String combined = gpxHeader(gpx) + wptElements(gpx) + wptElements(CgeoTestUtils.getFileContent(R.raw.gc31j2h_wpts)) + gpxFooter(gpx);
+        final Collection<Geocache> parsed = new GPX10Parser(tempList.getListId()).parse(new ByteArrayInputStream(combined.getBytes(StandardCharsets.UTF_8)), null);
+        assertThat(parsed).hasSize(1);
+
+        final Geocache cache = DataStore.loadCache("GC31J2H", LoadFlags.LOAD_ALL_DB_ONLY);
+        assertGc31j2h(cache);
+        assertGc31j2hWaypoints(cache);
+    }
+
+    @Test
+    public void testManyCachesAreStoredInBatches() throws IOException, ParserException {
+        final int count = GPXImportWriter.BATCH_SIZE * 2 + 17;
+        final Set<String> geocodes = new HashSet<>();
+        try {
+            final Collection<Geocache> parsed = new GPX10Parser(tempList.getListId()).parse(createManyCachesGpx(count, geocodes), null);
+            assertThat(parsed).hasSize(count);
+            for (final Geocache cache : DataStore.loadCaches(geocodes, LoadFlags.LOAD_ALL_DB_ONLY)) {
+                assertThat(cache.getName()).isEqualTo("Die Schatzinsel / treasure island");
+                assertThat(DataStore.loadLogs(cache.getGeocode())).hasSize(6);
+            }
+        } finally {
+            DataStore.removeCaches(geocodes, LoadFlags.REMOVE_ALL);
+        }
+    }
+
+    @Test
+    public void testParallelParsersShareWriter() throws Exception {
+        final int count = GPXImportWriter.BATCH_SIZE + 17;
+        final Set<String> geocodes = new HashSet<>();
+        final InputStream gpx1 = createManyCachesGpx(0, count, geocodes);
+        final InputStream gpx2 = createManyCachesGpx(count, count, geocodes);
+        final GPXImportWriter writer = GPXImportWriter.acquire();
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final GPXParser parser1 = new GPX10Parser(tempList.getListId());
+            parser1.setImportWriter(writer, null);
+            final GPXParser parser2 = new GPX10Parser(tempList.getListId());
+            parser2.setImportWriter(writer, null);
+            final Future<Collection<Geocache>> parsed1 = executor.submit(() -> parser1.parse(gpx1, null));
+            final Future<Collection<Geocache>> parsed2 = executor.submit(() -> parser2.parse(gpx2, null));
+            assertThat(parsed1.get()).hasSize(count);
+            assertThat(parsed2.get()).hasSize(count);
+            assertThat(DataStore.loadCaches(geocodes, LoadFlags.LOAD_ALL_DB_ONLY)).hasSize(count * 2);
+        } finally {
+            executor.shutdown();
+            GPXImportWriter.release(writer);
+            DataStore.removeCaches(geocodes, LoadFlags.REMOVE_ALL);
+        }
+    }
+
+    @Test
+    public void testWaypointsFileSpanningSeveralBatches() throws Exception {
+        final int count = GPXImportWriter.BATCH_SIZE * 2 + 17;
+        final Set<String> geocodes = new HashSet<>();
+        final InputStream gpx = createManyCachesGpx(count, geocodes);
+        final InputStream wpts = createManyWaypointsGpx(count);
+        final GPXImportWriter writer = GPXImportWriter.acquire();
+        try {
+            final GPXParser cachesParser = new GPX10Parser(tempList.getListId());
+            cachesParser.setImportWriter(writer, null);
+            cachesParser.parse(gpx, null);
+            final String lastGeocode = String.format(Locale.US, "GCZ%04X", count - 1);
+            final int waypoints = DataStore.loadCache(lastGeocode, LoadFlags.LOAD_ALL_DB_ONLY).getWaypoints().size();
+            final int cachesBatches = writer.getWrittenBatches();
+
+            final GPXParser wptsParser = new GPX10Parser(tempList.getListId());
+            wptsParser.setImportWriter(writer, null);
+            wptsParser.parse(wpts, null);
+
+            // the waypoints of a batch of parent caches are stored in one transaction
+            assertThat(writer.getWrittenBatches() - cachesBatches).isEqualTo((count + GPXImportWriter.BATCH_SIZE - 1) / GPXImportWriter.BATCH_SIZE);
+            assertThat(DataStore.loadCache("GCZ0000", LoadFlags.LOAD_ALL_DB_ONLY).getWaypoints()).hasSize(waypoints + 2);
+            assertThat(DataStore.loadCache(lastGeocode, LoadFlags.LOAD_ALL_DB_ONLY).getWaypoints()).hasSize(waypoints + 2);
+        } finally {
+            GPXImportWriter.release(writer);
+            DataStore.removeCaches(geocodes, LoadFlags.REMOVE_ALL);
+        }
+    }
+
+    /**
+     * copies of the treasure island cache (with 6 logs) with different geocodes
+     */
+    private static InputStream createManyCachesGpx(final int count, final Set<String> geocodes) {
+        return createManyCachesGpx(0, count, geocodes);
+    }
+
+    private static InputStream createManyCachesGpx(final int first, final int count, final Set<String> geocodes) {
+        final String gpx = CgeoTestUtils.getFileContent(R.raw.gc1bkp3_gpx100);
+        final String wpt = wptElements(gpx);
+        final StringBuilder builder = new StringBuilder(gpxHeader(gpx));
+        for (int i = first; i < first + count; i++) {
+            final String geocode = String.format(Locale.US, "GCZ%04X", i);
+            geocodes.add(geocode);
+            builder.append(wpt.replace("GC1BKP3", geocode));
+        }
+        builder.append(gpxFooter(gpx));
+        return new ByteArrayInputStream(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * copies of the two GC31J2H waypoints for each of the caches created by {@link #createManyCachesGpx}
+     */
+    private static InputStream createManyWaypointsGpx(final int count) {
+        final String gpx = CgeoTestUtils.getFileContent(R.raw.gc31j2h_wpts);
+        final String wpt = wptElements(gpx);
+        final StringBuilder builder = new StringBuilder(gpxHeader(gpx));
+        for (int i = 0; i < count; i++) {
+            builder.append(wpt.replace("31J2H", String.format(Locale.US, "Z%04X", i)));
+        }
+        builder.append(gpxFooter(gpx));
+        return new ByteArrayInputStream(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String gpxHeader(final String gpx) {
+        return gpx.substring(0, gpx.indexOf("<wpt"));
+    }
+
+    private static String wptElements(final String gpx) {
+        return gpx.substring(gpx.indexOf("<wpt"), gpx.lastIndexOf("</wpt>") + "</wpt>".length());
+    }
+
+    private static String gpxFooter(final String gpx) {
+        return gpx.substring(gpx.lastIndexOf("</wpt>") + "</wpt>".length());
+    }
+
     @Test
     public void testGc31j2hWptsEmptyCoord() throws IOException, ParserException {
         CgeoTestUtils.removeCacheCompletely("GC31J2H");
@@ -162,6 +311,23 @@ public class GPXParserTest  {
         assertThat(cache.hasUserModifiedCoords()).as("Has user modified coordinates").isTrue();
     }
 
+    @Test
+    public void testWaypointParentMatchedByTitleInSameBatch() throws IOException, ParserException {
+        CgeoTestUtils.removeCacheCompletely("OCDDD2");
+        final int waypoints = readGPX10(R.raw.ocddd2).get(0).getWaypoints().size();
+        CgeoTestUtils.removeCacheCompletely("OCDDD2");
+
+        // refer to the parent cache by its title, it is stored in the same batch as its waypoints
+        final String gpx = CgeoTestUtils.getFileContent(R.raw.ocddd2).replace("<gsak:Parent>OCDDD2</gsak:Parent>", "<gsak:Parent>Kaiserstein und Grabh\u00fcgel Ludwigsburg</gsak:Parent>");
+        assertThat(gpx).doesNotContain("<gsak:Parent>OCDDD2</gsak:Parent>");
+        try {
+            new GPX10Parser(tempList.getListId()).parse(new ByteArrayInputStream(gpx.getBytes(StandardCharsets.UTF_8)), null);
+            assertThat(DataStore.loadCache("OCDDD2", LoadFlags.LOAD_ALL_DB_ONLY).getWaypoints()).hasSize(waypoints);
+        } finally {
+            CgeoTestUtils.removeCacheCompletely("OCDDD2");
+        }
+    }
+
     @Test
     public void testOCddd2WptsEmptyCoord() throws IOException, ParserException {
         CgeoTestUtils.removeCacheCompletely("OCDDD2");
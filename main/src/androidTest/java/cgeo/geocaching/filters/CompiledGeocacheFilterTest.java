@@ -0,0 +1,166 @@
+package cgeo.geocaching.filters;
+
+import cgeo.geocaching.enumerations.CacheSize;
+import cgeo.geocaching.enumerations.CacheType;
+import cgeo.geocaching.filters.core.AndGeocacheFilter;
+import cgeo.geocaching.filters.core.CompiledGeocacheFilter;
+import cgeo.geocaching.filters.core.DifficultyGeocacheFilter;
+import cgeo.geocaching.filters.core.GeocacheFilter;
+import cgeo.geocaching.filters.core.GeocacheFilterType;
+import cgeo.geocaching.filters.core.IGeocacheFilter;
+import cgeo.geocaching.filters.core.LogicalGeocacheFilter;
+import cgeo.geocaching.filters.core.NameGeocacheFilter;
+import cgeo.geocaching.filters.core.NotGeocacheFilter;
+import cgeo.geocaching.filters.core.OrGeocacheFilter;
+import cgeo.geocaching.filters.core.SizeGeocacheFilter;
+import cgeo.geocaching.filters.core.StatusGeocacheFilter;
+import cgeo.geocaching.filters.core.StringFilter;
+import cgeo.geocaching.filters.core.TypeGeocacheFilter;
+import cgeo.geocaching.models.Geocache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+public class CompiledGeocacheFilterTest {
+
+    private static final String[] NAMES = {"Old Mill", "Bridge view", "Mystery of the lake", "Forest path", "Church", "Quick drive-in", "Hidden treasure"};
+    private static final String[] OWNERS = {"alice", "Bob", "charlie", "dora", "Eve"};
+    private static final CacheType[] TYPES = {CacheType.TRADITIONAL, CacheType.MULTI, CacheType.MYSTERY, CacheType.EARTH, CacheType.EVENT, CacheType.VIRTUAL};
+    private static final CacheSize[] SIZES = {CacheSize.MICRO, CacheSize.SMALL, CacheSize.REGULAR, CacheSize.LARGE, CacheSize.OTHER};
+
+    @Test
+    public void emptyGroups() {
+        assertSameResult(new AndGeocacheFilter(), createCache(new Random(1), 0));
+        assertSameResult(new OrGeocacheFilter(), createCache(new Random(1), 0));
+        assertSameResult(new NotGeocacheFilter(), createCache(new Random(1), 0));
+
+        final OrGeocacheFilter or = new OrGeocacheFilter();
+        or.addChild(new OrGeocacheFilter());
+        or.addChild(createNameFilter("does not exist", StringFilter.StringFilterType.CONTAINS));
+        assertSameResult(or, createCache(new Random(1), 0));
+
+        final AndGeocacheFilter and = new AndGeocacheFilter();
+        and.addChild(new AndGeocacheFilter());
+        and.addChild(new NotGeocacheFilter());
+        assertSameResult(and, createCache(new Random(1), 0));
+    }
+
+    @Test
+    public void sameResultsAsFilterTree() {
+        final Random random = new Random(42);
+        final List<Geocache> caches = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            caches.add(createCache(random, i));
+        }
+        for (int treeIdx = 0; treeIdx < 50; treeIdx++) {
+            final IGeocacheFilter tree = createRandomTree(random, 0);
+            final CompiledGeocacheFilter compiled = CompiledGeocacheFilter.compile(tree, false);
+            // evaluate several times so that children are reordered in between
+            for (int round = 0; round < 3; round++) {
+                for (Geocache cache : caches) {
+                    assertThat(compiled.filterRaw(cache)).as("tree " + treeIdx + ", cache " + cache.getGeocode()).isEqualTo(tree.filter(cache));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void filterListKeepsInconclusiveAsConfigured() {
+        final StatusGeocacheFilter status = GeocacheFilterType.STATUS.create();
+        status.setStatusFavorite(true);
+        final Geocache unknown = createCache(new Random(1), 1);
+        final Geocache favorite = createCache(new Random(1), 2);
+        favorite.setFavorite(true);
+
+        final List<Geocache> list = new ArrayList<>(Arrays.asList(unknown, favorite));
+        GeocacheFilter.create("", false, false, status).filterList(list);
+        assertThat(list).containsExactly(favorite);
+
+        list.clear();
+        list.addAll(Arrays.asList(unknown, favorite));
+        GeocacheFilter.create("", false, true, status).filterList(list);
+        assertThat(list).containsExactly(unknown, favorite);
+    }
+
+    private static IGeocacheFilter createRandomTree(final Random random, final int depth) {
+        if (depth >= 3 || random.nextInt(3) == 0) {
+            return createRandomLeaf(random);
+        }
+        final LogicalGeocacheFilter group;
+        switch (random.nextInt(3)) {
+            case 0:
+                group = new AndGeocacheFilter();
+                break;
+            case 1:
+                group = new OrGeocacheFilter();
+                break;
+            default:
+                group = new NotGeocacheFilter();
+                break;
+        }
+        final int childCount = random.nextInt(5);
+        for (int i = 0; i < childCount; i++) {
+            group.addChild(createRandomTree(random, depth + 1));
+        }
+        return group;
+    }
+
+    private static IGeocacheFilter createRandomLeaf(final Random random) {
+        switch (random.nextInt(5)) {
+            case 0:
+                return createNameFilter(NAMES[random.nextInt(NAMES.length)].substring(0, 3), StringFilter.StringFilterType.values()[random.nextInt(StringFilter.StringFilterType.values().length)]);
+            case 1:
+                final TypeGeocacheFilter type = GeocacheFilterType.TYPE.create();
+                type.setValues(Arrays.asList(TYPES[random.nextInt(TYPES.length)], TYPES[random.nextInt(TYPES.length)]));
+                return type;
+            case 2:
+                final DifficultyGeocacheFilter difficulty = GeocacheFilterType.DIFFICULTY.create();
+                final float min = 1 + random.nextInt(8) / 2f;
+                difficulty.setMinMaxRange(min, min + random.nextInt(4) / 2f);
+                return difficulty;
+            case 3:
+                // inconclusive for caches without favorite information
+                final StatusGeocacheFilter status = GeocacheFilterType.STATUS.create();
+                status.setStatusFavorite(random.nextBoolean());
+                return status;
+            default:
+                final SizeGeocacheFilter size = GeocacheFilterType.SIZE.create();
+                size.setValues(Collections.singleton(SIZES[random.nextInt(SIZES.length)]));
+                return size;
+        }
+    }
+
+    private static NameGeocacheFilter createNameFilter(final String text, final StringFilter.StringFilterType filterType) {
+        final NameGeocacheFilter name = GeocacheFilterType.NAME.create();
+        name.getStringFilter().setTextValue(text);
+        name.getStringFilter().setFilterType(filterType);
+        return name;
+    }
+
+    private static Geocache createCache(final Random random, final int idx) {
+        final Geocache cache = new Geocache();
+        cache.setGeocode("GCCOMP" + idx);
+        cache.setName(NAMES[random.nextInt(NAMES.length)] + " " + idx);
+        cache.setOwnerDisplayName(OWNERS[random.nextInt(OWNERS.length)]);
+        cache.setType(TYPES[random.nextInt(TYPES.length)]);
+        cache.setSize(SIZES[random.nextInt(SIZES.length)]);
+        cache.setDifficulty(1 + random.nextInt(9) / 2f);
+        cache.setTerrain(1 + random.nextInt(9) / 2f);
+        cache.setFound(random.nextInt(4) == 0);
+        if (random.nextBoolean()) {
+            cache.setFavorite(random.nextBoolean());
+        }
+        return cache;
+    }
+
+    private static void assertSameResult(final IGeocacheFilter tree, final Geocache cache) {
+        assertThat(CompiledGeocacheFilter.compile(tree, false).filterRaw(cache)).isEqualTo(tree.filter(cache));
+    }
+
+}
@@ -20,6 +20,23 @@ public class StringGeocacheFilterTest {
         testSingle(c -> c.setName("Testname"), f -> f.getStringFilter().setTextValue("eFst"), false);
     }
 
+    @Test
+    @SuppressWarnings("PMD.JUnitTestsShouldIncludeAssert") // is done in called test method
+    public void containsWords() {
+        // multi word values are narrowed down via full text index (if available), results must not change
+        testSingle(c -> c.setName("The old Mill-House"), f -> f.getStringFilter().setTextValue("d mill-ho"), true);
+        testSingle(c -> c.setName("The old Mill-House"), f -> f.getStringFilter().setTextValue("old house"), false);
+        testSingle(c -> c.setName("The old Mill-House"), f -> {
+            f.getStringFilter().setTextValue("The OLD m");
+            f.getStringFilter().setFilterType(StringFilter.StringFilterType.STARTS_WITH);
+        }, true);
+        testSingle(c -> c.setName("The old Mill-House"), f -> {
+            f.getStringFilter().setTextValue("The OLD m");
+            f.getStringFilter().setFilterType(StringFilter.StringFilterType.STARTS_WITH);
+            f.getStringFilter().setMatchCase(true);
+        }, false);
+    }
+
     @Test
     @SuppressWarnings("PMD.JUnitTestsShouldIncludeAssert") // is done in called test method
     public void doesNotContain() {
@@ -1,8 +1,11 @@
 package cgeo.geocaching.storage;
 
 import cgeo.geocaching.SearchResult;
+import cgeo.geocaching.enumerations.CacheSize;
+import cgeo.geocaching.enumerations.CacheType;
 import cgeo.geocaching.enumerations.LoadFlags;
 import cgeo.geocaching.enumerations.LoadFlags.SaveFlag;
+import cgeo.geocaching.enumerations.WaypointType;
 import cgeo.geocaching.list.PseudoList;
 import cgeo.geocaching.list.StoredList;
 import cgeo.geocaching.location.Geopoint;
@@ -13,11 +16,17 @@ import cgeo.geocaching.log.LogTypeTrackable;
 import cgeo.geocaching.log.OfflineLogEntry;
 import cgeo.geocaching.log.ReportProblemType;
 import cgeo.geocaching.models.Geocache;
+import cgeo.geocaching.models.GeocacheSummary;
 import cgeo.geocaching.models.Image;
 import cgeo.geocaching.models.Trackable;
+import cgeo.geocaching.models.Waypoint;
 import static cgeo.geocaching.enumerations.LoadFlags.REMOVE_ALL;
 
+import android.app.SearchManager;
+import android.database.Cursor;
+
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
@@ -115,6 +124,200 @@ public class DataStoreTest {
         DataStore.loadWaypoints(viewport);
     }
 
+    // Check that child data loaded in one batch is attached to the correct caches
+    @Test
+    public void testLoadCachesAttachesChildDataPerCache() {
+        final String geocode1 = ARTIFICIAL_GEOCODE + "1";
+        final String geocode2 = ARTIFICIAL_GEOCODE + "2";
+        final Geocache cache1 = new Geocache();
+        cache1.setGeocode(geocode1);
+        cache1.setDetailed(true);
+        cache1.setAttributes(new ArrayList<>(Collections.singletonList("dogs_yes")));
+        cache1.setWaypoints(new ArrayList<>(Collections.singletonList(new Waypoint("Parking", WaypointType.PARKING, false))), false);
+        final Geocache cache2 = new Geocache();
+        cache2.setGeocode(geocode2);
+        cache2.setDetailed(true);
+
+        try {
+            DataStore.saveCaches(Arrays.asList(cache1, cache2), EnumSet.of(SaveFlag.DB));
+            DataStore.removeAllFromCache();
+
+            final Set<Geocache> loaded = DataStore.loadCaches(Arrays.asList(geocode1, geocode2), LoadFlags.LOAD_ALL_DB_ONLY);
+            assertThat(loaded).hasSize(2);
+            for (final Geocache cache : loaded) {
+                if (geocode1.equals(cache.getGeocode())) {
+                    assertThat(cache.getAttributes()).containsExactly("dogs_yes");
+                    assertThat(cache.getWaypoints()).hasSize(1);
+                    assertThat(cache.getWaypoints().get(0).getName()).isEqualTo("Parking");
+                } else {
+                    assertThat(cache.getAttributes()).isEmpty();
+                    assertThat(cache.getWaypoints()).isEmpty();
+                }
+            }
+        } finally {
+            DataStore.removeCaches(new HashSet<>(Arrays.asList(geocode1, geocode2)), REMOVE_ALL);
+        }
+    }
+
+    @Test
+    public void testLoadCacheSummariesMatchFullCaches() {
+        final List<String> geocodes = new ArrayList<>();
+        final List<Geocache> caches = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            final Geocache cache = new Geocache();
+            cache.setGeocode(ARTIFICIAL_GEOCODE + "S" + i);
+            cache.setDetailed(true);
+            cache.setName("Summary " + i);
+            cache.setType(i % 2 == 0 ? CacheType.TRADITIONAL : CacheType.MULTI);
+            cache.setSize(CacheSize.SMALL);
+            cache.setDifficulty(1.5f + i);
+            cache.setTerrain(2f);
+            cache.setFavoritePoints(i);
+            cache.setCoords(new Geopoint(10 + i, 20 + i));
+            cache.setFound(i == 1);
+            cache.setDisabled(i == 2);
+            geocodes.add(cache.getGeocode());
+            caches.add(cache);
+        }
+
+        try {
+            DataStore.saveCaches(caches, EnumSet.of(SaveFlag.DB));
+            DataStore.removeAllFromCache();
+
+            // put one cache into CacheCache, it is delivered from there
+            DataStore.loadCache(geocodes.get(0), LoadFlags.LOAD_CACHE_OR_DB);
+
+            final List<GeocacheSummary> summaries = DataStore.loadCacheSummaries(geocodes, CacheProjection.LIST_ROW);
+            assertThat(summaries).hasSize(5);
+
+            DataStore.removeAllFromCache();
+            for (final GeocacheSummary summary : summaries) {
+                final Geocache cache = DataStore.loadCache(summary.getGeocode(), LoadFlags.LOAD_CACHE_OR_DB);
+                assertThat(summary).isEqualTo(GeocacheSummary.of(cache, CacheProjection.LIST_ROW));
+            }
+
+            // map marker projection leaves out list fields
+            final List<GeocacheSummary> markers = DataStore.loadCacheSummaries(geocodes.subList(1, 2), CacheProjection.MAP_MARKER);
+            assertThat(markers).hasSize(1);
+            assertThat(markers.get(0).isFound()).isTrue();
+            assertThat(markers.get(0).getCoords()).isEqualTo(new Geopoint(11, 21));
+            assertThat(markers.get(0).getName()).isEmpty();
+        } finally {
+            DataStore.removeCaches(new HashSet<>(geocodes), REMOVE_ALL);
+        }
+    }
+
+    // Check that viewport queries follow coordinate changes of stored caches
+    @Test
+    public void testLoadStoredInViewportAfterMove() {
+        final Viewport viewport = new Viewport(new Geopoint(9, 9), new Geopoint(11, 11));
+        final Geocache cache = new Geocache();
+        cache.setGeocode(ARTIFICIAL_GEOCODE);
+        cache.setDetailed(true);
+        cache.setCoords(new Geopoint(10, 10));
+        cache.getLists().add(StoredList.STANDARD_LIST_ID);
+
+        try {
+            DataStore.saveCache(cache, EnumSet.of(SaveFlag.DB));
+            assertThat(DataStore.loadStoredInViewport(viewport).getGeocodes()).contains(ARTIFICIAL_GEOCODE);
+
+            cache.setCoords(new Geopoint(20, 20));
+            DataStore.saveCache(cache, EnumSet.of(SaveFlag.DB));
+            assertThat(DataStore.loadStoredInViewport(viewport).getGeocodes()).doesNotContain(ARTIFICIAL_GEOCODE);
+        } finally {
+            DataStore.removeCache(ARTIFICIAL_GEOCODE, REMOVE_ALL);
+        }
+    }
+
+    // Check that viewport queries use the coordinate indices and don't find deleted caches and waypoints
+    @Test
+    public void testViewportQueriesAfterDelete() {
+        final Viewport viewport = new Viewport(new Geopoint(9, 9), new Geopoint(11, 11));
+        assertThat(DataStore.getViewportQueryPlan(DataStore.dbTableCaches, viewport)).contains("in_caches_lat_lon");
+        assertThat(DataStore.getViewportQueryPlan(DataStore.dbTableWaypoints, viewport)).contains("in_wpts_lat_lon");
+
+        final Geocache cache = new Geocache();
+        cache.setGeocode(ARTIFICIAL_GEOCODE);
+        cache.setDetailed(true);
+        cache.setCoords(new Geopoint(10, 10));
+        cache.getLists().add(StoredList.STANDARD_LIST_ID);
+        final Waypoint waypoint = new Waypoint("Parking", WaypointType.PARKING, false);
+        waypoint.setCoords(new Geopoint(10.001, 10.001));
+        cache.setWaypoints(new ArrayList<>(Collections.singletonList(waypoint)), false);
+
+        try {
+            DataStore.saveCache(cache, EnumSet.of(SaveFlag.DB));
+            assertThat(DataStore.loadStoredInViewport(viewport).getGeocodes()).contains(ARTIFICIAL_GEOCODE);
+            assertThat(getWaypointIds(DataStore.loadWaypoints(viewport))).contains(waypoint.getId());
+
+            assertThat(DataStore.deleteWaypoint(waypoint.getId())).isTrue();
+            assertThat(getWaypointIds(DataStore.loadWaypoints(viewport))).doesNotContain(waypoint.getId());
+
+            DataStore.removeCache(ARTIFICIAL_GEOCODE, REMOVE_ALL);
+            assertThat(DataStore.loadStoredInViewport(viewport).getGeocodes()).doesNotContain(ARTIFICIAL_GEOCODE);
+        } finally {
+            DataStore.removeCache(ARTIFICIAL_GEOCODE, REMOVE_ALL);
+        }
+    }
+
+    private static Set<Integer> getWaypointIds(final Set<Waypoint> waypoints) {
+        final Set<Integer> ids = new HashSet<>();
+        for (final Waypoint waypoint : waypoints) {
+            ids.add(waypoint.getId());
+        }
+        return ids;
+    }
+
+    @Test
+    public void testWriteAheadLoggingEnabled() {
+        assertThat(DataStore.initAndCheck()).isNull();
+        assertThat(DataStore.isWriteAheadLoggingEnabled()).isTrue();
+    }
+
+    @Test
+    public void testFullTextPrefixTerms() {
+        assertThat(DataStore.getFullTextPrefixTerms("old Mill-house", false)).containsExactly("mill", "house");
+        assertThat(DataStore.getFullTextPrefixTerms("old Mill-house", true)).containsExactly("old", "mill", "house");
+        assertThat(DataStore.getFullTextPrefixTerms(" old", false)).containsExactly("old");
+        assertThat(DataStore.getFullTextPrefixTerms("a \u00fcber stra\u00dfe", false)).isEmpty();
+        assertThat(DataStore.getFullTextPrefixTerms(null, true)).isEmpty();
+    }
+
+    // Check that the full text index narrows down suggestions over several columns and terms correctly
+    @Test
+    public void testFindSuggestionsInNameAndOwner() {
+        final Geocache cache = new Geocache();
+        cache.setGeocode(ARTIFICIAL_GEOCODE);
+        cache.setName("The old Mill-House");
+        cache.setOwnerDisplayName("John Farmer");
+        cache.setDetailed(true);
+        cache.getLists().add(StoredList.STANDARD_LIST_ID);
+
+        try {
+            DataStore.saveCache(cache, EnumSet.of(SaveFlag.DB));
+            assertThat(findSuggestedGeocodes("Mill-House")).contains(ARTIFICIAL_GEOCODE);
+            assertThat(findSuggestedGeocodes("old mill")).contains(ARTIFICIAL_GEOCODE);
+            assertThat(findSuggestedGeocodes("John Farm")).contains(ARTIFICIAL_GEOCODE);
+            // substrings not starting a word are still found
+            assertThat(findSuggestedGeocodes("armer")).contains(ARTIFICIAL_GEOCODE);
+            assertThat(findSuggestedGeocodes("ld Mill")).contains(ARTIFICIAL_GEOCODE);
+            assertThat(findSuggestedGeocodes("Farmer John")).doesNotContain(ARTIFICIAL_GEOCODE);
+        } finally {
+            DataStore.removeCache(ARTIFICIAL_GEOCODE, REMOVE_ALL);
+        }
+    }
+
+    private static List<String> findSuggestedGeocodes(final String searchTerm) {
+        final List<String> geocodes = new ArrayList<>();
+        try (Cursor cursor = DataStore.findSuggestions(searchTerm)) {
+            assertThat(cursor).isNotNull();
+            while (cursor.moveToNext()) {
+                geocodes.add(cursor.getString(cursor.getColumnIndexOrThrow(SearchManager.SUGGEST_COLUMN_TEXT_2)));
+            }
+        }
+        return geocodes;
+    }
+
     // Check that saving a cache and trackable without logs works (see #2199)
     @Test
     public void testSaveWithoutLogs() {
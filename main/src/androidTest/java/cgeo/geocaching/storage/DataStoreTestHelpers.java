@@ -5,18 +5,22 @@ import cgeo.geocaching.enumerations.CacheType;
 import cgeo.geocaching.enumerations.LoadFlags;
 import cgeo.geocaching.list.StoredList;
 import cgeo.geocaching.location.Geopoint;
+import cgeo.geocaching.location.Viewport;
 import cgeo.geocaching.log.LogEntry;
 import cgeo.geocaching.log.LogType;
 import cgeo.geocaching.models.Geocache;
+import cgeo.geocaching.utils.Log;
 
 import androidx.test.filters.Suppress;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.junit.Test;
 
@@ -31,6 +35,7 @@ public class DataStoreTestHelpers {
 
     private static final String ARTIFICIAL_GEOCACHES_PREFIX = "GCFAKE";
     private static final int ARTIFICIAL_GEOCACHES_COUNT = 50000;
+    private static final int BENCHMARK_GEOCACHES_COUNT = 10000;
 
     /**
      * Method creates dummy caches in the database
@@ -75,6 +80,103 @@ public class DataStoreTestHelpers {
     }
 
 
+    /**
+     * Compares loading child data (attributes, waypoints, log counts, ...) with one query per cache
+     * against the batched loading done by {@link DataStore#loadCaches(java.util.Collection, EnumSet)}.
+     * Requires the dummy caches to be created before, see {@link #testCreateDummyCaches()}.
+     */
+    @Suppress
+    @Test
+    @SuppressWarnings("PMD.JUnitTestsShouldIncludeAssert")
+    public void testBenchmarkLoadChildData() {
+        //add a manual guard to be extra sure that this is not executed by default!
+        if (!EXECUTE_METHODS) {
+            return;
+        }
+
+        final List<String> geocodes = new ArrayList<>();
+        for (int i = 0; i < BENCHMARK_GEOCACHES_COUNT; i++) {
+            geocodes.add(getArtificialGeocode(i));
+        }
+
+        DataStore.removeAllFromCache();
+        long start = System.currentTimeMillis();
+        for (final String geocode : geocodes) {
+            DataStore.loadAttributes(geocode);
+            DataStore.loadWaypoints(geocode);
+            DataStore.loadLogCounts(geocode);
+            DataStore.loadCategories(geocode);
+        }
+        final long perCacheMillis = System.currentTimeMillis() - start;
+
+        DataStore.removeAllFromCache();
+        start = System.currentTimeMillis();
+        DataStore.loadCaches(geocodes, LoadFlags.LOAD_ALL_DB_ONLY);
+        final long batchedMillis = System.currentTimeMillis() - start;
+
+        Log.i("DataStoreTestHelpers: loading child data of " + BENCHMARK_GEOCACHES_COUNT + " caches took " + perCacheMillis + "ms per cache, " + batchedMillis + "ms batched (including cache rows)");
+    }
+
+    /**
+     * Imports {@link #BENCHMARK_GEOCACHES_COUNT} dummy caches in a background thread while repeatedly loading
+     * the stored caches of a viewport, and reports the read latency percentiles.
+     * With write-ahead logging, reads should not be blocked by the running import transaction.
+     */
+    @Suppress
+    @Test
+    @SuppressWarnings("PMD.JUnitTestsShouldIncludeAssert")
+    public void testStressReadsDuringImport() throws InterruptedException {
+        //add a manual guard to be extra sure that this is not executed by default!
+        if (!EXECUTE_METHODS) {
+            return;
+        }
+
+        final List<Geocache> dummyCaches = new ArrayList<>();
+        final Set<String> dummyCacheCodes = new HashSet<>();
+        for (int i = 0; i < BENCHMARK_GEOCACHES_COUNT; i++) {
+            final Geocache cache = createDummyCache(i);
+            dummyCaches.add(cache);
+            dummyCacheCodes.add(cache.getGeocode());
+        }
+        final Viewport viewport = new Viewport(new Geopoint(48, 11), new Geopoint(49, 12));
+
+        final AtomicBoolean importRunning = new AtomicBoolean(true);
+        final Thread importThread = new Thread(() -> {
+            try {
+                DataStore.saveCaches(dummyCaches, EnumSet.of(LoadFlags.SaveFlag.DB));
+            } finally {
+                importRunning.set(false);
+            }
+        });
+
+        final List<Long> latencies = new ArrayList<>();
+        final long start = System.currentTimeMillis();
+        importThread.start();
+        while (importRunning.get()) {
+            final long readStart = System.nanoTime();
+            DataStore.loadStoredInViewport(viewport);
+            latencies.add((System.nanoTime() - readStart) / 1000);
+        }
+        importThread.join();
+        final long importMillis = System.currentTimeMillis() - start;
+
+        DataStore.removeCaches(dummyCacheCodes, EnumSet.of(LoadFlags.RemoveFlag.DB));
+
+        Collections.sort(latencies);
+        Log.i("DataStoreTestHelpers: import of " + BENCHMARK_GEOCACHES_COUNT + " caches took " + importMillis + "ms, "
+                + latencies.size() + " viewport reads in parallel (WAL: " + DataStore.isWriteAheadLoggingEnabled() + "), latency in microseconds:"
+                + " p50=" + percentile(latencies, 50) + " p90=" + percentile(latencies, 90)
+                + " p99=" + percentile(latencies, 99) + " max=" + percentile(latencies, 100));
+    }
+
+    private static long percentile(final List<Long> sortedValues, final int percentile) {
+        if (sortedValues.isEmpty()) {
+            return 0;
+        }
+        final int index = (int) Math.ceil(percentile / 100.0 * sortedValues.size()) - 1;
+        return sortedValues.get(Math.max(0, Math.min(sortedValues.size() - 1, index)));
+    }
+
     private static List<LogEntry> createDummyLogsForCache(final String geocode, final int count) {
         final List<LogEntry> result = new ArrayList<>();
         for (int idx = 0; idx < count; idx++) {
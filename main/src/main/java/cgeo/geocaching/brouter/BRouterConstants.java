@@ -12,6 +12,16 @@ public class BRouterConstants {
     public static final String BROUTER_TILE_FILEEXTENSION = ".rd5";
 
     public static final String PROFILE_PARAMTERKEY = "internal_routing_profile";
+    public static final String MATRIX_SOURCES_PARAMETERKEY = "matrixSources";
+    // experimental, see RoutingContext.pairingHeap
+    public static final String PAIRING_HEAP_PARAMETERKEY = "pairingHeap";
+    public static final String MATRIX_RESULT_PREFIX = "matrix\n";
+
+    // result keys of IInternalRoutingService.getTrackPointsFromParams
+    public static final String TRACK_LATS_RESULTKEY = "lats";
+    public static final String TRACK_LONS_RESULTKEY = "lons";
+    public static final String TRACK_ELEVATIONS_RESULTKEY = "elevations";
+    public static final String TRACK_ERROR_RESULTKEY = "error";
 
     private BRouterConstants() {
         // utility class
@@ -4,13 +4,24 @@ import cgeo.geocaching.brouter.core.FormatGpx;
 import cgeo.geocaching.brouter.core.FormatJson;
 import cgeo.geocaching.brouter.core.FormatKml;
 import cgeo.geocaching.brouter.core.OsmNodeNamed;
+import cgeo.geocaching.brouter.core.OsmPathElement;
 import cgeo.geocaching.brouter.core.OsmTrack;
 import cgeo.geocaching.brouter.core.RoutingContext;
 import cgeo.geocaching.brouter.core.RoutingEngine;
 import cgeo.geocaching.brouter.core.RoutingParamCollector;
+import static cgeo.geocaching.brouter.BRouterConstants.MATRIX_RESULT_PREFIX;
+import static cgeo.geocaching.brouter.BRouterConstants.MATRIX_SOURCES_PARAMETERKEY;
+import static cgeo.geocaching.brouter.BRouterConstants.PAIRING_HEAP_PARAMETERKEY;
+import static cgeo.geocaching.brouter.BRouterConstants.TRACK_ELEVATIONS_RESULTKEY;
+import static cgeo.geocaching.brouter.BRouterConstants.TRACK_ERROR_RESULTKEY;
+import static cgeo.geocaching.brouter.BRouterConstants.TRACK_LATS_RESULTKEY;
+import static cgeo.geocaching.brouter.BRouterConstants.TRACK_LONS_RESULTKEY;
 
 import android.os.Bundle;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
 import java.io.UnsupportedEncodingException;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -30,14 +41,147 @@ public class BRouterWorker {
     // external code, do not refactor
     @SuppressWarnings({"PMD.ExcessiveMethodLength"})
     public String getTrackFromParams(final Bundle params) {
+        final int engineMode = getEngineMode(params);
+        final RoutingContext rc = new RoutingContext();
+        final RoutingEngine cr = runEngine(params, engineMode, rc);
+
+        if (engineMode == RoutingEngine.BROUTER_ENGINEMODE_MATRIX) {
+            if (cr.getErrorMessage() != null) {
+                return cr.getErrorMessage();
+            }
+            return formatMatrix(cr.getFoundMatrix());
+        }
+
+        if (engineMode == RoutingEngine.BROUTER_ENGINEMODE_ROUTING) {
+            storeRawTrack(cr);
+
+            if (cr.getErrorMessage() != null) {
+                return cr.getErrorMessage();
+            }
+
+            int writeFromat = OUTPUT_FORMAT_GPX;
+            if (rc.outputFormat != null) {
+                if ("kml".equals(rc.outputFormat)) {
+                    writeFromat = OUTPUT_FORMAT_KML;
+                }
+                if ("json".equals(rc.outputFormat)) {
+                    writeFromat = OUTPUT_FORMAT_JSON;
+                }
+            }
+
+            final OsmTrack track = cr.getFoundTrack();
+
+            if (track != null) {
+                track.exportWaypoints = rc.exportWaypoints;
+                switch (writeFromat) {
+                    case OUTPUT_FORMAT_KML:
+                        return new FormatKml(rc).format(track);
+                    case OUTPUT_FORMAT_JSON:
+                        return new FormatJson(rc).format(track);
+                    case OUTPUT_FORMAT_GPX:
+                    default:
+                        return new FormatGpx(rc).format(track);
+                }
+            }
+        } else {    // get other infos
+            if (cr.getErrorMessage() != null) {
+                return cr.getErrorMessage();
+            }
+            return cr.getFoundInfo();
+        }
+        return null;
+    }
+
+    /**
+     * Calculates a route like {@link #getTrackFromParams(Bundle)}, but returns the track points as primitive arrays
+     * instead of a formatted track, which saves formatting the track and parsing it again on the receiving side.
+     *
+     * @return bundle containing either the track points (see {@link BRouterConstants#TRACK_LATS_RESULTKEY} and following)
+     * or an error message ({@link BRouterConstants#TRACK_ERROR_RESULTKEY}), empty if no track was found
+     */
+    @NonNull
+    public Bundle getTrackPointsFromParams(final Bundle params) {
+        final RoutingContext rc = new RoutingContext();
+        final RoutingEngine cr = runEngine(params, RoutingEngine.BROUTER_ENGINEMODE_ROUTING, rc);
+        storeRawTrack(cr);
+
+        if (cr.getErrorMessage() != null) {
+            final Bundle result = new Bundle();
+            result.putString(TRACK_ERROR_RESULTKEY, cr.getErrorMessage());
+            return result;
+        }
+        final OsmTrack track = cr.getFoundTrack();
+        return track == null ? new Bundle() : toTrackPoints(track);
+    }
+
+    /**
+     * Looks up the elevations of all given points ("lats"/"lons") in one pass.
+     *
+     * @return bundle containing either the elevations ({@link BRouterConstants#TRACK_ELEVATIONS_RESULTKEY}, NaN if unknown)
+     * or an error message ({@link BRouterConstants#TRACK_ERROR_RESULTKEY})
+     */
+    @NonNull
+    public Bundle getElevationsFromParams(final Bundle params) {
+        final RoutingContext rc = new RoutingContext();
+        final RoutingEngine cr = runEngine(params, RoutingEngine.BROUTER_ENGINEMODE_GETELEVATIONS, rc);
+
+        final Bundle result = new Bundle();
+        final float[] elevations = cr.getFoundElevations();
+        if (cr.getErrorMessage() != null || elevations == null) {
+            result.putString(TRACK_ERROR_RESULTKEY, cr.getErrorMessage() != null ? cr.getErrorMessage() : "no elevations found");
+        } else {
+            result.putFloatArray(TRACK_ELEVATIONS_RESULTKEY, elevations);
+        }
+        return result;
+    }
+
+    /**
+     * Converts the nodes of a track to primitive arrays, using the same coordinate and elevation values as {@link FormatGpx}.
+     * Nodes without elevation get {@link Float#NaN}.
+     */
+    @NonNull
+    public static Bundle toTrackPoints(@NonNull final OsmTrack track) {
+        final int size = track.nodes.size();
+        final double[] lats = new double[size];
+        final double[] lons = new double[size];
+        final float[] elevations = new float[size];
+        for (int i = 0; i < size; i++) {
+            final OsmPathElement n = track.nodes.get(i);
+            lats[i] = (n.getILat() - 90000000) / 1e6;
+            lons[i] = (n.getILon() - 180000000) / 1e6;
+            elevations[i] = n.getSElev() == Short.MIN_VALUE ? Float.NaN : (float) n.getElev();
+        }
+        final Bundle result = new Bundle();
+        result.putDoubleArray(TRACK_LATS_RESULTKEY, lats);
+        result.putDoubleArray(TRACK_LONS_RESULTKEY, lons);
+        result.putFloatArray(TRACK_ELEVATIONS_RESULTKEY, elevations);
+        return result;
+    }
+
+    private static int getEngineMode(final Bundle params) {
         int engineMode = 0;
         if (params.containsKey("engineMode")) {
             engineMode = params.getInt("engineMode", 0);
         }
+        return engineMode;
+    }
+
+    /** store new reference track if any (can exist for timed-out search) */
+    private void storeRawTrack(final RoutingEngine cr) {
+        if (cr.getFoundRawTrack() != null) {
+            try {
+                cr.getFoundRawTrack().writeBinary(rawTrackPath);
+            } catch (Exception ignored) {
+            }
+        }
+    }
 
-        final RoutingContext rc = new RoutingContext();
+    @SuppressWarnings({"PMD.NPathComplexity"})
+    private RoutingEngine runEngine(final Bundle params, final int engineMode, final RoutingContext rc) {
         rc.rawTrackPath = rawTrackPath;
         rc.profileFilename = profileFilename;
+        // consecutive routing requests (e.g. while navigating) mostly need the same map data
+        rc.reuseNodesCache = engineMode == RoutingEngine.BROUTER_ENGINEMODE_ROUTING;
 
         final RoutingParamCollector routingParamCollector = new RoutingParamCollector();
 
@@ -54,10 +198,20 @@ public class BRouterWorker {
             params.remove("lats");
         }
 
+        int[] matrixSources = null;
+        if (params.containsKey(MATRIX_SOURCES_PARAMETERKEY)) {
+            matrixSources = params.getIntArray(MATRIX_SOURCES_PARAMETERKEY);
+            params.remove(MATRIX_SOURCES_PARAMETERKEY);
+        }
+        if (params.containsKey(PAIRING_HEAP_PARAMETERKEY)) {
+            rc.pairingHeap = params.getBoolean(PAIRING_HEAP_PARAMETERKEY);
+            params.remove(PAIRING_HEAP_PARAMETERKEY);
+        }
+
         if (waypoints == null) {
             throw new IllegalArgumentException("no points!");
         }
-        if (engineMode == 0) {
+        if (engineMode == RoutingEngine.BROUTER_ENGINEMODE_ROUTING || engineMode == RoutingEngine.BROUTER_ENGINEMODE_MATRIX) {
             if (waypoints.size() < 2) {
                 throw new IllegalArgumentException("we need two lat/lon points at least!");
             }
@@ -107,53 +261,57 @@ public class BRouterWorker {
         }
 
         final RoutingEngine cr = new RoutingEngine(waypoints, rc, engineMode);
+        cr.setMatrixSources(matrixSources);
         cr.doRun(maxRunningTime);
+        return cr;
+    }
 
-        if (engineMode == RoutingEngine.BROUTER_ENGINEMODE_ROUTING) {
-            // store new reference track if any
-            // (can exist for timed-out search)
-            if (cr.getFoundRawTrack() != null) {
-                try {
-                    cr.getFoundRawTrack().writeBinary(rawTrackPath);
-                } catch (Exception ignored) {
+    /**
+     * Serializes a distance matrix for transfer via the routing service interface:
+     * {@link cgeo.geocaching.brouter.BRouterConstants#MATRIX_RESULT_PREFIX}, followed by one line per row with comma separated values
+     */
+    public static String formatMatrix(final int[][] matrix) {
+        final StringBuilder sb = new StringBuilder(MATRIX_RESULT_PREFIX);
+        for (int[] row : matrix) {
+            for (int col = 0; col < row.length; col++) {
+                if (col > 0) {
+                    sb.append(',');
                 }
+                sb.append(row[col]);
             }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
 
-            if (cr.getErrorMessage() != null) {
-                return cr.getErrorMessage();
-            }
-
-            int writeFromat = OUTPUT_FORMAT_GPX;
-            if (rc.outputFormat != null) {
-                if ("kml".equals(rc.outputFormat)) {
-                    writeFromat = OUTPUT_FORMAT_KML;
+    /**
+     * Parses a distance matrix serialized by {@link #formatMatrix(int[][])}
+     *
+     * @return matrix, or null if given string is not a valid matrix (e.g. an error message)
+     */
+    @Nullable
+    public static int[][] parseMatrix(@Nullable final String result, final int rows, final int columns) {
+        if (result == null || !result.startsWith(MATRIX_RESULT_PREFIX)) {
+            return null;
+        }
+        final String[] lines = result.substring(MATRIX_RESULT_PREFIX.length()).split("\n");
+        if (lines.length != rows) {
+            return null;
+        }
+        final int[][] matrix = new int[rows][columns];
+        try {
+            for (int row = 0; row < rows; row++) {
+                final String[] values = lines[row].split(",");
+                if (values.length != columns) {
+                    return null;
                 }
-                if ("json".equals(rc.outputFormat)) {
-                    writeFromat = OUTPUT_FORMAT_JSON;
+                for (int col = 0; col < columns; col++) {
+                    matrix[row][col] = Integer.parseInt(values[col]);
                 }
             }
-
-            final OsmTrack track = cr.getFoundTrack();
-
-            if (track != null) {
-                track.exportWaypoints = rc.exportWaypoints;
-                switch (writeFromat) {
-                    case OUTPUT_FORMAT_KML:
-                        return new FormatKml(rc).format(track);
-                    case OUTPUT_FORMAT_JSON:
-                        return new FormatJson(rc).format(track);
-                    case OUTPUT_FORMAT_GPX:
-                    default:
-                        return new FormatGpx(rc).format(track);
-                }
-            }
-        } else {    // get other infos
-            if (cr.getErrorMessage() != null) {
-                return cr.getErrorMessage();
-            }
-            return cr.getFoundInfo();
+        } catch (NumberFormatException e) {
+            return null;
         }
-        return null;
+        return matrix;
     }
-
 }
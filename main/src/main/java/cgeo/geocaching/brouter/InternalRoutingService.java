@@ -1,17 +1,21 @@
 package cgeo.geocaching.brouter;
 
 import cgeo.geocaching.brouter.core.RoutingEngine;
+import cgeo.geocaching.brouter.mapaccess.NodesCache;
 import cgeo.geocaching.brouter.util.DefaultFilesUtils;
 import cgeo.geocaching.utils.FileUtils;
 import cgeo.geocaching.utils.Log;
 import static cgeo.geocaching.brouter.BRouterConstants.BROUTER_PROFILE_ELEVATION_ONLY;
 import static cgeo.geocaching.brouter.BRouterConstants.PROFILE_PARAMTERKEY;
+import static cgeo.geocaching.brouter.BRouterConstants.TRACK_ERROR_RESULTKEY;
 
 import android.app.Service;
 import android.content.Intent;
 import android.os.Bundle;
 import android.os.IBinder;
 
+import androidx.annotation.Nullable;
+
 import java.io.File;
 import java.util.ArrayList;
 
@@ -22,37 +26,76 @@ public class InternalRoutingService extends Service {
     private final IInternalRoutingService.Stub myBRouterServiceStub = new IInternalRoutingService.Stub() {
         @Override
         public String getTrackFromParams(final Bundle params) {
-            final BRouterWorker worker = new BRouterWorker();
-
-            int engineMode = 0;
-            if (params.containsKey("engineMode")) {
-                engineMode = params.getInt("engineMode", 0);
+            final BRouterWorker worker = createWorker(params);
+            if (worker == null) {
+                return ""; // cannot calculate a route without a profile
             }
 
-            if (engineMode == RoutingEngine.BROUTER_ENGINEMODE_ROUTING) {
-                worker.profileFilename = params.getString(PROFILE_PARAMTERKEY);
-                if (StringUtils.isBlank(worker.profileFilename)) {
-                    return ""; // cannot calculate a route without a profile
-                }
-            } else {
-                worker.profileFilename = BROUTER_PROFILE_ELEVATION_ONLY;
+            try {
+                return worker.getTrackFromParams(params);
+            } catch (IllegalArgumentException iae) {
+                return iae.getMessage();
             }
+        }
 
-            final String mode = params.getString("v");
-            worker.rawTrackPath = getApplicationContext().getFilesDir().getAbsolutePath() + "/routing/";
-            FileUtils.mkdirs(new File(worker.rawTrackPath));
-            worker.rawTrackPath += mode + "_rawtrack.dat";
+        @Override
+        public Bundle getTrackPointsFromParams(final Bundle params) {
+            params.putInt("engineMode", RoutingEngine.BROUTER_ENGINEMODE_ROUTING);
+            final BRouterWorker worker = createWorker(params);
+            final Bundle result = new Bundle();
+            if (worker == null) {
+                return result; // cannot calculate a route without a profile
+            }
 
-            worker.nogoList = new ArrayList<>();
+            try {
+                return worker.getTrackPointsFromParams(params);
+            } catch (IllegalArgumentException iae) {
+                result.putString(TRACK_ERROR_RESULTKEY, iae.getMessage());
+                return result;
+            }
+        }
 
+        @Override
+        public Bundle getElevationsFromParams(final Bundle params) {
+            params.putInt("engineMode", RoutingEngine.BROUTER_ENGINEMODE_GETELEVATIONS);
+            final BRouterWorker worker = createWorker(params);
             try {
-                return worker.getTrackFromParams(params);
+                return worker.getElevationsFromParams(params);
             } catch (IllegalArgumentException iae) {
-                return iae.getMessage();
+                final Bundle result = new Bundle();
+                result.putString(TRACK_ERROR_RESULTKEY, iae.getMessage());
+                return result;
             }
         }
     };
 
+    @Nullable
+    private BRouterWorker createWorker(final Bundle params) {
+        final BRouterWorker worker = new BRouterWorker();
+
+        int engineMode = 0;
+        if (params.containsKey("engineMode")) {
+            engineMode = params.getInt("engineMode", 0);
+        }
+
+        if (engineMode == RoutingEngine.BROUTER_ENGINEMODE_ROUTING || engineMode == RoutingEngine.BROUTER_ENGINEMODE_MATRIX) {
+            worker.profileFilename = params.getString(PROFILE_PARAMTERKEY);
+            if (StringUtils.isBlank(worker.profileFilename)) {
+                return null;
+            }
+        } else {
+            worker.profileFilename = BROUTER_PROFILE_ELEVATION_ONLY;
+        }
+
+        final String mode = params.getString("v");
+        worker.rawTrackPath = getApplicationContext().getFilesDir().getAbsolutePath() + "/routing/";
+        FileUtils.mkdirs(new File(worker.rawTrackPath));
+        worker.rawTrackPath += mode + "_rawtrack.dat";
+
+        worker.nogoList = new ArrayList<>();
+        return worker;
+    }
+
     @Override
     public IBinder onBind(final Intent arg0) {
         Log.d(getClass().getSimpleName() + "onBind()");
@@ -69,6 +112,7 @@ public class InternalRoutingService extends Service {
     @Override
     public void onDestroy() {
         super.onDestroy();
+        NodesCache.clearWarmCache();
         Log.d(getClass().getSimpleName() + "onDestroy()");
     }
 
@@ -25,6 +25,7 @@ abstract class OsmPath implements OsmLinkHolder {
     // if the corresponding node has not
     public short selev;
     public int airdistance = 0; // distance to endpos
+    public int distance = 0; // length of path in meters
     public OsmPathElement originElement;
     public OsmPathElement myElement;
     public int treedepth = 0;
@@ -76,6 +77,7 @@ abstract class OsmPath implements OsmLinkHolder {
         this.sourceNode = origin.targetNode;
         this.targetNode = link.getTarget(sourceNode);
         this.cost = origin.cost;
+        this.distance = origin.distance;
         this.lastClassifier = origin.lastClassifier;
         this.lastInitialCost = origin.lastInitialCost;
         this.bitfield = origin.bitfield;
@@ -86,6 +88,31 @@ abstract class OsmPath implements OsmLinkHolder {
 
     protected abstract void init(OsmPath orig);
 
+    /**
+     * resets the path to the state of a newly created one, for reuse by {@link OsmPathPool}
+     */
+    void reset() {
+        cost = 0;
+        selev = 0;
+        airdistance = 0;
+        distance = 0;
+        originElement = null;
+        myElement = null;
+        treedepth = 0;
+        originLon = 0;
+        originLat = 0;
+        message = null;
+        sourceNode = null;
+        targetNode = null;
+        link = null;
+        lastClassifier = 0.f;
+        lastInitialCost = 0.f;
+        priorityclassifier = 0;
+        bitfield = PATH_START_BIT;
+        nextForLink = null;
+        resetState();
+    }
+
     protected abstract void resetState();
 
     protected void addAddionalPenalty(final OsmTrack refTrack, final boolean detailMode, final OsmPath origin, final OsmLink link, final RoutingContext rc) {
@@ -227,6 +254,7 @@ abstract class OsmPath implements OsmLinkHolder {
                 } else {
                     // we just start here, reset everything
                     cost = 0;
+                    distance = 0;
                     resetState();
                     lon0 = -1; // reset turncost-pipe
                     lat0 = -1;
@@ -255,6 +283,7 @@ abstract class OsmPath implements OsmLinkHolder {
                 message.linkdist += dist;
             }
             linkdisttotal += dist;
+            distance += dist;
 
             // apply a start-direction if appropriate (by faking the origin position)
             if (isStartpoint) {
@@ -0,0 +1,49 @@
+package cgeo.geocaching.brouter.core;
+
+/**
+ * Pool of paths of one path model, to reuse the paths a search creates as candidates but then discards
+ * <br>
+ * Only paths no longer referenced anywhere (not in the open set, not a link holder, not an origin) may be recycled.
+ */
+final class OsmPathPool {
+    // the search discards at most a few paths per expanded node before creating new ones
+    private static final int MAX_FREE = 64;
+
+    private final OsmPathModel model;
+    private final OsmPath[] free = new OsmPath[MAX_FREE];
+    private int freeCount = 0;
+
+    private long created = 0;
+    private long reused = 0;
+
+    OsmPathPool(final OsmPathModel model) {
+        this.model = model;
+    }
+
+    boolean isFor(final OsmPathModel pm) {
+        return model == pm;
+    }
+
+    OsmPath obtain() {
+        if (freeCount > 0) {
+            reused++;
+            final OsmPath p = free[--freeCount];
+            free[freeCount] = null;
+            return p;
+        }
+        created++;
+        return model.createPath();
+    }
+
+    void recycle(final OsmPath p) {
+        if (freeCount < MAX_FREE) {
+            p.reset();
+            free[freeCount++] = p;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "paths created=" + created + " reused=" + reused;
+    }
+}
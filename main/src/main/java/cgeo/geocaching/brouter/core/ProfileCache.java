@@ -9,6 +9,7 @@ import cgeo.geocaching.brouter.BRouterConstants;
 import cgeo.geocaching.brouter.expressions.BExpressionContextNode;
 import cgeo.geocaching.brouter.expressions.BExpressionContextWay;
 import cgeo.geocaching.brouter.expressions.BExpressionMetaData;
+import cgeo.geocaching.brouter.mapaccess.NodesCache;
 import cgeo.geocaching.storage.ContentStorage;
 import cgeo.geocaching.storage.Folder;
 import cgeo.geocaching.storage.PersistableFolder;
@@ -53,6 +54,8 @@ public final class ProfileCache {
             if (pc != null) {
                 if ((!pc.profilesBusy) && fi.name.equals(pc.lastProfileFilename)) {
                     if (rc.profileTimestamp == pc.lastProfileTimestamp) {
+                        // the nodes cache kept for this profile stops decoding with it
+                        NodesCache.stopWarmUp(pc.expctxWay);
                         rc.expctxWay = pc.expctxWay;
                         rc.expctxNode = pc.expctxNode;
                         rc.readGlobalConfig();
@@ -49,6 +49,11 @@ public final class RoutingContext {
     public double starttimeoffset;
     public boolean transitonly;
     public double waypointCatchingRange;
+    public boolean reuseNodesCache; // keep decoded map data for the next request with the same profile
+    // Experimental: keep the open set of the search in a PairingHeap instead of a SortedHeap. Not used by c:geo itself,
+    // as paths with equal costs are taken in another order, which may change routes
+    public boolean pairingHeap;
+    public boolean recyclePaths = true; // reuse the candidate paths discarded by the search
     public boolean correctMisplacedViaPoints;
     public double correctMisplacedViaPointsDistance;
     public List<OsmNodeNamed> poipoints;
@@ -83,6 +88,7 @@ public final class RoutingContext {
     public double bikerPower;
     public OsmPathModel pm;
     private List<OsmNodeNamed> keepnogopoints = null;
+    private OsmPathPool pathPool;
     private OsmNodeNamed pendingEndpoint = null;
 
     public static void prepareNogoPoints(final List<OsmNodeNamed> nogos) {
@@ -466,15 +472,38 @@ public final class RoutingContext {
     }
 
     public OsmPath createPath(final OsmLink link) {
-        final OsmPath p = pm.createPath();
+        final OsmPath p = obtainPath();
         p.init(link);
         return p;
     }
 
     public OsmPath createPath(final OsmPath origin, final OsmLink link, final OsmTrack refTrack, final boolean detailMode) {
-        final OsmPath p = pm.createPath();
+        final OsmPath p = obtainPath();
         p.init(origin, link, refTrack, detailMode, this);
         return p;
     }
 
+    private OsmPath obtainPath() {
+        if (!recyclePaths) {
+            return pm.createPath();
+        }
+        if (pathPool == null || !pathPool.isFor(pm)) {
+            pathPool = new OsmPathPool(pm);
+        }
+        return pathPool.obtain();
+    }
+
+    /**
+     * hands back a path created by this context for reuse, it must not be referenced anymore
+     */
+    public void recyclePath(final OsmPath p) {
+        if (pathPool != null && recyclePaths) {
+            pathPool.recycle(p);
+        }
+    }
+
+    public String pathPoolStats() {
+        return pathPool == null ? "no path pool" : pathPool.toString();
+    }
+
 }
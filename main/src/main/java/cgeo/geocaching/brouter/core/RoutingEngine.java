@@ -8,13 +8,20 @@ import cgeo.geocaching.brouter.mapaccess.OsmNode;
 import cgeo.geocaching.brouter.mapaccess.OsmNodePairSet;
 import cgeo.geocaching.brouter.mapaccess.OsmPos;
 import cgeo.geocaching.brouter.util.CompactLongMap;
+import cgeo.geocaching.brouter.util.IntKeyHeap;
+import cgeo.geocaching.brouter.util.PairingHeap;
 import cgeo.geocaching.brouter.util.SortedHeap;
 import cgeo.geocaching.utils.Log;
 
+import androidx.annotation.Nullable;
+
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
@@ -25,6 +32,17 @@ public class RoutingEngine extends Thread {
     public static final int BROUTER_ENGINEMODE_ROUTING = 0;
     public static final int BROUTER_ENGINEMODE_SEED = 1;
     public static final int BROUTER_ENGINEMODE_GETELEV = 2;
+    public static final int BROUTER_ENGINEMODE_MATRIX = 3;
+    public static final int BROUTER_ENGINEMODE_GETELEVATIONS = 4;
+
+    // size of the segments of rd5 files in micro degrees
+    private static final int SEGMENT_SIZE = 1000000 / 32;
+
+    /** value in distance matrix for pairs without a route */
+    public static final int MATRIX_NO_ROUTE = -1;
+    // a search from one source is given up if path costs exceed the air distance of all missing targets by this factor
+    private static final int MATRIX_MAX_COST_FACTOR = 20;
+    private static final int MATRIX_MIN_COST_LIMIT = 10000;
 
     public double airDistanceCostFactor;
     public SearchBoundary boundary;
@@ -34,7 +52,7 @@ public class RoutingEngine extends Thread {
     protected String errorMessage = null;
     protected RoutingContext routingContext;
     private NodesCache nodesCache;
-    private final SortedHeap<OsmPath> openSet = new SortedHeap<>();
+    private final IntKeyHeap<OsmPath> openSet;
     private boolean finished = false;
     private int linksProcessed = 0;
     private int nodeLimit; // used for target island search
@@ -50,13 +68,15 @@ public class RoutingEngine extends Thread {
     private OsmPathElement matchPath;
     private long startTime;
     private long maxRunningTime;
-
-    private final boolean directWeaving = !Boolean.getBoolean("disableDirectWeaving");
+    private int[] matrixSources;
+    private int[][] foundMatrix;
+    private float[] foundElevations;
 
     public RoutingEngine(final List<OsmNodeNamed> waypoints, final RoutingContext rc, final int engineMode) {
         this.waypoints = waypoints;
         this.routingContext = rc;
         this.engineMode = engineMode;
+        this.openSet = rc.pairingHeap ? new PairingHeap<>() : new SortedHeap<>();
 
         ProfileCache.parseProfile(rc);
     }
@@ -97,6 +117,18 @@ public class RoutingEngine extends Thread {
                 }
                 doGetElev();
                 break;
+            case BROUTER_ENGINEMODE_GETELEVATIONS:
+                if (waypoints.isEmpty()) {
+                    throw new IllegalArgumentException("we need one lat/lon point at least!");
+                }
+                doGetElevations();
+                break;
+            case BROUTER_ENGINEMODE_MATRIX:
+                if (waypoints.size() < 2) {
+                    throw new IllegalArgumentException("we need two lat/lon points at least!");
+                }
+                doMatrix(maxRunningTime);
+                break;
             default:
                 throw new IllegalArgumentException("not a valid engine mode");
         }
@@ -144,17 +176,12 @@ public class RoutingEngine extends Thread {
         } finally {
             if (hasInfo() && routingContext.expctxWay != null) {
                 logInfo("expression cache stats=" + routingContext.expctxWay.cacheStats());
+                logInfo(routingContext.pathPoolStats());
             }
 
+            // the kept nodes cache decodes with the profile until it is released
+            releaseNodesCache();
             ProfileCache.releaseProfile(routingContext);
-
-            if (nodesCache != null) {
-                if (hasInfo()) {
-                    logInfo("NodesCache status before close=" + nodesCache.formatStatus());
-                }
-                nodesCache.close();
-                nodesCache = null;
-            }
             openSet.clear();
             finished = true; // this signals termination to outside
         }
@@ -198,6 +225,387 @@ public class RoutingEngine extends Thread {
         }
     }
 
+    /**
+     * Bulk version of {@link #doGetElev()}: looks up the elevations of all waypoints in one pass.
+     * <br>
+     * The waypoints are sorted by segment and matched to their nearest ways all at once, so each segment is decoded
+     * only once instead of once per waypoint. The elevation of a waypoint is the one of the nearer node of its way,
+     * same as for {@link #doGetElev()}. Waypoints without routing data nearby get {@link Float#NaN}.
+     */
+    public void doGetElevations() {
+        try {
+            startTime = System.currentTimeMillis();
+
+            final int size = waypoints.size();
+            final List<MatchedWaypoint> points = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                final MatchedWaypoint mwp = new MatchedWaypoint();
+                mwp.waypoint = waypoints.get(i);
+                mwp.name = "wpt_info";
+                mwp.indexInTrack = i;
+                points.add(mwp);
+            }
+            Collections.sort(points, (p1, p2) -> {
+                final int c = Integer.compare(p1.waypoint.ilat / SEGMENT_SIZE, p2.waypoint.ilat / SEGMENT_SIZE);
+                return c != 0 ? c : Integer.compare(p1.waypoint.ilon / SEGMENT_SIZE, p2.waypoint.ilon / SEGMENT_SIZE);
+            });
+
+            resetCache(false);
+            nodesCache.matchPointsToWays(points, routingContext.waypointCatchingRange);
+
+            resetCache(true);
+            nodesCache.nodesMap.cleanupMode = 0;
+
+            foundElevations = new float[size];
+            for (MatchedWaypoint mwp : points) {
+                float elevation = Float.NaN;
+                if (mwp.crosspoint != null) {
+                    final OsmNode nearest = mwp.crosspoint.calcDistance(mwp.node1) < mwp.crosspoint.calcDistance(mwp.node2) ? mwp.node1 : mwp.node2;
+                    final OsmNode node = nodesCache.getGraphNode(nearest);
+                    if (nodesCache.obtainNonHollowNode(node) && node.getSElev() != Short.MIN_VALUE) {
+                        elevation = (float) node.getElev();
+                    }
+                }
+                foundElevations[mwp.indexInTrack] = elevation;
+            }
+
+            final long endTime = System.currentTimeMillis();
+            logInfo("elevations of " + size + " points, execution time = " + (endTime - startTime) / 1000. + " seconds");
+        } catch (IllegalArgumentException e) {
+            logException(e);
+        } catch (Exception e) {
+            logException(e);
+            logThrowable(e);
+        } finally {
+            // the kept nodes cache decodes with the profile until it is released
+            releaseNodesCache();
+            ProfileCache.releaseProfile(routingContext);
+        }
+    }
+
+    /**
+     * Sets the waypoints to calculate distances from in matrix mode (indexes into waypoints list).
+     * If not set, distances are calculated from all waypoints.
+     */
+    public void setMatrixSources(final int[] matrixSources) {
+        this.matrixSources = matrixSources;
+    }
+
+    /**
+     * One-to-many routing: calculates the route distances (in meters) from each source waypoint to all waypoints.
+     * <br>
+     * Waypoints are matched to the routing graph only once. For each source a single Dijkstra search (without air
+     * distance heuristic) is expanded until all targets are reached, instead of one A* search per pair. Map data
+     * loaded for one source is reused for the following ones. Unreachable targets are marked with {@link #MATRIX_NO_ROUTE}.
+     * maxRunningTime applies to each source separately.
+     */
+    public void doMatrix(final long maxRunningTime) {
+        try {
+            final long startTime0 = System.currentTimeMillis();
+            this.maxRunningTime = maxRunningTime;
+            final int[] sources = matrixSources != null ? matrixSources : createRange(waypoints.size());
+            foundMatrix = new int[sources.length][waypoints.size()];
+
+            final List<MatchedWaypoint> matched = matchWaypointsForMatrix();
+            final List<OsmNode> wpts = new ArrayList<>();
+            for (MatchedWaypoint mwp : matched) {
+                if (mwp != null) {
+                    wpts.add(mwp.waypoint);
+                }
+            }
+            routingContext.cleanNogoList(wpts);
+            airDistanceCostFactor = 0.;
+            try {
+                for (int row = 0; row < sources.length; row++) {
+                    Arrays.fill(foundMatrix[row], MATRIX_NO_ROUTE);
+                    final MatchedWaypoint source = matched.get(sources[row]);
+                    if (source == null) {
+                        continue;
+                    }
+                    startTime = System.currentTimeMillis();
+                    try {
+                        searchDistances(source, matched, foundMatrix[row]);
+                    } catch (IllegalArgumentException e) {
+                        // timeout or memory limit for this source, continue with next one
+                        logInfo("matrix search from " + source.name + " stopped: " + e.getMessage());
+                    } finally {
+                        nodesCache.clean(false);
+                    }
+                    foundMatrix[row][sources[row]] = 0;
+                }
+            } finally {
+                routingContext.restoreNogoList();
+            }
+            logInfo("matrix execution time = " + (System.currentTimeMillis() - startTime0) / 1000. + " seconds for " + sources.length + "x" + waypoints.size());
+        } catch (IllegalArgumentException e) {
+            logException(e);
+        } catch (Exception e) {
+            logException(e);
+            logThrowable(e);
+        } catch (Error e) {
+            cleanOnOOM();
+            logException(e);
+            logThrowable(e);
+        } finally {
+            // the kept nodes cache decodes with the profile until it is released
+            releaseNodesCache();
+            ProfileCache.releaseProfile(routingContext);
+            openSet.clear();
+            finished = true; // this signals termination to outside
+        }
+    }
+
+    private static int[] createRange(final int size) {
+        final int[] range = new int[size];
+        for (int i = 0; i < size; i++) {
+            range[i] = i;
+        }
+        return range;
+    }
+
+    /** matches each waypoint separately, so that one unmatched waypoint does not fail the whole matrix */
+    private List<MatchedWaypoint> matchWaypointsForMatrix() {
+        final List<MatchedWaypoint> matched = new ArrayList<>(waypoints.size());
+        for (OsmNodeNamed wp : waypoints) {
+            final MatchedWaypoint mwp = new MatchedWaypoint();
+            mwp.waypoint = wp;
+            mwp.name = wp.name;
+            final List<MatchedWaypoint> single = new ArrayList<>();
+            single.add(mwp);
+            try {
+                matchWaypointsToNodes(single);
+                matched.add(mwp);
+            } catch (IllegalArgumentException e) {
+                if (e.getMessage() != null && e.getMessage().startsWith("datafile ")) {
+                    throw e; // missing routing data is reported to caller
+                }
+                logInfo("matrix: " + e.getMessage());
+                matched.add(null);
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * expands one search frontier from startWp until all targets are reached and writes their route distances into
+     * given array (indexed like targets)
+     */
+    @SuppressWarnings("PMD.NPathComplexity") // follows structure of findTrackHelper
+    private void searchDistances(final MatchedWaypoint startWp, final List<MatchedWaypoint> targets, final int[] distances) {
+        resetCache(false);
+        nodesCache.nodesMap.cleanupMode = routingContext.considerTurnRestrictions ? 2 : 1;
+
+        // targets indexed by both nodes of their way segment
+        final Map<Long, List<Integer>> targetsByNode = new HashMap<>();
+        int missing = 0;
+        for (int t = 0; t < targets.size(); t++) {
+            final MatchedWaypoint target = targets.get(t);
+            if (target == null || target == startWp) {
+                continue;
+            }
+            if (isSameSegment(startWp, target)) {
+                distances[t] = startWp.crosspoint.calcDistance(target.crosspoint);
+                continue;
+            }
+            addTarget(targetsByNode, target.node1.getIdFromPos(), t);
+            addTarget(targetsByNode, target.node2.getIdFromPos(), t);
+            missing++;
+        }
+        if (missing == 0) {
+            return;
+        }
+
+        final OsmNode start1 = nodesCache.getGraphNode(startWp.node1);
+        final OsmNode start2 = nodesCache.getGraphNode(startWp.node2);
+        if (!nodesCache.obtainNonHollowNode(start1)) {
+            return;
+        }
+        nodesCache.expandHollowLinkTargets(start1);
+        if (!nodesCache.obtainNonHollowNode(start2)) {
+            return;
+        }
+        nodesCache.expandHollowLinkTargets(start2);
+        routingContext.startDirectionValid = false;
+
+        // paths ending exactly at a target position, they are not linked into the graph
+        final Map<OsmPath, Integer> targetPaths = new IdentityHashMap<>();
+        openSet.clear();
+        addToOpenset(getStartPath(start1, start2, startWp, null, false));
+        addToOpenset(getStartPath(start2, start1, startWp, null, false));
+        int costLimit = getMatrixCostLimit(startWp, targets, distances);
+
+        for (; ; ) {
+            if (terminated) {
+                throw new IllegalArgumentException("operation killed by thread-priority-watchdog after " + (System.currentTimeMillis() - startTime) / 1000 + " seconds");
+            }
+            if (maxRunningTime > 0 && System.currentTimeMillis() - startTime > maxRunningTime) {
+                throw new IllegalArgumentException("matrix timeout after " + (maxRunningTime / 1000) + " seconds");
+            }
+
+            final OsmPath path = openSet.popLowestKeyValue();
+            if (path == null || path.cost > costLimit) {
+                return;
+            }
+            if (path.airdistance == -1) {
+                continue;
+            }
+
+            final Integer reachedTarget = targetPaths.remove(path);
+            if (reachedTarget != null) {
+                if (distances[reachedTarget] == MATRIX_NO_ROUTE) {
+                    distances[reachedTarget] = path.distance;
+                    missing--;
+                    if (missing == 0) {
+                        return;
+                    }
+                    costLimit = getMatrixCostLimit(startWp, targets, distances);
+                }
+                continue;
+            }
+
+            if (!nodesCache.nodesMap.isInMemoryBounds(openSet.getSize(), true)) {
+                throw new IllegalArgumentException("memory limit reached");
+            }
+
+            linksProcessed++;
+            final OsmLink currentLink = path.getLink();
+            final OsmNode sourceNode = path.getSourceNode();
+            final OsmNode currentNode = path.getTargetNode();
+            if (currentLink.isLinkUnused()) {
+                continue;
+            }
+            if (path.treedepth == 0) { // same segment hack of getStartPath, not used here
+                path.treedepth = 1;
+            }
+
+            final OsmLinkHolder firstLinkHolder = currentLink.getFirstLinkHolder(sourceNode);
+            for (OsmLinkHolder linkHolder = firstLinkHolder; linkHolder != null; linkHolder = linkHolder.getNextForLink()) {
+                ((OsmPath) linkHolder).airdistance = -1; // invalidate the entry in the open set;
+            }
+            if (path.treedepth > 1) {
+                final boolean isBidir = currentLink.isBidirectional();
+                sourceNode.unlinkLink(currentLink);
+                if (isBidir && currentLink.getFirstLinkHolder(currentNode) == null && !routingContext.considerTurnRestrictions) {
+                    currentNode.unlinkLink(currentLink);
+                }
+            }
+
+            nodesCache.nodesMap.currentMaxCost = 1000000000;
+            nodesCache.nodesMap.currentPathCost = path.cost;
+            nodesCache.nodesMap.destination = null;
+
+            routingContext.firstPrePath = null;
+            for (OsmLink link = currentNode.firstlink; link != null; link = link.getNext(currentNode)) {
+                final OsmNode nextNode = link.getTarget(currentNode);
+                if (!nodesCache.obtainNonHollowNode(nextNode) || nextNode.firstlink == null || nextNode == sourceNode) {
+                    continue;
+                }
+                final OsmPrePath prePath = routingContext.createPrePath(path, link);
+                if (prePath != null) {
+                    prePath.next = routingContext.firstPrePath;
+                    routingContext.firstPrePath = prePath;
+                }
+            }
+
+            final long currentNodeId = currentNode.getIdFromPos();
+            for (OsmLink link = currentNode.firstlink; link != null; link = link.getNext(currentNode)) {
+                final OsmNode nextNode = link.getTarget(currentNode);
+                if (!nodesCache.obtainNonHollowNode(nextNode) || nextNode.firstlink == null || nextNode == sourceNode) {
+                    continue;
+                }
+                final long nextNodeId = nextNode.getIdFromPos();
+
+                // paths ending at targets located on this link
+                final List<Integer> candidates = targetsByNode.get(currentNodeId);
+                if (candidates != null) {
+                    for (Integer t : candidates) {
+                        final MatchedWaypoint target = targets.get(t);
+                        if (distances[t] != MATRIX_NO_ROUTE || !isTargetLink(target, currentNodeId, nextNodeId)) {
+                            continue;
+                        }
+                        final OsmNodeNamed endPos = new OsmNodeNamed(target.crosspoint);
+                        endPos.radius = 1.5;
+                        final OsmPath targetPath;
+                        try {
+                            routingContext.setWaypoint(endPos, true);
+                            targetPath = createBestPath(firstLinkHolder, link);
+                        } finally {
+                            routingContext.unsetWaypoint();
+                        }
+                        if (targetPath != null) {
+                            targetPath.airdistance = 0;
+                            targetPaths.put(targetPath, t);
+                            addToOpenset(targetPath);
+                        }
+                    }
+                }
+
+                final OsmPath bestPath = createBestPath(firstLinkHolder, link);
+                if (bestPath == null || (boundary != null && !boundary.isInBoundary(nextNode, bestPath.cost))) {
+                    continue;
+                }
+                bestPath.airdistance = 0;
+                // add only if this may beat an existing path for that link
+                OsmLinkHolder dominator = link.getFirstLinkHolder(currentNode);
+                while (dominator != null) {
+                    final OsmPath dp = (OsmPath) dominator;
+                    if (dp.airdistance != -1 && bestPath.definitlyWorseThan(dp)) {
+                        break;
+                    }
+                    dominator = dominator.getNextForLink();
+                }
+                if (dominator == null) {
+                    bestPath.treedepth = path.treedepth + 1;
+                    link.addLinkHolder(bestPath, currentNode);
+                    addToOpenset(bestPath);
+                }
+            }
+        }
+    }
+
+    @Nullable
+    private OsmPath createBestPath(final OsmLinkHolder firstLinkHolder, final OsmLink link) {
+        OsmPath bestPath = null;
+        for (OsmLinkHolder linkHolder = firstLinkHolder; linkHolder != null; linkHolder = linkHolder.getNextForLink()) {
+            final OsmPath testPath = routingContext.createPath((OsmPath) linkHolder, link, null, false);
+            if (testPath.cost >= 0 && (bestPath == null || testPath.cost < bestPath.cost) &&
+                    (testPath.sourceNode.getIdFromPos() != testPath.targetNode.getIdFromPos())) {
+                bestPath = testPath;
+            }
+        }
+        return bestPath;
+    }
+
+    private static void addTarget(final Map<Long, List<Integer>> targetsByNode, final long nodeId, final int target) {
+        List<Integer> targets = targetsByNode.get(nodeId);
+        if (targets == null) {
+            targets = new ArrayList<>(1);
+            targetsByNode.put(nodeId, targets);
+        }
+        targets.add(target);
+    }
+
+    private static boolean isTargetLink(final MatchedWaypoint target, final long nodeId1, final long nodeId2) {
+        final long targetId1 = target.node1.getIdFromPos();
+        final long targetId2 = target.node2.getIdFromPos();
+        return (nodeId1 == targetId1 && nodeId2 == targetId2) || (nodeId1 == targetId2 && nodeId2 == targetId1);
+    }
+
+    private static boolean isSameSegment(final MatchedWaypoint wp1, final MatchedWaypoint wp2) {
+        return isTargetLink(wp2, wp1.node1.getIdFromPos(), wp1.node2.getIdFromPos());
+    }
+
+    private static int getMatrixCostLimit(final MatchedWaypoint startWp, final List<MatchedWaypoint> targets, final int[] distances) {
+        int maxAirDistance = 0;
+        for (int t = 0; t < targets.size(); t++) {
+            final MatchedWaypoint target = targets.get(t);
+            if (target != null && distances[t] == MATRIX_NO_ROUTE) {
+                maxAirDistance = Math.max(maxAirDistance, startWp.crosspoint.calcDistance(target.crosspoint));
+            }
+        }
+        return (int) Math.min(1000000000L, Math.max(MATRIX_MIN_COST_LIMIT, (long) maxAirDistance * MATRIX_MAX_COST_FACTOR));
+    }
+
     @SuppressWarnings("PMD.NPathComplexity") // external code, do not split
     private void postElevationCheck(OsmTrack track) {
         OsmPathElement lastPt = null;
@@ -329,6 +737,23 @@ public class RoutingEngine extends Thread {
     }
 
 
+    /** closes the nodes cache, or keeps it for the next request if reusable and not terminated (e.g. by an OutOfMemoryError) */
+    private void releaseNodesCache() {
+        if (nodesCache == null) {
+            return;
+        }
+        if (hasInfo()) {
+            logInfo("NodesCache status before close=" + nodesCache.formatStatus());
+            logInfo("NodesCache " + nodesCache.getStatistics());
+        }
+        if (routingContext.reuseNodesCache && !terminated) {
+            nodesCache.keepWarm();
+        } else {
+            nodesCache.close();
+        }
+        nodesCache = null;
+    }
+
     public void cleanOnOOM() {
         terminate();
     }
@@ -894,7 +1319,11 @@ public class RoutingEngine extends Thread {
         }
         final long maxmem = routingContext.memoryclass * 1024L * 1024L; // in MB
 
-        nodesCache = new NodesCache(routingContext.expctxWay, maxmem, nodesCache, detailed);
+        NodesCache oldCache = nodesCache;
+        if (oldCache == null && routingContext.reuseNodesCache) {
+            oldCache = NodesCache.takeWarmCache(routingContext.expctxWay);
+        }
+        nodesCache = new NodesCache(routingContext.expctxWay, maxmem, oldCache, detailed);
         islandNodePairs.clearTempPairs();
     }
 
@@ -1100,7 +1529,7 @@ public class RoutingEngine extends Thread {
                     continue;
                 }
 
-                if (directWeaving && nodesCache.hasHollowLinkTargets(path.getTargetNode())) {
+                if (nodesCache.isDirectWeaving() && nodesCache.hasHollowLinkTargets(path.getTargetNode())) {
                     if (!memoryPanicMode && !nodesCache.nodesMap.isInMemoryBounds(openSet.getSize(), false)) {
                         final int nodesBefore = nodesCache.nodesMap.nodesCreated;
                         final int pathsBefore = openSet.getSize();
@@ -1315,7 +1744,12 @@ public class RoutingEngine extends Thread {
                             final OsmPath testPath = routingContext.createPath(otherPath, link, refTrack, guideTrack != null);
                             if (testPath.cost >= 0 && (bestPath == null || testPath.cost < bestPath.cost) &&
                                     (testPath.sourceNode.getIdFromPos() != testPath.targetNode.getIdFromPos())) {
+                                if (bestPath != null) {
+                                    routingContext.recyclePath(bestPath);
+                                }
                                 bestPath = testPath;
+                            } else {
+                                routingContext.recyclePath(testPath);
                             }
                         } finally {
                             if (isFinalLink) {
@@ -1328,6 +1762,7 @@ public class RoutingEngine extends Thread {
 
                         final boolean inRadius = boundary == null || boundary.isInBoundary(nextNode, bestPath.cost);
 
+                        boolean added = false;
                         if (inRadius && (isFinalLink || bestPath.cost + bestPath.airdistance <= (lastAirDistanceCostFactor != 0. ? maxTotalCost * lastAirDistanceCostFactor : maxTotalCost) + addDiff)) {
                             // add only if this may beat an existing path for that link
                             OsmLinkHolder dominator = link.getFirstLinkHolder(currentNode);
@@ -1343,8 +1778,12 @@ public class RoutingEngine extends Thread {
                                 bestPath.treedepth = path.treedepth + 1;
                                 link.addLinkHolder(bestPath, currentNode);
                                 addToOpenset(bestPath);
+                                added = true;
                             }
                         }
+                        if (!added) {
+                            routingContext.recyclePath(bestPath); // not referenced anywhere
+                        }
                     }
                 }
             }
@@ -1466,6 +1905,21 @@ public class RoutingEngine extends Thread {
         return outputMessage;
     }
 
+    /**
+     * @return elevations found by {@link #doGetElevations()} (indexed like the waypoints, NaN if unknown), null on errors
+     */
+    public float[] getFoundElevations() {
+        return foundElevations;
+    }
+
+    /**
+     * distances calculated in matrix mode, one row per source, one column per waypoint (in meters,
+     * {@link #MATRIX_NO_ROUTE} if no route was found)
+     */
+    public int[][] getFoundMatrix() {
+        return foundMatrix;
+    }
+
     public OsmTrack getFoundRawTrack() {
         return foundRawTrack;
     }
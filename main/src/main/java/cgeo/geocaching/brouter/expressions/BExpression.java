@@ -331,6 +331,108 @@ final class BExpression {
         }
     }
 
+    /**
+     * appends the instructions for this expression to the given program,
+     * the result ends up in the given register, higher registers are used for the operands
+     */
+    // mirrors evaluate()
+    @SuppressWarnings("PMD.CyclomaticComplexity")
+    void compile(final BExpressionProgram.Builder b, final int reg) {
+        switch (typ) {
+            case OR_EXP: {
+                op1.compile(b, reg);
+                final int skip = b.emit(BExpressionProgram.OR_SKIP, reg, 0);
+                op2.compile(b, reg);
+                b.emit(BExpressionProgram.BOOLEAN, reg, 0);
+                b.patchJump(skip);
+                break;
+            }
+            case AND_EXP: {
+                op1.compile(b, reg);
+                final int skip = b.emit(BExpressionProgram.AND_SKIP, reg, 0);
+                op2.compile(b, reg);
+                b.emit(BExpressionProgram.BOOLEAN, reg, 0);
+                b.patchJump(skip);
+                break;
+            }
+            case XOR_EXP:
+                compileBinary(b, reg, BExpressionProgram.XOR);
+                break;
+            case ADD_EXP:
+                compileBinary(b, reg, BExpressionProgram.ADD);
+                break;
+            case SUB_EXP:
+                compileBinary(b, reg, BExpressionProgram.SUB);
+                break;
+            case MULTIPLY_EXP:
+                compileBinary(b, reg, BExpressionProgram.MULTIPLY);
+                break;
+            case DIVIDE_EXP:
+                compileBinary(b, reg, BExpressionProgram.DIVIDE);
+                break;
+            case MAX_EXP:
+                compileBinary(b, reg, BExpressionProgram.MAX);
+                break;
+            case MIN_EXP:
+                compileBinary(b, reg, BExpressionProgram.MIN);
+                break;
+            case EQUAL_EXP:
+                compileBinary(b, reg, BExpressionProgram.EQUAL);
+                break;
+            case GREATER_EXP:
+                compileBinary(b, reg, BExpressionProgram.GREATER);
+                break;
+            case LESSER_EXP:
+                compileBinary(b, reg, BExpressionProgram.LESSER);
+                break;
+            case SWITCH_EXP: {
+                op1.compile(b, reg);
+                final int toElse = b.emit(BExpressionProgram.JUMP_IF_FALSE, reg, 0);
+                op2.compile(b, reg);
+                final int toEnd = b.emit(BExpressionProgram.JUMP, reg, 0);
+                b.patchJump(toElse);
+                op3.compile(b, reg);
+                b.patchJump(toEnd);
+                break;
+            }
+            case ASSIGN_EXP:
+                op1.compile(b, reg);
+                b.emit(BExpressionProgram.ASSIGN, reg, variableIdx);
+                break;
+            case LOOKUP_EXP:
+                if (lookupValueIdxArray.length == 1) {
+                    b.emit(BExpressionProgram.LOOKUP_EQUALS, reg, lookupNameIdx, lookupValueIdxArray[0]);
+                } else {
+                    b.emit(BExpressionProgram.LOOKUP_MATCH, reg, lookupNameIdx, b.addLookupValues(lookupValueIdxArray));
+                }
+                break;
+            case NUMBER_EXP:
+                b.emit(BExpressionProgram.NUMBER, reg, b.addConstant(numberValue));
+                break;
+            case VARIABLE_EXP:
+                b.emit(BExpressionProgram.VARIABLE, reg, variableIdx);
+                break;
+            case FOREIGN_VARIABLE_EXP:
+                b.emit(BExpressionProgram.FOREIGN_VARIABLE, reg, variableIdx);
+                break;
+            case VARIABLE_GET_EXP:
+                b.emit(BExpressionProgram.LOOKUP_VALUE, reg, lookupNameIdx);
+                break;
+            case NOT_EXP:
+                op1.compile(b, reg);
+                b.emit(BExpressionProgram.NOT, reg, 0);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown op-code: " + typ);
+        }
+    }
+
+    private void compileBinary(final BExpressionProgram.Builder b, final int reg, final int op) {
+        op1.compile(b, reg);
+        op2.compile(b, reg + 1);
+        b.emit(op, reg, reg + 1);
+    }
+
     // Try to collapse the expression
     // if logically possible
     private BExpression tryCollapse() {
@@ -56,6 +56,10 @@ public abstract class BExpressionContext implements IByteArrayUnifier {
     private final VarWrapper probeVarSet = new VarWrapper();
     private LruMap resultVarCache;
     private List<BExpression> expressionList;
+    // compiled form of expressionList and its registers
+    private BExpressionProgram program;
+    private float[] registers;
+    private boolean compiledEvaluation = !Boolean.getBoolean("disableExpressionCompilation");
     private int minWriteIdx;
     // build-in variable indexes for fast access
     private int[] buildInVariableIdx;
@@ -286,6 +290,10 @@ public abstract class BExpressionContext implements IByteArrayUnifier {
     }
 
     private void evaluate() {
+        if (compiledEvaluation) {
+            program.execute(registers, variableData, lookupData, foreignContext);
+            return;
+        }
         final int n = expressionList.size();
         for (int expidx = 0; expidx < n; expidx++) {
             expressionList.get(expidx).evaluate(this);
@@ -672,6 +680,7 @@ public abstract class BExpressionContext implements IByteArrayUnifier {
 
                 final InputStream is2 = ContentStorage.get().openForRead(uri);
                 expressionList = parseFileHelper(is2, keyValues);
+                compileExpressions();
                 variableData = new float[variableNumbers.size()];
                 evaluate(lookupData); // lookupData is dummy here - evaluate just to create the variables
                 context = realContext;
@@ -680,6 +689,7 @@ public abstract class BExpressionContext implements IByteArrayUnifier {
             minWriteIdx = variableData == null ? 0 : variableData.length;
 
             expressionList = parseFileHelper(is, null);
+            compileExpressions();
             lastAssignedExpression = null;
 
             // determine the build-in variable indices
@@ -705,6 +715,19 @@ public abstract class BExpressionContext implements IByteArrayUnifier {
         }
     }
 
+    private void compileExpressions() {
+        program = BExpressionProgram.compile(expressionList);
+        registers = new float[program.getRegisterCount()];
+    }
+
+    /**
+     * switches between executing the compiled expressions (default) and interpreting the expression trees,
+     * both give the same results
+     */
+    void setCompiledEvaluation(final boolean compiledEvaluation) {
+        this.compiledEvaluation = compiledEvaluation;
+    }
+
     private List<BExpression> parseFileHelper(final InputStream is, Map<String, String> keyValues) throws Exception {
         br = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
         readerDone = false;
@@ -0,0 +1,254 @@
+package cgeo.geocaching.brouter.expressions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Flattened form of the expressions of a profile context, compiled once after parsing the profile.
+ * <br>
+ * Instead of walking the {@link BExpression} tree for every new tag combination, the expressions are executed
+ * as a linear list of register based instructions. The registers replace the recursion of the tree walk: each
+ * operand of an expression gets its own register, the result of an expression ends up in the register of its
+ * left operand. OR, AND and SWITCH expressions are compiled to jumps, so that only those operands are evaluated
+ * which the tree walk would evaluate. Operations are executed in the same order as by the tree walk, so the
+ * results are bit-identical.
+ * <br>
+ * A program is immutable, the registers are provided by the caller.
+ */
+final class BExpressionProgram {
+
+    // instruction layout: opcode, register, two operands
+    private static final int WIDTH = 4;
+
+    // r[reg] = constants[a]
+    static final int NUMBER = 1;
+    // r[reg] = variables[a]
+    static final int VARIABLE = 2;
+    // r[reg] = build-in variable a of the foreign context
+    static final int FOREIGN_VARIABLE = 3;
+    // r[reg] = numeric value of lookup a
+    static final int LOOKUP_VALUE = 4;
+    // r[reg] = lookup a has value b
+    static final int LOOKUP_EQUALS = 5;
+    // r[reg] = lookup a has one of the values lookupValues[b]
+    static final int LOOKUP_MATCH = 6;
+    // variables[a] = r[reg]
+    static final int ASSIGN = 7;
+    // r[reg] = r[reg] op r[a]
+    static final int ADD = 10;
+    static final int SUB = 11;
+    static final int MULTIPLY = 12;
+    static final int DIVIDE = 13;
+    static final int MAX = 14;
+    static final int MIN = 15;
+    static final int EQUAL = 16;
+    static final int GREATER = 17;
+    static final int LESSER = 18;
+    static final int XOR = 19;
+    // r[reg] = !r[reg] resp. r[reg] normalized to 0 or 1
+    static final int NOT = 20;
+    static final int BOOLEAN = 21;
+    // jumps to a, conditional jumps depend on r[reg]
+    static final int JUMP = 30;
+    static final int JUMP_IF_FALSE = 31;
+    // short cuts of AND and OR: jump to a with result 0 resp. 1 in r[reg]
+    static final int AND_SKIP = 32;
+    static final int OR_SKIP = 33;
+
+    private final int[] code;
+    private final float[] constants;
+    private final int[][] lookupValues;
+    private final int registerCount;
+
+    private BExpressionProgram(final int[] code, final float[] constants, final int[][] lookupValues, final int registerCount) {
+        this.code = code;
+        this.constants = constants;
+        this.lookupValues = lookupValues;
+        this.registerCount = registerCount;
+    }
+
+    static BExpressionProgram compile(final List<BExpression> expressions) {
+        final Builder builder = new Builder();
+        for (BExpression exp : expressions) {
+            exp.compile(builder, 0);
+        }
+        return builder.build();
+    }
+
+    int getRegisterCount() {
+        return registerCount;
+    }
+
+    /**
+     * executes the program, same as evaluating the compiled expressions one after the other
+     *
+     * @param r              registers, at least {@link #getRegisterCount()}
+     * @param variables      variable data of the context
+     * @param lookupData     decoded lookup data of the context
+     * @param foreignContext context to read foreign variables from
+     */
+    // a plain switch over all opcodes is what makes this fast
+    @SuppressWarnings({"PMD.NPathComplexity", "PMD.ExcessiveMethodLength", "PMD.CyclomaticComplexity"})
+    void execute(final float[] r, final float[] variables, final int[] lookupData, final BExpressionContext foreignContext) {
+        final int[] code = this.code;
+        final int end = code.length;
+        int pc = 0;
+        while (pc < end) {
+            final int reg = code[pc + 1];
+            final int a = code[pc + 2];
+            switch (code[pc]) {
+                case NUMBER:
+                    r[reg] = constants[a];
+                    break;
+                case VARIABLE:
+                    r[reg] = variables[a];
+                    break;
+                case FOREIGN_VARIABLE:
+                    r[reg] = foreignContext.getBuildInVariable(a);
+                    break;
+                case LOOKUP_VALUE: {
+                    final int val = lookupData[a];
+                    r[reg] = val == 0 ? Float.NaN : (val - 1000) / 100f;
+                    break;
+                }
+                case LOOKUP_EQUALS:
+                    r[reg] = lookupData[a] == code[pc + 3] ? 1.f : 0.f;
+                    break;
+                case LOOKUP_MATCH: {
+                    final int val = lookupData[a];
+                    float match = 0.f;
+                    for (int j : lookupValues[code[pc + 3]]) {
+                        if (val == j) {
+                            match = 1.f;
+                            break;
+                        }
+                    }
+                    r[reg] = match;
+                    break;
+                }
+                case ASSIGN:
+                    variables[a] = r[reg];
+                    break;
+                case ADD:
+                    r[reg] = r[reg] + r[a];
+                    break;
+                case SUB:
+                    r[reg] = r[reg] - r[a];
+                    break;
+                case MULTIPLY:
+                    r[reg] = r[reg] * r[a];
+                    break;
+                case DIVIDE:
+                    if (r[a] == 0f) {
+                        throw new IllegalArgumentException("div by zero");
+                    }
+                    r[reg] = r[reg] / r[a];
+                    break;
+                case MAX:
+                    r[reg] = Math.max(r[reg], r[a]);
+                    break;
+                case MIN:
+                    r[reg] = Math.min(r[reg], r[a]);
+                    break;
+                case EQUAL:
+                    r[reg] = r[reg] == r[a] ? 1.f : 0.f;
+                    break;
+                case GREATER:
+                    r[reg] = r[reg] > r[a] ? 1.f : 0.f;
+                    break;
+                case LESSER:
+                    r[reg] = r[reg] < r[a] ? 1.f : 0.f;
+                    break;
+                case XOR:
+                    r[reg] = (r[reg] != 0.f) ^ (r[a] != 0.f) ? 1.f : 0.f;
+                    break;
+                case NOT:
+                    r[reg] = r[reg] == 0.f ? 1.f : 0.f;
+                    break;
+                case BOOLEAN:
+                    r[reg] = r[reg] != 0.f ? 1.f : 0.f;
+                    break;
+                case JUMP:
+                    pc = a;
+                    continue;
+                case JUMP_IF_FALSE:
+                    if (r[reg] == 0.f) {
+                        pc = a;
+                        continue;
+                    }
+                    break;
+                case AND_SKIP:
+                    if (r[reg] == 0.f) {
+                        r[reg] = 0.f; // also for -0
+                        pc = a;
+                        continue;
+                    }
+                    break;
+                case OR_SKIP:
+                    if (r[reg] != 0.f) {
+                        r[reg] = 1.f;
+                        pc = a;
+                        continue;
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown op-code: " + code[pc]);
+            }
+            pc += WIDTH;
+        }
+    }
+
+    static final class Builder {
+        private int[] code = new int[256];
+        private int size = 0;
+        private final List<Float> constants = new ArrayList<>();
+        private final List<int[]> lookupValues = new ArrayList<>();
+        private int registerCount = 0;
+
+        /**
+         * @return position of the instruction, to {@link #patchJump(int)} it later
+         */
+        int emit(final int op, final int reg, final int a) {
+            return emit(op, reg, a, 0);
+        }
+
+        int emit(final int op, final int reg, final int a, final int b) {
+            if (size + WIDTH > code.length) {
+                code = Arrays.copyOf(code, code.length * 2);
+            }
+            final int pos = size;
+            code[size++] = op;
+            code[size++] = reg;
+            code[size++] = a;
+            code[size++] = b;
+            registerCount = Math.max(registerCount, reg + 1);
+            return pos;
+        }
+
+        /**
+         * lets the jump instruction at the given position jump to the next instruction emitted
+         */
+        void patchJump(final int pos) {
+            code[pos + 2] = size;
+        }
+
+        int addConstant(final float value) {
+            constants.add(value);
+            return constants.size() - 1;
+        }
+
+        int addLookupValues(final int[] valueIdxArray) {
+            lookupValues.add(valueIdxArray);
+            return lookupValues.size() - 1;
+        }
+
+        BExpressionProgram build() {
+            final float[] c = new float[constants.size()];
+            for (int i = 0; i < c.length; i++) {
+                c[i] = constants.get(i);
+            }
+            return new BExpressionProgram(Arrays.copyOf(code, size), c, lookupValues.toArray(new int[0][]), registerCount);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package cgeo.geocaching.brouter.mapaccess;
+
+import cgeo.geocaching.brouter.codec.WaypointMatcher;
+import cgeo.geocaching.brouter.util.CheapRulerHelper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Matches a large number of points to their nearest way, e.g. all points of a track to look up their elevation.
+ * <br>
+ * Unlike {@link WaypointMatcherImpl} the points are kept in buckets by position, so that each way geometry fed by
+ * the decoder is checked against the points nearby only. Directions are not considered, each point gets the nearest
+ * way as crosspoint, node1 and node2 (the nodes of the link containing the crosspoint).
+ */
+final class BulkWaypointMatcher implements WaypointMatcher {
+
+    // bucket size in micro degrees (about 1km), should exceed the catching range
+    private static final int BUCKET_SIZE = 10000;
+
+    private final Map<Long, List<MatchedWaypoint>> buckets = new HashMap<>();
+    private final double maxDistance;
+
+    private int lonStart;
+    private int latStart;
+    private int lonTarget;
+    private int latTarget;
+    private int lonLast;
+    private int latLast;
+
+    BulkWaypointMatcher(final List<MatchedWaypoint> points, final double maxDistance) {
+        this.maxDistance = maxDistance;
+        for (MatchedWaypoint mwp : points) {
+            mwp.radius = maxDistance;
+            final long key = bucketKey(mwp.waypoint.ilon / BUCKET_SIZE, mwp.waypoint.ilat / BUCKET_SIZE);
+            List<MatchedWaypoint> bucket = buckets.get(key);
+            if (bucket == null) {
+                bucket = new ArrayList<>();
+                buckets.put(key, bucket);
+            }
+            bucket.add(mwp);
+        }
+    }
+
+    private static long bucketKey(final int lonIdx, final int latIdx) {
+        return ((long) lonIdx) << 32 | (latIdx & 0xffffffffL);
+    }
+
+    @Override
+    public boolean start(final int ilonStart, final int ilatStart, final int ilonTarget, final int ilatTarget) {
+        lonStart = ilonStart;
+        latStart = ilatStart;
+        lonTarget = ilonTarget;
+        latTarget = ilatTarget;
+        lonLast = ilonStart;
+        latLast = ilatStart;
+        return true;
+    }
+
+    @Override
+    public void transferNode(final int ilon, final int ilat) {
+        checkSegment(lonLast, latLast, ilon, ilat);
+        lonLast = ilon;
+        latLast = ilat;
+    }
+
+    @Override
+    public void end() {
+        checkSegment(lonLast, latLast, lonTarget, latTarget);
+    }
+
+    private void checkSegment(final int lon1, final int lat1, final int lon2, final int lat2) {
+        final double[] lonlat2m = CheapRulerHelper.getLonLatToMeterScales((lat1 + lat2) >> 1);
+        final double dlon2m = lonlat2m[0];
+        final double dlat2m = lonlat2m[1];
+
+        final double dx = (lon2 - lon1) * dlon2m;
+        final double dy = (lat2 - lat1) * dlat2m;
+        final double d = Math.sqrt(dy * dy + dx * dx);
+        if (d == 0.) {
+            return;
+        }
+
+        // buckets of all points within catching range of the segment
+        final int rangeLon = (int) (maxDistance / dlon2m) + 1;
+        final int rangeLat = (int) (maxDistance / dlat2m) + 1;
+        final int lonIdxMax = (Math.max(lon1, lon2) + rangeLon) / BUCKET_SIZE;
+        final int latIdxMax = (Math.max(lat1, lat2) + rangeLat) / BUCKET_SIZE;
+        for (int lonIdx = (Math.min(lon1, lon2) - rangeLon) / BUCKET_SIZE; lonIdx <= lonIdxMax; lonIdx++) {
+            for (int latIdx = (Math.min(lat1, lat2) - rangeLat) / BUCKET_SIZE; latIdx <= latIdxMax; latIdx++) {
+                final List<MatchedWaypoint> bucket = buckets.get(bucketKey(lonIdx, latIdx));
+                if (bucket != null) {
+                    for (MatchedWaypoint mwp : bucket) {
+                        checkPoint(mwp, lon1, lat1, lon2, lat2, dlon2m, dlat2m, dx, dy, d);
+                    }
+                }
+            }
+        }
+    }
+
+    // same geometry as WaypointMatcherImpl.checkSegment
+    private void checkPoint(final MatchedWaypoint mwp, final int lon1, final int lat1, final int lon2, final int lat2,
+                            final double dlon2m, final double dlat2m, final double dx, final double dy, final double d) {
+        final OsmNode wp = mwp.waypoint;
+
+        final double x1 = (lon1 - wp.ilon) * dlon2m;
+        final double y1 = (lat1 - wp.ilat) * dlat2m;
+        final double x2 = (lon2 - wp.ilon) * dlon2m;
+        final double y2 = (lat2 - wp.ilat) * dlat2m;
+        final double r12 = x1 * x1 + y1 * y1;
+        final double r22 = x2 * x2 + y2 * y2;
+        double radius = Math.abs(r12 < r22 ? y1 * dx - x1 * dy : y2 * dx - x2 * dy) / d;
+        if (radius > mwp.radius) {
+            return;
+        }
+
+        double s1 = x1 * dx + y1 * dy;
+        double s2 = x2 * dx + y2 * dy;
+        if (s1 < 0.) {
+            s1 = -s1;
+            s2 = -s2;
+        }
+        if (s2 > 0.) {
+            radius = Math.sqrt(s1 < s2 ? r12 : r22);
+            if (radius > mwp.radius) {
+                return;
+            }
+        }
+
+        // new match for that point
+        mwp.radius = radius;
+        if (mwp.crosspoint == null) {
+            mwp.crosspoint = new OsmNode();
+        }
+        if (s2 < 0.) {
+            final double wayfraction = -s2 / (d * d);
+            final double xm = x2 - wayfraction * dx;
+            final double ym = y2 - wayfraction * dy;
+            mwp.crosspoint.ilon = (int) (xm / dlon2m + wp.ilon);
+            mwp.crosspoint.ilat = (int) (ym / dlat2m + wp.ilat);
+        } else if (s1 > s2) {
+            mwp.crosspoint.ilon = lon2;
+            mwp.crosspoint.ilat = lat2;
+        } else {
+            mwp.crosspoint.ilon = lon1;
+            mwp.crosspoint.ilat = lat1;
+        }
+        mwp.node1 = new OsmNode(lonStart, latStart);
+        mwp.node2 = new OsmNode(lonTarget, latTarget);
+    }
+}
@@ -14,12 +14,17 @@ import cgeo.geocaching.storage.ContentStorage;
 import cgeo.geocaching.storage.PersistableFolder;
 import cgeo.geocaching.utils.Log;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
 import java.io.Closeable;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -36,6 +41,7 @@ public final class NodesCache implements Closeable {
     private final Map<String, PhysicalFile> fileCache;
     private final DataBuffers dataBuffers;
     private final OsmFile[][] fileRows;
+    private final OsmFile[][] otherFileRows; // rows of the other detail mode, kept for the next switch of detail mode
     private long cacheSum = 0;
     private long maxmemtiles;
     private final boolean detailed; // NOPMD used in constructor
@@ -48,10 +54,19 @@ public final class NodesCache implements Closeable {
     private long ghostSum = 0;
     private long ghostWakeup = 0;
 
-    private final boolean directWeaving = !Boolean.getBoolean("disableDirectWeaving");
+    private final boolean directWeaving;
+    private final SegmentStatistics statistics;
 
     private static final Hashtable<String, FileInformationCacheEntry> folderInfoCache = new Hashtable<>();
 
+    // cache kept between routing requests, see keepWarm() and takeWarmCache()
+    private static final long WARM_CACHE_MAX_AGE = 60000;
+    private static NodesCache warmCache;
+    private static long warmCacheTimestamp;
+    // decodes the segments woven by the last request while the cache is kept, see startWarmUp()
+    private Thread warmUp;
+    private volatile boolean warmUpStopped;
+
     private static class FileInformationCacheEntry {
         public ContentStorage.FileInformation fi;
         public long fiTimestamp;
@@ -62,6 +77,55 @@ public final class NodesCache implements Closeable {
         }
     }
 
+    /**
+     * decoded segments and their files of a routing request, shared by all caches created for it
+     * (and by following requests, if the cache is kept warm)
+     */
+    public static final class SegmentStatistics {
+        private int decoded;
+        private int reused;
+        private long decodeNanos;
+        private long totalDecoded;
+        private long totalDecodeNanos;
+
+        private void startRequest() {
+            decoded = 0;
+            reused = 0;
+            decodeNanos = 0;
+        }
+
+        private void addDecoded(final long nanos) {
+            decoded++;
+            decodeNanos += nanos;
+            totalDecoded++;
+            totalDecodeNanos += nanos;
+        }
+
+        public int getDecoded() {
+            return decoded;
+        }
+
+        public int getReused() {
+            return reused;
+        }
+
+        public double getReuseRatio() {
+            return decoded + reused == 0 ? 0 : reused / (double) (decoded + reused);
+        }
+
+        /** estimated decode time saved by reused segments, based on the average decode time of all segments decoded so far */
+        public long getSavedDecodeMillis() {
+            return totalDecoded == 0 ? 0 : reused * (totalDecodeNanos / totalDecoded) / 1000000L;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "segments decoded=" + decoded + " (" + decodeNanos / 1000000L + "ms) reused=" + reused
+                    + " reuseRatio=" + Math.round(getReuseRatio() * 100) + "% decodeTimeSaved=" + getSavedDecodeMillis() + "ms";
+        }
+    }
+
     public NodesCache(final BExpressionContextWay ctxWay, final long maxmem, final NodesCache oldCache, final boolean detailed) {
         this.maxmemtiles = maxmem / 8;
         this.nodesMap = new OsmNodesMap();
@@ -76,33 +140,203 @@ public final class NodesCache implements Closeable {
 
         firstFileAccessFailed = false;
         firstFileAccessName = null;
+        directWeaving = !Boolean.getBoolean("disableDirectWeaving");
+        statistics = oldCache != null ? oldCache.statistics : new SegmentStatistics();
 
         if (oldCache != null) {
             fileCache = oldCache.fileCache;
             dataBuffers = oldCache.dataBuffers;
 
-            // re-use old, virgin caches (if same detail-mode)
+            // re-use old, virgin caches (of the same detail-mode)
             if (oldCache.detailed == detailed) {
                 fileRows = oldCache.fileRows;
-                for (OsmFile[] fileRow : fileRows) {
-                    if (fileRow == null) {
-                        continue;
-                    }
-                    for (OsmFile osmf : fileRow) {
-                        cacheSum += osmf.setGhostState();
-                    }
-                }
+                otherFileRows = oldCache.otherFileRows;
             } else {
-                fileRows = new OsmFile[180][];
+                fileRows = oldCache.otherFileRows != null ? oldCache.otherFileRows : new OsmFile[180][];
+                otherFileRows = oldCache.fileRows;
+            }
+            for (OsmFile[] fileRow : fileRows) {
+                if (fileRow == null) {
+                    continue;
+                }
+                for (OsmFile osmf : fileRow) {
+                    cacheSum += osmf.setGhostState();
+                }
             }
         } else {
             fileCache = new HashMap<>(4);
             fileRows = new OsmFile[180][];
+            otherFileRows = null;
             dataBuffers = new DataBuffers();
         }
         ghostSum = cacheSum;
     }
 
+    /**
+     * Takes the cache kept by {@link #keepWarm()} after a previous routing request, if it was created for the same
+     * profile and lookup version and is not too old. Pass it as old cache to a new, reusable cache.
+     *
+     * @return warm cache, or null if there is none for this profile
+     */
+    @Nullable
+    public static synchronized NodesCache takeWarmCache(final BExpressionContextWay ctxWay) {
+        final NodesCache cache = warmCache;
+        if (cache == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - warmCacheTimestamp > WARM_CACHE_MAX_AGE) {
+            clearWarmCache();
+            return null;
+        }
+        if (cache.expCtxWay != ctxWay || cache.lookupVersion != ctxWay.meta.lookupVersion) {
+            return null; // different profile, keep it for its next request
+        }
+        cache.stopWarmUp();
+        warmCache = null;
+        cache.statistics.startRequest();
+        return cache;
+    }
+
+    /**
+     * Keeps this cache (open data files and decoded segments, but not the node graph) for the next routing request
+     * with the same profile, replacing any cache kept before. Do not use this cache afterwards.
+     * <br>
+     * Segments woven directly into the node graph can't be reused, the graph is pruned for the end nodes of the request
+     * and consumed by the search. They are decoded again in the background, see {@link #startWarmUp()}. The profile
+     * must not be released before, as the way context is needed for decoding.
+     */
+    public void keepWarm() {
+        nodesMap = null;
+        waypointMatcher = null;
+        // forget files not found, they might be downloaded until the next request
+        final Iterator<PhysicalFile> files = fileCache.values().iterator();
+        while (files.hasNext()) {
+            if (files.next() == null) {
+                files.remove();
+            }
+        }
+        dropMissingFiles(fileRows);
+        dropMissingFiles(otherFileRows);
+        final boolean overBudget = cacheSum > maxmemtiles;
+        if (overBudget) {
+            clean(true);
+        }
+        synchronized (NodesCache.class) {
+            if (warmCache != null && warmCache != this) {
+                warmCache.stopWarmUp();
+                warmCache.close();
+            }
+            warmCache = this;
+            warmCacheTimestamp = System.currentTimeMillis();
+            if (!overBudget && directWeaving) {
+                startWarmUp();
+            }
+        }
+    }
+
+    /** closes the cache kept for the next routing request, if any */
+    public static synchronized void clearWarmCache() {
+        if (warmCache != null) {
+            warmCache.stopWarmUp();
+            warmCache.close();
+            warmCache = null;
+        }
+    }
+
+    /**
+     * Stops decoding segments for the kept cache of the given profile, as the profile is about to be used by another
+     * routing request. Its way context must not be used by two threads at the same time.
+     */
+    public static synchronized void stopWarmUp(final BExpressionContextWay ctxWay) {
+        if (warmCache != null && warmCache.expCtxWay == ctxWay) {
+            warmCache.stopWarmUp();
+        }
+    }
+
+    /**
+     * Decodes the segments woven by the last request into MicroCaches on a background thread, within the memory budget
+     * of the cache. The next request reuses them as ghosts, resetting only their consumed state, while segments not
+     * decoded yet are still woven directly. The thread runs until all segments are decoded or {@link #stopWarmUp()}.
+     */
+    private void startWarmUp() {
+        final long budget = maxmemtiles - cacheSum;
+        warmUpStopped = false;
+        warmUp = new Thread(() -> {
+            long decoded = 0;
+            try {
+                decoded += decodeWovenSegments(fileRows, budget);
+                decoded += decodeWovenSegments(otherFileRows, budget - decoded);
+            } catch (IOException | RuntimeException e) {
+                Log.w("NodesCache: decoding segments for the next request failed", e);
+            }
+            Log.d("NodesCache: decoded " + decoded + " bytes of segments for the next request");
+        }, "NodesCache warm-up");
+        warmUp.setPriority(Thread.MIN_PRIORITY);
+        warmUp.start();
+    }
+
+    private long decodeWovenSegments(@Nullable final OsmFile[][] rows, final long budget) throws IOException {
+        long decoded = 0;
+        if (rows == null) {
+            return decoded;
+        }
+        for (OsmFile[] fileRow : rows) {
+            if (fileRow == null) {
+                continue;
+            }
+            for (OsmFile osmf : fileRow) {
+                decoded += osmf.decodeWovenSegments(dataBuffers, expCtxWay, budget - decoded, () -> warmUpStopped);
+                if (warmUpStopped || decoded >= budget) {
+                    return decoded;
+                }
+            }
+        }
+        return decoded;
+    }
+
+    /** waits for the warm-up thread to stop, so that the cache can be used or closed */
+    private void stopWarmUp() {
+        if (warmUp == null) {
+            return;
+        }
+        warmUpStopped = true;
+        try {
+            warmUp.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        warmUp = null;
+    }
+
+    private static void dropMissingFiles(@Nullable final OsmFile[][] rows) {
+        if (rows == null) {
+            return;
+        }
+        for (int i = 0; i < rows.length; i++) {
+            final OsmFile[] fileRow = rows[i];
+            if (fileRow == null) {
+                continue;
+            }
+            final List<OsmFile> existing = new ArrayList<>(fileRow.length);
+            for (OsmFile osmf : fileRow) {
+                if (osmf.filename != null) {
+                    existing.add(osmf);
+                }
+            }
+            if (existing.size() < fileRow.length) {
+                rows[i] = existing.isEmpty() ? null : existing.toArray(new OsmFile[0]);
+            }
+        }
+    }
+
+    public SegmentStatistics getStatistics() {
+        return statistics;
+    }
+
+    public boolean isDirectWeaving() {
+        return directWeaving;
+    }
+
     public String formatStatus() {
         return "collecting=" + garbageCollectionEnabled + " noGhosts=" + ghostCleaningDone + " cacheSum=" + cacheSum + " cacheSumClean=" + cacheSumClean + " ghostSum=" + ghostSum + " ghostWakeup=" + ghostWakeup;
     }
@@ -181,14 +415,22 @@ public final class NodesCache implements Closeable {
             }
 
             MicroCache segment = osmf.getMicroCache(ilon, ilat);
+            if (segment != null && segment.ghost && waypointMatcher != null) {
+                // ghost segments were decoded without the current waypoint matcher
+                cacheSum -= segment.getDataSize();
+                segment = null;
+            }
             if (segment == null) {
                 checkEnableCacheCleaning();
+                final long start = System.nanoTime();
                 segment = osmf.createMicroCache(ilon, ilat, dataBuffers, expCtxWay, waypointMatcher, directWeaving ? nodesMap : null);
+                statistics.addDecoded(System.nanoTime() - start);
 
                 cacheSum += segment.getDataSize();
             } else if (segment.ghost) {
                 segment.unGhost();
                 ghostWakeup += segment.getDataSize();
+                statistics.reused++;
             }
             return segment;
         } catch (IOException re) {
@@ -320,6 +562,27 @@ public final class NodesCache implements Closeable {
         }
     }
 
+    /**
+     * Matches many points to their nearest ways at once, e.g. all points of a track. Unlike
+     * {@link #matchWaypointsToNodes(List, double, OsmNodePairSet)} points which cannot be matched (e.g. for missing
+     * routing data) are not reported as error, they keep a null crosspoint.
+     * <br>
+     * Each segment around the points is decoded once, so pass the points sorted by segment to keep the decoded
+     * segments in memory while they are needed.
+     */
+    public void matchPointsToWays(final List<MatchedWaypoint> points, final double maxDistance) {
+        waypointMatcher = new BulkWaypointMatcher(points, maxDistance);
+        final int d = 12500;
+        for (MatchedWaypoint mwp : points) {
+            final OsmNode n = mwp.waypoint;
+            for (int idxLat = -1; idxLat <= 1; idxLat++) {
+                for (int idxLon = -1; idxLon <= 1; idxLon++) {
+                    loadSegmentFor(n.ilon + d * idxLon, n.ilat + d * idxLat);
+                }
+            }
+        }
+    }
+
     private void preloadPosition(final OsmNode n, final int d) {
         firstFileAccessFailed = false;
         firstFileAccessName = null;
@@ -15,6 +15,7 @@ import cgeo.geocaching.brouter.util.ByteDataReader;
 import cgeo.geocaching.brouter.util.Crc32Utils;
 
 import java.io.IOException;
+import java.util.function.BooleanSupplier;
 
 final class OsmFile {
     public int lonDegree;
@@ -24,6 +25,7 @@ final class OsmFile {
     private long fileOffset;
     private int[] posIdx;
     private MicroCache[] microCaches;
+    private boolean[] wovenSegments; // segments decoded by direct weaving, not kept as MicroCache
     private int divisor;
     private int cellsize;
     private int indexsize;
@@ -56,6 +58,7 @@ final class OsmFile {
             this.rafile = rafile;
             posIdx = new int[ncaches];
             microCaches = new MicroCache[ncaches];
+            wovenSegments = new boolean[ncaches];
             this.rafile.readFully(fileOffset, indexsize, iobuffer);
 
             if (rafile.fileHeaderCrcs != null) {
@@ -90,9 +93,38 @@ final class OsmFile {
         final MicroCache segment = createMicroCache(lonIdx, latIdx, dataBuffers, wayValidator, waypointMatcher, true, hollowNodes);
         final int subIdx = (latIdx - divisor * latDegree) * divisor + (lonIdx - divisor * lonDegree);
         microCaches[subIdx] = segment;
+        if (segment == MicroCache.emptyNonVirgin) {
+            wovenSegments[subIdx] = true;
+        }
         return segment;
     }
 
+    /**
+     * Decodes the segments woven before into MicroCaches, so that a later routing request can reuse them.
+     *
+     * @return data size of the decoded segments
+     */
+    public long decodeWovenSegments(final DataBuffers dataBuffers, final TagValueValidator wayValidator, final long maxSize, final BooleanSupplier stopped) throws IOException {
+        long decoded = 0;
+        final int nc = wovenSegments == null ? 0 : wovenSegments.length;
+        for (int subIdx = 0; subIdx < nc && decoded < maxSize && !stopped.getAsBoolean(); subIdx++) {
+            if (!wovenSegments[subIdx]) {
+                continue;
+            }
+            wovenSegments[subIdx] = false;
+            final MicroCache mc = microCaches[subIdx];
+            if (mc != null && mc.virgin) {
+                continue;
+            }
+            final MicroCache segment = createMicroCache(divisor * lonDegree + subIdx % divisor, divisor * latDegree + subIdx / divisor, dataBuffers, wayValidator, null, true, null);
+            // decoded without waypoint matcher, like the segments kept from the last request
+            segment.ghost = true;
+            microCaches[subIdx] = segment;
+            decoded += segment.getDataSize();
+        }
+        return decoded;
+    }
+
     private int getPosIdx(final int idx) {
         return idx == -1 ? indexsize : posIdx[idx];
     }
@@ -20,6 +20,8 @@ import java.io.IOException;
 import org.apache.commons.io.IOUtils;
 
 public final class PhysicalFile implements Closeable {
+    private static final boolean MEMORY_MAPPED = !Boolean.getBoolean("disableMemoryMappedTiles");
+
     public long creationTime;
     public int divisor = 80;
     public byte elevationType = 3;
@@ -29,9 +31,20 @@ public final class PhysicalFile implements Closeable {
     String fileName;
 
     public PhysicalFile(final String fileName, final FileInputStream fis, final DataBuffers dataBuffers, final int lookupVersion) throws IOException {
+        this(fileName, fis, dataBuffers, lookupVersion, MEMORY_MAPPED);
+    }
+
+    /**
+     * @param memoryMapped map the file into memory, so that reading a segment is a plain copy from the mapping instead of
+     *                     a read call. Falls back to reading if the file cannot be mapped.
+     */
+    public PhysicalFile(final String fileName, final FileInputStream fis, final DataBuffers dataBuffers, final int lookupVersion, final boolean memoryMapped) throws IOException {
         this.fileName = fileName;
         final byte[] iobuffer = dataBuffers.iobuffer;
         fbr = new FileByteReader(fis);
+        if (memoryMapped) {
+            fbr.map();
+        }
         fbr.readFully(0, 200, iobuffer);
         final int fileIndexCrc = Crc32Utils.crc(iobuffer, 0, 200);
         ByteDataReader dis = new ByteDataReader(iobuffer);
@@ -89,6 +102,10 @@ public final class PhysicalFile implements Closeable {
         this.fbr.readFully(startPos, length, buffer);
     }
 
+    public boolean isMemoryMapped() {
+        return fbr.isMapped();
+    }
+
     @Override
     public void close() {
         IOUtils.closeQuietly(fbr);
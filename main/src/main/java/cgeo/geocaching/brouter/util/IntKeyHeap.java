@@ -0,0 +1,24 @@
+package cgeo.geocaching.brouter.util;
+
+/**
+ * Heap of key-object pairs with int keys, to get the value with the lowest key, e.g. the open set of a search
+ */
+public interface IntKeyHeap<V> {
+
+    /**
+     * @return the lowest key value, or null if none
+     */
+    V popLowestKeyValue();
+
+    /**
+     * add a key value pair to the heap
+     *
+     * @param key   the key to insert
+     * @param value the value to insert object
+     */
+    void add(int key, V value);
+
+    void clear();
+
+    int getSize();
+}
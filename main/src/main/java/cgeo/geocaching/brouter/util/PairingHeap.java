@@ -0,0 +1,126 @@
+package cgeo.geocaching.brouter.util;
+
+import java.util.Arrays;
+
+/**
+ * Pairing heap on primitive arrays to get the lowest-key value of a set of key-object pairs
+ * <br>
+ * The tree is kept as child and sibling indices into parallel arrays, slots of popped entries are reused. So once
+ * the arrays have grown to the peak size of the heap, neither adding nor popping allocates any objects, and
+ * clearing keeps the arrays for the next search. Adding is O(1), popping amortized O(log n).
+ * <br>
+ * The order of values with equal keys differs from {@link SortedHeap}.
+ */
+public final class PairingHeap<V> implements IntKeyHeap<V> {
+    private static final int NIL = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private int[] keys = new int[INITIAL_CAPACITY];
+    private Object[] values = new Object[INITIAL_CAPACITY];
+    private int[] child = new int[INITIAL_CAPACITY];
+    private int[] sibling = new int[INITIAL_CAPACITY]; // also links the free slots
+    private int[] pairs = new int[INITIAL_CAPACITY]; // merge stack of popLowestKeyValue
+
+    private int root = NIL;
+    private int size = 0;
+    private int used = 0; // slots ever used since last clear
+    private int firstFree = NIL;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V popLowestKeyValue() {
+        if (root == NIL) {
+            return null;
+        }
+        final int r = root;
+        final V value = (V) values[r];
+
+        // two pass merge of the children: meld pairs from left to right, then the results from right to left
+        int n = 0;
+        int c = child[r];
+        while (c != NIL) {
+            final int a = c;
+            final int b = sibling[a];
+            sibling[a] = NIL;
+            if (b == NIL) {
+                pairs[n++] = a;
+                break;
+            }
+            c = sibling[b];
+            sibling[b] = NIL;
+            pairs[n++] = meld(a, b);
+        }
+        int merged = NIL;
+        while (n > 0) {
+            merged = meld(pairs[--n], merged);
+        }
+        root = merged;
+
+        values[r] = null;
+        sibling[r] = firstFree;
+        firstFree = r;
+        size--;
+        return value;
+    }
+
+    @Override
+    public void add(final int key, final V value) {
+        final int slot;
+        if (firstFree != NIL) {
+            slot = firstFree;
+            firstFree = sibling[slot];
+        } else {
+            if (used == keys.length) {
+                grow();
+            }
+            slot = used++;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        child[slot] = NIL;
+        sibling[slot] = NIL;
+        root = meld(root, slot);
+        size++;
+    }
+
+    // links the root with the larger key as first child of the other one
+    private int meld(final int a, final int b) {
+        if (a == NIL) {
+            return b;
+        }
+        if (b == NIL) {
+            return a;
+        }
+        if (keys[b] < keys[a]) {
+            sibling[a] = child[b];
+            child[b] = a;
+            return b;
+        }
+        sibling[b] = child[a];
+        child[a] = b;
+        return a;
+    }
+
+    private void grow() {
+        final int capacity = keys.length << 1;
+        keys = Arrays.copyOf(keys, capacity);
+        values = Arrays.copyOf(values, capacity);
+        child = Arrays.copyOf(child, capacity);
+        sibling = Arrays.copyOf(sibling, capacity);
+        pairs = new int[capacity];
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(values, 0, used, null);
+        root = NIL;
+        size = 0;
+        used = 0;
+        firstFree = NIL;
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+}
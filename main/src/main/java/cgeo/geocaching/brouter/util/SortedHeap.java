@@ -5,7 +5,7 @@ package cgeo.geocaching.brouter.util;
  *
  * @author ab
  */
-public final class SortedHeap<V> {
+public final class SortedHeap<V> implements IntKeyHeap<V> {
     private int size;
     private int peaksize;
     private SortedBin first;
@@ -19,6 +19,7 @@ public final class SortedHeap<V> {
     /**
      * @return the lowest key value, or null if none
      */
+    @Override
     @SuppressWarnings("unchecked")
     public V popLowestKeyValue() {
         if (firstNonEmpty == null) {
@@ -35,6 +36,7 @@ public final class SortedHeap<V> {
      * @param key   the key to insert
      * @param value the value to insert object
      */
+    @Override
     public void add(final int key, final V value) {
         size++;
 
@@ -99,6 +101,7 @@ public final class SortedHeap<V> {
         firstNonEmpty = tbin;
     }
 
+    @Override
     public void clear() {
         size = 0;
         first = new SortedBin(4, this);
@@ -106,6 +109,7 @@ public final class SortedHeap<V> {
         firstNonEmpty = null;
     }
 
+    @Override
     public int getSize() {
         return size;
     }
@@ -157,6 +157,11 @@ public final class ConnectorFactory {
         return CONNECTORS;
     }
 
+    @NonNull
+    public static Collection<ISearchByViewPort> getSearchByViewportConnectors() {
+        return searchByViewPortConns;
+    }
+
     @NonNull
     public static Collection<ISearchByNextPage> getSearchByNextPageConnectors() {
         return searchByNextPageConns;
@@ -356,9 +361,21 @@ public final class ConnectorFactory {
     }
 
     public static void searchByViewport(@NonNull final Viewport viewport, @Nullable final GeocacheFilter filter, @NonNull final BiConsumer<IConnector, SearchResult> callback) {
-        SearchResult.parallelCombineActive(searchByViewPortConns, connector -> {
+        final Map<ISearchByViewPort, Viewport> viewports = new HashMap<>();
+        for (ISearchByViewPort connector : searchByViewPortConns) {
+            viewports.put(connector, viewport);
+        }
+        searchByViewport(viewports, filter, callback);
+    }
+
+    /**
+     * searches each of the given connectors in parallel with its own viewport, e.g. to load only the areas not yet known for this connector
+     */
+    public static void searchByViewport(@NonNull final Map<ISearchByViewPort, Viewport> viewports, @Nullable final GeocacheFilter filter, @NonNull final BiConsumer<IConnector, SearchResult> callback) {
+        SearchResult.parallelCombineActive(viewports.keySet(), connector -> {
             Log.iForce("ConnectorFactory: START request for " + connector.getName());
             final long startTs = System.currentTimeMillis();
+            final Viewport viewport = viewports.get(connector);
             final SearchResult sr = connector.searchByViewport(viewport, filter);
             AmendmentUtils.amendCachesForViewport(sr, viewport, filter);
             Log.iForce("ConnectorFactory: END request for " + connector.getName() + " (" + (System.currentTimeMillis() - startTs) + "ms)");
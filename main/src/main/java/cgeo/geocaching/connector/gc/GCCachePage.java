@@ -0,0 +1,245 @@
+package cgeo.geocaching.connector.gc;
+
+import cgeo.geocaching.utils.TextUtils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Cache details page, with the whitespace already replaced, prepared for extracting many fields from it.
+ * <br>
+ * Each field pattern is bound to an {@link Anchor}, the literal text every match of the pattern starts with. The page is
+ * walked once to find the first position of all anchors. Field patterns then only search from there, instead of
+ * scanning the whole page again for every field. Fields whose anchor is missing don't search at all.
+ */
+final class GCCachePage {
+
+    /**
+     * Literal texts to find on the page, optionally with the pattern starting with that text.
+     */
+    enum Anchor {
+        PREMIUM_MEMBERS(GCConstants.PATTERN_PREMIUMMEMBERS, "<p class=\"Warning NoBottomSpacing\""),
+        IS_FAVORITE(GCConstants.PATTERN_IS_FAVORITE, "<div id=\"pnlFavoriteCache\">"),
+        GEOCODE(GCConstants.PATTERN_GEOCODE, "class=\"CoordInfoCode\">"),
+        GUID(GCConstants.PATTERN_GUID, "&wid="),
+        WATCHLIST_COUNT(GCConstants.PATTERN_WATCHLIST_COUNT, "data-watchcount=\""),
+        OWNER_USERID(GCConstants.PATTERN_OWNER_USERID, "<a href=\"/play/search?owner[0]="),
+        CACHE_DETAILS(GCConstants.STRING_CACHEDETAILS),
+        TERRAIN(GCConstants.PATTERN_TERRAIN, "<span id=\"ctl00_ContentBody_Localize"),
+        DIFFICULTY(GCConstants.PATTERN_DIFFICULTY, "<span id=\"ctl00_ContentBody_uxLegendScale\""),
+        OWNER_DISPLAYNAME(GCConstants.PATTERN_OWNER_DISPLAYNAME, "<div id=\"ctl00_ContentBody_mcd1\">"),
+        OWNER_GUID(GCConstants.PATTERN_OWNER_GUID, "/p"),
+        HIDDEN(GCConstants.PATTERN_HIDDEN, "ctl00_ContentBody_mcd2"),
+        HIDDEN_EVENT(GCConstants.PATTERN_HIDDENEVENT, ":"),
+        EVENT_TIMES(GCConstants.PATTERN_EVENTTIMES, "<div id=\"mcd3\">"),
+        FAVORITE_COUNT(GCConstants.PATTERN_FAVORITECOUNT, "<span class=\"favorite-value\">"),
+        SIZE(GCConstants.PATTERN_SIZE, "/icons/container/"),
+        FOUND(GCConstants.PATTERN_FOUND, "logtypes/48/"),
+        DNF(GCConstants.PATTERN_DNF, "logtypes/48/"),
+        // the '.' of ".svg" is not escaped in the pattern
+        TYPE(GCConstants.PATTERN_TYPE, "<use xlink:href=\"/app/ui-icons/sprites/cache-types"),
+        WATCHLIST(GCConstants.PATTERN_WATCHLIST, "data-cacheonwatchlist=\"True\""),
+        LATLON(GCConstants.PATTERN_LATLON, "<span id=\"uxLatLon\""),
+        LOCATION(GCConstants.PATTERN_LOCATION, "<span id=\"ctl00_ContentBody_Location\">In "),
+        HINT(GCConstants.PATTERN_HINT, "<div id=\"div_hint\""),
+        SHORTDESC(GCConstants.PATTERN_SHORTDESC, "<span id=\"ctl00_ContentBody_ShortDescription\">"),
+        DESC(GCConstants.PATTERN_DESC, "<span id=\"ctl00_ContentBody_LongDescription\">"),
+        RELATED_WEB_PAGE(GCConstants.PATTERN_RELATED_WEB_PAGE, "ctl00_ContentBody_uxCacheUrl"),
+        // the '.' of ".aspx" is not escaped in the pattern
+        GALLERY_COUNT(GCConstants.PATTERN_GALLERY_COUNT, "<a href=\"/seek/gallery"),
+        GC_CHECKER(GCConstants.PATTERN_GC_CHECKER),
+        ATTRIBUTES(GCConstants.PATTERN_ATTRIBUTES, "<img src=\"/images/attributes"),
+        BACKGROUND_IMAGE(GCConstants.PATTERN_BACKGROUND_IMAGE, "<body background=\""),
+        COUNTLOGS(GCConstants.PATTERN_COUNTLOGS, "<span id=\"ctl00_ContentBody_lblFindCounts\"><ul"),
+        LATLON_ORIG(GCConstants.PATTERN_LATLON_ORIG, "{\"isUserDefined\":true"),
+        WAYPOINTS(GCConstants.STRING_WAYPOINTS),
+        STATUS_DISABLED(GCConstants.STRING_STATUS_DISABLED),
+        STATUS_ARCHIVED(GCConstants.STRING_STATUS_ARCHIVED),
+        STATUS_LOCKED(GCConstants.STRING_STATUS_LOCKED);
+
+        @Nullable final Pattern pattern;
+        @NonNull final String text;
+
+        Anchor(@NonNull final String text) {
+            this(null, text);
+        }
+
+        /**
+         * @param text literal text every match of the pattern starts with. The pattern must not look behind its match.
+         */
+        Anchor(@Nullable final Pattern pattern, @NonNull final String text) {
+            this.pattern = pattern;
+            this.text = text;
+        }
+    }
+
+    /**
+     * Node of the trie of all anchor texts. Anchors sharing a prefix, like most of the element ids, are thereby
+     * compared only once per position of the page.
+     */
+    private static final class Node {
+        private char[] chars = new char[0];
+        private Node[] children = new Node[0];
+        // anchors whose text ends at this node
+        private Anchor[] anchors = new Anchor[0];
+
+        @Nullable
+        Node get(final char c) {
+            for (int i = 0; i < chars.length; i++) {
+                if (chars[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        @NonNull
+        Node getOrAdd(final char c) {
+            final Node existing = get(c);
+            if (existing != null) {
+                return existing;
+            }
+            final Node child = new Node();
+            chars = Arrays.copyOf(chars, chars.length + 1);
+            chars[chars.length - 1] = c;
+            children = Arrays.copyOf(children, children.length + 1);
+            children[children.length - 1] = child;
+            return child;
+        }
+    }
+
+    /**
+     * first level of the trie, by the first character of the anchor texts, which are all ASCII characters
+     */
+    private static final Node[] TRIE = createTrie();
+
+    @NonNull private final String page;
+    private final int[] positions = new int[Anchor.values().length];
+
+    /**
+     * @param pageIn complete HTML page, whitespace is replaced by {@link TextUtils#replaceWhitespace(String)}
+     */
+    GCCachePage(@NonNull final String pageIn) {
+        final char[] chars = pageIn.toCharArray();
+        final int length = TextUtils.replaceWhitespace(chars);
+        findAnchors(chars, length);
+        page = String.valueOf(chars, 0, length);
+    }
+
+    private static Node[] createTrie() {
+        final Node[] trie = new Node[128];
+        for (final Anchor anchor : Anchor.values()) {
+            final char first = anchor.text.charAt(0);
+            if (trie[first] == null) {
+                trie[first] = new Node();
+            }
+            Node node = trie[first];
+            for (int i = 1; i < anchor.text.length(); i++) {
+                node = node.getOrAdd(anchor.text.charAt(i));
+            }
+            node.anchors = Arrays.copyOf(node.anchors, node.anchors.length + 1);
+            node.anchors[node.anchors.length - 1] = anchor;
+        }
+        return trie;
+    }
+
+    /**
+     * walks the page once, to find the first position of all anchors
+     */
+    private void findAnchors(final char[] chars, final int length) {
+        Arrays.fill(positions, -1);
+        int missing = positions.length;
+        for (int i = 0; i < length && missing > 0; i++) {
+            final char c = chars[i];
+            Node node = c < TRIE.length ? TRIE[c] : null;
+            for (int j = i + 1; node != null; j++) {
+                for (final Anchor anchor : node.anchors) {
+                    if (positions[anchor.ordinal()] < 0) {
+                        positions[anchor.ordinal()] = i;
+                        missing--;
+                    }
+                }
+                node = j < length ? node.get(chars[j]) : null;
+            }
+        }
+    }
+
+    @NonNull
+    String getPage() {
+        return page;
+    }
+
+    boolean contains(@NonNull final Anchor anchor) {
+        return positions[anchor.ordinal()] >= 0;
+    }
+
+    /**
+     * @return position of the first occurrence of the anchor text, -1 if not on the page
+     */
+    int indexOf(@NonNull final Anchor anchor) {
+        return positions[anchor.ordinal()];
+    }
+
+    /**
+     * @return position to search the pattern of the anchor from, when searching the page from {@code from} on.
+     * -1 if the pattern can't match, because the anchor is not on the page.
+     */
+    int getSearchStart(@NonNull final Anchor anchor, final int from) {
+        final int position = positions[anchor.ordinal()];
+        return position < 0 ? -1 : Math.max(position, from);
+    }
+
+    /**
+     * @return true if the pattern of the anchor matches the page
+     */
+    boolean matches(@NonNull final Anchor anchor) {
+        return matches(anchor, 0);
+    }
+
+    /**
+     * @return true if the pattern of the anchor matches the page from {@code from} on
+     */
+    boolean matches(@NonNull final Anchor anchor, final int from) {
+        final Matcher matcher = matcher(anchor, from);
+        return matcher != null && matcher.find();
+    }
+
+    /**
+     * Like {@link TextUtils#getMatch(String, Pattern, boolean, String)} on the whole page.
+     */
+    @Nullable
+    String getMatch(@NonNull final Anchor anchor, final boolean trim, @Nullable final String defaultValue) {
+        return getMatch(anchor, 0, trim, 1, defaultValue);
+    }
+
+    /**
+     * Like {@link TextUtils#getMatch(String, Pattern, boolean, int, String, boolean)} on the page from {@code from}
+     * on, as if the page was cut there.
+     */
+    @Nullable
+    String getMatch(@NonNull final Anchor anchor, final int from, final boolean trim, final int group, @Nullable final String defaultValue) {
+        final Matcher matcher = matcher(anchor, from);
+        return matcher == null ? defaultValue : TextUtils.getMatch(matcher, trim, group, defaultValue, false);
+    }
+
+    /**
+     * @return matcher of the pattern of the anchor, restricted to the page from the search start on, or null if the
+     * pattern can't match
+     */
+    @Nullable
+    private Matcher matcher(@NonNull final Anchor anchor, final int from) {
+        if (anchor.pattern == null) {
+            throw new IllegalArgumentException("Anchor " + anchor + " has no pattern");
+        }
+        final int start = getSearchStart(anchor, from);
+        if (start < 0) {
+            return null;
+        }
+        return anchor.pattern.matcher(page).region(start, page.length());
+    }
+
+}
@@ -5,6 +5,7 @@ import cgeo.geocaching.R;
 import cgeo.geocaching.SearchResult;
 import cgeo.geocaching.connector.ConnectorFactory;
 import cgeo.geocaching.connector.IConnector;
+import cgeo.geocaching.connector.gc.GCCachePage.Anchor;
 import cgeo.geocaching.connector.trackable.TrackableBrand;
 import cgeo.geocaching.enumerations.CacheSize;
 import cgeo.geocaching.enumerations.CacheType;
@@ -252,113 +253,109 @@ public final class GCParser {
         //gc.com sends personal note with HTML-encoded entities. Replace those
         personalNoteWithLineBreaks = StringEscapeUtils.unescapeHtml4(personalNoteWithLineBreaks);
 
-        final String page = TextUtils.replaceWhitespace(pageIn);
+        // walk the page once, then extract the fields from the positions found
+        final GCCachePage page = new GCCachePage(pageIn);
 
         final Geocache cache = new Geocache();
-        cache.setDisabled(page.contains(GCConstants.STRING_STATUS_DISABLED));
-        cache.setArchived(page.contains(GCConstants.STRING_STATUS_ARCHIVED)
-                || page.contains(GCConstants.STRING_STATUS_LOCKED));
+        cache.setDisabled(page.contains(Anchor.STATUS_DISABLED));
+        cache.setArchived(page.contains(Anchor.STATUS_ARCHIVED)
+                || page.contains(Anchor.STATUS_LOCKED));
 
-        cache.setPremiumMembersOnly(TextUtils.matches(page, GCConstants.PATTERN_PREMIUMMEMBERS));
+        cache.setPremiumMembersOnly(page.matches(Anchor.PREMIUM_MEMBERS));
 
-        cache.setFavorite(TextUtils.matches(page, GCConstants.PATTERN_IS_FAVORITE));
+        cache.setFavorite(page.matches(Anchor.IS_FAVORITE));
 
         // cache geocode
-        cache.setGeocode(TextUtils.getMatch(page, GCConstants.PATTERN_GEOCODE, true, cache.getGeocode()));
+        cache.setGeocode(page.getMatch(Anchor.GEOCODE, true, cache.getGeocode()));
 
         // cache id
         cache.setCacheId(String.valueOf(GCUtils.gcLikeCodeToGcLikeId(cache.getGeocode())));
 
         // cache guid
-        cache.setGuid(TextUtils.getMatch(page, GCConstants.PATTERN_GUID, true, cache.getGuid()));
+        cache.setGuid(page.getMatch(Anchor.GUID, true, cache.getGuid()));
 
         // cache watchlistcount
-        cache.setWatchlistCount(getWatchListCount(page));
+        cache.setWatchlistCount(getCount(page, Anchor.WATCHLIST_COUNT));
 
         // name
         cache.setName(cacheName);
 
         // owner real name
-        cache.setOwnerUserId(Network.decode(TextUtils.getMatch(page, GCConstants.PATTERN_OWNER_USERID, true, cache.getOwnerUserId())));
+        cache.setOwnerUserId(Network.decode(page.getMatch(Anchor.OWNER_USERID, true, cache.getOwnerUserId())));
 
         cache.setUserModifiedCoords(false);
 
-        String tableInside = page;
-
-        final int pos = tableInside.indexOf(GCConstants.STRING_CACHEDETAILS);
-        if (pos == -1) {
+        // the following fields are only searched from the cache details on
+        final int details = page.indexOf(Anchor.CACHE_DETAILS);
+        if (details == -1) {
             Log.e("GCParser.parseCache: ID \"cacheDetails\" not found on page");
             return UNKNOWN_PARSE_ERROR;
         }
 
-        tableInside = tableInside.substring(pos);
-
-        if (StringUtils.isNotBlank(tableInside)) {
-            // cache terrain
-            String result = TextUtils.getMatch(tableInside, GCConstants.PATTERN_TERRAIN, true, null);
-            if (result != null) {
-                try {
-                    cache.setTerrain(Float.parseFloat(StringUtils.replaceChars(result, '_', '.')));
-                } catch (final NumberFormatException e) {
-                    Log.e("Error parsing terrain value", e);
-                }
+        // cache terrain
+        String rating = page.getMatch(Anchor.TERRAIN, details, true, 1, null);
+        if (rating != null) {
+            try {
+                cache.setTerrain(Float.parseFloat(StringUtils.replaceChars(rating, '_', '.')));
+            } catch (final NumberFormatException e) {
+                Log.e("Error parsing terrain value", e);
             }
+        }
 
-            // cache difficulty
-            result = TextUtils.getMatch(tableInside, GCConstants.PATTERN_DIFFICULTY, true, null);
-            if (result != null) {
-                try {
-                    cache.setDifficulty(Float.parseFloat(StringUtils.replaceChars(result, '_', '.')));
-                } catch (final NumberFormatException e) {
-                    Log.e("Error parsing difficulty value", e);
-                }
+        // cache difficulty
+        rating = page.getMatch(Anchor.DIFFICULTY, details, true, 1, null);
+        if (rating != null) {
+            try {
+                cache.setDifficulty(Float.parseFloat(StringUtils.replaceChars(rating, '_', '.')));
+            } catch (final NumberFormatException e) {
+                Log.e("Error parsing difficulty value", e);
             }
+        }
 
-            // owner
-            cache.setOwnerDisplayName(StringEscapeUtils.unescapeHtml4(TextUtils.getMatch(tableInside, GCConstants.PATTERN_OWNER_DISPLAYNAME, true, cache.getOwnerDisplayName())));
-            cache.setOwnerGuid(TextUtils.getMatch(tableInside, GCConstants.PATTERN_OWNER_GUID, true, 2, cache.getOwnerGuid(), false));
+        // owner
+        cache.setOwnerDisplayName(StringEscapeUtils.unescapeHtml4(page.getMatch(Anchor.OWNER_DISPLAYNAME, details, true, 1, cache.getOwnerDisplayName())));
+        cache.setOwnerGuid(page.getMatch(Anchor.OWNER_GUID, details, true, 2, cache.getOwnerGuid()));
 
-            // hidden
-            try {
-                String hiddenString = TextUtils.getMatch(tableInside, GCConstants.PATTERN_HIDDEN, true, null);
+        // hidden
+        try {
+            String hiddenString = page.getMatch(Anchor.HIDDEN, details, true, 1, null);
+            if (StringUtils.isNotBlank(hiddenString)) {
+                cache.setHidden(GCLogin.parseGcCustomDate(hiddenString));
+            }
+            if (cache.getHiddenDate() == null) {
+                // event date
+                hiddenString = page.getMatch(Anchor.HIDDEN_EVENT, details, true, 1, null);
                 if (StringUtils.isNotBlank(hiddenString)) {
                     cache.setHidden(GCLogin.parseGcCustomDate(hiddenString));
                 }
-                if (cache.getHiddenDate() == null) {
-                    // event date
-                    hiddenString = TextUtils.getMatch(tableInside, GCConstants.PATTERN_HIDDENEVENT, true, null);
-                    if (StringUtils.isNotBlank(hiddenString)) {
-                        cache.setHidden(GCLogin.parseGcCustomDate(hiddenString));
-                    }
-                }
-            } catch (final ParseException e) {
-                // failed to parse cache hidden date
-                Log.w("GCParser.parseCache: Failed to parse cache hidden (event) date", e);
-            }
-
-            // favorite
-            try {
-                cache.setFavoritePoints(Integer.parseInt(TextUtils.getMatch(tableInside, GCConstants.PATTERN_FAVORITECOUNT, true, "0")));
-            } catch (final NumberFormatException e) {
-                Log.e("Error parsing favorite count", e);
             }
+        } catch (final ParseException e) {
+            // failed to parse cache hidden date
+            Log.w("GCParser.parseCache: Failed to parse cache hidden (event) date", e);
+        }
 
-            // cache size
-            cache.setSize(CacheSize.getById(TextUtils.getMatch(tableInside, GCConstants.PATTERN_SIZE, true, CacheSize.NOT_CHOSEN.id)));
+        // favorite
+        try {
+            cache.setFavoritePoints(Integer.parseInt(page.getMatch(Anchor.FAVORITE_COUNT, details, true, 1, "0")));
+        } catch (final NumberFormatException e) {
+            Log.e("Error parsing favorite count", e);
         }
 
+        // cache size
+        cache.setSize(CacheSize.getById(page.getMatch(Anchor.SIZE, details, true, 1, CacheSize.NOT_CHOSEN.id)));
+
         // cache found / DNF
-        cache.setFound(TextUtils.matches(page, GCConstants.PATTERN_FOUND));
-        cache.setDNF(TextUtils.matches(page, GCConstants.PATTERN_DNF));
+        cache.setFound(page.matches(Anchor.FOUND));
+        cache.setDNF(page.matches(Anchor.DNF));
 
         // cache type
-        cache.setType(CacheType.getByWaypointType(TextUtils.getMatch(page, GCConstants.PATTERN_TYPE, true, cache.getType().id)));
+        cache.setType(CacheType.getByWaypointType(page.getMatch(Anchor.TYPE, true, cache.getType().id)));
 
         // on watchlist
-        cache.setOnWatchlist(TextUtils.matches(page, GCConstants.PATTERN_WATCHLIST));
+        cache.setOnWatchlist(page.matches(Anchor.WATCHLIST));
 
         // latitude and longitude. Can only be retrieved if user is logged in
-        String latlon = TextUtils.getMatch(page, GCConstants.PATTERN_LATLON, true, "");
+        String latlon = page.getMatch(Anchor.LATLON, true, "");
         if (StringUtils.isNotEmpty(latlon)) {
             try {
                 cache.setCoords(new Geopoint(latlon));
@@ -368,10 +365,10 @@ public final class GCParser {
         }
 
         // cache location
-        cache.setLocation(TextUtils.getMatch(page, GCConstants.PATTERN_LOCATION, true, ""));
+        cache.setLocation(page.getMatch(Anchor.LOCATION, true, ""));
 
         // cache hint
-        final String result = TextUtils.getMatch(page, GCConstants.PATTERN_HINT, false, null);
+        final String result = page.getMatch(Anchor.HINT, false, null);
         if (result != null) {
             // replace linebreak and paragraph tags
             final String hint = GCConstants.PATTERN_LINEBREAK.matcher(result).replaceAll("\n");
@@ -388,30 +385,29 @@ public final class GCParser {
         if (cache.isEventCache()) {
             try {
                 // add event start / end info to beginning of listing
-                final MatcherWrapper eventTimesMatcher = new MatcherWrapper(GCConstants.PATTERN_EVENTTIMES, tableInside);
-                if (eventTimesMatcher.find()) {
+                if (page.matches(Anchor.EVENT_TIMES, details)) {
                     sDesc.append("<b>")
                             .append(new SimpleDateFormat("dd MMMM yyyy", Locale.getDefault()).format(cache.getHiddenDate()))
                             .append(", ")
-                            .append(Formatter.formatGCEventTime(tableInside))
+                            .append(Formatter.formatGCEventTime(page.getPage().substring(page.getSearchStart(Anchor.EVENT_TIMES, details))))
                             .append("</b>");
                 }
             } catch (Exception e) {
                 Log.w("GCParser.parseCache: Failed to parse event time", e);
             }
         } else {
-            sDesc.append(TextUtils.getMatch(page, GCConstants.PATTERN_SHORTDESC, true, ""));
+            sDesc.append(page.getMatch(Anchor.SHORTDESC, true, ""));
         }
         cache.setShortDescription(sDesc.toString());
 
         // cache description
-        final String longDescription = TextUtils.getMatch(page, GCConstants.PATTERN_DESC, true, "");
-        String relatedWebPage = TextUtils.getMatch(page, GCConstants.PATTERN_RELATED_WEB_PAGE, true, "");
+        final String longDescription = page.getMatch(Anchor.DESC, true, "");
+        String relatedWebPage = page.getMatch(Anchor.RELATED_WEB_PAGE, true, "");
         if (StringUtils.isNotEmpty(relatedWebPage)) {
             relatedWebPage = String.format("<br/><br/><a href=\"%s\"><b>%s</b></a>", relatedWebPage, relatedWebPage);
         }
         String galleryImageLink = StringUtils.EMPTY;
-        final int galleryImages = getGalleryCount(page);
+        final int galleryImages = getCount(page, Anchor.GALLERY_COUNT);
         if (galleryImages > 0) {
             galleryImageLink = String.format("<br/><br/><a href=\"%s\"><b>%s</b></a>",
                 "https://www.geocaching.com/seek/gallery.aspx?guid=" + cache.getGuid(),
@@ -419,7 +415,7 @@ public final class GCParser {
         }
         Log.d("Gallery image link: " + galleryImageLink);
         String gcChecker = StringUtils.EMPTY;
-        if (page.contains(GCConstants.PATTERN_GC_CHECKER)) {
+        if (page.contains(Anchor.GC_CHECKER)) {
             gcChecker = "<!--" + CgeoApplication.getInstance().getString(R.string.link_gc_checker) + "-->";
         }
         cache.setDescription(longDescription + relatedWebPage + gcChecker);
@@ -427,7 +423,7 @@ public final class GCParser {
         // cache attributes
         try {
             final List<String> attributes = new ArrayList<>();
-            final String attributesPre = TextUtils.getMatch(page, GCConstants.PATTERN_ATTRIBUTES, true, null);
+            final String attributesPre = page.getMatch(Anchor.ATTRIBUTES, true, null);
             if (attributesPre != null) {
                 final MatcherWrapper matcherAttributesInside = new MatcherWrapper(GCConstants.PATTERN_ATTRIBUTESINSIDE, attributesPre);
 
@@ -463,7 +459,7 @@ public final class GCParser {
             }
             DisposableHandler.sendLoadProgressDetail(handler, R.string.cache_dialog_loading_details_status_spoilers);
 
-            cacheSpoilers.addAll(parseSpoiler(page));
+            cacheSpoilers.addAll(parseSpoiler(page.getPage()));
 
         } catch (final RuntimeException e) {
             // failed to parse cache spoilers
@@ -471,8 +467,9 @@ public final class GCParser {
         }
 
         // background image, to be added only if the image is not already present in the cache listing
-        final MatcherWrapper matcherBackgroundImage = new MatcherWrapper(GCConstants.PATTERN_BACKGROUND_IMAGE, page);
-        if (matcherBackgroundImage.find()) {
+        final int backgroundImage = page.getSearchStart(Anchor.BACKGROUND_IMAGE, 0);
+        final MatcherWrapper matcherBackgroundImage = new MatcherWrapper(GCConstants.PATTERN_BACKGROUND_IMAGE, page.getPage());
+        if (backgroundImage >= 0 && matcherBackgroundImage.find(backgroundImage)) {
             final String url = matcherBackgroundImage.group(1);
             boolean present = false;
             for (final Image image : cacheSpoilers) {
@@ -490,14 +487,14 @@ public final class GCParser {
         cache.setSpoilers(cacheSpoilers);
 
         // cache inventory
-        final List<Trackable> inventory = parseInventory(page);
+        final List<Trackable> inventory = parseInventory(page.getPage());
         if (inventory != null) {
             cache.mergeInventory(inventory, EnumSet.of(TrackableBrand.TRAVELBUG));
         }
 
         // cache logs counts
         try {
-            final String countlogs = TextUtils.getMatch(page, GCConstants.PATTERN_COUNTLOGS, true, null);
+            final String countlogs = page.getMatch(Anchor.COUNTLOGS, true, null);
             if (countlogs != null) {
                 final MatcherWrapper matcherLog = new MatcherWrapper(GCConstants.PATTERN_COUNTLOG, countlogs);
 
@@ -525,7 +522,7 @@ public final class GCParser {
 
         // add waypoint for original coordinates in case of user-modified listing-coordinates
         try {
-            final String originalCoords = TextUtils.getMatch(page, GCConstants.PATTERN_LATLON_ORIG, false, null);
+            final String originalCoords = page.getMatch(Anchor.LATLON_ORIG, false, null);
 
             if (originalCoords != null) {
                 cache.createOriginalWaypoint(new Geopoint(originalCoords));
@@ -533,14 +530,14 @@ public final class GCParser {
         } catch (final Geopoint.GeopointException ignored) {
         }
 
-        int wpBegin = page.indexOf("id=\"ctl00_ContentBody_Waypoints\">");
+        int wpBegin = page.indexOf(Anchor.WAYPOINTS);
         if (wpBegin != -1) { // parse waypoints
             if (DisposableHandler.isDisposed(handler)) {
                 return UNKNOWN_PARSE_ERROR;
             }
             DisposableHandler.sendLoadProgressDetail(handler, R.string.cache_dialog_loading_details_status_waypoints);
 
-            String wpList = page.substring(wpBegin);
+            String wpList = page.getPage().substring(wpBegin);
 
             int wpEnd = wpList.indexOf("</p>");
             if (wpEnd > -1 && wpEnd <= wpList.length()) {
@@ -1029,13 +1026,15 @@ public final class GCParser {
         return getCount(page, GCConstants.PATTERN_WATCHLIST_COUNT, 1);
     }
 
-    static int getGalleryCount(final String page) {
-        return getCount(page, GCConstants.PATTERN_GALLERY_COUNT, 1);
+    private static int getCount(final String page, final Pattern pattern, final int group) {
+        return parseCount(TextUtils.getMatch(page, pattern, true, group, "notFound", false));
     }
 
-    private static int getCount(final String page, final Pattern pattern, final int group) {
+    private static int getCount(final GCCachePage page, final Anchor anchor) {
+        return parseCount(page.getMatch(anchor, true, "notFound"));
+    }
 
-        final String sCount = TextUtils.getMatch(page, pattern, true, group, "notFound", false);
+    private static int parseCount(final String sCount) {
         if ("notFound".equals(sCount)) {
             return -1;
         }
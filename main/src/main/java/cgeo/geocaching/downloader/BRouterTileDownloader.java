@@ -4,6 +4,7 @@ import cgeo.geocaching.CgeoApplication;
 import cgeo.geocaching.R;
 import cgeo.geocaching.brouter.BRouterConstants;
 import cgeo.geocaching.brouter.mapaccess.PhysicalFile;
+import cgeo.geocaching.maps.routing.Routing;
 import cgeo.geocaching.models.Download;
 import cgeo.geocaching.network.Network;
 import cgeo.geocaching.storage.ContentStorage;
@@ -89,6 +90,12 @@ public class BRouterTileDownloader extends AbstractDownloader {
         return tiles;
     }
 
+    @Override
+    protected void onSuccessfulReceive(final Uri result) {
+        // cached tracks may be based on outdated or missing tile data
+        Routing.clearRouteCache();
+    }
+
     @Override
     protected boolean verifiedBeforeCopying(final String filename, final Uri file) {
         final String result = PhysicalFile.checkTileDataIntegrity(filename, (FileInputStream) ContentStorage.get().openForRead(file));
@@ -90,12 +90,16 @@ public class GpxExport extends AbstractExport {
         final CheckBox includeTravelBugs = layout.findViewById(R.id.include_travelbugs);
         includeTravelBugs.setChecked(Settings.getIncludeTravelBugs());
 
+        final CheckBox compressZip = layout.findViewById(R.id.compress_zip);
+        compressZip.setChecked(Settings.getCompressGpxExport());
+
         builder.setPositiveButton(R.string.export, (dialog, which) -> {
             Settings.setIncludeFoundStatus(includeFoundStatus.isChecked());
             Settings.setIncludeLogs(includeLogs.isChecked());
             Settings.setIncludeTravelBugs(includeTravelBugs.isChecked());
+            Settings.setCompressGpxExport(compressZip.isChecked());
             dialog.dismiss();
-            new GpxExportTask(activity, getProgressTitle(), fileName, getName()).execute(geocodes);
+            new GpxExportTask(activity, getProgressTitle(), fileName, getName(), compressZip.isChecked()).execute(geocodes);
         });
 
         return builder.create();
@@ -6,6 +6,7 @@ import cgeo.geocaching.activity.ActivityMixin;
 import cgeo.geocaching.storage.ContentStorage;
 import cgeo.geocaching.storage.PersistableFolder;
 import cgeo.geocaching.utils.AsyncTaskWithProgress;
+import cgeo.geocaching.utils.FileUtils;
 import cgeo.geocaching.utils.Log;
 import cgeo.geocaching.utils.ShareUtils;
 import cgeo.geocaching.utils.UriUtils;
@@ -13,6 +14,7 @@ import cgeo.geocaching.utils.UriUtils;
 import android.app.Activity;
 import android.net.Uri;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStream;
@@ -21,12 +23,21 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
 
 public class GpxExportTask extends AsyncTaskWithProgress<String, Uri> {
+    /**
+     * size of the buffers between the XML serializer and the target file
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
     private final String filename;
     private final String name;
+    private final boolean compress;
 
     /**
      * Instantiates and configures the task for exporting gpx files.
@@ -34,9 +45,20 @@ public class GpxExportTask extends AsyncTaskWithProgress<String, Uri> {
      * @param activity optional: Show a progress bar and toasts
      */
     public GpxExportTask(final Activity activity, final String title, final String filename, final String name) {
+        this(activity, title, filename, name, false);
+    }
+
+    /**
+     * Instantiates and configures the task for exporting gpx files.
+     *
+     * @param activity optional: Show a progress bar and toasts
+     * @param compress write a ZIP file containing the GPX file
+     */
+    public GpxExportTask(final Activity activity, final String title, final String filename, final String name, final boolean compress) {
         super(activity, title);
         this.filename = filename;
         this.name = name;
+        this.compress = compress;
     }
 
     @Override
@@ -45,7 +67,7 @@ public class GpxExportTask extends AsyncTaskWithProgress<String, Uri> {
 
         setMessage(CgeoApplication.getInstance().getResources().getQuantityString(R.plurals.cache_counts, allGeocodes.size(), allGeocodes.size()));
 
-        final Uri uri = ContentStorage.get().create(PersistableFolder.GPX, filename);
+        final Uri uri = ContentStorage.get().create(PersistableFolder.GPX, compress ? StringUtils.removeEndIgnoreCase(filename, FileUtils.GPX_FILE_EXTENSION) + FileUtils.ZIP_FILE_EXTENSION : filename);
         if (uri == null) {
             return null;
         }
@@ -56,8 +78,18 @@ public class GpxExportTask extends AsyncTaskWithProgress<String, Uri> {
                 return null;
             }
 
-            writer = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8));
+            // the serializer writes into the buffered writer directly, the encoded (and compressed) output is
+            // written to the target in large blocks
+            OutputStream target = new BufferedOutputStream(os, BUFFER_SIZE);
+            if (compress) {
+                final ZipOutputStream zip = new ZipOutputStream(target, StandardCharsets.UTF_8);
+                zip.putNextEntry(new ZipEntry(filename));
+                target = zip;
+            }
+            writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), BUFFER_SIZE);
             new GpxSerializer().writeGPX(allGeocodes, writer, this::publishProgress);
+            // write the buffered rest and finish the ZIP file, before the target gets closed
+            writer.close();
         } catch (final IOException e) {
             Log.e("GpxExport.ExportTask export", e);
             // delete partial GPX file on error
@@ -76,7 +108,7 @@ public class GpxExportTask extends AsyncTaskWithProgress<String, Uri> {
         final Activity activityLocal = activity;
         if (activityLocal != null) {
             if (uri != null) {
-                ShareUtils.shareOrDismissDialog(activityLocal, uri, "application/xml", R.string.export, name + ' ' + activityLocal.getString(R.string.export_exportedto) + ": " + UriUtils.toUserDisplayableString(uri));
+                ShareUtils.shareOrDismissDialog(activityLocal, uri, compress ? "application/zip" : "application/xml", R.string.export, name + ' ' + activityLocal.getString(R.string.export_exportedto) + ": " + UriUtils.toUserDisplayableString(uri));
             } else {
                 ActivityMixin.showToast(activityLocal, activityLocal.getString(R.string.export_failed));
             }
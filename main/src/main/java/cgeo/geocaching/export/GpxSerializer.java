@@ -21,14 +21,21 @@ import cgeo.org.kxml2.io.KXmlSerializer;
 import androidx.annotation.NonNull;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -61,6 +68,11 @@ public final class GpxSerializer {
      */
     public static final int CACHES_PER_BATCH = 100;
 
+    /**
+     * number of batches loaded from the database in the background, while the current batch is written
+     */
+    private static final int PREFETCH_BATCHES = 2;
+
     /**
      * counter for exported caches, used for progress reporting
      */
@@ -74,10 +86,7 @@ public final class GpxSerializer {
 
     }
 
-    public void writeGPX(@NonNull final List<String> allGeocodesIn, final Writer writer, final ProgressListener progressListener) throws IOException {
-        // create a copy of the geocode list, as we need to modify it, but it might be immutable
-        final List<String> allGeocodes = new ArrayList<>(allGeocodesIn);
-
+    public void writeGPX(@NonNull final List<String> allGeocodes, final Writer writer, final ProgressListener progressListener) throws IOException {
         this.progressListener = progressListener;
         gpx.setOutput(writer);
         gpx.setFeature("http://xmlpull.org/v1/doc/features.html#indent-output", true);
@@ -96,18 +105,42 @@ public final class GpxSerializer {
 
         // Split the overall set of geocodes into small chunks. That is a compromise between memory efficiency (because
         // we don't load all caches fully into memory) and speed (because we don't query each cache separately).
-        while (!allGeocodes.isEmpty()) {
-            final List<String> batch = allGeocodes.subList(0, Math.min(CACHES_PER_BATCH, allGeocodes.size()));
-            exportBatch(gpx, batch);
-            batch.clear();
+        // The next chunks are loaded in the background, while the current one is written.
+        final ExecutorService loader = Executors.newSingleThreadExecutor();
+        try {
+            final Queue<Future<Set<Geocache>>> loadedBatches = new ArrayDeque<>();
+            int next = 0;
+            while (next < allGeocodes.size() || !loadedBatches.isEmpty()) {
+                while (next < allGeocodes.size() && loadedBatches.size() <= PREFETCH_BATCHES) {
+                    final List<String> batch = new ArrayList<>(allGeocodes.subList(next, Math.min(next + CACHES_PER_BATCH, allGeocodes.size())));
+                    next += batch.size();
+                    loadedBatches.add(loader.submit(() -> DataStore.loadCaches(batch, LoadFlags.LOAD_ALL_DB_ONLY)));
+                }
+                exportBatch(gpx, awaitLoaded(loadedBatches.remove()));
+            }
+        } finally {
+            loader.shutdownNow();
         }
 
         gpx.endTag(NS_GPX, "gpx");
         gpx.endDocument();
     }
 
-    private void exportBatch(final XmlSerializer gpx, @NonNull final Collection<String> geocodesOfBatch) throws IOException {
-        final Set<Geocache> caches = DataStore.loadCaches(geocodesOfBatch, LoadFlags.LOAD_ALL_DB_ONLY);
+    private static Set<Geocache> awaitLoaded(@NonNull final Future<Set<Geocache>> loading) throws IOException {
+        try {
+            return loading.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("GPX export interrupted");
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException("Loading caches for GPX export failed", e.getCause());
+        }
+    }
+
+    private void exportBatch(final XmlSerializer gpx, @NonNull final Collection<Geocache> caches) throws IOException {
         for (final Geocache cache : caches) {
             if (cache == null) {
                 continue;
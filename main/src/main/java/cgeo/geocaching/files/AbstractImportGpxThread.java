@@ -1,15 +1,67 @@
 package cgeo.geocaching.files;
 
 import cgeo.geocaching.models.Geocache;
+import cgeo.geocaching.settings.Settings;
 import cgeo.geocaching.utils.DisposableHandler;
 
 import android.os.Handler;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.StringRes;
+import androidx.core.util.Supplier;
+
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.compress.utils.IOUtils;
 
 abstract class AbstractImportGpxThread extends AbstractImportThread {
 
+    /**
+     * number of files (or zip entries) parsed at the same time, by all running imports
+     */
+    private static final int PARALLEL_PARSERS = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private static final ExecutorService PARSER_POOL = Executors.newFixedThreadPool(PARALLEL_PARSERS);
+
+    private GPXImportWriter writer;
+    private Supplier<GPXParser> parserFactory;
+
+    /**
+     * One of the GPX files of an import, with the import step announced when its caches are stored.
+     */
+    protected static final class GpxSource {
+        private final Opener opener;
+        private final int importStep;
+        @StringRes private final int stepText;
+        private final String displayName;
+        private final long size;
+
+        protected interface Opener {
+            @NonNull
+            InputStream open() throws IOException;
+        }
+
+        protected GpxSource(@NonNull final Opener opener, final int importStep, @StringRes final int stepText, final String displayName, final long size) {
+            this.opener = opener;
+            this.importStep = importStep;
+            this.stepText = stepText;
+            this.displayName = displayName;
+            this.size = size;
+        }
+    }
+
     protected AbstractImportGpxThread(final int listId, final Handler importStepHandler, final DisposableHandler progressHandler) {
         super(listId, importStepHandler, progressHandler);
     }
@@ -18,10 +70,128 @@ abstract class AbstractImportGpxThread extends AbstractImportThread {
     protected Collection<Geocache> doImport() throws IOException, ParserException {
         try {
             // try to parse cache file as GPX 10
-            return doImport(new GPX10Parser(listId));
+            return doImportWithWriter(() -> new GPX10Parser(listId));
         } catch (final ParserException ignored) {
             // didn't work -> lets try GPX11
-            return doImport(new GPX11Parser(listId));
+            return doImportWithWriter(() -> new GPX11Parser(listId));
+        }
+    }
+
+    private Collection<Geocache> doImportWithWriter(final Supplier<GPXParser> versionedParserFactory) throws IOException, ParserException {
+        // all running imports share the writer, so that the database is written by one thread only
+        writer = GPXImportWriter.acquire();
+        final boolean importLogs = Settings.isGpxImportLogs();
+        parserFactory = () -> {
+            final GPXParser parser = versionedParserFactory.get();
+            parser.setImportWriter(writer, importStepHandler);
+            parser.setImportLogs(importLogs);
+            return parser;
+        };
+        try {
+            return doImport(createParser());
+        } finally {
+            GPXImportWriter.release(writer);
+        }
+    }
+
+    /**
+     * @return a new parser of the GPX version of the running import
+     */
+    @NonNull
+    protected GPXParser createParser() {
+        return parserFactory.get();
+    }
+
+    /**
+     * Parses the GPX files of the import at the same time, each by a parser of its own on the parser pool. The caches
+     * are stored in the order of the files, so that later files may refer to caches of earlier ones, e.g. a waypoints
+     * file to the caches of its GPX file. The import step of a file is announced once the files before are stored.
+     * A single file is parsed on the calling thread.
+     *
+     * @return the parsed caches of all files, without duplicates
+     */
+    protected Collection<Geocache> parseInOrder(@NonNull final List<GpxSource> sources) throws IOException, ParserException {
+        // the progress counts the bytes of all files
+        long totalSize = 0;
+        for (final GpxSource source : sources) {
+            totalSize += source.size;
+        }
+        announce(sources.get(0), totalSize);
+        if (sources.size() == 1) {
+            return parse(createParser(), sources.get(0));
+        }
+        final AtomicInteger progress = new AtomicInteger();
+        final List<Future<Collection<Geocache>>> parsing = new ArrayList<>();
+        try {
+            // The pool starts the parsers in the order the sessions are opened. A running parser therefore never waits
+            // for the session of a parser which has not been started.
+            synchronized (PARSER_POOL) {
+                for (final GpxSource source : sources) {
+                    final GPXParser parser = createParser();
+                    parser.setProgressCounter(progress);
+                    final GPXImportWriter.Session session = writer.openSession(importStepHandler);
+                    parser.setImportSession(session);
+                    final FutureTask<Collection<Geocache>> task = new FutureTask<Collection<Geocache>>(() -> parse(parser, source)) {
+                        @Override
+                        protected void done() {
+                            // also the session of a parser canceled before it started has to be closed
+                            session.close();
+                        }
+                    };
+                    parsing.add(task);
+                    PARSER_POOL.execute(task);
+                }
+            }
+            final Map<String, Geocache> caches = new LinkedHashMap<>();
+            for (int i = 0; i < parsing.size(); i++) {
+                if (i > 0) {
+                    announce(sources.get(i), totalSize);
+                }
+                for (final Geocache cache : awaitParsed(parsing.get(i))) {
+                    caches.put(cache.getGeocode(), cache);
+                }
+            }
+            return caches.values();
+        } finally {
+            // stop the parsers if one failed
+            for (final Future<Collection<Geocache>> future : parsing) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private void announce(@NonNull final GpxSource source, final long totalSize) {
+        importStepHandler.sendMessage(importStepHandler.obtainMessage(source.importStep, source.stepText, (int) totalSize, source.displayName));
+    }
+
+    private Collection<Geocache> parse(@NonNull final GPXParser parser, @NonNull final GpxSource source) throws IOException, ParserException {
+        final InputStream stream = source.opener.open();
+        try {
+            return parser.parse(stream, progressHandler);
+        } finally {
+            IOUtils.closeQuietly(stream);
+        }
+    }
+
+    private static Collection<Geocache> awaitParsed(@NonNull final Future<Collection<Geocache>> parsing) throws IOException, ParserException {
+        try {
+            return parsing.get();
+        } catch (final InterruptedException e) {
+            parsing.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new CancellationException("GPX import interrupted");
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof ParserException) {
+                throw (ParserException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
         }
     }
 
@@ -1,6 +1,6 @@
 package cgeo.geocaching.files;
 
-import android.sax.Element;
+import cgeo.geocaching.utils.xml.XmlPullElement;
 
 import androidx.annotation.NonNull;
 
@@ -11,18 +11,18 @@ public class GPX10Parser extends GPXParser {
     }
 
     @Override
-    protected Element getNodeForExtension(@NonNull final Element waypoint) {
+    protected XmlPullElement getNodeForExtension(@NonNull final XmlPullElement waypoint) {
         return waypoint;
     }
 
     @Override
-    protected void registerUrlAndUrlName(@NonNull final Element element) {
+    protected void registerUrlAndUrlName(@NonNull final XmlPullElement element) {
         element.getChild(namespace, "url").setEndTextElementListener(this::setUrl);
         element.getChild(namespace, "urlname").setEndTextElementListener(this::setUrlName);
     }
 
     @Override
-    protected void registerScriptUrl(@NonNull final Element element) {
+    protected void registerScriptUrl(@NonNull final XmlPullElement element) {
         element.getChild(namespace, "url").setEndTextElementListener(body -> scriptUrl = body);
     }
 }
@@ -1,8 +1,7 @@
 package cgeo.geocaching.files;
 
 import cgeo.geocaching.utils.Log;
-
-import android.sax.Element;
+import cgeo.geocaching.utils.xml.XmlPullElement;
 
 import androidx.annotation.NonNull;
 
@@ -13,17 +12,18 @@ public final class GPX11Parser extends GPXParser {
     }
 
     @Override
-    protected Element getNodeForExtension(@NonNull final Element waypoint) {
+    protected XmlPullElement getNodeForExtension(@NonNull final XmlPullElement waypoint) {
         return waypoint.getChild(namespace, "extensions");
     }
 
     @Override
-    protected void registerUrlAndUrlName(@NonNull final Element element) {
-        final Element linkElement = element.getChild(namespace, "link");
-        linkElement.setStartElementListener(attrs -> {
+    protected void registerUrlAndUrlName(@NonNull final XmlPullElement element) {
+        final XmlPullElement linkElement = element.getChild(namespace, "link");
+        linkElement.setStartElementListener(parser -> {
             try {
-                if (attrs.getIndex("href") > -1) {
-                    setUrl(attrs.getValue("href"));
+                final String href = parser.getAttributeValue(null, "href");
+                if (href != null) {
+                    setUrl(href);
                 }
 
             } catch (final RuntimeException e) {
@@ -36,11 +36,12 @@ public final class GPX11Parser extends GPXParser {
     }
 
     @Override
-    protected void registerScriptUrl(@NonNull final Element element) {
-        element.getChild(namespace, "metadata").getChild(namespace, "link").setStartElementListener(attrs -> {
+    protected void registerScriptUrl(@NonNull final XmlPullElement element) {
+        element.getChild(namespace, "metadata").getChild(namespace, "link").setStartElementListener(parser -> {
             try {
-                if (attrs.getIndex("href") > -1) {
-                    scriptUrl = attrs.getValue("href");
+                final String href = parser.getAttributeValue(null, "href");
+                if (href != null) {
+                    scriptUrl = href;
                 }
 
             } catch (final RuntimeException e) {
@@ -0,0 +1,402 @@
+package cgeo.geocaching.files;
+
+import cgeo.geocaching.enumerations.LoadFlags;
+import cgeo.geocaching.log.LogEntry;
+import cgeo.geocaching.models.Geocache;
+import cgeo.geocaching.storage.DataStore;
+import cgeo.geocaching.utils.Log;
+
+import android.os.Handler;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.util.Consumer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Stores the caches of GPX imports in the database, on a thread of its own while parsing goes on.
+ * <br>
+ * Each parsed file has a {@link Session}, which collects the caches (with their logs) in batches. Full batches are
+ * handed to the writer thread, which stores each batch in a single transaction by {@link DataStore#saveImportedCaches}.
+ * <br>
+ * The sessions are stored in the order they were opened, one after the other, so that caches of later files (e.g.
+ * duplicates) overwrite those of earlier ones. Later sessions may parse ahead by a limited number of batches while an
+ * earlier one is still stored.
+ * <br>
+ * Changes of caches not in the current batch, like waypoints for their parent cache, are applied by the writer thread
+ * to the stored cache, when the batch is stored. The parent cache may thus come from an earlier session, which is
+ * still being parsed, e.g. the GPX file of the waypoints file of a pocket query.
+ * <br>
+ * All imports running at the same time share one writer, see {@link #acquire()}, so that the database is written
+ * by a single thread.
+ */
+final class GPXImportWriter {
+
+    static final int BATCH_SIZE = 100;
+    // limits the caches parsed ahead of the database, by the session being stored
+    private static final int MAX_QUEUED_BATCHES = 3;
+    // limits the caches parsed ahead of the database, by all sessions waiting for an earlier one to be stored
+    private static final int MAX_WAITING_BATCHES = 10;
+
+    private static GPXImportWriter sharedWriter = null;
+    private static int sharedWriterUsers = 0;
+
+    private final Thread writerThread = new Thread(this::writeBatches, "GPXImportWriter");
+
+    private final Object lock = new Object();
+    // sessions in the order they are stored
+    private final ArrayDeque<Session> sessions = new ArrayDeque<>(); // guarded by lock
+    private boolean started = false; // guarded by lock
+    private boolean closed = false; // guarded by lock
+    private Throwable failure = null; // guarded by lock
+    private int writtenBatches = 0; // guarded by lock
+
+    // only used by the writer thread
+    private long startTime;
+    private int writtenCaches = 0;
+
+    private static final class Batch {
+        final Map<String, Geocache> caches = new LinkedHashMap<>();
+        final Map<String, List<LogEntry>> logs = new HashMap<>();
+        // changes of caches not in this batch, by geocode or title of the cache
+        final Map<String, List<Consumer<Geocache>>> changes = new LinkedHashMap<>();
+        @Nullable final Handler importStepHandler;
+        int imported = 0;
+
+        Batch(@Nullable final Handler importStepHandler) {
+            this.importStepHandler = importStepHandler;
+        }
+
+        int size() {
+            return caches.size() + changes.size();
+        }
+    }
+
+    /**
+     * Caches parsed from one file. The methods adding caches are to be used from the parsing thread only.
+     */
+    final class Session {
+        @Nullable private final Handler importStepHandler;
+        private Batch pending;
+
+        private final ArrayDeque<Batch> queue = new ArrayDeque<>(); // guarded by lock
+        private int queuedBatches = 0; // guarded by lock
+        private int sessionWrittenBatches = 0; // guarded by lock
+        private boolean sessionClosed = false; // guarded by lock
+
+        private Session(@Nullable final Handler importStepHandler) {
+            this.importStepHandler = importStepHandler;
+            pending = new Batch(importStepHandler);
+        }
+
+        /**
+         * adds a parsed cache with its logs, to be stored with the next batch
+         */
+        void add(@NonNull final Geocache cache, @NonNull final List<LogEntry> logs) {
+            final String geocode = cache.getGeocode();
+            if (pending.caches.containsKey(geocode) || pending.changes.containsKey(geocode)) {
+                // a duplicate has to be merged with the stored first one, changes apply to the stored cache
+                flush();
+            }
+            pending.caches.put(geocode, cache);
+            pending.logs.put(geocode, logs);
+            pending.imported++;
+            if (pending.size() >= BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        /**
+         * Changes a cache, e.g. adds an imported waypoint to its parent cache. A cache of the current batch with that
+         * geocode is changed right away, any other cache when the batch is stored, see {@link #findCache}. Caches not
+         * found then are skipped.
+         *
+         * @param geocodeOrTitle geocode of the cache, or its title if no cache has that geocode
+         */
+        void update(@NonNull final String geocodeOrTitle, @NonNull final Consumer<Geocache> change) {
+            final Geocache pendingCache = pending.caches.get(geocodeOrTitle);
+            if (pendingCache != null) {
+                change.accept(pendingCache);
+                return;
+            }
+            List<Consumer<Geocache>> changes = pending.changes.get(geocodeOrTitle);
+            if (changes == null) {
+                changes = new ArrayList<>();
+                pending.changes.put(geocodeOrTitle, changes);
+            }
+            changes.add(change);
+            if (pending.size() >= BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        /**
+         * hands the current batch to the writer thread, blocks while the writer is too far behind
+         */
+        void flush() {
+            if (pending.size() == 0) {
+                return;
+            }
+            submit(this, pending);
+            pending = new Batch(importStepHandler);
+        }
+
+        /**
+         * flushes and waits until all caches of the session are stored
+         */
+        void awaitWritten() {
+            flush();
+            synchronized (lock) {
+                while (sessionWrittenBatches < queuedBatches && failure == null) {
+                    waitForWriter();
+                }
+                checkFailure();
+            }
+        }
+
+        /**
+         * Ends the session, so that the writer goes on with the next one. Caches not flushed before are dropped.
+         * Can be called several times and from any thread.
+         */
+        void close() {
+            synchronized (lock) {
+                sessionClosed = true;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * @return the writer shared by all running imports, to be released by {@link #release(GPXImportWriter)}
+     */
+    @NonNull
+    static synchronized GPXImportWriter acquire() {
+        if (sharedWriter == null) {
+            sharedWriter = new GPXImportWriter();
+        }
+        sharedWriterUsers++;
+        return sharedWriter;
+    }
+
+    /**
+     * closes the shared writer once the last import using it has finished
+     */
+    static synchronized void release(@NonNull final GPXImportWriter writer) {
+        if (writer == sharedWriter && --sharedWriterUsers == 0) {
+            sharedWriter = null;
+            writer.close();
+        }
+    }
+
+    /**
+     * Opens a session, which is stored after all sessions opened before. It has to be closed, even if it is not used.
+     *
+     * @param importStepHandler receives the number of caches written per second, see {@link GPXImporter#IMPORT_STEP_WRITE_RATE}
+     */
+    @NonNull
+    Session openSession(@Nullable final Handler importStepHandler) {
+        final Session session = new Session(importStepHandler);
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("GPXImportWriter already closed");
+            }
+            if (!started) {
+                started = true;
+                writerThread.start();
+            }
+            sessions.addLast(session);
+        }
+        return session;
+    }
+
+    /**
+     * @return number of batches stored, each in a transaction of its own
+     */
+    int getWrittenBatches() {
+        synchronized (lock) {
+            return writtenBatches;
+        }
+    }
+
+    private void submit(final Session session, final Batch batch) {
+        synchronized (lock) {
+            checkFailure();
+            if (session.sessionClosed) {
+                throw new IllegalStateException("GPXImportWriter session already closed");
+            }
+            // waiting releases the lock, so that the writer and other sessions go on meanwhile
+            while (!canQueue(session)) {
+                waitForWriter();
+                checkFailure();
+            }
+            session.queue.addLast(batch);
+            session.queuedBatches++;
+            lock.notifyAll();
+        }
+    }
+
+    // must hold lock
+    private boolean canQueue(final Session session) {
+        if (session == sessions.peekFirst()) {
+            return session.queue.size() < MAX_QUEUED_BATCHES;
+        }
+        int waitingBatches = 0;
+        for (final Session waiting : sessions) {
+            if (waiting != sessions.peekFirst()) {
+                waitingBatches += waiting.queue.size();
+            }
+        }
+        return waitingBatches < MAX_WAITING_BATCHES;
+    }
+
+    // must hold lock
+    private void waitForWriter() {
+        try {
+            lock.wait();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("GPX import interrupted");
+        }
+    }
+
+    /**
+     * stores the batches of all sessions, which have to be closed before, and stops the writer thread
+     */
+    void close() {
+        synchronized (lock) {
+            try {
+                while (!sessions.isEmpty() && failure == null) {
+                    waitForWriter();
+                }
+            } catch (final CancellationException e) {
+                Log.w("GPXImportWriter: not all caches stored", e);
+            } finally {
+                closed = true;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    // must hold lock
+    private void checkFailure() {
+        if (failure != null) {
+            throw new IllegalStateException("Storing imported caches failed", failure);
+        }
+    }
+
+    /**
+     * @return the next batch to store, null once the writer is closed
+     */
+    @Nullable
+    private Batch takeBatch() throws InterruptedException {
+        synchronized (lock) {
+            while (true) {
+                final Session session = sessions.peekFirst();
+                if (session == null) {
+                    if (closed) {
+                        return null;
+                    }
+                } else if (!session.queue.isEmpty()) {
+                    return session.queue.peekFirst();
+                } else if (session.sessionClosed) {
+                    // go on with the next session, which may now queue more batches
+                    sessions.removeFirst();
+                    lock.notifyAll();
+                    continue;
+                }
+                lock.wait();
+            }
+        }
+    }
+
+    private void writeBatches() {
+        startTime = System.currentTimeMillis();
+        try {
+            for (Batch batch = takeBatch(); batch != null; batch = takeBatch()) {
+                applyChanges(batch);
+                DataStore.saveImportedCaches(batch.caches.values(), batch.logs);
+                writtenCaches += batch.imported;
+                synchronized (lock) {
+                    final Session session = sessions.getFirst();
+                    session.queue.removeFirst();
+                    session.sessionWrittenBatches++;
+                    writtenBatches++;
+                    lock.notifyAll();
+                }
+                reportRate(batch.importStepHandler);
+            }
+            Log.i("GPXImportWriter: stored " + writtenCaches + " caches, " + getCachesPerSecond() + " caches/s");
+        } catch (final InterruptedException | RuntimeException e) {
+            Log.e("GPXImportWriter: storing caches failed", e);
+            synchronized (lock) {
+                failure = e;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * applies the changes of the batch to the stored caches, and adds them to the caches of the batch
+     */
+    private static void applyChanges(final Batch batch) {
+        for (final Map.Entry<String, List<Consumer<Geocache>>> changes : batch.changes.entrySet()) {
+            final Geocache cache = findCache(batch, changes.getKey());
+            if (cache == null) {
+                Log.w("GPXImportWriter: no cache found for " + changes.getKey());
+                continue;
+            }
+            for (final Consumer<Geocache> change : changes.getValue()) {
+                change.accept(cache);
+            }
+            batch.caches.put(cache.getGeocode(), cache);
+        }
+    }
+
+    /**
+     * Finds a cache of the batch or a stored one, preferring the version of the batch, which is stored next.
+     * Like for a single cache, caches are matched by geocode first, then by title.
+     */
+    @Nullable
+    private static Geocache findCache(final Batch batch, final String geocodeOrTitle) {
+        // first match by geocode only
+        Geocache cache = batch.caches.get(geocodeOrTitle);
+        if (cache == null) {
+            cache = DataStore.loadCache(geocodeOrTitle, LoadFlags.LOAD_CACHE_OR_DB);
+        }
+        if (cache == null) {
+            // then match by title, the caches of the batch are not stored yet
+            for (final Geocache batchCache : batch.caches.values()) {
+                if (geocodeOrTitle.equals(batchCache.getName())) {
+                    return batchCache;
+                }
+            }
+            final String geocode = DataStore.getGeocodeForTitle(geocodeOrTitle);
+            cache = StringUtils.isNotBlank(geocode) ? DataStore.loadCache(geocode, LoadFlags.LOAD_CACHE_OR_DB) : null;
+        }
+        if (cache == null) {
+            return null;
+        }
+        // the cache may have been changed by its title and its geocode
+        final Geocache batchCache = batch.caches.get(cache.getGeocode());
+        return batchCache != null ? batchCache : cache;
+    }
+
+    private int getCachesPerSecond() {
+        return (int) (writtenCaches * 1000L / Math.max(1L, System.currentTimeMillis() - startTime));
+    }
+
+    private void reportRate(@Nullable final Handler importStepHandler) {
+        if (importStepHandler != null) {
+            importStepHandler.sendMessage(importStepHandler.obtainMessage(GPXImporter.IMPORT_STEP_WRITE_RATE, getCachesPerSecond(), 0));
+        }
+    }
+}
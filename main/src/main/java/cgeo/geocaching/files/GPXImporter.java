@@ -37,6 +37,7 @@ public class GPXImporter {
     static final int IMPORT_STEP_CANCEL = 7;
     static final int IMPORT_STEP_CANCELED = 8;
     static final int IMPORT_STEP_STATIC_MAPS_SKIPPED = 9;
+    static final int IMPORT_STEP_WRITE_RATE = 10;
 
     public static final String WAYPOINTS_FILE_SUFFIX = "-wpts";
     public static final String WAYPOINTS_FILE_SUFFIX_AND_EXTENSION = WAYPOINTS_FILE_SUFFIX + FileUtils.GPX_FILE_EXTENSION;
@@ -168,6 +169,7 @@ public class GPXImporter {
         private final Progress progress;
         private final WeakReference<DisposableHandler> progressHandlerRef;
         private final Resources res;
+        private String stepMessage = null;
 
         ImportStepHandler(final GPXImporter importer, final Activity fromActivity) {
             this.fromActivity = importer.fromActivity;
@@ -195,15 +197,21 @@ public class GPXImporter {
             switch (msg.what) {
                 case IMPORT_STEP_START:
                     final Message cancelMessage = obtainMessage(IMPORT_STEP_CANCEL);
-                    progress.show(fromActivity, res.getString(R.string.gpx_import_title_reading_file), res.getString(R.string.gpx_import_loading_caches_with_filename, msg.obj), ProgressDialog.STYLE_HORIZONTAL, cancelMessage);
+                    stepMessage = res.getString(R.string.gpx_import_loading_caches_with_filename, msg.obj);
+                    progress.show(fromActivity, res.getString(R.string.gpx_import_title_reading_file), stepMessage, ProgressDialog.STYLE_HORIZONTAL, cancelMessage);
                     break;
 
                 case IMPORT_STEP_READ_FILE:
                 case IMPORT_STEP_READ_WPT_FILE:
-                    progress.setMessage(res.getString(msg.arg1, msg.obj));
+                    stepMessage = res.getString(msg.arg1, msg.obj);
+                    progress.setMessage(stepMessage);
                     progress.setMaxProgressAndReset(msg.arg2);
                     break;
 
+                case IMPORT_STEP_WRITE_RATE:
+                    progress.setMessage(stepMessage + "\n" + res.getString(R.string.gpx_import_caches_per_second, msg.arg1));
+                    break;
+
                 case IMPORT_STEP_STATIC_MAPS_SKIPPED:
                     progress.dismiss();
                     disposeProgressHandler();
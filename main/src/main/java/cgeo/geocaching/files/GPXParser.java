@@ -11,10 +11,7 @@ import cgeo.geocaching.connector.tc.TerraCachingType;
 import cgeo.geocaching.enumerations.CacheAttribute;
 import cgeo.geocaching.enumerations.CacheSize;
 import cgeo.geocaching.enumerations.CacheType;
-import cgeo.geocaching.enumerations.LoadFlags;
 import cgeo.geocaching.enumerations.LoadFlags.LoadFlag;
-import cgeo.geocaching.enumerations.LoadFlags.RemoveFlag;
-import cgeo.geocaching.enumerations.LoadFlags.SaveFlag;
 import cgeo.geocaching.enumerations.WaypointType;
 import cgeo.geocaching.list.StoredList;
 import cgeo.geocaching.location.Geopoint;
@@ -30,12 +27,10 @@ import cgeo.geocaching.utils.Log;
 import cgeo.geocaching.utils.MatcherWrapper;
 import cgeo.geocaching.utils.SynchronizedDateFormat;
 import cgeo.geocaching.utils.html.HtmlUtils;
+import cgeo.geocaching.utils.xml.XmlPullElement;
+import cgeo.geocaching.utils.xml.XmlUtils;
 
-import android.sax.Element;
-import android.sax.EndElementListener;
-import android.sax.EndTextElementListener;
-import android.sax.RootElement;
-import android.util.Xml;
+import android.os.Handler;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -56,10 +51,11 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
-import org.xml.sax.SAXException;
+import org.xmlpull.v1.XmlPullParserException;
 
 abstract class GPXParser extends FileParser {
 
@@ -139,6 +135,21 @@ abstract class GPXParser extends FileParser {
      */
     private final Set<String> result = new HashSet<>(100);
     private ProgressInputStream progressStream;
+    /**
+     * bytes read by all parsers of an import running in parallel, if set
+     */
+    @Nullable private AtomicInteger progressCounter;
+    private int reportedProgress = 0;
+    /**
+     * writer shared by all files of an import, if set
+     */
+    @Nullable private GPXImportWriter sharedWriter;
+    @Nullable private Handler importStepHandler;
+    /**
+     * session opened in advance for the next parsed file, if set
+     */
+    @Nullable private GPXImportWriter.Session nextImportSession;
+    private GPXImportWriter.Session importWriter;
     /**
      * URL contained in the header of the GPX file. Used to guess where the file is coming from.
      */
@@ -156,13 +167,17 @@ abstract class GPXParser extends FileParser {
      */
     private boolean terraChildWaypoint = false;
     private boolean logPasswordRequired = false;
+    /**
+     * without logs, their subtrees are skipped completely
+     */
+    private boolean importLogs = true;
 
     /**
      * prefix of the long description. used for adding alternative geocodes.
      */
     private String descriptionPrefix = "";
 
-    private final class UserDataListener implements EndTextElementListener {
+    private final class UserDataListener implements XmlPullElement.EndTextElementListener {
         private final int index;
 
         UserDataListener(final int index) {
@@ -170,7 +185,7 @@ abstract class GPXParser extends FileParser {
         }
 
         @Override
-        public void end(final String user) {
+        public void end(@NonNull final String user) {
             userData[index] = validate(user);
         }
     }
@@ -181,6 +196,37 @@ abstract class GPXParser extends FileParser {
         version = versionIn;
     }
 
+    /**
+     * lets the parser store its caches with the given writer, instead of a writer for each parsed file
+     */
+    void setImportWriter(@Nullable final GPXImportWriter writer, @Nullable final Handler importStepHandler) {
+        sharedWriter = writer;
+        this.importStepHandler = importStepHandler;
+    }
+
+    /**
+     * lets the parser store the caches of the next parsed file with the given session of the shared writer, which
+     * determines when they are stored compared to the other files of the import. The session is closed by the parser.
+     */
+    void setImportSession(@NonNull final GPXImportWriter.Session session) {
+        nextImportSession = session;
+    }
+
+    /**
+     * Lets the parser skip the logs of the caches, see {@link cgeo.geocaching.settings.Settings#isGpxImportLogs()}.
+     * Their found state isn't taken from the logs then.
+     */
+    void setImportLogs(final boolean importLogs) {
+        this.importLogs = importLogs;
+    }
+
+    /**
+     * lets the parser report its progress as part of the bytes read by several parsers
+     */
+    void setProgressCounter(@Nullable final AtomicInteger counter) {
+        progressCounter = counter;
+    }
+
     static Date parseDate(final String inputUntrimmed) throws ParseException {
         // remove milliseconds to reduce number of needed patterns
         final MatcherWrapper matcher = new MatcherWrapper(PATTERN_MILLISECONDS, inputUntrimmed.trim());
@@ -205,19 +251,19 @@ abstract class GPXParser extends FileParser {
         terraChildWaypoint = false;
 
         resetCache();
-        final RootElement root = new RootElement(namespace, "gpx");
-        final Element waypoint = root.getChild(namespace, "wpt");
+        final XmlPullElement root = new XmlPullElement(namespace, "gpx");
+        final XmlPullElement waypoint = root.getChild(namespace, "wpt");
 
         registerScriptUrl(root);
 
         root.getChild(namespace, "creator").setEndTextElementListener(body -> scriptUrl = body);
 
         // waypoint - attributes
-        waypoint.setStartElementListener(attrs -> {
+        waypoint.setStartElementListener(parser -> {
             try {
-                if (attrs.getIndex("lat") > -1 && attrs.getIndex("lon") > -1) {
-                    final String latitude = attrs.getValue("lat");
-                    final String longitude = attrs.getValue("lon");
+                final String latitude = parser.getAttributeValue(null, "lat");
+                final String longitude = parser.getAttributeValue(null, "lon");
+                if (latitude != null && longitude != null) {
                     // latitude and longitude are required attributes, but we export them (0/0) for waypoints without coordinates
                     if (StringUtils.isNotBlank(latitude) && StringUtils.isNotBlank(longitude)) {
                         final Geopoint latLon = new Geopoint(Double.parseDouble(latitude),
@@ -234,7 +280,7 @@ abstract class GPXParser extends FileParser {
         });
 
         // waypoint
-        waypoint.setEndElementListener(new EndElementListener() {
+        waypoint.setEndElementListener(new XmlPullElement.EndElementListener() {
 
             @Override
             public void end() {
@@ -272,14 +318,10 @@ abstract class GPXParser extends FileParser {
                     // modify cache depending on the use case/connector
                     afterParsing(cache);
 
-                    // finally store the cache in the database
+                    // finally store the cache in the database, with the next batch
                     result.add(geocode);
-                    DataStore.saveCache(cache, EnumSet.of(SaveFlag.DB));
-                    DataStore.saveLogs(cache.getGeocode(), logs, false);
-
-                    // avoid the cachecache using lots of memory for caches which the user did not actually look at
-                    DataStore.removeCache(geocode, EnumSet.of(RemoveFlag.CACHE));
-                    showProgressMessage(progressHandler, progressStream.getProgress());
+                    importWriter.add(cache, logs);
+                    reportProgress(progressHandler);
                 } else if (StringUtils.isNotBlank(cache.getName())
                         && (StringUtils.containsIgnoreCase(type, "waypoint") || terraChildWaypoint)) {
                     addWaypointToCache();
@@ -306,53 +348,55 @@ abstract class GPXParser extends FileParser {
                         cache.setShortDescription("");
                     }
 
-                    final Geocache cacheForWaypoint = findParentCache();
-                    if (cacheForWaypoint != null) {
-                        final Waypoint waypoint = new Waypoint(cache.getShortDescription(), WaypointType.fromGPXString(sym, subtype), false);
-                        if (wptUserDefined) {
-                            waypoint.setUserDefined();
+                    final Waypoint waypoint = new Waypoint(cache.getShortDescription(), WaypointType.fromGPXString(sym, subtype), false);
+                    if (wptUserDefined) {
+                        waypoint.setUserDefined();
+                    }
+                    waypoint.setId(-1);
+                    waypoint.setGeocode(parentCacheCode);
+                    String cacheName = cache.getName();
+                    if (wptUserDefined) {
+                        // try to deduct original prefix from wpt name
+                        if (StringUtils.endsWithIgnoreCase(cacheName, parentCacheCode.substring(2))) {
+                            cacheName = cacheName.substring(0, cacheName.length() - parentCacheCode.length() + 2);
                         }
-                        waypoint.setId(-1);
-                        waypoint.setGeocode(parentCacheCode);
-                        String cacheName = cache.getName();
-                        if (wptUserDefined) {
-                            // try to deduct original prefix from wpt name
-                            if (StringUtils.endsWithIgnoreCase(cacheName, parentCacheCode.substring(2))) {
-                                cacheName = cacheName.substring(0, cacheName.length() - parentCacheCode.length() + 2);
-                            }
-                            if (StringUtils.startsWithIgnoreCase(cacheName, Waypoint.PREFIX_OWN + "-")) {
-                                cacheName = cacheName.substring(4);
-                            }
+                        if (StringUtils.startsWithIgnoreCase(cacheName, Waypoint.PREFIX_OWN + "-")) {
+                            cacheName = cacheName.substring(4);
                         }
-                        waypoint.setPrefix(cacheForWaypoint.getWaypointPrefix(cacheName));
-                        waypoint.setLookup("---");
-                        // there is no lookup code in gpx file
+                    }
+                    final String waypointName = cacheName;
+                    waypoint.setLookup("---");
+                    // there is no lookup code in gpx file
+
+                    waypoint.setCoords(cache.getCoords());
+
+                    // user defined waypoint does not have original empty coordinates
+                    if (wptEmptyCoordinates || (!waypoint.isUserDefined() && null == waypoint.getCoords())) {
+                        waypoint.setOriginalCoordsEmpty(true);
+                    }
 
-                        waypoint.setCoords(cache.getCoords());
+                    final WaypointUserNoteCombiner wpCombiner = new WaypointUserNoteCombiner(waypoint);
+                    wpCombiner.updateNoteAndUserNote(cache.getDescription());
+
+                    waypoint.setVisited(wptVisited);
+
+                    // the parent cache is changed right away if it is in the current batch, otherwise once it is stored
+                    importWriter.update(parentCacheCode, cacheForWaypoint -> {
+                        waypoint.setPrefix(cacheForWaypoint.getWaypointPrefix(waypointName));
 
                         // set flag for user-modified coordinates of cache
                         if (waypoint.getWaypointType() == WaypointType.ORIGINAL) {
                             cacheForWaypoint.setUserModifiedCoords(true);
                         }
 
-                        // user defined waypoint does not have original empty coordinates
-                        if (wptEmptyCoordinates || (!waypoint.isUserDefined() && null == waypoint.getCoords())) {
-                            waypoint.setOriginalCoordsEmpty(true);
-                        }
-
-                        final WaypointUserNoteCombiner wpCombiner = new WaypointUserNoteCombiner(waypoint);
-                        wpCombiner.updateNoteAndUserNote(cache.getDescription());
-
-                        waypoint.setVisited(wptVisited);
                         final List<Waypoint> mergedWayPoints = new ArrayList<>(cacheForWaypoint.getWaypoints());
 
                         final List<Waypoint> newPoints = new ArrayList<>();
                         newPoints.add(waypoint);
                         Waypoint.mergeWayPoints(newPoints, mergedWayPoints, true);
                         cacheForWaypoint.setWaypoints(newPoints, false);
-                        DataStore.saveCache(cacheForWaypoint, EnumSet.of(SaveFlag.DB));
-                        showProgressMessage(progressHandler, progressStream.getProgress());
-                    }
+                    });
+                    reportProgress(progressHandler);
                 }
             }
 
@@ -420,7 +464,7 @@ abstract class GPXParser extends FileParser {
 
         // for GPX 1.0, cache info comes from waypoint node (so called private children)
         // for GPX 1.1 from extensions node
-        final Element extensionNode = getNodeForExtension(waypoint);
+        final XmlPullElement extensionNode = getNodeForExtension(waypoint);
         if (extensionNode != null) {
             registerExtensions(extensionNode);
         } else {
@@ -428,17 +472,27 @@ abstract class GPXParser extends FileParser {
             registerExtensions(waypoint);
         }
 
+        final GPXImportWriter writer = sharedWriter != null ? sharedWriter : new GPXImportWriter();
+        importWriter = nextImportSession != null ? nextImportSession : writer.openSession(importStepHandler);
+        nextImportSession = null;
         try {
             progressStream = new ProgressInputStream(stream);
+            reportedProgress = 0;
             final BufferedReader reader = new BufferedReader(new InputStreamReader(progressStream, StandardCharsets.UTF_8));
-            Xml.parse(new InvalidXMLCharacterFilterReader(reader), root.getContentHandler());
+            root.parse(XmlUtils.createParser(new InvalidXMLCharacterFilterReader(reader), true));
+            importWriter.awaitWritten();
             return DataStore.loadCaches(result, EnumSet.of(LoadFlag.DB_MINIMAL));
-        } catch (final SAXException e) {
+        } catch (final XmlPullParserException e) {
             throw new ParserException("Cannot parse .gpx file as GPX " + version + ": could not parse XML", e);
+        } finally {
+            importWriter.close();
+            if (writer != sharedWriter) {
+                writer.close();
+            }
         }
     }
 
-    private void registerExtensions(@NonNull final Element cacheParent) {
+    private void registerExtensions(@NonNull final XmlPullElement cacheParent) {
         registerGsakExtensions(cacheParent);
         registerTerraCachingExtensions(cacheParent);
         registerCgeoExtensions(cacheParent);
@@ -449,16 +503,18 @@ abstract class GPXParser extends FileParser {
     /**
      * Add listeners for groundspeak extensions
      */
-    private void registerGroundspeakExtensions(final Element cacheParent) {
+    private void registerGroundspeakExtensions(final XmlPullElement cacheParent) {
         // 3 different versions of the GC schema
         for (final String nsGC : GROUNDSPEAK_NAMESPACE) {
             // waypoints.cache
-            final Element gcCache = cacheParent.getChild(nsGC, "cache");
+            final XmlPullElement gcCache = cacheParent.getChild(nsGC, "cache");
 
             registerGsakExtensionsCache(nsGC, gcCache);
             registerGsakExtensionsAttribute(nsGC, gcCache);
             registerGsakExtensionsTb(nsGC, gcCache);
-            registerGsakExtensionsLog(nsGC, gcCache);
+            if (importLogs) {
+                registerGsakExtensionsLog(nsGC, gcCache);
+            }
         }
     }
 
@@ -467,17 +523,20 @@ abstract class GPXParser extends FileParser {
      */
     // method readability will not improve by splitting it up
     @SuppressWarnings("PMD.NPathComplexity")
-    private void registerGsakExtensionsCache(final String nsGC, final Element gcCache) {
-        gcCache.setStartElementListener(attrs -> {
+    private void registerGsakExtensionsCache(final String nsGC, final XmlPullElement gcCache) {
+        gcCache.setStartElementListener(parser -> {
             try {
-                if (attrs.getIndex("id") > -1) {
-                    cache.setCacheId(attrs.getValue("id"));
+                final String id = parser.getAttributeValue(null, "id");
+                if (id != null) {
+                    cache.setCacheId(id);
                 }
-                if (attrs.getIndex("archived") > -1) {
-                    cache.setArchived(attrs.getValue("archived").equalsIgnoreCase("true"));
+                final String archived = parser.getAttributeValue(null, "archived");
+                if (archived != null) {
+                    cache.setArchived(archived.equalsIgnoreCase("true"));
                 }
-                if (attrs.getIndex("available") > -1) {
-                    cache.setDisabled(!attrs.getValue("available").equalsIgnoreCase("true"));
+                final String available = parser.getAttributeValue(null, "available");
+                if (available != null) {
+                    cache.setDisabled(!available.equalsIgnoreCase("true"));
                 }
             } catch (final RuntimeException e) {
                 Log.w("Failed to parse cache attributes", e);
@@ -556,7 +615,7 @@ abstract class GPXParser extends FileParser {
     /**
      * Add listeners for Groundspeak attributes
      */
-    private void registerGsakExtensionsAttribute(final String nsGC, final Element gcCache) {
+    private void registerGsakExtensionsAttribute(final String nsGC, final XmlPullElement gcCache) {
         // waypoint.cache.getAttributes()
         // @see issue #299
 
@@ -565,16 +624,18 @@ abstract class GPXParser extends FileParser {
         //   <groundspeak:attribute id="13" inc="1">Available at all times</groundspeak:attribute>
         // where inc = 0 => _no, inc = 1 => _yes
         // IDs see array CACHE_ATTRIBUTES
-        final Element gcAttributes = gcCache.getChild(nsGC, "attributes");
+        final XmlPullElement gcAttributes = gcCache.getChild(nsGC, "attributes");
 
         // waypoint.cache.attribute
-        final Element gcAttribute = gcAttributes.getChild(nsGC, "attribute");
+        final XmlPullElement gcAttribute = gcAttributes.getChild(nsGC, "attribute");
 
-        gcAttribute.setStartElementListener(attrs -> {
+        gcAttribute.setStartElementListener(parser -> {
             try {
-                if (attrs.getIndex("id") > -1 && attrs.getIndex("inc") > -1) {
-                    final int attributeId = Integer.parseInt(attrs.getValue("id"));
-                    final boolean attributeActive = Integer.parseInt(attrs.getValue("inc")) != 0;
+                final String id = parser.getAttributeValue(null, "id");
+                final String inc = parser.getAttributeValue(null, "inc");
+                if (id != null && inc != null) {
+                    final int attributeId = Integer.parseInt(id);
+                    final boolean attributeActive = Integer.parseInt(inc) != 0;
                     final CacheAttribute attribute = CacheAttribute.getById(attributeId);
                     if (attribute != null) {
                         cache.getAttributes().add(attribute.getValue(attributeActive));
@@ -589,20 +650,21 @@ abstract class GPXParser extends FileParser {
     /**
      * Add listeners for Groundspeak TBs
      */
-    private void registerGsakExtensionsTb(final String nsGC, final Element gcCache) {
+    private void registerGsakExtensionsTb(final String nsGC, final XmlPullElement gcCache) {
         // waypoint.cache.travelbugs
-        final Element gcTBs = gcCache.getChild(nsGC, "travelbugs");
+        final XmlPullElement gcTBs = gcCache.getChild(nsGC, "travelbugs");
 
         // waypoint.cache.travelbug
-        final Element gcTB = gcTBs.getChild(nsGC, "travelbug");
+        final XmlPullElement gcTB = gcTBs.getChild(nsGC, "travelbug");
 
         // waypoint.cache.travelbugs.travelbug
-        gcTB.setStartElementListener(attrs -> {
+        gcTB.setStartElementListener(parser -> {
             trackable = new Trackable();
 
             try {
-                if (attrs.getIndex("ref") > -1) {
-                    trackable.setGeocode(attrs.getValue("ref"));
+                final String ref = parser.getAttributeValue(null, "ref");
+                if (ref != null) {
+                    trackable.setGeocode(ref);
                 }
             } catch (final RuntimeException ignored) {
                 // nothing
@@ -622,19 +684,20 @@ abstract class GPXParser extends FileParser {
     /**
      * Add listeners for Groundspeak logs
      */
-    private void registerGsakExtensionsLog(final String nsGC, final Element gcCache) {
+    private void registerGsakExtensionsLog(final String nsGC, final XmlPullElement gcCache) {
         // waypoint.cache.logs
-        final Element gcLogs = gcCache.getChild(nsGC, "logs");
+        final XmlPullElement gcLogs = gcCache.getChild(nsGC, "logs");
 
         // waypoint.cache.log
-        final Element gcLog = gcLogs.getChild(nsGC, "log");
+        final XmlPullElement gcLog = gcLogs.getChild(nsGC, "log");
 
-        gcLog.setStartElementListener(attrs -> {
+        gcLog.setStartElementListener(parser -> {
             logBuilder = new LogEntry.Builder();
 
             try {
-                if (attrs.getIndex("id") > -1) {
-                    logBuilder.setId(Integer.parseInt(attrs.getValue("id")));
+                final String id = parser.getAttributeValue(null, "id");
+                if (id != null) {
+                    logBuilder.setId(Integer.parseInt(id));
 
                     final IConnector connector = ConnectorFactory.getConnector(cache);
                     if (connector instanceof GCConnector) {
@@ -685,9 +748,9 @@ abstract class GPXParser extends FileParser {
     /**
      * Add listeners for GSAK extensions
      */
-    private void registerGsakExtensions(final Element cacheParent) {
+    private void registerGsakExtensions(final XmlPullElement cacheParent) {
         for (final String gsakNamespace : GSAK_NS) {
-            final Element gsak = cacheParent.getChild(gsakNamespace, "wptExtension");
+            final XmlPullElement gsak = cacheParent.getChild(gsakNamespace, "wptExtension");
             gsak.getChild(gsakNamespace, "Watch").setEndTextElementListener(watchList -> cache.setOnWatchlist(Boolean.parseBoolean(watchList.trim())));
 
             gsak.getChild(gsakNamespace, "UserData").setEndTextElementListener(new UserDataListener(1));
@@ -758,9 +821,9 @@ abstract class GPXParser extends FileParser {
     /**
      * Add listeners for TerraCaching extensions
      */
-    private void registerTerraCachingExtensions(final Element cacheParent) {
+    private void registerTerraCachingExtensions(final XmlPullElement cacheParent) {
         final String terraNamespace = "http://www.TerraCaching.com/GPX/1/0";
-        final Element terraCache = cacheParent.getChild(terraNamespace, "terracache");
+        final XmlPullElement terraCache = cacheParent.getChild(terraNamespace, "terracache");
 
         terraCache.getChild(terraNamespace, "name").setEndTextElementListener(name -> cache.setName(StringUtils.trim(name)));
 
@@ -791,15 +854,25 @@ abstract class GPXParser extends FileParser {
 
         terraCache.getChild(terraNamespace, "hint").setEndTextElementListener(hint -> cache.setHint(HtmlUtils.extractText(hint)));
 
-        final Element terraLogs = terraCache.getChild(terraNamespace, "logs");
-        final Element terraLog = terraLogs.getChild(terraNamespace, "log");
+        if (importLogs) {
+            registerTerraCachingExtensionsLog(terraNamespace, terraCache);
+        }
+    }
+
+    /**
+     * Add listeners for TerraCaching logs
+     */
+    private void registerTerraCachingExtensionsLog(final String terraNamespace, final XmlPullElement terraCache) {
+        final XmlPullElement terraLogs = terraCache.getChild(terraNamespace, "logs");
+        final XmlPullElement terraLog = terraLogs.getChild(terraNamespace, "log");
 
-        terraLog.setStartElementListener(attrs -> {
+        terraLog.setStartElementListener(parser -> {
             logBuilder = new LogEntry.Builder();
 
             try {
-                if (attrs.getIndex("id") > -1) {
-                    logBuilder.setId(Integer.parseInt(attrs.getValue("id")));
+                final String id = parser.getAttributeValue(null, "id");
+                if (id != null) {
+                    logBuilder.setId(Integer.parseInt(id));
                 }
             } catch (final NumberFormatException ignored) {
                 // nothing
@@ -855,19 +928,19 @@ abstract class GPXParser extends FileParser {
     /**
      * Add listeners for c:geo extensions
      */
-    private void registerCgeoExtensions(final Element cacheParent) {
+    private void registerCgeoExtensions(final XmlPullElement cacheParent) {
         for (final String cgeoNamespace : CGEO_NS) {
-            final Element cgeoVisited = cacheParent.getChild(cgeoNamespace, "visited");
+            final XmlPullElement cgeoVisited = cacheParent.getChild(cgeoNamespace, "visited");
             cgeoVisited.setEndTextElementListener(visited -> wptVisited = Boolean.parseBoolean(visited.trim()));
 
-            final Element cgeoUserDefined = cacheParent.getChild(cgeoNamespace, "userdefined");
+            final XmlPullElement cgeoUserDefined = cacheParent.getChild(cgeoNamespace, "userdefined");
             cgeoUserDefined.setEndTextElementListener(userDefined -> wptUserDefined = Boolean.parseBoolean(userDefined.trim()));
 
-            final Element cgeoEmptyCoords = cacheParent.getChild(cgeoNamespace, "originalCoordsEmpty");
+            final XmlPullElement cgeoEmptyCoords = cacheParent.getChild(cgeoNamespace, "originalCoordsEmpty");
             cgeoEmptyCoords.setEndTextElementListener(originalCoordsEmpty -> wptEmptyCoordinates = Boolean.parseBoolean(originalCoordsEmpty.trim()));
 
-            final Element cgeo = cacheParent.getChild(cgeoNamespace, "cacheExtension");
-            final Element cgeoAssignedEmoji = cgeo.getChild(cgeoNamespace, "assignedEmoji");
+            final XmlPullElement cgeo = cacheParent.getChild(cgeoNamespace, "cacheExtension");
+            final XmlPullElement cgeoAssignedEmoji = cgeo.getChild(cgeoNamespace, "assignedEmoji");
             cgeoAssignedEmoji.setEndTextElementListener(assignedEmoji -> cacheAssignedEmoji = Integer.parseInt(assignedEmoji.trim()));
         }
     }
@@ -875,18 +948,18 @@ abstract class GPXParser extends FileParser {
     /**
      * Add listeners for opencaching extensions
      */
-    private void registerOpenCachingExtensions(final Element cacheParent) {
+    private void registerOpenCachingExtensions(final XmlPullElement cacheParent) {
         for (final String namespace : OPENCACHING_NS) {
             // waypoints.oc:cache
-            final Element ocCache = cacheParent.getChild(namespace, "cache");
-            final Element requiresPassword = ocCache.getChild(namespace, "requires_password");
+            final XmlPullElement ocCache = cacheParent.getChild(namespace, "cache");
+            final XmlPullElement requiresPassword = ocCache.getChild(namespace, "requires_password");
 
             requiresPassword.setEndTextElementListener(requiresPassword1 -> logPasswordRequired = Boolean.parseBoolean(requiresPassword1.trim()));
 
-            final Element otherCode = ocCache.getChild(namespace, "other_code");
+            final XmlPullElement otherCode = ocCache.getChild(namespace, "other_code");
             otherCode.setEndTextElementListener(otherCode1 -> descriptionPrefix = Geocache.getAlternativeListingText(otherCode1.trim()));
 
-            final Element ocSize = ocCache.getChild(namespace, "size");
+            final XmlPullElement ocSize = ocCache.getChild(namespace, "size");
             ocSize.setEndTextElementListener(ocSize1 -> {
                 final CacheSize size = CacheSize.getById(ocSize1);
                 if (size != CacheSize.UNKNOWN) {
@@ -908,16 +981,26 @@ abstract class GPXParser extends FileParser {
         }
     }
 
+    private void reportProgress(@Nullable final DisposableHandler progressHandler) {
+        final int progress = progressStream.getProgress();
+        if (progressCounter == null) {
+            showProgressMessage(progressHandler, progress);
+        } else {
+            showProgressMessage(progressHandler, progressCounter.addAndGet(progress - reportedProgress));
+            reportedProgress = progress;
+        }
+    }
+
     /**
      * GPX 1.0 and 1.1 use different XML elements to put the cache into, therefore needs to be overwritten in the
      * version specific subclasses
      */
     protected abstract @Nullable
-    Element getNodeForExtension(@NonNull Element waypoint);
+    XmlPullElement getNodeForExtension(@NonNull XmlPullElement waypoint);
 
-    protected abstract void registerUrlAndUrlName(@NonNull Element waypoint);
+    protected abstract void registerUrlAndUrlName(@NonNull XmlPullElement waypoint);
 
-    protected abstract void registerScriptUrl(@NonNull Element element);
+    protected abstract void registerScriptUrl(@NonNull XmlPullElement element);
 
     protected static String validate(final String input) {
         if ("nil".equalsIgnoreCase(input)) {
@@ -1030,23 +1113,6 @@ abstract class GPXParser extends FileParser {
         return valid;
     }
 
-    @Nullable
-    private Geocache findParentCache() {
-        if (StringUtils.isBlank(parentCacheCode)) {
-            return null;
-        }
-        // first match by geocode only
-        Geocache cacheForWaypoint = DataStore.loadCache(parentCacheCode, LoadFlags.LOAD_CACHE_OR_DB);
-        if (cacheForWaypoint == null) {
-            // then match by title
-            final String geocode = DataStore.getGeocodeForTitle(parentCacheCode);
-            if (StringUtils.isNotBlank(geocode)) {
-                cacheForWaypoint = DataStore.loadCache(geocode, LoadFlags.LOAD_CACHE_OR_DB);
-            }
-        }
-        return cacheForWaypoint;
-    }
-
     protected void setUrl(final String url) {
         // try to find guid somewhere else
         if (StringUtils.isBlank(cache.getGuid()) && url != null) {
@@ -84,6 +84,8 @@ public class GPXTrackOrRouteImporter {
             }
             if (null != route) {
                 route.calculateNavigationRoute();
+                // not stored with the track, so this is also needed when tracks are reloaded on map start
+                route.addMissingElevation();
             }
             if (null == route) {
                 return parseAsGeoJson(context, uri);
@@ -7,9 +7,13 @@ import cgeo.geocaching.utils.Log;
 
 import android.os.Handler;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 class ImportGpxFileThread extends AbstractImportGpxThread {
     private final File cacheFile;
@@ -22,19 +26,21 @@ class ImportGpxFileThread extends AbstractImportGpxThread {
     @Override
     protected Collection<Geocache> doImport(final GPXParser parser) throws IOException, ParserException {
         Log.i("Import GPX file: " + cacheFile.getAbsolutePath());
-        importStepHandler.sendMessage(importStepHandler.obtainMessage(GPXImporter.IMPORT_STEP_READ_FILE, R.string.gpx_import_loading_caches_with_filename, (int) cacheFile.length(), getSourceDisplayName()));
-        Collection<Geocache> caches = parser.parse(cacheFile, progressHandler);
+        final List<GpxSource> sources = new ArrayList<>();
+        sources.add(new GpxSource(() -> new BufferedInputStream(new FileInputStream(cacheFile)),
+                GPXImporter.IMPORT_STEP_READ_FILE, R.string.gpx_import_loading_caches_with_filename, getSourceDisplayName(), cacheFile.length()));
 
+        // the waypoints file is parsed at the same time, its waypoints are added once their caches are stored
         final String wptsFilename = GPXImporter.getWaypointsFileNameForGpxFile(cacheFile);
         if (wptsFilename != null) {
             final File wptsFile = new File(cacheFile.getParentFile(), wptsFilename);
             if (wptsFile.canRead()) {
                 Log.i("Import GPX waypoint file: " + wptsFile.getAbsolutePath());
-                importStepHandler.sendMessage(importStepHandler.obtainMessage(GPXImporter.IMPORT_STEP_READ_WPT_FILE, R.string.gpx_import_loading_waypoints_with_filename, (int) wptsFile.length(), wptsFilename));
-                caches = parser.parse(wptsFile, progressHandler);
+                sources.add(new GpxSource(() -> new BufferedInputStream(new FileInputStream(wptsFile)),
+                        GPXImporter.IMPORT_STEP_READ_WPT_FILE, R.string.gpx_import_loading_waypoints_with_filename, wptsFilename, wptsFile.length()));
             }
         }
-        return caches;
+        return parseInOrder(sources);
     }
 
     @Override
@@ -4,8 +4,6 @@ import java.io.FilterReader;
 import java.io.IOException;
 import java.io.Reader;
 
-import org.apache.commons.lang3.StringUtils;
-
 /**
  * Filter reader which can filter out invalid XML characters and character references.
  */
@@ -48,19 +46,10 @@ public class InvalidXMLCharacterFilterReader extends FilterReader {
                     if (entityStart >= 0) {
                         final int entityLength = readPos - entityStart + 1;
                         if (entityLength <= 8) { // &#xFFFD;
-                            final String entity = new String(cbuf, entityStart, entityLength);
-                            if (StringUtils.startsWith(entity, "&#")) {
-                                final String numberString = StringUtils.substringBetween(entity, "&#", ";");
-                                final int value;
-                                if (StringUtils.startsWith(numberString, "x")) {
-                                    value = Integer.parseInt(numberString.substring(1), 16);
-                                } else {
-                                    value = Integer.parseInt(numberString);
-                                }
-                                if (!isValidXMLChar((char) value)) {
-                                    pos -= entityLength;
-                                    useChar = false;
-                                }
+                            final int value = parseCharacterReference(cbuf, entityStart, readPos);
+                            if (value >= 0 && !isValidXMLChar((char) value)) {
+                                pos -= entityLength;
+                                useChar = false;
                             }
                         }
                     }
@@ -80,6 +69,37 @@ public class InvalidXMLCharacterFilterReader extends FilterReader {
         return pos - off + 1;
     }
 
+    /**
+     * parses a character reference like &amp;#11; or &amp;#xB; in place, without creating strings
+     *
+     * @param start position of the '&amp;'
+     * @param end   position of the ';'
+     * @return the referenced character, or -1 if not a character reference
+     */
+    private static int parseCharacterReference(final char[] cbuf, final int start, final int end) {
+        if (cbuf[start + 1] != '#') {
+            return -1;
+        }
+        int pos = start + 2;
+        int radix = 10;
+        if (pos < end && cbuf[pos] == 'x') {
+            radix = 16;
+            pos++;
+        }
+        if (pos == end) {
+            return -1;
+        }
+        int value = 0;
+        for (; pos < end; pos++) {
+            final int digit = Character.digit(cbuf[pos], radix);
+            if (digit < 0) {
+                return -1;
+            }
+            value = value * radix + digit;
+        }
+        return value;
+    }
+
     private static boolean isValidXMLChar(final char c) {
         return c == 0x9 || c == 0xA || c == 0xD || (c >= 0x20 && c <= 0xD7FF) || (c >= 0xE000 && c <= 0xFFFD);
     }
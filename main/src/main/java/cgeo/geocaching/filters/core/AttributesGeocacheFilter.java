@@ -195,4 +195,9 @@ public class AttributesGeocacheFilter extends BaseGeocacheFilter {
             }
         }
     }
+
+    @Override
+    public int getEvaluationCost() {
+        return COST_LAZY_DATA;
+    }
 }
@@ -122,4 +122,9 @@ public class CategoryGeocacheFilter extends BaseGeocacheFilter {
 
         return categories.iterator().next().getI18nText();
     }
+
+    @Override
+    public int getEvaluationCost() {
+        return COST_LAZY_DATA;
+    }
 }
@@ -0,0 +1,224 @@
+package cgeo.geocaching.filters.core;
+
+import cgeo.geocaching.models.Geocache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Evaluation form of a {@link GeocacheFilter} tree, meant to filter many caches in a row (e.g. on each live map refresh).
+ * <br>
+ * The filter tree is compiled once: nested AND/OR groups are flattened and the children of each group are
+ * ordered so that cheap and decisive filters (see {@link IGeocacheFilter#getEvaluationCost()}) are evaluated first.
+ * While filtering, each group counts how often each of its children decided the group result and
+ * periodically reorders them accordingly.
+ * <br>
+ * Results are always identical to {@link IGeocacheFilter#filter(Geocache)} on the original tree,
+ * since the three-valued AND/OR results do not depend on the evaluation order of the children.
+ * Changes to the original filter tree made after compilation are not reflected.
+ */
+public class CompiledGeocacheFilter {
+
+    /** number of evaluations of a group after which its children are reordered */
+    private static final int REORDER_INTERVAL = 256;
+
+    @Nullable
+    private final Node root;
+    private final boolean includeInconclusive;
+
+    private CompiledGeocacheFilter(@Nullable final Node root, final boolean includeInconclusive) {
+        this.root = root;
+        this.includeInconclusive = includeInconclusive;
+    }
+
+    @NonNull
+    public static CompiledGeocacheFilter compile(@Nullable final IGeocacheFilter tree, final boolean includeInconclusive) {
+        return new CompiledGeocacheFilter(tree == null ? null : compileNode(tree), includeInconclusive);
+    }
+
+    /**
+     * same semantic as {@link GeocacheFilter#filter(Geocache)}
+     */
+    public boolean filter(final Geocache cache) {
+        final Boolean result = filterRaw(cache);
+        return result == null ? includeInconclusive : result;
+    }
+
+    /**
+     * same semantic as {@link IGeocacheFilter#filter(Geocache)} of the compiled filter tree
+     */
+    @Nullable
+    public Boolean filterRaw(final Geocache cache) {
+        return root == null ? Boolean.TRUE : root.filter(cache);
+    }
+
+    private static Node compileNode(@NonNull final IGeocacheFilter filter) {
+        if (filter.getClass() == NotGeocacheFilter.class) {
+            return new NotNode(compileGroup(true, filter.getChildren()));
+        }
+        if (filter.getClass() == AndGeocacheFilter.class) {
+            return compileGroup(true, filter.getChildren());
+        }
+        if (filter.getClass() == OrGeocacheFilter.class) {
+            return compileGroup(false, filter.getChildren());
+        }
+        return new LeafNode(filter);
+    }
+
+    private static Node compileGroup(final boolean isAnd, final List<IGeocacheFilter> children) {
+        final List<Node> nodes = new ArrayList<>();
+        addGroupChildren(isAnd, children, nodes);
+        if (nodes.size() == 1) {
+            // a group with one child always yields the result of this child
+            return nodes.get(0);
+        }
+        return new GroupNode(isAnd, nodes);
+    }
+
+    private static void addGroupChildren(final boolean isAnd, final List<IGeocacheFilter> children, final List<Node> nodes) {
+        for (IGeocacheFilter child : children) {
+            // AND resp. OR are associative. Note that an empty OR evaluates to true, so it can't be merged into an OR parent
+            final boolean sameGroupType = isAnd ? child.getClass() == AndGeocacheFilter.class
+                    : child.getClass() == OrGeocacheFilter.class && !child.getChildren().isEmpty();
+            if (sameGroupType) {
+                addGroupChildren(isAnd, child.getChildren(), nodes);
+            } else {
+                nodes.add(compileNode(child));
+            }
+        }
+    }
+
+    private abstract static class Node {
+
+        @Nullable
+        abstract Boolean filter(Geocache cache);
+
+        abstract int getCost();
+    }
+
+    private static class LeafNode extends Node {
+
+        private final IGeocacheFilter filter;
+        private final int cost;
+
+        LeafNode(final IGeocacheFilter filter) {
+            this.filter = filter;
+            this.cost = filter.getEvaluationCost();
+        }
+
+        @Override
+        Boolean filter(final Geocache cache) {
+            return filter.filter(cache);
+        }
+
+        @Override
+        int getCost() {
+            return cost;
+        }
+    }
+
+    private static class NotNode extends Node {
+
+        private final Node child;
+
+        NotNode(final Node child) {
+            this.child = child;
+        }
+
+        @Override
+        Boolean filter(final Geocache cache) {
+            final Boolean result = child.filter(cache);
+            return result == null ? null : !result;
+        }
+
+        @Override
+        int getCost() {
+            return child.getCost();
+        }
+    }
+
+    /**
+     * child of a group together with its selectivity statistics. Statistics are updated without synchronization,
+     * lost updates in case of concurrent filtering only affect evaluation order, never results
+     */
+    private static class GroupChild {
+
+        final Node node;
+        final int cost;
+        int evaluations = 0;
+        int decisions = 0;
+
+        GroupChild(final Node node) {
+            this.node = node;
+            this.cost = node.getCost();
+        }
+
+        /** expected cost until this child decides the group result, the lower the earlier it should be evaluated */
+        double getRank() {
+            return cost * (evaluations + 2.0) / (decisions + 1.0);
+        }
+    }
+
+    private static class GroupNode extends Node {
+
+        private final boolean isAnd;
+        private final int cost;
+        private volatile GroupChild[] children;
+        private int evaluationCount = 0;
+
+        GroupNode(final boolean isAnd, final List<Node> nodes) {
+            this.isAnd = isAnd;
+            final GroupChild[] groupChildren = new GroupChild[nodes.size()];
+            int costSum = 0;
+            for (int i = 0; i < groupChildren.length; i++) {
+                groupChildren[i] = new GroupChild(nodes.get(i));
+                costSum += groupChildren[i].cost;
+            }
+            this.cost = costSum;
+            this.children = sortByRank(groupChildren);
+        }
+
+        @Override
+        Boolean filter(final Geocache cache) {
+            final GroupChild[] current = children;
+            if (current.length == 0) {
+                // both empty AND and empty OR let all caches pass
+                return true;
+            }
+            boolean isInconclusive = false;
+            Boolean result = isAnd ? Boolean.TRUE : Boolean.FALSE;
+            for (GroupChild child : current) {
+                final Boolean childResult = child.node.filter(cache);
+                child.evaluations++;
+                if (childResult == null) {
+                    isInconclusive = true;
+                } else if (childResult != isAnd) {
+                    // AND: false decides, OR: true decides
+                    child.decisions++;
+                    result = childResult;
+                    isInconclusive = false;
+                    break;
+                }
+            }
+            if (++evaluationCount % REORDER_INTERVAL == 0) {
+                children = sortByRank(current.clone());
+            }
+            return isInconclusive ? null : result;
+        }
+
+        @Override
+        int getCost() {
+            return cost;
+        }
+
+        private static GroupChild[] sortByRank(final GroupChild[] groupChildren) {
+            Arrays.sort(groupChildren, (c1, c2) -> Double.compare(c1.getRank(), c2.getRank()));
+            return groupChildren;
+        }
+    }
+
+}
@@ -13,4 +13,9 @@ public class DescriptionGeocacheFilter extends StringGeocacheFilter {
         return "description";
     }
 
+    @Override
+    public int getEvaluationCost() {
+        return COST_LAZY_DATA;
+    }
+
 }
@@ -214,11 +214,24 @@ public class GeocacheFilter implements Cloneable {
         return result == null ? this.includeInconclusive : result;
     }
 
+    /**
+     * Compiles this filter for efficient evaluation on many caches, see {@link CompiledGeocacheFilter}.
+     * The result does not reflect changes made to this filter afterwards.
+     */
+    @NonNull
+    public CompiledGeocacheFilter compile() {
+        return CompiledGeocacheFilter.compile(tree, includeInconclusive);
+    }
+
     public void filterList(final Collection<Geocache> list) {
+        if (tree == null) {
+            return;
+        }
 
+        final CompiledGeocacheFilter compiled = compile();
         final List<Geocache> itemsToKeep = new ArrayList<>();
         for (final Geocache item : list) {
-            if (filter(item)) {
+            if (compiled.filter(item)) {
                 itemsToKeep.add(item);
             }
         }
@@ -11,6 +11,12 @@ import androidx.annotation.Nullable;
  */
 public interface IGeocacheFilter extends IJsonConfigurable<IGeocacheFilter> {
 
+    /** relative evaluation costs, see {@link #getEvaluationCost()} */
+    int COST_CHEAP = 1;
+    int COST_STRING_MATCH = 2;
+    int COST_LAZY_DATA = 10;
+    int COST_DATABASE = 100;
+
     /**
      * Decides whether a geocache passes this filter (returns true) or not (returns false).
      * If this filter is inconclusive whether cache passes filter or nor (e.g. because data is missing in cache)
@@ -22,6 +28,14 @@ public interface IGeocacheFilter extends IJsonConfigurable<IGeocacheFilter> {
     @Nullable
     Boolean filter(Geocache cache);
 
+    /**
+     * Relative cost of one call to {@link #filter(Geocache)}. Used by {@link CompiledGeocacheFilter}
+     * to evaluate cheap filters first. Filters accessing lazy loaded cache data or the database shall override this.
+     */
+    default int getEvaluationCost() {
+        return COST_CHEAP;
+    }
+
     /**
      * Gets the type of this geocache-filter
      */
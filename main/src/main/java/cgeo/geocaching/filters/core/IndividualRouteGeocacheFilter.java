@@ -23,4 +23,9 @@ public class IndividualRouteGeocacheFilter extends BooleanGeocacheFilter {
                 "EXISTS(SELECT " + DataStore.dbFieldRoute_id + " FROM " + DataStore.dbTableRoute + " " + routeTableId + " WHERE " + routeTableId + "." + DataStore.dbFieldRoute_id + " = " + sqlBuilder.getMainTableId() + "." + DataStore.dbField_Geocode + ")");
     }
 
+    @Override
+    public int getEvaluationCost() {
+        return COST_DATABASE;
+    }
+
 }
@@ -12,4 +12,9 @@ public class LocationGeocacheFilter extends StringGeocacheFilter {
         return "location";
     }
 
+    @Override
+    public int getEvaluationCost() {
+        return COST_LAZY_DATA;
+    }
+
 }
@@ -94,16 +94,32 @@ public class LogEntryGeocacheFilter extends BaseGeocacheFilter {
         }
 
         final String tid = sqlBuilder.getNewTableId();
+        final String idExpression = tid + "._id";
+        final String foundByFullText = DataStore.getLogsFullTextCondition(idExpression, foundByFilter.getFullTextPrefixTerms(), DataStore.dbFieldLogs_author);
+        final String logTextFullText = DataStore.getLogsFullTextCondition(idExpression, logTextFilter.getFullTextPrefixTerms(), DataStore.dbFieldLogs_log);
+
         final StringBuilder sb = new StringBuilder();
-        if (inverse) {
-            sb.append("NOT ");
+        if (foundByFullText != null || logTextFullText != null) {
+            // uncorrelated subquery: matching logs are found once via full text index instead of being searched for each cache
+            sb.append(sqlBuilder.getMainTableId()).append(".").append(DataStore.dbField_Geocode).append(inverse ? " NOT IN" : " IN")
+                    .append(" (SELECT ").append(tid).append(".").append(DataStore.dbField_Geocode).append(" FROM ").append(DataStore.dbTableLogs).append(" ").append(tid).append(" WHERE 1=1");
+            if (foundByFullText != null) {
+                sb.append(" AND ").append(foundByFullText);
+            }
+            if (logTextFullText != null) {
+                sb.append(" AND ").append(logTextFullText);
+            }
+        } else {
+            if (inverse) {
+                sb.append("NOT ");
+            }
+            sb.append("EXISTS( SELECT ").append(tid).append(".").append(DataStore.dbField_Geocode).append(" FROM ").append(DataStore.dbTableLogs).append(" ").append(tid).append(" WHERE ").append(sqlBuilder.getMainTableId()).append(".").append(DataStore.dbField_Geocode).append(" = ").append(tid).append(".").append(DataStore.dbField_Geocode);
         }
-        sb.append("EXISTS( SELECT ").append(tid).append(".").append(DataStore.dbField_Geocode).append(" FROM ").append(DataStore.dbTableLogs).append(" ").append(tid).append(" WHERE ").append(sqlBuilder.getMainTableId()).append(".").append(DataStore.dbField_Geocode).append(" = ").append(tid).append(".").append(DataStore.dbField_Geocode);
         if (foundByFilter.isFilled()) {
-            sb.append(" AND ").append(foundByFilter.getRawLikeSqlExpression(DataStore.dbFieldLogs_author));
+            sb.append(" AND ").append(foundByFilter.getRawLikeSqlExpression(tid + "." + DataStore.dbFieldLogs_author));
         }
         if (logTextFilter.isFilled()) {
-            sb.append(" AND ").append(logTextFilter.getRawLikeSqlExpression(DataStore.dbFieldLogs_log));
+            sb.append(" AND ").append(logTextFilter.getRawLikeSqlExpression(tid + "." + DataStore.dbFieldLogs_log));
         }
         sb.append(")");
         sqlBuilder.addWhere(sb.toString());
@@ -149,4 +165,9 @@ public class LogEntryGeocacheFilter extends BaseGeocacheFilter {
                 (logTextFilter.isFilled() ? logTextFilter.getTextValue() : "") +
                 (inverse ? ")" : "");
     }
+
+    @Override
+    public int getEvaluationCost() {
+        return COST_DATABASE;
+    }
 }
@@ -126,4 +126,9 @@ public class LogsCountGeocacheFilter extends NumberRangeGeocacheFilter<Integer>
         return (logType == null ? "" : logType.getL10n() + ": ") + super.getUserDisplayableConfig();
     }
 
+    @Override
+    public int getEvaluationCost() {
+        return COST_LAZY_DATA;
+    }
+
 }
@@ -144,4 +144,9 @@ public class NamedFilterGeocacheFilter extends BaseGeocacheFilter {
         }
         return nestSet;
     }
+
+    @Override
+    public int getEvaluationCost() {
+        return COST_LAZY_DATA;
+    }
 }
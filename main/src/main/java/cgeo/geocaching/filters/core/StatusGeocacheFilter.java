@@ -557,4 +557,9 @@ public class StatusGeocacheFilter extends BaseGeocacheFilter {
     public void setJsonConfig(@NonNull final ObjectNode node) {
         setConfigInternal(JsonUtils.getTextList(node, "values"));
     }
+
+    @Override
+    public int getEvaluationCost() {
+        return COST_LAZY_DATA;
+    }
 }
@@ -1,14 +1,18 @@
 package cgeo.geocaching.filters.core;
 
 import cgeo.geocaching.R;
+import cgeo.geocaching.storage.DataStore;
 import cgeo.geocaching.storage.SqlBuilder;
 import cgeo.geocaching.utils.JsonUtils;
 import cgeo.geocaching.utils.LocalizationUtils;
 import cgeo.geocaching.utils.TextUtils;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.StringRes;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.regex.Pattern;
@@ -46,6 +50,10 @@ public class StringFilter {
     private String textValue;
     private boolean matchCase;
 
+    /** matcher state derived from the settings above, computed on first use */
+    private String matchTextValue;
+    private Pattern matchPattern;
+
     public static StringFilterType getDefaultFilterType() {
         return StringFilterType.CONTAINS;
     }
@@ -60,6 +68,7 @@ public class StringFilter {
 
     public void setFilterType(final StringFilterType filterType) {
         this.filterType = filterType == null ? getDefaultFilterType() : filterType;
+        resetMatcher();
     }
 
     public String getTextValue() {
@@ -68,6 +77,7 @@ public class StringFilter {
 
     public void setTextValue(final String textValue) {
         this.textValue = textValue;
+        resetMatcher();
     }
 
     public boolean isMatchCase() {
@@ -76,6 +86,26 @@ public class StringFilter {
 
     public void setMatchCase(final boolean matchCase) {
         this.matchCase = matchCase;
+        resetMatcher();
+    }
+
+    private void resetMatcher() {
+        matchTextValue = null;
+        matchPattern = null;
+    }
+
+    private String getMatchTextValue() {
+        if (matchTextValue == null) {
+            matchTextValue = this.matchCase ? this.textValue : StringUtils.lowerCase(this.textValue);
+        }
+        return matchTextValue;
+    }
+
+    private Pattern getMatchPattern() {
+        if (matchPattern == null) {
+            matchPattern = Pattern.compile(getMatchTextValue().replace('?', '.').replaceAll("\\*", ".*"));
+        }
+        return matchPattern;
     }
 
     public void setConfig(final List<String> config) {
@@ -126,26 +156,58 @@ public class StringFilter {
         }
 
         final String matchGcValue = this.matchCase ? value : StringUtils.lowerCase(value);
-        final String matchTextValue = this.matchCase ? this.textValue : StringUtils.lowerCase(this.textValue);
+        final String matchText = getMatchTextValue();
         switch (this.filterType) {
             case CONTAINS:
-                return matchGcValue.contains(matchTextValue);
+                return matchGcValue.contains(matchText);
             case DOES_NOT_CONTAIN:
-                return !matchGcValue.contains(matchTextValue);
+                return !matchGcValue.contains(matchText);
             case STARTS_WITH:
-                return matchGcValue.startsWith(matchTextValue);
+                return matchGcValue.startsWith(matchText);
             case ENDS_WITH:
-                return matchGcValue.endsWith(matchTextValue);
+                return matchGcValue.endsWith(matchText);
             case PATTERN:
-                return Pattern.compile(matchTextValue.replace('?', '.').replaceAll("\\*", ".*")).matcher(matchGcValue).matches();
+                return getMatchPattern().matcher(matchGcValue).matches();
             default:
                 //can never happen
                 return true;
         }
     }
 
-    public void addToSql(final SqlBuilder sqlBuilder, final String columnExpression) {
+    /**
+     * Returns terms which start a word in every value matched by this filter, for lookups in the full text index.
+     * Returns an empty list if the filter type doesn't allow such a lookup.
+     */
+    @NonNull
+    public List<String> getFullTextPrefixTerms() {
         if (!isFilled()) {
+            return Collections.emptyList();
+        }
+        switch (filterType) {
+            case CONTAINS:
+            case ENDS_WITH:
+                return DataStore.getFullTextPrefixTerms(textValue, false);
+            case STARTS_WITH:
+                return DataStore.getFullTextPrefixTerms(textValue, true);
+            default:
+                return Collections.emptyList();
+        }
+    }
+
+    public void addToSql(final SqlBuilder sqlBuilder, final String columnExpression) {
+        addToSql(sqlBuilder, columnExpression, null);
+    }
+
+    /**
+     * @param fullTextCondition optional: condition narrowing down candidates via the full text index, see {@link #getFullTextPrefixTerms()}
+     */
+    public void addToSql(final SqlBuilder sqlBuilder, final String columnExpression, @Nullable final String fullTextCondition) {
+        if (fullTextCondition != null && isFilled()) {
+            sqlBuilder.openWhere(SqlBuilder.WhereType.AND);
+            sqlBuilder.addWhere(fullTextCondition);
+            addToSql(sqlBuilder, columnExpression, null);
+            sqlBuilder.closeWhere();
+        } else if (!isFilled()) {
             sqlBuilder.addWhereTrue();
         } else {
             switch (filterType) {
@@ -186,7 +248,7 @@ public class StringFilter {
         final StringBuilder sb = new StringBuilder();
 
         if (!StringUtils.isBlank(this.textValue)) {
-            String matchTextValue = SqlBuilder.escape(this.matchCase ? this.textValue : StringUtils.lowerCase(this.textValue), true);
+            String likeTextValue = SqlBuilder.escape(this.matchCase ? this.textValue : StringUtils.lowerCase(this.textValue), true);
             if (!this.matchCase) {
                 sb.append("LOWER(");
             }
@@ -197,24 +259,24 @@ public class StringFilter {
 
             switch (this.filterType) {
                 case CONTAINS:
-                    matchTextValue = "%" + matchTextValue + "%";
+                    likeTextValue = "%" + likeTextValue + "%";
                     break;
                 case DOES_NOT_CONTAIN:
                     sb.append(" NOT");
-                    matchTextValue = "%" + matchTextValue + "%";
+                    likeTextValue = "%" + likeTextValue + "%";
                     break;
                 case STARTS_WITH:
-                    matchTextValue = matchTextValue + "%";
+                    likeTextValue = likeTextValue + "%";
                     break;
                 case ENDS_WITH:
-                    matchTextValue = "%" + matchTextValue;
+                    likeTextValue = "%" + likeTextValue;
                     break;
                 case PATTERN:
                 default:
-                    matchTextValue = matchTextValue.replace('*', '%').replace('?', '_');
+                    likeTextValue = likeTextValue.replace('*', '%').replace('?', '_');
                     break;
             }
-            sb.append(SqlBuilder.createLikeExpression(matchTextValue));
+            sb.append(SqlBuilder.createLikeExpression(likeTextValue));
         }
         return sb.toString();
     }
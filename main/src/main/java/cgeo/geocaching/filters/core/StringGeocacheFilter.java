@@ -1,6 +1,7 @@
 package cgeo.geocaching.filters.core;
 
 import cgeo.geocaching.models.Geocache;
+import cgeo.geocaching.storage.DataStore;
 import cgeo.geocaching.storage.SqlBuilder;
 import cgeo.geocaching.utils.config.LegacyFilterConfig;
 
@@ -69,7 +70,8 @@ public abstract class StringGeocacheFilter extends BaseGeocacheFilter {
     public void addToSql(final SqlBuilder sqlBuilder) {
         final String colName = getSqlColumnName();
         if (colName != null) {
-            stringFilter.addToSql(sqlBuilder, sqlBuilder.getMainTableId() + "." + colName);
+            final String fullTextCondition = DataStore.getCachesFullTextCondition(sqlBuilder.getMainTableId() + "._id", stringFilter.getFullTextPrefixTerms(), colName);
+            stringFilter.addToSql(sqlBuilder, sqlBuilder.getMainTableId() + "." + colName, fullTextCondition);
         } else {
             sqlBuilder.addWhereTrue();
         }
@@ -80,4 +82,9 @@ public abstract class StringGeocacheFilter extends BaseGeocacheFilter {
         return stringFilter.getUserDisplayableConfig();
     }
 
+    @Override
+    public int getEvaluationCost() {
+        return COST_STRING_MATCH;
+    }
+
 }
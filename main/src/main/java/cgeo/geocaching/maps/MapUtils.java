@@ -12,6 +12,7 @@ import cgeo.geocaching.downloader.DownloaderUtils;
 import cgeo.geocaching.downloader.HillshadingTileDownloader;
 import cgeo.geocaching.enumerations.LoadFlags;
 import cgeo.geocaching.enumerations.WaypointType;
+import cgeo.geocaching.filters.core.CompiledGeocacheFilter;
 import cgeo.geocaching.filters.core.GeocacheFilter;
 import cgeo.geocaching.filters.core.GeocacheFilterContext;
 import cgeo.geocaching.location.Geopoint;
@@ -89,6 +90,9 @@ public class MapUtils {
 
     private static TextPaint elevationTextPaint = null;
     private static Paint elevationPaint = null;
+    private static final int CLUSTER_COLOR = 0xff007ae3;
+    private static final int CLUSTER_MAX_COUNT_DISPLAYED = 999;
+    private static final HashMap<String, Bitmap> clusterBitmapCache = new HashMap<>();
 
     public static Set<Geocache> getGeocachesFromDatabase(final Viewport viewport, final GeocacheFilter filter) {
         if (viewport == null || viewport.isJustADot()) {
@@ -124,13 +128,14 @@ public class MapUtils {
         final boolean excludeWpOriginal = Settings.isExcludeWpOriginal();
         final boolean excludeWpParking = Settings.isExcludeWpParking();
         final boolean excludeWpVisited = Settings.isExcludeWpVisited();
+        final CompiledGeocacheFilter compiledFilter = filter == null ? null : filter.compile();
 
         final List<Waypoint> removeList = new ArrayList<>();
         for (final Waypoint wp : waypoints) {
             final Geocache cache = DataStore.loadCache(wp.getGeocode(), LoadFlags.LOAD_CACHE_OR_DB);
             final WaypointType wpt = wp.getWaypointType();
             if (cache == null ||
-                    (filter != null && !filter.filter(cache)) ||
+                    (compiledFilter != null && !compiledFilter.filter(cache)) ||
                     (excludeWpOriginal && wpt == WaypointType.ORIGINAL) ||
                     (excludeWpParking && wpt == WaypointType.PARKING) ||
                     (excludeWpVisited && wp.isVisited())) {
@@ -506,4 +511,44 @@ public class MapUtils {
 
         return bm;
     }
+
+    // cluster handling ---------------------------------------------------------------------------------------------
+
+    /** round marker showing the number of caches grouped in a cluster. Bitmaps are reused for same labels */
+    public static synchronized Bitmap getClusterBitmap(final int count) {
+        final String label = count > CLUSTER_MAX_COUNT_DISPLAYED ? CLUSTER_MAX_COUNT_DISPLAYED + "+" : String.valueOf(count);
+        final Bitmap cached = clusterBitmapCache.get(label);
+        if (cached != null) {
+            return cached;
+        }
+
+        final float textSizeInPx = ViewUtils.dpToPixel(count > CLUSTER_MAX_COUNT_DISPLAYED ? 11f : 13f);
+        final TextPaint textPaint = new TextPaint();
+        textPaint.setColor(0xffffffff);
+        textPaint.setTextSize(textSizeInPx);
+        textPaint.setAntiAlias(true);
+        textPaint.setFakeBoldText(true);
+        textPaint.setTextAlign(Paint.Align.CENTER);
+
+        // circles grow slightly with the number of digits
+        final float radius = Math.max(textPaint.measureText(label) / 2 + ViewUtils.dpToPixel(6f), ViewUtils.dpToPixel(14f));
+        final int size = (int) Math.ceil(2 * radius) + 2;
+        final Bitmap bm = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        final android.graphics.Canvas canvas = new android.graphics.Canvas(bm);
+
+        final Paint circlePaint = new Paint();
+        circlePaint.setAntiAlias(true);
+        circlePaint.setColor(CLUSTER_COLOR);
+        canvas.drawCircle(size / 2f, size / 2f, radius, circlePaint);
+        circlePaint.setStyle(Paint.Style.STROKE);
+        circlePaint.setStrokeWidth(ViewUtils.dpToPixel(2f));
+        circlePaint.setColor(0xffffffff);
+        canvas.drawCircle(size / 2f, size / 2f, radius - ViewUtils.dpToPixel(1f), circlePaint);
+
+        final float yPos = size / 2f - (textPaint.descent() + textPaint.ascent()) / 2;
+        canvas.drawText(label, size / 2f, yPos, textPaint);
+
+        clusterBitmapCache.put(label, bm);
+        return bm;
+    }
 }
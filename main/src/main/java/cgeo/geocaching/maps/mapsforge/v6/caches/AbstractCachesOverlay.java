@@ -10,8 +10,10 @@ import cgeo.geocaching.maps.mapsforge.v6.MapHandlers;
 import cgeo.geocaching.maps.mapsforge.v6.NewMap;
 import cgeo.geocaching.maps.mapsforge.v6.TapHandler;
 import cgeo.geocaching.models.Geocache;
+import cgeo.geocaching.models.GeocacheSummary;
 import cgeo.geocaching.models.Waypoint;
 import cgeo.geocaching.settings.Settings;
+import cgeo.geocaching.storage.CacheProjection;
 import cgeo.geocaching.storage.DataStore;
 import cgeo.geocaching.utils.Log;
 import cgeo.geocaching.utils.MapMarkerUtils;
@@ -65,8 +67,9 @@ public abstract class AbstractCachesOverlay {
         final Set<String> geocodesInViewport = new HashSet<>();
         final CachesBundle bundle = bundleRef.get();
         if (bundle != null) {
-            final Collection<Geocache> cachesInViewport = bundle.getViewport().filter(DataStore.loadCaches(getCacheGeocodes(), LoadFlags.LOAD_CACHE_OR_DB));
-            for (final Geocache cache : cachesInViewport) {
+            // coordinates are enough, no need to load (and cache) the complete caches
+            final Collection<GeocacheSummary> cachesInViewport = bundle.getViewport().filter(DataStore.loadCacheSummaries(getCacheGeocodes(), CacheProjection.MAP_MARKER));
+            for (final GeocacheSummary cache : cachesInViewport) {
                 geocodesInViewport.add(cache.getGeocode());
             }
 
@@ -79,7 +82,7 @@ public abstract class AbstractCachesOverlay {
         if (bundle == null) {
             return 0;
         }
-        return bundle.getViewport().count(DataStore.loadCaches(getCacheGeocodes(), LoadFlags.LOAD_CACHE_OR_DB));
+        return bundle.getViewport().count(DataStore.loadCacheSummaries(getCacheGeocodes(), CacheProjection.MAP_MARKER));
     }
 
     int getCachesCount() {
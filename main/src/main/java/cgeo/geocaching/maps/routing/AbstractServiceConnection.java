@@ -41,4 +41,29 @@ class AbstractServiceConnection implements ServiceConnection {
         return null;
     }
 
+    /** whether this routing service can return track points directly, see {@link #getTrackPointsFromParams(Bundle)} */
+    public boolean supportsTrackPoints() {
+        return false;
+    }
+
+    /**
+     * Calculates a route and returns its track points as primitive arrays, without formatting and parsing a track.
+     *
+     * @return see {@link cgeo.geocaching.brouter.IInternalRoutingService#getTrackPointsFromParams(Bundle)}, null if not available
+     */
+    @Nullable
+    public Bundle getTrackPointsFromParams(final Bundle params) {
+        return null;
+    }
+
+    /**
+     * Looks up the elevations of many points at once.
+     *
+     * @return see {@link cgeo.geocaching.brouter.IInternalRoutingService#getElevationsFromParams(Bundle)}, null if not available
+     */
+    @Nullable
+    public Bundle getElevationsFromParams(final Bundle params) {
+        return null;
+    }
+
 }
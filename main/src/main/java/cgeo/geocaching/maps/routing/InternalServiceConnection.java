@@ -34,4 +34,37 @@ public class InternalServiceConnection extends AbstractServiceConnection {
         }
     }
 
+    @Override
+    public boolean supportsTrackPoints() {
+        return true;
+    }
+
+    @Override
+    @Nullable
+    public Bundle getTrackPointsFromParams(final Bundle params) {
+        if (!isConnected()) {
+            return null;
+        }
+
+        try {
+            return ((IInternalRoutingService) routingService).getTrackPointsFromParams(params);
+        } catch (final RemoteException | NullPointerException e) {
+            return null;
+        }
+    }
+
+    @Override
+    @Nullable
+    public Bundle getElevationsFromParams(final Bundle params) {
+        if (!isConnected()) {
+            return null;
+        }
+
+        try {
+            return ((IInternalRoutingService) routingService).getElevationsFromParams(params);
+        } catch (final RemoteException | NullPointerException e) {
+            return null;
+        }
+    }
+
 }
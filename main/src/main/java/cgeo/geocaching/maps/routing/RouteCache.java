@@ -0,0 +1,186 @@
+package cgeo.geocaching.maps.routing;
+
+import cgeo.geocaching.location.Geopoint;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Least recently used cache of calculated tracks, bounded by the estimated memory used by the cached tracks.
+ * <br>
+ * Tracks are keyed by start and destination snapped to a grid of about a meter, the routing mode and the routing
+ * profile (including its modification time), so that routes between the same points are calculated only once.
+ * The cache has to be cleared whenever routing tiles change, see {@link #clear()}.
+ */
+final class RouteCache {
+
+    // snapping grid in microdegrees, about a meter
+    private static final int SNAP_E6 = 10;
+    // rough memory estimates for an entry and for each of its track points (Geopoint and boxed elevation)
+    private static final long ENTRY_BYTES = 160;
+    private static final long POINT_BYTES = 56;
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long maxBytes;
+    private long usedBytes = 0;
+
+    private int hits = 0;
+    private int misses = 0;
+    private int evictions = 0;
+
+    RouteCache(final long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * gets a cached track
+     *
+     * @param elevation list to append the elevations of the track points to, null if not needed
+     * @return copy of the track, null if not cached, or cached without the requested elevations
+     */
+    @Nullable
+    synchronized Geopoint[] get(@NonNull final Key key, @Nullable final List<Float> elevation) {
+        final Entry entry = entries.get(key);
+        if (entry == null || (elevation != null && entry.elevation == null)) {
+            misses++;
+            return null;
+        }
+        hits++;
+        if (elevation != null) {
+            for (float e : entry.elevation) {
+                elevation.add(e);
+            }
+        }
+        return entry.track.clone();
+    }
+
+    /**
+     * @param elevation elevations of the track points, null if not calculated
+     */
+    synchronized void put(@NonNull final Key key, @NonNull final Geopoint[] track, @Nullable final List<Float> elevation) {
+        final Entry entry = new Entry(track.clone(), elevation);
+        if (entry.bytes > maxBytes) {
+            return;
+        }
+        final Entry old = entries.put(key, entry);
+        if (old != null) {
+            usedBytes -= old.bytes;
+        }
+        usedBytes += entry.bytes;
+        trim();
+    }
+
+    synchronized void setMaxBytes(final long maxBytes) {
+        this.maxBytes = maxBytes;
+        trim();
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        usedBytes = 0;
+    }
+
+    @NonNull
+    synchronized Statistics getStatistics() {
+        return new Statistics(hits, misses, evictions, entries.size(), usedBytes);
+    }
+
+    private void trim() {
+        final Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while (usedBytes > maxBytes && it.hasNext()) {
+            usedBytes -= it.next().getValue().bytes;
+            it.remove();
+            evictions++;
+        }
+    }
+
+    @NonNull
+    static Key key(@NonNull final Geopoint start, @NonNull final Geopoint destination, @NonNull final String routingMode, @NonNull final String profile) {
+        // profile is expected to identify the profile version as well
+        return new Key(snap(start.getLatitudeE6()), snap(start.getLongitudeE6()), snap(destination.getLatitudeE6()), snap(destination.getLongitudeE6()), routingMode, profile);
+    }
+
+    private static int snap(final int e6) {
+        return Math.round(e6 / (float) SNAP_E6);
+    }
+
+    static final class Key {
+        private final int startLat;
+        private final int startLon;
+        private final int destinationLat;
+        private final int destinationLon;
+        @NonNull private final String routingMode;
+        @NonNull private final String profile;
+
+        private Key(final int startLat, final int startLon, final int destinationLat, final int destinationLon, @NonNull final String routingMode, @NonNull final String profile) {
+            this.startLat = startLat;
+            this.startLon = startLon;
+            this.destinationLat = destinationLat;
+            this.destinationLon = destinationLon;
+            this.routingMode = routingMode;
+            this.profile = profile;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return startLat == other.startLat && startLon == other.startLon && destinationLat == other.destinationLat && destinationLon == other.destinationLon
+                    && routingMode.equals(other.routingMode) && profile.equals(other.profile);
+        }
+
+        @Override
+        public int hashCode() {
+            return ((startLat * 31 + startLon) * 31 + destinationLat) * 31 + destinationLon;
+        }
+    }
+
+    private static final class Entry {
+        @NonNull final Geopoint[] track;
+        @Nullable final float[] elevation; // null if the track was calculated without elevations
+        final long bytes;
+
+        Entry(@NonNull final Geopoint[] track, @Nullable final List<Float> elevation) {
+            this.track = track;
+            if (elevation == null) {
+                this.elevation = null;
+            } else {
+                this.elevation = new float[elevation.size()];
+                for (int i = 0; i < this.elevation.length; i++) {
+                    this.elevation[i] = elevation.get(i);
+                }
+            }
+            this.bytes = ENTRY_BYTES + POINT_BYTES * track.length;
+        }
+    }
+
+    /** usage counters of the cache since its creation */
+    static final class Statistics {
+        final int hits;
+        final int misses;
+        final int evictions;
+        final int size;
+        final long bytes;
+
+        Statistics(final int hits, final int misses, final int evictions, final int size, final long bytes) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.size = size;
+            this.bytes = bytes;
+        }
+
+        @Override
+        @NonNull
+        public String toString() {
+            return hits + " hits, " + misses + " misses, " + evictions + " evictions, " + size + " tracks (" + (bytes / 1024) + " kB)";
+        }
+    }
+}
@@ -169,34 +169,42 @@ public class RouteOptimizationHelper {
         }
     }
 
-    /** generate matrix of all distances between pairs */
+    /**
+     * generate matrix of all distances between pairs
+     * <br>
+     * Sources are split into chunks calculated in parallel, each chunk with a single one-to-many routing run.
+     * Falls back to routing each pair separately if the routing engine does not support this.
+     */
     private void generateDistanceMatrix(final SimpleProgressDialog dialog, final ExecutorService executor) {
         final AtomicInteger progress = new AtomicInteger(0);
         final List<Future<Object>> taskList = new ArrayList<>();
+        final Geopoint[] points = new Geopoint[routeSize];
+        for (int i = 0; i < routeSize; i++) {
+            points[i] = new Geopoint(initialRoute.get(i).getPoint().getLatitude(), initialRoute.get(i).getPoint().getLongitude());
+        }
+        final int chunkSize = Math.max(1, (int) Math.ceil(routeSize / (2.0 * Runtime.getRuntime().availableProcessors())));
         try {
-            for (int i = 0; i < routeSize; i++) {
-                final int col = i;
+            for (int chunkStart = 0; chunkStart < routeSize; chunkStart += chunkSize) {
+                final int[] sources = new int[Math.min(chunkSize, routeSize - chunkStart)];
+                for (int s = 0; s < sources.length; s++) {
+                    sources[s] = chunkStart + s;
+                }
                 taskList.add(executor.submit(() -> {
-                    for (int j = 0; j < routeSize; j++) {
-                        if (col != j) {
-                            final Geopoint[] track = Routing.getTrackNoCaching(
-                                    new Geopoint(initialRoute.get(col).getPoint().getLatitude(), initialRoute.get(col).getPoint().getLongitude()),
-                                    new Geopoint(initialRoute.get(j).getPoint().getLatitude(), initialRoute.get(j).getPoint().getLongitude()),
-                                    null);
-                            float distance = 0.0f;
-                            if (track.length > 0) {
-                                Geopoint last = track[0];
-                                for (Geopoint point : track) {
-                                    distance += last.distanceTo(point);
-                                    last = point;
+                    final int[][] distances = Routing.getDistanceMatrix(points, sources);
+                    if (distances != null) {
+                        for (int s = 0; s < sources.length; s++) {
+                            for (int j = 0; j < routeSize; j++) {
+                                if (sources[s] != j) {
+                                    distanceMatrix[sources[s]][j] = distances[s][j];
                                 }
                             }
-                            distanceMatrix[col][j] = (int) (1000.0f * distance);
-                            progress.set(progress.get() + 1);
-                            dialog.postProgress(progress.get() + 1);
-                            if (Thread.currentThread().isInterrupted()) {
-                                return 1;
-                            }
+                        }
+                        dialog.postProgress(progress.addAndGet(sources.length * (routeSize - 1)));
+                        return 1;
+                    }
+                    for (int col : sources) {
+                        if (!generateDistancesPairwise(points, col, dialog, progress)) {
+                            return 1;
                         }
                     }
                     return 1;
@@ -210,6 +218,29 @@ public class RouteOptimizationHelper {
         }
     }
 
+    /** calculate distances from one point to all others by routing each pair separately, returns false if interrupted */
+    private boolean generateDistancesPairwise(final Geopoint[] points, final int col, final SimpleProgressDialog dialog, final AtomicInteger progress) {
+        for (int j = 0; j < routeSize; j++) {
+            if (col != j) {
+                final Geopoint[] track = Routing.getCachedTrack(points[col], points[j], null);
+                float distance = 0.0f;
+                if (track.length > 0) {
+                    Geopoint last = track[0];
+                    for (Geopoint point : track) {
+                        distance += last.distanceTo(point);
+                        last = point;
+                    }
+                }
+                distanceMatrix[col][j] = (int) (1000.0f * distance);
+                dialog.postProgress(progress.incrementAndGet() + 1);
+                if (Thread.currentThread().isInterrupted()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     /** TSP calculation using hill climbing */
     private void hillClimbing(final TSPDialog dialog) {
         final int[] best = new int[routeSize];
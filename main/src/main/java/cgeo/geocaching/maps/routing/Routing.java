@@ -3,14 +3,21 @@ package cgeo.geocaching.maps.routing;
 import cgeo.geocaching.CgeoApplication;
 import cgeo.geocaching.R;
 import cgeo.geocaching.activity.ActivityMixin;
+import cgeo.geocaching.brouter.BRouterWorker;
 import cgeo.geocaching.brouter.core.RoutingEngine;
 import cgeo.geocaching.downloader.DownloadConfirmationActivity;
 import cgeo.geocaching.location.Geopoint;
 import cgeo.geocaching.settings.Settings;
+import cgeo.geocaching.storage.ContentStorage;
 import cgeo.geocaching.storage.PersistableFolder;
 import cgeo.geocaching.utils.Log;
 import cgeo.geocaching.utils.ProcessUtils;
+import static cgeo.geocaching.brouter.BRouterConstants.MATRIX_SOURCES_PARAMETERKEY;
 import static cgeo.geocaching.brouter.BRouterConstants.PROFILE_PARAMTERKEY;
+import static cgeo.geocaching.brouter.BRouterConstants.TRACK_ELEVATIONS_RESULTKEY;
+import static cgeo.geocaching.brouter.BRouterConstants.TRACK_ERROR_RESULTKEY;
+import static cgeo.geocaching.brouter.BRouterConstants.TRACK_LATS_RESULTKEY;
+import static cgeo.geocaching.brouter.BRouterConstants.TRACK_LONS_RESULTKEY;
 
 import android.content.Context;
 import android.content.ContextWrapper;
@@ -26,10 +33,16 @@ import androidx.lifecycle.DefaultLifecycleObserver;
 import androidx.lifecycle.LifecycleOwner;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import org.apache.commons.lang3.StringUtils;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
@@ -40,6 +53,10 @@ public final class Routing {
     private static final double UPDATE_MIN_DISTANCE_KILOMETERS = 0.005;
     private static final double MIN_ROUTING_DISTANCE_KILOMETERS = 0.04;
     private static final int UPDATE_MIN_DELAY_SECONDS = 3;
+    // legs routed at the same time, limited as each routing run keeps its own map data in memory
+    private static final int MAX_PARALLEL_LEGS = Math.max(1, Math.min(3, Runtime.getRuntime().availableProcessors() - 1));
+    // keeps a bulk elevation request well below the size limit of binder transactions
+    private static final int MAX_ELEVATION_POINTS_PER_REQUEST = 10000;
     private static AbstractServiceConnection routingServiceConnection;
     private static Geopoint lastDirectionUpdatePoint;
     @Nullable private static Geopoint[] lastRoutingPoints = null;
@@ -47,10 +64,18 @@ public final class Routing {
     private static long timeLastUpdate;
     private static int connectCount = 0;
 
+    private static final RouteCache ROUTE_CACHE = new RouteCache(0);
+    private static long routeCacheMaxBytes = 0;
+    // profile part of the route cache keys, looked up again when the profile or the tiles change, guarded by ROUTE_CACHE
+    @Nullable private static String routeCacheProfileName = null;
+    private static String routeCacheProfile;
+
     private static final Map<String, Runnable> REGISTERED_CALLBACKS = new HashMap<>();
     private static final ArrayList<String> requestedTileFiles = new ArrayList<>();
 
     private static final Runnable SERVICE_CONNECTED_CALLBACK = () -> {
+        // the profile may have been edited meanwhile
+        resetRouteCacheProfile();
         synchronized (Routing.class) {
             for (Runnable r : REGISTERED_CALLBACKS.values()) {
                 r.run();
@@ -180,15 +205,75 @@ public final class Routing {
     }
 
     public static float getElevation(final Geopoint current) {
-        if (routingServiceConnection == null || current == null || !routingServiceConnection.isConnected()) {
+        final AbstractServiceConnection connection = routingServiceConnection;
+        if (connection == null || current == null || !connection.isConnected()) {
             return NO_ELEVATION_AVAILABLE;
         }
+        final float[] elevations = getElevationsFromService(connection, Collections.singletonList(current));
+        return elevations != null ? elevations[0] : getElevationFromGpx(connection, current);
+    }
+
+    /**
+     * Looks up the elevations of many points at once (e.g. all points of a track), which is much faster than calling
+     * {@link #getElevation(Geopoint)} for each of them. Blocks, call in a background thread.
+     *
+     * @return elevations in the order of the points ({@link #NO_ELEVATION_AVAILABLE} if unknown), null if there is no routing
+     * service or it has no bulk elevation lookup (e.g. external BRouter app)
+     */
+    @Nullable
+    public static float[] getElevations(@NonNull final List<Geopoint> points) {
+        final AbstractServiceConnection connection = routingServiceConnection;
+        if (connection == null || !connection.isConnected()) {
+            return null;
+        }
+        final float[] result = new float[points.size()];
+        for (int from = 0; from < points.size(); from += MAX_ELEVATION_POINTS_PER_REQUEST) {
+            final List<Geopoint> chunk = points.subList(from, Math.min(points.size(), from + MAX_ELEVATION_POINTS_PER_REQUEST));
+            final float[] elevations = getElevationsFromService(connection, chunk);
+            if (elevations == null) {
+                // looking up thousands of points one by one would block for minutes
+                return null;
+            }
+            System.arraycopy(elevations, 0, result, from, chunk.size());
+        }
+        return result;
+    }
+
+    /** bulk elevation lookup of the internal routing service, null if not supported or failed */
+    @Nullable
+    private static float[] getElevationsFromService(@NonNull final AbstractServiceConnection connection, @NonNull final List<Geopoint> points) {
+        final double[] lats = new double[points.size()];
+        final double[] lons = new double[points.size()];
+        for (int i = 0; i < lats.length; i++) {
+            lats[i] = points.get(i).getLatitude();
+            lons[i] = points.get(i).getLongitude();
+        }
+        final Bundle params = new Bundle();
+        params.putDoubleArray("lats", lats);
+        params.putDoubleArray("lons", lons);
+        params.putString("v", RoutingMode.STRAIGHT.parameterValue);
+
+        final Bundle result = connection.getElevationsFromParams(params);
+        if (result == null) {
+            return null;
+        }
+        final float[] elevations = result.getFloatArray(TRACK_ELEVATIONS_RESULTKEY);
+        if (elevations == null || elevations.length != lats.length) {
+            Log.w("brouter returned no elevations: " + result.getString(TRACK_ERROR_RESULTKEY));
+            final float[] unknown = new float[lats.length];
+            Arrays.fill(unknown, NO_ELEVATION_AVAILABLE);
+            return unknown;
+        }
+        return elevations;
+    }
+
+    private static float getElevationFromGpx(@NonNull final AbstractServiceConnection connection, @NonNull final Geopoint current) {
         final Bundle params = new Bundle();
         params.putInt("engineMode", RoutingEngine.BROUTER_ENGINEMODE_GETELEV);
         params.putDoubleArray("lats", new double[]{current.getLatitude(), current.getLatitude()});
         params.putDoubleArray("lons", new double[]{current.getLongitude(), current.getLongitude()});
         params.putString("v", RoutingMode.STRAIGHT.parameterValue);
-        final String gpx = routingServiceConnection.getTrackFromParams(params);
+        final String gpx = connection.getTrackFromParams(params);
 
         // parse result
         final boolean[] inElevationElement = new boolean[1];
@@ -223,7 +308,7 @@ public final class Routing {
 
     /**
      * Return a valid track (with at least two points, including the start and destination).
-     * no caching
+     * Unlike {@link #getTrack} this does not depend on the current navigation state. Tracks are kept in the route cache.
      *
      * @param start       the starting point
      * @param destination the destination point
@@ -231,7 +316,7 @@ public final class Routing {
      * @return a track with at least two points including the start and destination points
      */
     @NonNull
-    public static Geopoint[] getTrackNoCaching(final Geopoint start, final Geopoint destination, @Nullable final ArrayList<Float> elevation) {
+    public static Geopoint[] getCachedTrack(final Geopoint start, final Geopoint destination, @Nullable final ArrayList<Float> elevation) {
         if (routingServiceConnection == null || Settings.getRoutingMode() == RoutingMode.STRAIGHT) {
             return defaultTrack(start, destination);
         }
@@ -248,11 +333,106 @@ public final class Routing {
             return defaultTrack(start, destination);
         }
 
-        // now calculate a new route
-        final Geopoint[] track = calculateRouting(start, destination, elevation);
+        // now calculate a new route, unless already done before
+        final RouteCache.Key key = getRouteCacheKey(start, destination);
+        Geopoint[] track = key == null ? null : ROUTE_CACHE.get(key, elevation);
+        if (track == null) {
+            // elevations are appended to the given list, cache only those of this track
+            final int firstElevation = elevation == null ? 0 : elevation.size();
+            track = calculateRouting(start, destination, elevation);
+            if (key != null && track != null) {
+                ROUTE_CACHE.put(key, track, elevation == null ? null : elevation.subList(firstElevation, elevation.size()));
+            }
+        }
         return ensureTrack(track, start, destination);
     }
 
+    /** key for the route cache, including mode and profile version, or null if the route cache is disabled */
+    @Nullable
+    private static RouteCache.Key getRouteCacheKey(final Geopoint start, final Geopoint destination) {
+        final long maxBytes = Settings.getBrouterRouteCacheSize() * 1024L * 1024L;
+        synchronized (ROUTE_CACHE) {
+            if (maxBytes != routeCacheMaxBytes) {
+                routeCacheMaxBytes = maxBytes;
+                ROUTE_CACHE.setMaxBytes(maxBytes);
+            }
+        }
+        if (maxBytes <= 0) {
+            return null;
+        }
+        return RouteCache.key(start, destination, Settings.getRoutingMode().parameterValue, getRouteCacheProfile());
+    }
+
+    /** routing profile with the modification time of its file, which is only looked up when the profile changed */
+    @NonNull
+    private static String getRouteCacheProfile() {
+        if (!Settings.useInternalRouting()) {
+            return "external";
+        }
+        final String profile = StringUtils.defaultString(Settings.getRoutingProfile());
+        synchronized (ROUTE_CACHE) {
+            if (!profile.equals(routeCacheProfileName)) {
+                final ContentStorage.FileInformation fi = ContentStorage.get().getFileInfo(PersistableFolder.ROUTING_BASE.getFolder(), profile);
+                routeCacheProfileName = profile;
+                routeCacheProfile = profile + ":" + (fi == null ? 0 : fi.lastModified);
+            }
+            return routeCacheProfile;
+        }
+    }
+
+    private static void resetRouteCacheProfile() {
+        synchronized (ROUTE_CACHE) {
+            routeCacheProfileName = null;
+        }
+    }
+
+    /** drops all cached tracks, to be called after routing tiles changed */
+    public static void clearRouteCache() {
+        resetRouteCacheProfile();
+        ROUTE_CACHE.clear();
+    }
+
+    /** hit and miss counters of the route cache, see {@link #getCachedTrack} */
+    @NonNull
+    public static String getRouteCacheStatistics() {
+        return ROUTE_CACHE.getStatistics().toString();
+    }
+
+    /**
+     * Calculates tracks for all legs between consecutive points, like {@link #getCachedTrack} for each pair,
+     * but routing several legs at the same time.
+     * <br>
+     * Legs are emitted as soon as they are routed, which is not necessarily in order. Routing starts on subscription
+     * and runs on the io scheduler.
+     *
+     * @param points route points, leg i leads from point i to point i + 1
+     * @return routed legs
+     */
+    @NonNull
+    public static Observable<RoutedLeg> getCachedTracks(@NonNull final List<Geopoint> points) {
+        return Observable.range(0, Math.max(0, points.size() - 1))
+                .flatMap(leg -> Observable.fromCallable(() -> {
+                    final ArrayList<Float> elevation = new ArrayList<>();
+                    final Geopoint[] track = getCachedTrack(points.get(leg), points.get(leg + 1), elevation);
+                    return new RoutedLeg(leg, track, elevation);
+                }).subscribeOn(Schedulers.io()), MAX_PARALLEL_LEGS);
+    }
+
+    /** track of a single leg calculated by {@link #getCachedTracks(List)} */
+    public static final class RoutedLeg {
+        /** index of the leg, i.e. of its start point */
+        public final int index;
+        @NonNull public final Geopoint[] track;
+        /** elevation per track point, may be empty */
+        @NonNull public final ArrayList<Float> elevation;
+
+        RoutedLeg(final int index, @NonNull final Geopoint[] track, @NonNull final ArrayList<Float> elevation) {
+            this.index = index;
+            this.track = track;
+            this.elevation = elevation;
+        }
+    }
+
     @NonNull
     private static Geopoint[] ensureTrack(@Nullable final Geopoint[] routingPoints, final Geopoint start, final Geopoint destination) {
         return routingPoints != null ? routingPoints : defaultTrack(start, destination);
@@ -273,17 +453,79 @@ public final class Routing {
         params.putString("v", Settings.getRoutingMode().parameterValue);
         params.putString(PROFILE_PARAMTERKEY, Settings.getRoutingProfile()); // profile filename, used only by internal routing engine
 
-        final String gpx = routingServiceConnection == null ? null : routingServiceConnection.getTrackFromParams(params);
+        final AbstractServiceConnection connection = routingServiceConnection;
+        if (connection != null && connection.supportsTrackPoints()) {
+            return getTrackPoints(connection, params, dest, elevation);
+        }
+
+        final String gpx = connection == null ? null : connection.getTrackFromParams(params);
 
         if (gpx == null) {
             Log.i("brouter returned no data");
             return null;
         }
 
-        // missing routing data?
-        if (gpx.startsWith("datafile ") && gpx.endsWith(" not found")) {
+        checkMissingRoutingData(gpx);
+
+        // other error
+        if (!gpx.startsWith("<?xml")) {
+            Log.w("brouter returned an error message: " + gpx);
+            return null;
+        }
+
+        return parseGpxTrack(gpx, dest, elevation);
+    }
+
+    /** gets the track points as primitive arrays from the internal routing service, avoiding gpx formatting and parsing */
+    @Nullable
+    private static Geopoint[] getTrackPoints(@NonNull final AbstractServiceConnection connection, @NonNull final Bundle params, final Geopoint destination, @Nullable final ArrayList<Float> elevation) {
+        final Bundle result = connection.getTrackPointsFromParams(params);
+        if (result == null) {
+            Log.i("brouter returned no data");
+            return null;
+        }
+
+        final String error = result.getString(TRACK_ERROR_RESULTKEY);
+        if (error != null) {
+            checkMissingRoutingData(error);
+            Log.w("brouter returned an error message: " + error);
+            return null;
+        }
+
+        final double[] lats = result.getDoubleArray(TRACK_LATS_RESULTKEY);
+        final double[] lons = result.getDoubleArray(TRACK_LONS_RESULTKEY);
+        final float[] elevations = result.getFloatArray(TRACK_ELEVATIONS_RESULTKEY);
+        if (lats == null || lons == null || lats.length != lons.length) {
+            Log.i("brouter returned no track");
+            return null;
+        }
+
+        final Geopoint[] track = new Geopoint[destination != null ? lats.length + 1 : lats.length];
+        for (int i = 0; i < lats.length; i++) {
+            track[i] = new Geopoint(lats[i], lons[i]);
+        }
+        if (elevation != null) {
+            elevation.ensureCapacity(elevation.size() + track.length);
+            for (int i = 0; i < lats.length; i++) {
+                elevation.add(elevations != null && i < elevations.length ? elevations[i] : NO_ELEVATION_AVAILABLE);
+            }
+        }
+
+        // artificial straight line from track to target
+        if (destination != null) {
+            track[lats.length] = destination;
+            if (elevation != null) {
+                elevation.add(NO_ELEVATION_AVAILABLE);
+            }
+        }
+        return track;
+    }
+
+    /** triggers download of missing routing data if given routing result says so */
+    private static void checkMissingRoutingData(@NonNull final String result) {
+        if (result.startsWith("datafile ") && result.endsWith(" not found")) {
             synchronized (requestedTileFiles) {
-                String filename = gpx.substring(9);
+                String filename = result.substring(9);
                 final int pos = filename.indexOf(" ");
                 if (pos != -1) {
                     filename = filename.substring(0, pos);
@@ -311,14 +553,62 @@ public final class Routing {
                 }
             }
         }
+    }
 
-        // other error
-        if (!gpx.startsWith("<?xml")) {
-            Log.w("brouter returned an error message: " + gpx);
+    /**
+     * Calculates route distances from each of the given sources to all given points in a single routing run
+     * (one search per source instead of one per pair of points).
+     * <br>
+     * Only supported by the internal routing engine. Like in {@link #getCachedTrack}, pairs without route or outside
+     * the routing distance limits get their straight distance.
+     *
+     * @param points  all points
+     * @param sources indexes of points to calculate distances from
+     * @return distances in meters, one row per source and one column per point, or null if not available
+     */
+    @Nullable
+    public static int[][] getDistanceMatrix(@NonNull final Geopoint[] points, @NonNull final int[] sources) {
+        if (!(routingServiceConnection instanceof InternalServiceConnection) || Settings.getRoutingMode() == RoutingMode.STRAIGHT) {
             return null;
         }
+        final double[] lats = new double[points.length];
+        final double[] lons = new double[points.length];
+        for (int i = 0; i < points.length; i++) {
+            lats[i] = points[i].getLatitude();
+            lons[i] = points[i].getLongitude();
+        }
+        final Bundle params = new Bundle();
+        params.putInt("engineMode", RoutingEngine.BROUTER_ENGINEMODE_MATRIX);
+        params.putDoubleArray("lats", lats);
+        params.putDoubleArray("lons", lons);
+        params.putIntArray(MATRIX_SOURCES_PARAMETERKEY, sources);
+        params.putString("v", Settings.getRoutingMode().parameterValue);
+        params.putString(PROFILE_PARAMTERKEY, Settings.getRoutingProfile());
 
-        return parseGpxTrack(gpx, dest, elevation);
+        final AbstractServiceConnection connection = routingServiceConnection;
+        final String result = connection == null ? null : connection.getTrackFromParams(params);
+        if (result == null) {
+            Log.i("brouter returned no data");
+            return null;
+        }
+        checkMissingRoutingData(result);
+        final int[][] matrix = BRouterWorker.parseMatrix(result, sources.length, points.length);
+        if (matrix == null) {
+            Log.w("brouter returned an error message: " + result);
+            return null;
+        }
+
+        // use straight distance where getCachedTrack would use a straight line, too
+        final int maxThresholdKm = Settings.getBrouterThreshold();
+        for (int row = 0; row < sources.length; row++) {
+            for (int col = 0; col < points.length; col++) {
+                final float airDistance = points[sources[row]].distanceTo(points[col]);
+                if (matrix[row][col] == RoutingEngine.MATRIX_NO_ROUTE || airDistance > maxThresholdKm || airDistance < MIN_ROUTING_DISTANCE_KILOMETERS) {
+                    matrix[row][col] = (int) (1000.0f * airDistance);
+                }
+            }
+        }
+        return matrix;
     }
 
     @Nullable
@@ -1364,6 +1364,34 @@ public class Geocache implements INamedGeoCoordinate {
         return waypoints.getUnderlyingList();
     }
 
+    /**
+     * Rough estimation of the heap memory used by this object, in bytes. Only data which is already present
+     * is taken into account, lazy initialized parts (texts, waypoints, attributes, categories) are never loaded
+     * by this method. Used by the {@link cgeo.geocaching.storage.CacheCache} to weight its entries.
+     */
+    public int getEstimatedMemoryWeight() {
+        int weight = 512 + estimateStringWeight(geocode) + estimateStringWeight(name) + estimateStringWeight(ownerDisplayName)
+                + estimateStringWeight(hint) + estimateStringWeight(location) + estimateStringWeight(shortdesc)
+                + estimateStringWeight(description) + estimateStringWeight(personalNote.getNote());
+        if (waypoints.isInitialized()) {
+            for (final Waypoint waypoint : waypoints.getUnderlyingList()) {
+                weight += 256 + estimateStringWeight(waypoint.getName()) + estimateStringWeight(waypoint.getNote()) + estimateStringWeight(waypoint.getUserNote());
+            }
+        }
+        if (attributes.isInitialized()) {
+            weight += 64 * attributes.getUnderlyingList().size();
+        }
+        if (categories.isInitialized()) {
+            weight += 64 * categories.getUnderlyingSet().size();
+        }
+        weight += 256 * CollectionUtils.size(spoilers) + 256 * CollectionUtils.size(inventory);
+        return weight;
+    }
+
+    private static int estimateStringWeight(@Nullable final String text) {
+        return text == null ? 0 : 40 + 2 * text.length();
+    }
+
     /**
      * @param waypoints      List of waypoints to set for cache
      * @param saveToDatabase Indicates whether to add the waypoints to the database. Should be false if
@@ -0,0 +1,357 @@
+package cgeo.geocaching.models;
+
+import cgeo.geocaching.enumerations.CacheSize;
+import cgeo.geocaching.enumerations.CacheType;
+import cgeo.geocaching.location.Geopoint;
+import cgeo.geocaching.storage.CacheProjection;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Compact read-only view of a geocache, containing only the fields needed to display it in a list or on a map.
+ * <br>
+ * Much cheaper to load and to keep than a full {@link Geocache}: no child objects (waypoints, logs, attributes, ...),
+ * coordinates stored as microdegrees and status flags packed into a single int. Use {@link Geocache} for anything
+ * beyond displaying, e.g. filtering, sorting or editing.
+ */
+public final class GeocacheSummary implements ICoordinate {
+
+    private static final int FLAG_FOUND = 1;
+    private static final int FLAG_DNF = 1 << 1;
+    private static final int FLAG_DISABLED = 1 << 2;
+    private static final int FLAG_ARCHIVED = 1 << 3;
+    private static final int FLAG_USER_MODIFIED_COORDS = 1 << 4;
+    private static final int FLAG_FINAL_DEFINED = 1 << 5;
+    private static final int FLAG_FAVORITE = 1 << 6;
+    private static final int FLAG_ON_WATCHLIST = 1 << 7;
+    private static final int FLAG_LOG_OFFLINE = 1 << 8;
+    private static final int FLAG_PREMIUM_MEMBERS_ONLY = 1 << 9;
+    private static final int FLAG_HAS_COORDS = 1 << 10;
+
+    @NonNull private final String geocode;
+    @NonNull private final String name;
+    @NonNull private final String ownerDisplayName;
+    @NonNull private final CacheType type;
+    @NonNull private final CacheSize size;
+    @NonNull private final CacheProjection projection;
+    private final int latitudeE6;
+    private final int longitudeE6;
+    // difficulty and terrain in half stars, 0 = unknown
+    private final byte difficulty;
+    private final byte terrain;
+    private final int flags;
+    private final int favoritePoints;
+    private final int assignedEmoji;
+
+    private GeocacheSummary(final Builder builder) {
+        this.geocode = builder.geocode;
+        this.name = builder.name;
+        this.ownerDisplayName = builder.ownerDisplayName;
+        this.type = builder.type;
+        this.size = builder.size;
+        this.projection = builder.projection;
+        this.latitudeE6 = builder.latitudeE6;
+        this.longitudeE6 = builder.longitudeE6;
+        this.difficulty = toHalfStars(builder.difficulty);
+        this.terrain = toHalfStars(builder.terrain);
+        this.flags = builder.flags;
+        this.favoritePoints = builder.favoritePoints;
+        this.assignedEmoji = builder.assignedEmoji;
+    }
+
+    /** creates a summary of an already loaded cache, containing all fields of the given projection */
+    @NonNull
+    public static GeocacheSummary of(@NonNull final Geocache cache, @NonNull final CacheProjection projection) {
+        final Builder builder = new Builder(cache.getGeocode(), projection)
+                .setType(cache.getType())
+                .setCoords(cache.getCoords())
+                .setFlag(FLAG_FOUND, cache.isFound())
+                .setFlag(FLAG_DNF, cache.isDNF())
+                .setFlag(FLAG_DISABLED, cache.isDisabled())
+                .setFlag(FLAG_ARCHIVED, cache.isArchived())
+                .setFlag(FLAG_USER_MODIFIED_COORDS, cache.hasUserModifiedCoords())
+                .setFlag(FLAG_FINAL_DEFINED, cache.hasFinalDefined())
+                .setFlag(FLAG_FAVORITE, cache.isFavorite())
+                .setFlag(FLAG_ON_WATCHLIST, cache.isOnWatchlist())
+                .setFlag(FLAG_LOG_OFFLINE, cache.hasLogOffline())
+                .setAssignedEmoji(cache.getAssignedEmoji());
+        if (projection.includes(CacheProjection.LIST_ROW)) {
+            builder.setName(cache.getName())
+                    .setSize(cache.getSize())
+                    .setDifficulty(cache.getDifficulty())
+                    .setTerrain(cache.getTerrain())
+                    .setFavoritePoints(cache.getFavoritePoints())
+                    .setOwnerDisplayName(cache.getOwnerDisplayName())
+                    .setFlag(FLAG_PREMIUM_MEMBERS_ONLY, cache.isPremiumMembersOnly());
+        }
+        return builder.build();
+    }
+
+    @NonNull
+    public String getGeocode() {
+        return geocode;
+    }
+
+    /** cache name, empty if not contained in the projection this summary was loaded with */
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    @NonNull
+    public String getOwnerDisplayName() {
+        return ownerDisplayName;
+    }
+
+    @NonNull
+    public CacheType getType() {
+        return type;
+    }
+
+    @NonNull
+    public CacheSize getSize() {
+        return size;
+    }
+
+    /** projection this summary was loaded with, i.e. which fields are available */
+    @NonNull
+    public CacheProjection getProjection() {
+        return projection;
+    }
+
+    @Override
+    @Nullable
+    public Geopoint getCoords() {
+        return (flags & FLAG_HAS_COORDS) != 0 ? Geopoint.forE6(latitudeE6, longitudeE6) : null;
+    }
+
+    public boolean hasCoords() {
+        return (flags & FLAG_HAS_COORDS) != 0;
+    }
+
+    public int getLatitudeE6() {
+        return latitudeE6;
+    }
+
+    public int getLongitudeE6() {
+        return longitudeE6;
+    }
+
+    public float getDifficulty() {
+        return difficulty / 2f;
+    }
+
+    public float getTerrain() {
+        return terrain / 2f;
+    }
+
+    public int getFavoritePoints() {
+        return favoritePoints;
+    }
+
+    public int getAssignedEmoji() {
+        return assignedEmoji;
+    }
+
+    public boolean isFound() {
+        return (flags & FLAG_FOUND) != 0;
+    }
+
+    public boolean isDNF() {
+        return (flags & FLAG_DNF) != 0;
+    }
+
+    public boolean isDisabled() {
+        return (flags & FLAG_DISABLED) != 0;
+    }
+
+    public boolean isArchived() {
+        return (flags & FLAG_ARCHIVED) != 0;
+    }
+
+    public boolean hasUserModifiedCoords() {
+        return (flags & FLAG_USER_MODIFIED_COORDS) != 0;
+    }
+
+    public boolean hasFinalDefined() {
+        return (flags & FLAG_FINAL_DEFINED) != 0;
+    }
+
+    public boolean isFavorite() {
+        return (flags & FLAG_FAVORITE) != 0;
+    }
+
+    public boolean isOnWatchlist() {
+        return (flags & FLAG_ON_WATCHLIST) != 0;
+    }
+
+    public boolean hasLogOffline() {
+        return (flags & FLAG_LOG_OFFLINE) != 0;
+    }
+
+    public boolean isPremiumMembersOnly() {
+        return (flags & FLAG_PREMIUM_MEMBERS_ONLY) != 0;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof GeocacheSummary)) {
+            return false;
+        }
+        final GeocacheSummary other = (GeocacheSummary) obj;
+        return geocode.equals(other.geocode) && projection == other.projection && flags == other.flags
+                && latitudeE6 == other.latitudeE6 && longitudeE6 == other.longitudeE6
+                && difficulty == other.difficulty && terrain == other.terrain
+                && favoritePoints == other.favoritePoints && assignedEmoji == other.assignedEmoji
+                && type == other.type && size == other.size
+                && name.equals(other.name) && ownerDisplayName.equals(other.ownerDisplayName);
+    }
+
+    @Override
+    public int hashCode() {
+        return geocode.hashCode();
+    }
+
+    @Override
+    @NonNull
+    public String toString() {
+        return geocode + " " + name;
+    }
+
+    private static byte toHalfStars(final float rating) {
+        return (byte) Math.max(0, Math.min(Byte.MAX_VALUE, Math.round(rating * 2)));
+    }
+
+    public static class Builder {
+
+        private final String geocode;
+        private final CacheProjection projection;
+        private String name = "";
+        private String ownerDisplayName = "";
+        private CacheType type = CacheType.UNKNOWN;
+        private CacheSize size = CacheSize.UNKNOWN;
+        private int latitudeE6;
+        private int longitudeE6;
+        private float difficulty;
+        private float terrain;
+        private int flags;
+        private int favoritePoints;
+        private int assignedEmoji;
+
+        public Builder(@NonNull final String geocode, @NonNull final CacheProjection projection) {
+            this.geocode = geocode;
+            this.projection = projection;
+        }
+
+        public Builder setName(@Nullable final String name) {
+            this.name = StringUtils.defaultString(name);
+            return this;
+        }
+
+        public Builder setOwnerDisplayName(@Nullable final String ownerDisplayName) {
+            this.ownerDisplayName = StringUtils.defaultString(ownerDisplayName);
+            return this;
+        }
+
+        public Builder setType(@Nullable final CacheType type) {
+            this.type = type == null ? CacheType.UNKNOWN : type;
+            return this;
+        }
+
+        public Builder setSize(@Nullable final CacheSize size) {
+            this.size = size == null ? CacheSize.UNKNOWN : size;
+            return this;
+        }
+
+        public Builder setCoords(@Nullable final Geopoint coords) {
+            setFlag(FLAG_HAS_COORDS, coords != null);
+            if (coords != null) {
+                latitudeE6 = coords.getLatitudeE6();
+                longitudeE6 = coords.getLongitudeE6();
+            }
+            return this;
+        }
+
+        /** sets coordinates given in degrees, without creating a {@link Geopoint} */
+        public Builder setCoords(final double latitude, final double longitude) {
+            setFlag(FLAG_HAS_COORDS, true);
+            latitudeE6 = (int) Math.round(latitude * 1e6);
+            longitudeE6 = (int) Math.round(longitude * 1e6);
+            return this;
+        }
+
+        public Builder setDifficulty(final float difficulty) {
+            this.difficulty = difficulty;
+            return this;
+        }
+
+        public Builder setTerrain(final float terrain) {
+            this.terrain = terrain;
+            return this;
+        }
+
+        public Builder setFavoritePoints(final int favoritePoints) {
+            this.favoritePoints = favoritePoints;
+            return this;
+        }
+
+        public Builder setAssignedEmoji(final int assignedEmoji) {
+            this.assignedEmoji = assignedEmoji;
+            return this;
+        }
+
+        /** sets found and DNF state from the database representation (1 = found, -1 = DNF) */
+        public Builder setFoundState(final int foundState) {
+            setFlag(FLAG_FOUND, foundState == 1);
+            return setFlag(FLAG_DNF, foundState == -1);
+        }
+
+        public Builder setDisabled(final boolean disabled) {
+            return setFlag(FLAG_DISABLED, disabled);
+        }
+
+        public Builder setArchived(final boolean archived) {
+            return setFlag(FLAG_ARCHIVED, archived);
+        }
+
+        public Builder setUserModifiedCoords(final boolean userModifiedCoords) {
+            return setFlag(FLAG_USER_MODIFIED_COORDS, userModifiedCoords);
+        }
+
+        public Builder setFinalDefined(final boolean finalDefined) {
+            return setFlag(FLAG_FINAL_DEFINED, finalDefined);
+        }
+
+        public Builder setFavorite(final boolean favorite) {
+            return setFlag(FLAG_FAVORITE, favorite);
+        }
+
+        public Builder setOnWatchlist(final boolean onWatchlist) {
+            return setFlag(FLAG_ON_WATCHLIST, onWatchlist);
+        }
+
+        public Builder setLogOffline(final boolean logOffline) {
+            return setFlag(FLAG_LOG_OFFLINE, logOffline);
+        }
+
+        public Builder setPremiumMembersOnly(final boolean premiumMembersOnly) {
+            return setFlag(FLAG_PREMIUM_MEMBERS_ONLY, premiumMembersOnly);
+        }
+
+        private Builder setFlag(final int flag, final boolean value) {
+            flags = value ? flags | flag : flags & ~flag;
+            return this;
+        }
+
+        @NonNull
+        public GeocacheSummary build() {
+            return new GeocacheSummary(this);
+        }
+    }
+}
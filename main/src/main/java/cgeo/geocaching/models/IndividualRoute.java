@@ -83,7 +83,7 @@ public class IndividualRoute extends Route implements Parcelable {
 
     public void reloadRoute(final UpdateIndividualRoute updateRoute) {
         clearRouteInternal(null, false);
-        AndroidRxUtils.andThenOnUi(Schedulers.io(), this::loadRouteInternal, () -> updateRoute(updateRoute));
+        AndroidRxUtils.andThenOnUi(Schedulers.io(), () -> loadRouteInternal(updateRoute), () -> updateRoute(updateRoute));
     }
 
     public void updateRoute(final UpdateIndividualRoute routeUpdater) {
@@ -120,14 +120,21 @@ public class IndividualRoute extends Route implements Parcelable {
         }
     }
 
-    private synchronized void loadRouteInternal() {
+    private synchronized void loadRouteInternal(@Nullable final UpdateIndividualRoute routeUpdater) {
         loadingRoute = true;
         Log.d("[RouteTrackDebug] Individual route: Start loading from database");
         final ArrayList<RouteItem> routeItems = DataStore.loadIndividualRoute();
+        final ArrayList<RouteSegment> loadedSegments = new ArrayList<>();
         for (int i = 0; i < routeItems.size(); i++) {
             Log.d("[RouteTrackDebug] Individual route: Add item #" + i + " (" + routeItems.get(i).getIdentifier() + ")");
-            toggleItemInternal(routeItems.get(i), true, false);
+            final RouteSegment segment = new RouteSegment(routeItems.get(i), null, true);
+            if (segment.hasPoint()) {
+                loadedSegments.add(segment);
+            }
         }
+        segments = loadedSegments;
+        // route all segments at once, and redraw whenever one of them got its route
+        calculateNavigationRoute(routeUpdater == null ? null : () -> AndroidRxUtils.runOnUi(() -> routeUpdater.updateIndividualRoute(this)));
         Log.d("[RouteTrackDebug] Individual route: Finished loading from database");
         loadingRoute = false;
     }
@@ -7,11 +7,15 @@ import cgeo.geocaching.models.geoitem.GeoGroup;
 import cgeo.geocaching.models.geoitem.GeoItem;
 import cgeo.geocaching.models.geoitem.GeoPrimitive;
 import cgeo.geocaching.models.geoitem.IGeoItemSupplier;
+import cgeo.geocaching.utils.Log;
 
 import android.os.Parcel;
 import android.os.Parcelable;
 
+import androidx.annotation.Nullable;
+
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class Route implements IGeoItemSupplier, Parcelable {
@@ -161,11 +165,68 @@ public class Route implements IGeoItemSupplier, Parcelable {
     }
 
     public void calculateNavigationRoute() {
+        calculateNavigationRoute(null);
+    }
+
+    /**
+     * Calculates the routes of all segments, several of them at the same time. Blocks until all segments are routed.
+     *
+     * @param onSegmentRouted called on the calling thread after each segment got its route, may be null
+     */
+    public void calculateNavigationRoute(@Nullable final Runnable onSegmentRouted) {
         final int numSegments = getNumSegments();
-        if (routeable && numSegments > 0) {
-            for (int segment = 0; segment < numSegments; segment++) {
-                calculateNavigationRoute(segment);
+        if (!routeable || numSegments == 0) {
+            return;
+        }
+        calculateNavigationRoute(0); // has no predecessor, so no route
+
+        final List<Geopoint> points = new ArrayList<>(numSegments);
+        for (RouteSegment segment : segments) {
+            points.add(segment.getPoint());
+        }
+        Routing.getCachedTracks(points).blockingSubscribe(leg -> {
+            final RouteSegment segment = segments.get(leg.index + 1);
+            distance -= segment.getDistance();
+            segment.setPoints(new ArrayList<>(Arrays.asList(leg.track)), leg.elevation);
+            distance += segment.calculateDistance();
+            if (onSegmentRouted != null) {
+                onSegmentRouted.run();
+            }
+        }, throwable -> Log.w("Route: routing segments failed", throwable));
+    }
+
+    /**
+     * Looks up the elevation of all points of segments without elevation (e.g. tracks recorded without elevation)
+     * at once. Blocks, call in a background thread.
+     */
+    public void addMissingElevation() {
+        if (segments == null) {
+            return;
+        }
+        final List<RouteSegment> missing = new ArrayList<>();
+        final List<Geopoint> points = new ArrayList<>();
+        for (RouteSegment segment : segments) {
+            final ArrayList<Float> elevation = segment.getElevation();
+            if (elevation == null || elevation.size() != segment.getPoints().size()) {
+                missing.add(segment);
+                points.addAll(segment.getPoints());
+            }
+        }
+        if (points.isEmpty()) {
+            return;
+        }
+        final float[] elevations = Routing.getElevations(points);
+        if (elevations == null) {
+            return;
+        }
+        int i = 0;
+        for (RouteSegment segment : missing) {
+            final ArrayList<Float> elevation = new ArrayList<>(segment.getPoints().size());
+            for (int j = 0; j < segment.getPoints().size(); j++) {
+                elevation.add(elevations[i++]);
             }
+            segment.setPoints(segment.getPoints(), elevation);
+            segment.calculateDistance();
         }
     }
 
@@ -179,7 +240,7 @@ public class Route implements IGeoItemSupplier, Parcelable {
                 // calculate route for segment between current point and its predecessor
                 if (pos > 0) {
                     final ArrayList<Float> elevation = new ArrayList<>();
-                    final Geopoint[] temp = Routing.getTrackNoCaching(segments.get(pos - 1).getPoint(), segment.getPoint(), elevation);
+                    final Geopoint[] temp = Routing.getCachedTrack(segments.get(pos - 1).getPoint(), segment.getPoint(), elevation);
                     for (Geopoint geopoint : temp) {
                         segment.addPoint(geopoint);
                     }
@@ -87,6 +87,13 @@ public class RouteSegment implements Parcelable {
         distance = 0.0f;
     }
 
+    /** replaces points and elevation at once, so that the segment can be drawn while its route is updated */
+    public void setPoints(final ArrayList<Geopoint> points, final ArrayList<Float> elevation) {
+        this.elevation = elevation;
+        this.points = points;
+        distance = 0.0f;
+    }
+
     public void setElevation(final ArrayList<Float> elevation) {
         this.elevation.clear();
         this.elevation.addAll(elevation);
@@ -26,6 +26,7 @@ public class GeoGroup implements GeoItem, Parcelable {
     //lazy-calculated
     private Viewport viewport;
     private boolean viewportTried = false;
+    private int hashCode = Integer.MIN_VALUE;
 
     private GeoGroup(@NonNull final List<GeoItem> items) {
         this.items = Collections.unmodifiableList(items);
@@ -129,13 +130,17 @@ public class GeoGroup implements GeoItem, Parcelable {
             return false;
         }
         final GeoGroup other = (GeoGroup) o;
-        return
+        //hash code is cached, so comparing it first is a cheap way to detect most differences
+        return hashCode() == other.hashCode() &&
             Objects.equals(items, other.items);
     }
 
     @Override
     public int hashCode() {
-        return items.hashCode();
+        if (hashCode == Integer.MIN_VALUE) {
+            hashCode = items.hashCode();
+        }
+        return hashCode;
     }
 
     @NonNull
@@ -164,7 +169,7 @@ public class GeoGroup implements GeoItem, Parcelable {
         }
 
         public GeoGroup build() {
-            return new GeoGroup(items);
+            return new GeoGroup(new ArrayList<>(items));
         }
 
     }
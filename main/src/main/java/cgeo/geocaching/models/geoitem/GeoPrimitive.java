@@ -255,7 +255,9 @@ public class GeoPrimitive implements GeoItem, Parcelable {
             return false;
         }
         final GeoPrimitive other = (GeoPrimitive) o;
+        //hash code is cached, so comparing it first is a cheap way to detect most differences
         return
+            hashCode() == other.hashCode() &&
             Objects.equals(type, other.type) &&
             Objects.equals(points, other.points) &&
             Objects.equals(holes, other.holes) &&
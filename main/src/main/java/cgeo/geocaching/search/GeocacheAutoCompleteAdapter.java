@@ -3,6 +3,7 @@ package cgeo.geocaching.search;
 import cgeo.geocaching.R;
 import cgeo.geocaching.enumerations.LoadFlags;
 import cgeo.geocaching.models.Geocache;
+import cgeo.geocaching.models.GeocacheSummary;
 import cgeo.geocaching.storage.DataStore;
 import cgeo.geocaching.ui.GeoItemSelectorUtils;
 import cgeo.geocaching.utils.functions.Func0;
@@ -47,7 +48,7 @@ public class GeocacheAutoCompleteAdapter extends SearchAutoCompleteAdapter {
 
     public static String[] getLastOpenedCachesArray() {
         final List<String> results = new ArrayList<>();
-        for (final Geocache geocache : DataStore.getLastOpenedCaches()) {
+        for (final GeocacheSummary geocache : DataStore.getLastOpenedCacheSummaries()) {
             results.add(geocache.getGeocode());
         }
         return results.toArray(new String[0]);
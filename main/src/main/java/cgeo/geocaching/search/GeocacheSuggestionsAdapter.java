@@ -4,6 +4,7 @@ package cgeo.geocaching.search;
 import cgeo.geocaching.R;
 import cgeo.geocaching.enumerations.LoadFlags;
 import cgeo.geocaching.models.Geocache;
+import cgeo.geocaching.models.GeocacheSummary;
 import cgeo.geocaching.storage.DataStore;
 import cgeo.geocaching.ui.GeoItemSelectorUtils;
 
@@ -48,8 +49,8 @@ public class GeocacheSuggestionsAdapter extends BaseSuggestionsAdapter {
 
     private static Cursor getLastOpenedCaches() {
         final GeocacheSearchSuggestionCursor resultCursor = new GeocacheSearchSuggestionCursor();
-        for (final Geocache geocache : DataStore.getLastOpenedCaches()) {
-            resultCursor.addCache(geocache.getGeocode(), StringUtils.defaultIfBlank(geocache.getName(), ""), geocache.getType().id);
+        for (final GeocacheSummary geocache : DataStore.getLastOpenedCacheSummaries()) {
+            resultCursor.addCache(geocache.getGeocode(), geocache.getName(), geocache.getType().id);
         }
         return resultCursor;
     }
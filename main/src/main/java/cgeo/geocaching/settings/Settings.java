@@ -1472,6 +1472,11 @@ public class Settings {
         return getBoolean(R.string.pref_brouterShowBothDistances, false);
     }
 
+    /** memory for calculated tracks kept by the route cache (in MB, 0 = off) */
+    public static int getBrouterRouteCacheSize() {
+        return getInt(R.string.pref_brouterRouteCacheSize, getKeyInt(R.integer.brouter_routecache_default));
+    }
+
     public static boolean isBrouterAutoTileDownloads() {
         return getBoolean(R.string.pref_brouterAutoTileDownloads, true);
     }
@@ -1544,6 +1549,10 @@ public class Settings {
         return getBoolean(R.string.pref_showElevation, false);
     }
 
+    public static boolean clusterCachesOnMap() {
+        return getBoolean(R.string.pref_clusterCachesOnMap, false);
+    }
+
     /**
      * Proximity notification settings
      */
@@ -1689,6 +1698,18 @@ public class Settings {
         putBoolean(R.string.pref_includetravelbugs, includeTravelBugs);
     }
 
+    public static boolean isGpxImportLogs() {
+        return getBoolean(R.string.pref_gpxImportLogs, true);
+    }
+
+    public static boolean getCompressGpxExport() {
+        return getBoolean(R.string.pref_compressgpxexport, false);
+    }
+
+    public static void setCompressGpxExport(final boolean compressGpxExport) {
+        putBoolean(R.string.pref_compressgpxexport, compressGpxExport);
+    }
+
     public static boolean getClearTrailAfterExportStatus() {
         return getBoolean(R.string.pref_cleartrailafterexportstatus, false);
     }
@@ -1,33 +1,111 @@
 package cgeo.geocaching.storage;
 
+import cgeo.geocaching.location.Geopoint;
 import cgeo.geocaching.location.Viewport;
 import cgeo.geocaching.models.Geocache;
 import cgeo.geocaching.storage.DataStore.StorageLocation;
-import cgeo.geocaching.utils.LeastRecentlyUsedMap;
 import cgeo.geocaching.utils.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.lang3.StringUtils;
 
 /**
  * Cache for Caches. Every cache is stored in memory while c:geo is active to
  * speed up the app and to minimize network requests - which are slow.
+ * <br>
+ * Entries are spread over several independently locked segments, each holding a share of the memory budget.
+ * Within a segment the least recently used caches are evicted first, based on their estimated memory weight
+ * (see {@link Geocache#getEstimatedMemoryWeight()}). A coarse spatial grid allows viewport lookups
+ * without visiting every cached entry.
  */
 public class CacheCache {
 
-    private static final int MAX_CACHED_CACHES = 1000;
-    private final LeastRecentlyUsedMap<String, Geocache> cachesCache;
+    private static final int SEGMENT_COUNT = 16;
+    /** budget used when none is given explicitly: a fraction of the maximum heap */
+    private static final int DEFAULT_BUDGET_HEAP_FRACTION = 16;
+    private static final long MIN_MEMORY_BUDGET = 1024 * 1024;
+    /** the spatial grid cells are 1 / GRID_CELLS_PER_DEGREE degrees wide and high */
+    private static final int GRID_CELLS_PER_DEGREE = 10;
+    private static final int GRID_LON_CELLS = 360 * GRID_CELLS_PER_DEGREE + 1;
+
+    private final Segment[] segments = new Segment[SEGMENT_COUNT];
+    /** grid cell key to geocodes of the caches located in this cell */
+    private final Map<Long, Set<String>> grid = new ConcurrentHashMap<>();
+    /** geocodes of caches which had no coordinates when they were added */
+    private final Set<String> unlocated = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    private static final class CacheEntry {
+        final Geocache cache;
+        final int weight;
+        @Nullable final Long cell;
+
+        CacheEntry(final Geocache cache, final int weight, @Nullable final Long cell) {
+            this.cache = cache;
+            this.weight = weight;
+            this.cell = cell;
+        }
+    }
+
+    private static final class Segment {
+        final LinkedHashMap<String, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        long weight = 0;
+        final long budget;
+
+        Segment(final long budget) {
+            this.budget = budget;
+        }
+    }
 
     public CacheCache() {
-        cachesCache = new LeastRecentlyUsedMap.LruCache<>(MAX_CACHED_CACHES);
+        this(Math.max(MIN_MEMORY_BUDGET, Runtime.getRuntime().maxMemory() / DEFAULT_BUDGET_HEAP_FRACTION));
+    }
+
+    /**
+     * @param memoryBudget approximate number of bytes the cached caches may use in total
+     */
+    public CacheCache(final long memoryBudget) {
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(segmentBudget(memoryBudget));
+        }
     }
 
-    public synchronized void removeAllFromCache() {
-        cachesCache.clear();
+    public long getMemoryBudget() {
+        long budget = 0;
+        for (final Segment segment : segments) {
+            synchronized (segment) {
+                budget += segment.budget;
+            }
+        }
+        return budget;
+    }
+
+    public void removeAllFromCache() {
+        for (final Segment segment : segments) {
+            synchronized (segment) {
+                for (final CacheEntry entry : segment.entries.values()) {
+                    unindex(entry);
+                }
+                segment.entries.clear();
+                segment.weight = 0;
+            }
+        }
     }
 
     /**
@@ -37,13 +115,19 @@ public class CacheCache {
         if (StringUtils.isBlank(geocode)) {
             throw new IllegalArgumentException("geocode must not be empty");
         }
-        synchronized (this) {
-            cachesCache.remove(geocode);
+        final Segment segment = segmentFor(geocode);
+        synchronized (segment) {
+            final CacheEntry entry = segment.entries.remove(geocode);
+            if (entry != null) {
+                segment.weight -= entry.weight;
+                unindex(entry);
+            }
         }
     }
 
     /**
      * "Store" a cache in the CacheCache. If the cache is already in the CacheCache the cache gets replaced.
+     * Storing a cache again also refreshes its weight and its position in the spatial grid.
      *
      * @param cache Cache
      */
@@ -51,12 +135,22 @@ public class CacheCache {
         if (cache == null) {
             throw new IllegalArgumentException("cache must not be null");
         }
-        if (StringUtils.isBlank(cache.getGeocode())) {
+        final String geocode = cache.getGeocode();
+        if (StringUtils.isBlank(geocode)) {
             throw new IllegalArgumentException("geocode must not be empty");
         }
-        synchronized (this) {
-            cache.addStorageLocation(StorageLocation.CACHE);
-            cachesCache.put(cache.getGeocode(), cache);
+        cache.addStorageLocation(StorageLocation.CACHE);
+        final CacheEntry entry = new CacheEntry(cache, cache.getEstimatedMemoryWeight(), getCell(cache.getCoords()));
+        final Segment segment = segmentFor(geocode);
+        synchronized (segment) {
+            final CacheEntry previous = segment.entries.put(geocode, entry);
+            if (previous != null) {
+                segment.weight -= previous.weight;
+                unindex(previous);
+            }
+            segment.weight += entry.weight;
+            index(entry);
+            evictIfNeeded(segment, geocode);
         }
     }
 
@@ -68,14 +162,57 @@ public class CacheCache {
         if (StringUtils.isBlank(geocode)) {
             throw new IllegalArgumentException("geocode must not be empty");
         }
-        synchronized (this) {
-            return cachesCache.get(geocode);
+        final Segment segment = segmentFor(geocode);
+        final CacheEntry entry;
+        synchronized (segment) {
+            entry = segment.entries.get(geocode);
+        }
+        if (entry == null) {
+            missCount.incrementAndGet();
+            return null;
         }
+        hitCount.incrementAndGet();
+        return entry.cache;
     }
 
-    public synchronized Set<String> getInViewport(final Viewport viewport) {
+    public Set<String> getInViewport(final Viewport viewport) {
         final Set<String> geocodes = new HashSet<>();
-        for (final Geocache cache : cachesCache.values()) {
+        final int latMin = latCell(viewport.getLatitudeMin());
+        final int latMax = latCell(viewport.getLatitudeMax());
+        final int lonMin = lonCell(viewport.getLongitudeMin());
+        final int lonMax = lonCell(viewport.getLongitudeMax());
+        final long viewportCells = (long) (latMax - latMin + 1) * (lonMax - lonMin + 1);
+        if (viewportCells <= grid.size()) {
+            for (int lat = latMin; lat <= latMax; lat++) {
+                for (int lon = lonMin; lon <= lonMax; lon++) {
+                    addInViewport(grid.get(cellKey(lat, lon)), viewport, geocodes);
+                }
+            }
+        } else {
+            // large viewport: visiting the occupied cells is cheaper than probing every cell of the viewport
+            for (final Map.Entry<Long, Set<String>> cell : grid.entrySet()) {
+                final long key = cell.getKey();
+                final int lat = (int) (key / GRID_LON_CELLS);
+                final int lon = (int) (key % GRID_LON_CELLS);
+                if (lat >= latMin && lat <= latMax && lon >= lonMin && lon <= lonMax) {
+                    addInViewport(cell.getValue(), viewport, geocodes);
+                }
+            }
+        }
+        // caches without coordinates at insertion time may have got some in the meantime
+        addInViewport(unlocated, viewport, geocodes);
+        return geocodes;
+    }
+
+    private void addInViewport(@Nullable final Set<String> candidates, final Viewport viewport, final Set<String> result) {
+        if (candidates == null) {
+            return;
+        }
+        for (final String geocode : candidates) {
+            final Geocache cache = peek(geocode);
+            if (cache == null) {
+                continue;
+            }
             if (cache.getCoords() == null) {
                 // FIXME: this kludge must be removed, it is only present to help us debug the cases where
                 // caches contain null coordinates.
@@ -83,16 +220,150 @@ public class CacheCache {
                 continue;
             }
             if (viewport.contains(cache)) {
-                geocodes.add(cache.getGeocode());
+                result.add(geocode);
             }
         }
-        return geocodes;
+    }
+
+    /**
+     * get a cache without touching its LRU position or the hit/miss counters
+     */
+    @Nullable
+    private Geocache peek(final String geocode) {
+        final Segment segment = segmentFor(geocode);
+        synchronized (segment) {
+            final CacheEntry entry = segment.entries.get(geocode);
+            return entry == null ? null : entry.cache;
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (final Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return the estimated memory used by all cached caches, in bytes
+     */
+    public long getWeight() {
+        long weight = 0;
+        for (final Segment segment : segments) {
+            synchronized (segment) {
+                weight += segment.weight;
+            }
+        }
+        return weight;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * @return a human readable summary of the cache usage, for diagnostic purposes
+     */
+    @NonNull
+    public String getStatistics() {
+        final long hits = getHitCount();
+        final long requests = hits + getMissCount();
+        return String.format(Locale.US, "CacheCache: %d caches, %d/%d kB, hits %d/%d (%.1f%%), evictions %d",
+                size(), getWeight() / 1024, getMemoryBudget() / 1024, hits, requests,
+                requests == 0 ? 0.0 : 100.0 * hits / requests, getEvictionCount());
+    }
+
+    /**
+     * must be called with the segment lock held
+     */
+    private void evictIfNeeded(final Segment segment, @Nullable final String keep) {
+        final Iterator<Map.Entry<String, CacheEntry>> it = segment.entries.entrySet().iterator();
+        while (segment.weight > segment.budget && it.hasNext()) {
+            final Map.Entry<String, CacheEntry> eldest = it.next();
+            // never evict the cache just added, even if it alone exceeds the budget
+            if (eldest.getKey().equals(keep)) {
+                continue;
+            }
+            it.remove();
+            segment.weight -= eldest.getValue().weight;
+            unindex(eldest.getValue());
+            evictionCount.incrementAndGet();
+        }
+    }
+
+    private void index(final CacheEntry entry) {
+        final String geocode = entry.cache.getGeocode();
+        if (entry.cell == null) {
+            unlocated.add(geocode);
+            return;
+        }
+        // adding within compute, so that a concurrent unindex of the cell's last cache can't drop the set in between
+        grid.compute(entry.cell, (c, geocodes) -> {
+            final Set<String> cellGeocodes = geocodes == null ? ConcurrentHashMap.newKeySet() : geocodes;
+            cellGeocodes.add(geocode);
+            return cellGeocodes;
+        });
+    }
+
+    private void unindex(final CacheEntry entry) {
+        final String geocode = entry.cache.getGeocode();
+        if (entry.cell == null) {
+            unlocated.remove(geocode);
+            return;
+        }
+        grid.computeIfPresent(entry.cell, (c, geocodes) -> {
+            geocodes.remove(geocode);
+            return geocodes.isEmpty() ? null : geocodes;
+        });
+    }
+
+    private Segment segmentFor(final String geocode) {
+        final int hash = geocode.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENT_COUNT - 1)];
+    }
+
+    private static long segmentBudget(final long memoryBudget) {
+        return Math.max(1, memoryBudget / SEGMENT_COUNT);
+    }
+
+    @Nullable
+    private static Long getCell(@Nullable final Geopoint coords) {
+        return coords == null ? null : cellKey(latCell(coords.getLatitude()), lonCell(coords.getLongitude()));
+    }
+
+    private static int latCell(final double latitude) {
+        return (int) Math.floor((Math.max(-90, Math.min(90, latitude)) + 90) * GRID_CELLS_PER_DEGREE);
+    }
+
+    private static int lonCell(final double longitude) {
+        return (int) Math.floor((Math.max(-180, Math.min(180, longitude)) + 180) * GRID_CELLS_PER_DEGREE);
+    }
+
+    private static long cellKey(final int latCell, final int lonCell) {
+        return (long) latCell * GRID_LON_CELLS + lonCell;
     }
 
     @Override
     @NonNull
-    public synchronized String toString() {
-        return StringUtils.join(cachesCache.keySet(), ' ');
+    public String toString() {
+        final List<String> geocodes = new ArrayList<>();
+        for (final Segment segment : segments) {
+            synchronized (segment) {
+                geocodes.addAll(segment.entries.keySet());
+            }
+        }
+        return StringUtils.join(geocodes, ' ');
     }
 
 }
@@ -0,0 +1,79 @@
+package cgeo.geocaching.storage;
+
+import cgeo.geocaching.models.GeocacheSummary;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Column profiles for loading {@link GeocacheSummary} objects from the caches table.
+ * <br>
+ * Each profile reads only the columns its consumer displays, instead of the full {@code QUERY_CACHE_DATA} row
+ * and the child tables needed for a complete {@link cgeo.geocaching.models.Geocache}. Columns of a smaller profile
+ * are always a prefix of the columns of a larger profile, so that cursor indexes stay the same for all profiles.
+ * Fields not covered by a profile keep their default values in the summary.
+ */
+public enum CacheProjection {
+
+    /** fields needed to draw a cache marker on a map */
+    MAP_MARKER(new String[]{
+            "geocode", "type", "latitude", "longitude", "found", "disabled", "archived",
+            "coordsChanged", "finalDefined", "emoji", "favourite", "onWatchlist",
+            "EXISTS (SELECT 1 FROM " + DataStore.dbTableLogsOffline + " WHERE " + DataStore.dbTableLogsOffline + ".geocode = " + DataStore.dbTableCaches + ".geocode)"
+    }),
+
+    /** fields needed to display a cache as a row of a cache list */
+    LIST_ROW(new String[]{
+            "name", "size", "difficulty", "terrain", "favourite_cnt", "owner", "members"
+    });
+
+    // column indexes, see column arrays above
+    static final int COLUMN_GEOCODE = 0;
+    static final int COLUMN_TYPE = 1;
+    static final int COLUMN_LATITUDE = 2;
+    static final int COLUMN_LONGITUDE = 3;
+    static final int COLUMN_FOUND = 4;
+    static final int COLUMN_DISABLED = 5;
+    static final int COLUMN_ARCHIVED = 6;
+    static final int COLUMN_COORDS_CHANGED = 7;
+    static final int COLUMN_FINAL_DEFINED = 8;
+    static final int COLUMN_EMOJI = 9;
+    static final int COLUMN_FAVORITE = 10;
+    static final int COLUMN_WATCHLIST = 11;
+    static final int COLUMN_LOG_OFFLINE = 12;
+    static final int COLUMN_NAME = 13;
+    static final int COLUMN_SIZE = 14;
+    static final int COLUMN_DIFFICULTY = 15;
+    static final int COLUMN_TERRAIN = 16;
+    static final int COLUMN_FAVORITE_POINTS = 17;
+    static final int COLUMN_OWNER = 18;
+    static final int COLUMN_MEMBERS = 19;
+
+    private final String[] additionalColumns;
+
+    CacheProjection(final String[] additionalColumns) {
+        this.additionalColumns = additionalColumns;
+    }
+
+    /** all columns to select for this profile, including those of smaller profiles */
+    @NonNull
+    String getColumns() {
+        final StringBuilder columns = new StringBuilder();
+        for (CacheProjection projection : values()) {
+            if (projection.ordinal() > ordinal()) {
+                break;
+            }
+            for (String column : projection.additionalColumns) {
+                if (columns.length() > 0) {
+                    columns.append(", ");
+                }
+                // qualify plain column names, as subselects may refer to other tables
+                columns.append(column.indexOf(' ') < 0 ? DataStore.dbTableCaches + "." + column : column);
+            }
+        }
+        return columns.toString();
+    }
+
+    public boolean includes(@NonNull final CacheProjection other) {
+        return ordinal() >= other.ordinal();
+    }
+}
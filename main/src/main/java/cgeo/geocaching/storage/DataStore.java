@@ -30,6 +30,7 @@ import cgeo.geocaching.log.LogTypeTrackable;
 import cgeo.geocaching.log.OfflineLogEntry;
 import cgeo.geocaching.log.ReportProblemType;
 import cgeo.geocaching.models.Geocache;
+import cgeo.geocaching.models.GeocacheSummary;
 import cgeo.geocaching.models.INamedGeoCoordinate;
 import cgeo.geocaching.models.Image;
 import cgeo.geocaching.models.Route;
@@ -250,13 +251,29 @@ public class DataStore {
      */
     private static final long DAYS_AFTER_CACHE_IS_DELETED = 3 * 24 * 60 * 60 * 1000;
 
+    /**
+     * Number of caches whose child table data (waypoints, logs, ...) is loaded with a single query per table
+     */
+    private static final int LOAD_CHILDREN_BATCH_SIZE = 500;
+
+    /**
+     * Maximum number of stored caches returned for a viewport (caches closest to the viewport center are preferred)
+     */
+    private static final int VIEWPORT_MAX_STORED_CACHES = 500;
+
+    /**
+     * Half size (in degrees) of the first and the last square searched for nearest-N queries using the coordinate indices
+     */
+    private static final double NEAREST_SEARCH_MIN_DEGREES = 0.02;
+    private static final double NEAREST_SEARCH_MAX_DEGREES = 2.56;
+
     /**
      * holds the column indexes of the cache table to avoid lookups
      */
     private static final CacheCache cacheCache = new CacheCache();
     private static volatile SQLiteDatabase database = null;
     private static final ReentrantReadWriteLock databaseLock = new ReentrantReadWriteLock();
-    private static final int dbVersion = 106;
+    private static final int dbVersion = 108;
     public static final int customListIdOffset = 10;
 
     /**
@@ -298,10 +315,12 @@ public class DataStore {
             103, // add more projection attributes to waypoints
             104,  // add geofence radius for lab stages
             105,  // Migrate UDC geocodes from ZZ1000-based numbers to random ones
-            106  // Update lab caches DT rating to zero from minus one
+            106, // Update lab caches DT rating to zero from minus one
+            107, // replace separate latitude and longitude indices by combined coordinate indices on caches and waypoints
+            108  // add full text index tables for caches and logs (rebuilt on every upgrade to 108)
     ));
 
-    @NonNull private static final String dbTableCaches = "cg_caches";
+    @NonNull static final String dbTableCaches = "cg_caches";
         @NonNull public static final String dbFieldCaches_type = "type";
         @NonNull public static final String dbFieldCaches_owner_real = "owner_real";
         @NonNull public static final String dbFieldCaches_favourite_cnt = "favourite_cnt";
@@ -345,6 +364,13 @@ public class DataStore {
         @NonNull public static final String dbFieldRoute_id = "id";
     @NonNull private static final String dbTableExtension = "cg_extension";
     @NonNull private static final String dbTableFilters = "cg_filters";
+    @NonNull private static final String dbTableCachesFullText = "cg_caches_fulltext";
+    @NonNull private static final String dbTableLogsFullText = "cg_logs_fulltext";
+
+    /**
+     * columns of {@link #dbTableCaches} contained in the full text index
+     */
+    private static final String[] FULLTEXT_CACHE_COLUMNS = {"name", "owner", "owner_real", "location", "description", "hint", "personal_note"};
 
     @NonNull private static final String[] dbAll = new String[]{
             dbTableCaches, dbTableLists, dbTableCachesLists, dbTableAttributes, dbTableWaypoints,
@@ -1001,10 +1027,23 @@ public class DataStore {
 
         cacheCache.removeAllFromCache();
         PreparedStatement.clearPreparedStatements();
+        DBFullTextIndex.reset();
+        // checkpoint and leave the file in rollback journal mode, so that backup, move and restore
+        // can handle the database as a single self-contained file
+        try {
+            database.disableWriteAheadLogging();
+        } catch (final RuntimeException e) {
+            Log.w("DataStore.closeDb: unable to disable write-ahead logging", e);
+        }
         database.close();
         database = null;
     }
 
+    /**
+     * Regular database reads and writes are done with the (shared) access lock. Concurrency between them is
+     * handled by SQLite itself: in write-ahead logging mode readers use a pool of read-only connections
+     * and therefore never wait for a running write transaction (e.g. a large import).
+     */
     private static  <T> T withAccessLock(final Supplier<T> action) {
         databaseLock.readLock().lock();
         try {
@@ -1023,6 +1062,10 @@ public class DataStore {
         }
     }
 
+    /**
+     * The exclusive change lock is only needed for operations replacing the database file as a whole
+     * (backup, restore, move), which must not run while any connection is in use.
+     */
     private static <T> T withChangeLock(final Supplier<T> action) {
         databaseLock.writeLock().lock();
         try {
@@ -1161,6 +1204,14 @@ public class DataStore {
             super(context, databasePath().getPath(), null, dbVersion);
         }
 
+        @Override
+        public void onConfigure(final SQLiteDatabase db) {
+            // allows concurrent readers while a write transaction is running
+            if (!db.enableWriteAheadLogging()) {
+                Log.w("DataStore: unable to enable write-ahead logging");
+            }
+        }
+
         @Override
         public void onCreate(final SQLiteDatabase db) {
             newlyCreatedDatabase = true;
@@ -1186,6 +1237,7 @@ public class DataStore {
             db.execSQL(dbCreateFilters);
 
             createIndices(db, dbVersion);
+            DBFullTextIndex.create(db);
 
             //at the very end of onCreate: write downgradeable versions in database
             try {
@@ -1198,8 +1250,7 @@ public class DataStore {
         private static void createIndices(final SQLiteDatabase db, final int currentVersion) {
             db.execSQL("CREATE INDEX IF NOT EXISTS in_caches_geo ON " + dbTableCaches + " (geocode)");
             db.execSQL("CREATE INDEX IF NOT EXISTS in_caches_guid ON " + dbTableCaches + " (guid)");
-            db.execSQL("CREATE INDEX IF NOT EXISTS in_caches_lat ON " + dbTableCaches + " (latitude)");
-            db.execSQL("CREATE INDEX IF NOT EXISTS in_caches_lon ON " + dbTableCaches + " (longitude)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS in_caches_lat_lon ON " + dbTableCaches + " (latitude, longitude)");
             db.execSQL("CREATE INDEX IF NOT EXISTS in_caches_reason ON " + dbTableCaches + " (reason)");
             db.execSQL("CREATE INDEX IF NOT EXISTS in_caches_detailed ON " + dbTableCaches + " (detailed)");
             db.execSQL("CREATE INDEX IF NOT EXISTS in_caches_type ON " + dbTableCaches + " (type)");
@@ -1207,6 +1258,7 @@ public class DataStore {
             db.execSQL("CREATE INDEX IF NOT EXISTS in_attr_geo ON " + dbTableAttributes + " (geocode)");
             db.execSQL("CREATE INDEX IF NOT EXISTS in_wpts_geo ON " + dbTableWaypoints + " (geocode)");
             db.execSQL("CREATE INDEX IF NOT EXISTS in_wpts_geo_type ON " + dbTableWaypoints + " (geocode, type)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS in_wpts_lat_lon ON " + dbTableWaypoints + " (latitude, longitude)");
             db.execSQL("CREATE INDEX IF NOT EXISTS in_spoil_geo ON " + dbTableSpoilers + " (geocode)");
             db.execSQL("CREATE INDEX IF NOT EXISTS in_logs_geo ON " + dbTableLogs + " (geocode, date desc)");
             if (currentVersion >= 54) {
@@ -1930,6 +1982,22 @@ public class DataStore {
                         }
                     }
 
+                    // Replace the separate latitude and longitude indices of caches by a combined one and add the same to waypoints
+                    if (oldVersion < 107) {
+                        try {
+                            db.execSQL("DROP INDEX IF EXISTS in_caches_lat");
+                            db.execSQL("DROP INDEX IF EXISTS in_caches_lon");
+                            createIndices(db, 107);
+                        } catch (final SQLException e) {
+                            onUpgradeError(e, 107);
+                        }
+                    }
+
+                    // Add full text index. Rebuilt completely, as it is not maintained by versions prior to 108
+                    if (oldVersion < 108) {
+                        DBFullTextIndex.create(db);
+                    }
+
                 }
 
                 //at the very end of onUpgrade: rewrite downgradeable versions in database
@@ -2037,6 +2105,8 @@ public class DataStore {
             db.execSQL("DROP TABLE IF EXISTS " + dbTableRoute);
             db.execSQL("DROP TABLE IF EXISTS " + dbTableExtension);
             db.execSQL("DROP TABLE IF EXISTS " + dbTableFilters);
+            db.execSQL("DROP TABLE IF EXISTS " + dbTableCachesFullText);
+            db.execSQL("DROP TABLE IF EXISTS " + dbTableLogsFullText);
             // also delete tables which have old table names
             db.execSQL("DROP TABLE IF EXISTS cg_table_route");
             db.execSQL("DROP TABLE IF EXISTS cg_table_extension");
@@ -2311,6 +2381,8 @@ public class DataStore {
                 database.endTransaction();
             }
         });
+        // storing again moves the cache to its new position in the viewport grid
+        cacheCache.putCacheInCache(cache);
     }
 
     /**
@@ -2400,6 +2472,41 @@ public class DataStore {
 
     }
 
+    /**
+     * Stores caches read by an import together with their logs in one transaction, instead of one transaction for
+     * each cache and its logs. The caches are not kept in the CacheCache afterwards.
+     * <br>
+     * If storing one of the caches fails, the transaction of the whole batch is rolled back.
+     *
+     * @param logs logs by geocode, caches without an entry keep their stored logs
+     */
+    public static void saveImportedCaches(final Collection<Geocache> caches, final Map<String, List<LogEntry>> logs) {
+        if (CollectionUtils.isEmpty(caches)) {
+            return;
+        }
+
+        withAccessLock(() -> {
+            try (ContextLogger cLog = new ContextLogger("DataStore.saveImportedCaches(#%d)", caches.size())) {
+                init();
+                database.beginTransaction();
+                try {
+                    saveCaches(caches, EnumSet.of(SaveFlag.DB));
+                    for (final Map.Entry<String, List<LogEntry>> entry : logs.entrySet()) {
+                        saveLogsWithoutTransaction(entry.getKey(), entry.getValue(), false);
+                    }
+                    database.setTransactionSuccessful();
+                } finally {
+                    database.endTransaction();
+                }
+
+                // avoid the cachecache using lots of memory for caches which the user did not actually look at
+                for (final Geocache cache : caches) {
+                    cacheCache.removeCacheFromCache(cache.getGeocode());
+                }
+            }
+        });
+    }
+
     private static boolean updateDisabledStatus(final Geocache cache) {
         cache.addStorageLocation(StorageLocation.DATABASE);
         cacheCache.putCacheInCache(cache);
@@ -2502,12 +2609,14 @@ public class DataStore {
                 saveInventoryWithoutTransaction(cache.getGeocode(), cache.getInventory());
                 saveListsWithoutTransaction(cache);
 
+                DBFullTextIndex.removeCache(cache.getGeocode());
                 final int rows = database.update(dbTableCaches, values, "geocode = ?", new String[]{cache.getGeocode()});
                 if (rows == 0) {
                     // cache is not in the DB, insert it
                     /* long id = */
                     database.insert(dbTableCaches, null, values);
                 }
+                DBFullTextIndex.addCache(cache.getGeocode());
                 database.setTransactionSuccessful();
                 return true;
             } catch (final Exception e) {
@@ -2809,6 +2918,7 @@ public class DataStore {
             }
             // TODO delete logimages referring these logs
             if (removeAllExistingLogs) {
+                DBFullTextIndex.removeLogs("geocode = ?", new String[]{geocode});
                 database.delete(dbTableLogs, "geocode = ?", new String[]{geocode});
             } else {
                 // instead of deleting all existing logs for this cache, try to merge
@@ -2816,6 +2926,7 @@ public class DataStore {
                 final SQLiteStatement deleteLog = PreparedStatement.CLEAN_LOG.getStatement();
                 for (final LogEntry log : logs) {
                     final ImmutablePair<Long, Long> dateRange = CalendarUtils.getStartAndEndOfDay(log.date);
+                    DBFullTextIndex.removeLogs(CLEAN_LOG_WHERE, new String[]{geocode, String.valueOf(dateRange.left), String.valueOf(dateRange.right), String.valueOf(log.logType.id), log.author});
 
                     deleteLog.bindString(1, geocode);
                     deleteLog.bindLong(2, dateRange.left);
@@ -2847,6 +2958,7 @@ public class DataStore {
                 insertLog.bindLong(9, log.found);
                 insertLog.bindLong(10, log.friend ? 1 : 0);
                 final long logId = insertLog.executeInsert();
+                DBFullTextIndex.addLog(logId, log.author, log.log);
                 if (log.hasLogImages()) {
                     final SQLiteStatement insertImage = PreparedStatement.INSERT_LOG_IMAGE.getStatement();
                     for (final Image img : log.logImages) {
@@ -3132,49 +3244,12 @@ public class DataStore {
 
             try (Cursor cursor = database.rawQuery(query.toString(), null)) {
                 final Set<Geocache> caches = new HashSet<>();
+                final Map<String, Geocache> cachesByGeocode = new HashMap<>();
                 int logIndex = -1;
 
                 while (cursor.moveToNext()) {
                     final Geocache cache = createCacheFromDatabaseContent(cursor);
 
-                    if (loadFlags.contains(LoadFlag.ATTRIBUTES)) {
-                        cache.setAttributes(loadAttributes(cache.getGeocode()));
-                    }
-
-                    if (loadFlags.contains(LoadFlag.WAYPOINTS)) {
-                        final List<Waypoint> waypoints = loadWaypoints(cache.getGeocode());
-                        if (CollectionUtils.isNotEmpty(waypoints)) {
-                            cache.setWaypoints(waypoints, false);
-                        }
-                    }
-
-                    if (loadFlags.contains(LoadFlag.SPOILERS)) {
-                        final List<Image> spoilers = loadSpoilers(cache.getGeocode());
-                        cache.setSpoilers(spoilers);
-                    }
-
-                    if (loadFlags.contains(LoadFlag.LOGS)) {
-                        final Map<LogType, Integer> logCounts = loadLogCounts(cache.getGeocode());
-                        if (MapUtils.isNotEmpty(logCounts)) {
-                            cache.getLogCounts().clear();
-                            cache.getLogCounts().putAll(logCounts);
-                        }
-                    }
-
-                    if (loadFlags.contains(LoadFlag.INVENTORY)) {
-                        final List<Trackable> inventory = loadInventory(cache.getGeocode());
-                        if (CollectionUtils.isNotEmpty(inventory)) {
-                            cache.setInventory(inventory);
-                        }
-                    }
-
-                    if (loadFlags.contains(LoadFlag.CATEGORIES)) {
-                        final List<Category> categories = loadCategories(cache.getGeocode());
-                        if (CollectionUtils.isNotEmpty(categories)) {
-                            cache.setCategories(categories);
-                        }
-                    }
-
                     if (loadFlags.contains(LoadFlag.OFFLINE_LOG)) {
                         if (logIndex < 0) {
                             logIndex = cursor.getColumnIndex("log");
@@ -3184,11 +3259,23 @@ public class DataStore {
                         }
                     }
                     cache.addStorageLocation(StorageLocation.DATABASE);
-                    cacheCache.putCacheInCache(cache);
 
                     caches.add(cache);
+                    cachesByGeocode.put(cache.getGeocode(), cache);
+                }
+
+                // child tables are loaded with one query per table and batch instead of one query per table and cache
+                final List<String> loadedGeocodes = new ArrayList<>(cachesByGeocode.keySet());
+                for (int batchStart = 0; batchStart < loadedGeocodes.size(); batchStart += LOAD_CHILDREN_BATCH_SIZE) {
+                    final List<String> batch = loadedGeocodes.subList(batchStart, Math.min(batchStart + LOAD_CHILDREN_BATCH_SIZE, loadedGeocodes.size()));
+                    loadChildrenForCaches(cachesByGeocode, batch, loadFlags);
                 }
 
+                for (final Geocache cache : caches) {
+                    cacheCache.putCacheInCache(cache);
+                }
+                cLog.add("batches:%d", (loadedGeocodes.size() + LOAD_CHILDREN_BATCH_SIZE - 1) / LOAD_CHILDREN_BATCH_SIZE);
+
                 final Map<String, Set<Integer>> cacheLists = loadLists(geocodes);
                 for (final Geocache geocache : caches) {
                     final Set<Integer> listIds = cacheLists.get(geocache.getGeocode());
@@ -3202,16 +3289,183 @@ public class DataStore {
         }
     }
 
+    /**
+     * Loads compact read-only summaries of the given caches, reading only the columns of the given projection.
+     * <br>
+     * Caches already contained in {@link CacheCache} are taken from there. Summaries are not added to {@link CacheCache}.
+     */
+    @NonNull
+    public static List<GeocacheSummary> loadCacheSummaries(@NonNull final Collection<String> geocodes, @NonNull final CacheProjection projection) {
+        if (geocodes.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return withAccessLock(() -> {
+            try (ContextLogger cLog = new ContextLogger(Log.LogLevel.DEBUG, "DataStore.loadCacheSummaries(#%d, %s)", geocodes.size(), projection)) {
+                final List<GeocacheSummary> result = new ArrayList<>(geocodes.size());
+                final Set<String> remaining = new HashSet<>();
+                for (final String geocode : geocodes) {
+                    final Geocache cached = cacheCache.getCacheFromCache(geocode);
+                    if (cached == null) {
+                        remaining.add(geocode);
+                    } else {
+                        result.add(GeocacheSummary.of(cached, projection));
+                    }
+                }
+                cLog.add("fromCache:%d", result.size());
+
+                if (!remaining.isEmpty()) {
+                    init();
+                    final String query = "SELECT " + projection.getColumns() + " FROM " + dbTableCaches + " WHERE " + dbTableCaches + "." + whereGeocodeIn(remaining);
+                    try (Cursor cursor = database.rawQuery(query, null)) {
+                        while (cursor.moveToNext()) {
+                            result.add(createCacheSummaryFromDatabaseContent(cursor, projection));
+                        }
+                    }
+                }
+                cLog.addReturnValue("#" + result.size());
+                return result;
+            }
+        });
+    }
+
+    /**
+     * creates a cache summary from the columns of the given projection, see {@link CacheProjection} for column indexes
+     */
+    @NonNull
+    private static GeocacheSummary createCacheSummaryFromDatabaseContent(final Cursor cursor, final CacheProjection projection) {
+        final GeocacheSummary.Builder builder = new GeocacheSummary.Builder(cursor.getString(CacheProjection.COLUMN_GEOCODE), projection)
+                .setType(CacheType.getById(cursor.getString(CacheProjection.COLUMN_TYPE)))
+                .setFoundState(cursor.getInt(CacheProjection.COLUMN_FOUND))
+                .setDisabled(cursor.getInt(CacheProjection.COLUMN_DISABLED) == 1)
+                .setArchived(cursor.getInt(CacheProjection.COLUMN_ARCHIVED) == 1)
+                .setUserModifiedCoords(cursor.getInt(CacheProjection.COLUMN_COORDS_CHANGED) > 0)
+                .setFinalDefined(cursor.getInt(CacheProjection.COLUMN_FINAL_DEFINED) > 0)
+                .setAssignedEmoji(cursor.getInt(CacheProjection.COLUMN_EMOJI))
+                .setFavorite(cursor.getInt(CacheProjection.COLUMN_FAVORITE) == 1)
+                .setOnWatchlist(cursor.getInt(CacheProjection.COLUMN_WATCHLIST) == 1)
+                .setLogOffline(cursor.getInt(CacheProjection.COLUMN_LOG_OFFLINE) > 0);
+        if (!cursor.isNull(CacheProjection.COLUMN_LATITUDE) && !cursor.isNull(CacheProjection.COLUMN_LONGITUDE)) {
+            builder.setCoords(cursor.getDouble(CacheProjection.COLUMN_LATITUDE), cursor.getDouble(CacheProjection.COLUMN_LONGITUDE));
+        }
+        if (projection.includes(CacheProjection.LIST_ROW)) {
+            builder.setName(cursor.getString(CacheProjection.COLUMN_NAME))
+                    .setSize(CacheSize.getById(cursor.getString(CacheProjection.COLUMN_SIZE)))
+                    .setDifficulty(cursor.getFloat(CacheProjection.COLUMN_DIFFICULTY))
+                    .setTerrain(cursor.getFloat(CacheProjection.COLUMN_TERRAIN))
+                    .setFavoritePoints(cursor.getInt(CacheProjection.COLUMN_FAVORITE_POINTS))
+                    .setOwnerDisplayName(cursor.getString(CacheProjection.COLUMN_OWNER))
+                    .setPremiumMembersOnly(cursor.getInt(CacheProjection.COLUMN_MEMBERS) == 1);
+        }
+        return builder.build();
+    }
+
 
     /**
-     * Builds a where for a viewport with the size enhanced by 50%.
+     * Loads the child table data requested by the given flags for a batch of caches and attaches it to them.
+     * Every child table is queried once for the whole batch.
      */
+    private static void loadChildrenForCaches(final Map<String, Geocache> cachesByGeocode, final Collection<String> geocodes, final EnumSet<LoadFlag> loadFlags) {
+        if (loadFlags.contains(LoadFlag.ATTRIBUTES)) {
+            final Map<String, List<String>> attributes = loadGroupedByGeocode(dbTableAttributes,
+                    new String[]{"attribute"}, geocodes, null, 100, GET_STRING_0);
+            for (final String geocode : geocodes) {
+                final List<String> cacheAttributes = attributes.get(geocode);
+                cachesByGeocode.get(geocode).setAttributes(cacheAttributes == null ? new LinkedList<>() : cacheAttributes);
+            }
+        }
+
+        if (loadFlags.contains(LoadFlag.WAYPOINTS)) {
+            final Map<String, List<Waypoint>> waypoints = loadGroupedByGeocode(dbTableWaypoints,
+                    WAYPOINT_COLUMNS, geocodes, "_id", 0, DataStore::createWaypointFromDatabaseContent);
+            for (final Map.Entry<String, List<Waypoint>> entry : waypoints.entrySet()) {
+                cachesByGeocode.get(entry.getKey()).setWaypoints(entry.getValue(), false);
+            }
+        }
+
+        if (loadFlags.contains(LoadFlag.SPOILERS)) {
+            final Map<String, List<Image>> spoilers = loadGroupedByGeocode(dbTableSpoilers,
+                    new String[]{"url", "title", "description"}, geocodes, null, 100,
+                    cursor -> new Image.Builder()
+                            .setUrl(cursor.getString(0))
+                            .setTitle(cursor.getString(1))
+                            .setDescription(cursor.getString(2))
+                            .setCategory(Image.ImageCategory.LISTING)
+                            .build());
+            for (final String geocode : geocodes) {
+                final List<Image> cacheSpoilers = spoilers.get(geocode);
+                cachesByGeocode.get(geocode).setSpoilers(cacheSpoilers == null ? new LinkedList<>() : cacheSpoilers);
+            }
+        }
 
+        if (loadFlags.contains(LoadFlag.LOGS)) {
+            final Map<String, List<ImmutablePair<LogType, Integer>>> logCounts = loadGroupedByGeocode(dbTableLogCount,
+                    new String[]{"type", "count"}, geocodes, null, 100,
+                    cursor -> new ImmutablePair<>(LogType.getById(cursor.getInt(0)), cursor.getInt(1)));
+            for (final Map.Entry<String, List<ImmutablePair<LogType, Integer>>> entry : logCounts.entrySet()) {
+                final Map<LogType, Integer> cacheLogCounts = cachesByGeocode.get(entry.getKey()).getLogCounts();
+                cacheLogCounts.clear();
+                for (final ImmutablePair<LogType, Integer> logCount : entry.getValue()) {
+                    cacheLogCounts.put(logCount.left, logCount.right);
+                }
+            }
+        }
+
+        if (loadFlags.contains(LoadFlag.INVENTORY)) {
+            final Map<String, List<Trackable>> inventory = loadGroupedByGeocode(dbTableTrackables,
+                    new String[]{"_id", "updated", "tbcode", "guid", "title", "owner", "released", "goal", "description", "log_date", "log_type", "log_guid"},
+                    geocodes, "title COLLATE NOCASE ASC", 100, DataStore::createTrackableFromDatabaseContent);
+            for (final Map.Entry<String, List<Trackable>> entry : inventory.entrySet()) {
+                cachesByGeocode.get(entry.getKey()).setInventory(entry.getValue());
+            }
+        }
+
+        if (loadFlags.contains(LoadFlag.CATEGORIES)) {
+            final Map<String, List<Category>> categories = loadGroupedByGeocode(dbTableCategories,
+                    new String[]{"category"}, geocodes, null, 100, cursor -> Category.getByName(cursor.getString(0)));
+            for (final Map.Entry<String, List<Category>> entry : categories.entrySet()) {
+                cachesByGeocode.get(entry.getKey()).setCategories(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Queries a child table for multiple caches at once and groups the mapped rows by geocode.
+     * The geocode column is appended after the given columns, so column based mapping functions are not affected.
+     *
+     * @param orderBy             order of rows within one geocode, may be null
+     * @param maxRowsPerGeocode   maximum number of rows kept per geocode, 0 for no limit
+     * @return map of geocode to rows. Geocodes without any row are not contained.
+     */
     @NonNull
-    private static StringBuilder buildCoordinateWhere(final String dbTable, final Viewport viewport) {
-        return viewport.resize(1.5).sqlWhere(dbTable);
+    private static <T> Map<String, List<T>> loadGroupedByGeocode(@NonNull final String table, final String[] columns, final Collection<String> geocodes,
+                                                                 @Nullable final String orderBy, final int maxRowsPerGeocode, final Func1<? super Cursor, ? extends T> func) {
+        final Map<String, List<T>> result = new HashMap<>();
+        if (geocodes.isEmpty()) {
+            return result;
+        }
+        final String[] columnsWithGeocode = Arrays.copyOf(columns, columns.length + 1);
+        columnsWithGeocode[columns.length] = "geocode";
+        final int geocodeIndex = columns.length;
+
+        init();
+        try (Cursor cursor = database.query(table, columnsWithGeocode, whereGeocodeIn(geocodes).toString(), null, null, null,
+                orderBy == null ? "geocode" : "geocode, " + orderBy)) {
+            while (cursor.moveToNext()) {
+                final String geocode = cursor.getString(geocodeIndex);
+                List<T> rows = result.get(geocode);
+                if (rows == null) {
+                    rows = new LinkedList<>();
+                    result.put(geocode, rows);
+                }
+                if (maxRowsPerGeocode <= 0 || rows.size() < maxRowsPerGeocode) {
+                    rows.add(func.call(cursor));
+                }
+            }
+        }
+        return result;
     }
 
+
     /**
      * creates a Cache from the cursor. Doesn't next.
      *
@@ -4052,6 +4306,22 @@ public class DataStore {
     @NonNull
     private static Set<String> loadBatchOfStoredGeocodes(final GeocacheFilter filter, final int filterListId, final Viewport filterViewport, final CacheComparator sort, final boolean sortInverse, final Geopoint sortCenter, final int limit) {
 
+        // nearest-N search: query growing squares around the center via the coordinate index until enough caches are found.
+        // Restricting the coordinate difference to the square's half size guarantees that no closer cache lies outside of it
+        if (sort == null && sortCenter != null && limit > 0 && filterViewport == null) {
+            for (double maxCoordDiff = NEAREST_SEARCH_MIN_DEGREES; maxCoordDiff <= NEAREST_SEARCH_MAX_DEGREES; maxCoordDiff *= 2) {
+                final Set<String> nearest = queryBatchOfStoredGeocodes(filter, filterListId, new Viewport(sortCenter, 2 * maxCoordDiff, 2 * maxCoordDiff), null, false, sortCenter, maxCoordDiff, limit);
+                if (nearest.size() >= limit) {
+                    return nearest;
+                }
+            }
+        }
+        return queryBatchOfStoredGeocodes(filter, filterListId, filterViewport, sort, sortInverse, sortCenter, -1, limit);
+    }
+
+    @NonNull
+    private static Set<String> queryBatchOfStoredGeocodes(final GeocacheFilter filter, final int filterListId, final Viewport filterViewport, final CacheComparator sort, final boolean sortInverse, final Geopoint sortCenter, final double maxCoordDiff, final int limit) {
+
         SqlBuilder sqlBuilder = null;
         try (ContextLogger cLog = new ContextLogger(Log.LogLevel.DEBUG, "DataStore.loadBatchOfStoredGeocodes(coords=%s, list=%d)",
                 String.valueOf(sortCenter), filterListId)) {
@@ -4064,6 +4334,9 @@ public class DataStore {
             if (filterViewport != null) {
                 sqlBuilder.addWhere(filterViewport.sqlWhere(sqlBuilder.getMainTableId()).toString());
             }
+            if (sortCenter != null && maxCoordDiff > 0) {
+                sqlBuilder.addWhere(getCoordDiffExpression(sortCenter, sqlBuilder.getMainTableId()) + " <= " + maxCoordDiff);
+            }
             if (filter != null && filter.getTree() != null) {
                 filter.getTree().addToSql(sqlBuilder);
                 if (!sqlBuilder.allWheresClosed()) {
@@ -4086,7 +4359,7 @@ public class DataStore {
 
             return cursorToColl(database.rawQuery(sqlBuilder.getSql(), sqlBuilder.getSqlWhereArgsArray()), new HashSet<>(), GET_STRING_0);
         } catch (final Exception e) {
-            Log.e("DataStore.loadBatchOfStoredGeocodes[SQL:" + (sqlBuilder == null ? "-" : sqlBuilder.getSql()) + "]", e);
+            Log.e("DataStore.queryBatchOfStoredGeocodes[SQL:" + (sqlBuilder == null ? "-" : sqlBuilder.getSql()) + "]", e);
             return Collections.emptySet();
         }
     }
@@ -4165,8 +4438,9 @@ public class DataStore {
                 geocodes.addAll(cacheCache.getInViewport(viewport));
             }
 
+            // order by distance to the viewport center, so that in dense areas the limit drops the outermost caches instead of arbitrary ones
             geocodes.addAll(
-                loadBatchOfStoredGeocodes(filter, stored ? PseudoList.ALL_LIST.id : -1, viewport, null, false, null, 500));
+                loadBatchOfStoredGeocodes(filter, stored ? PseudoList.ALL_LIST.id : -1, viewport, null, false, viewport.getCenter(), VIEWPORT_MAX_STORED_CACHES));
 
             cLog.add("gc" + cLog.toStringLimited(geocodes, 10));
 
@@ -4271,6 +4545,7 @@ public class DataStore {
         DBLogOfflineUtils.cleanOrphanedRecords();
 
         Log.d("Database clean: removing non-existing caches from logs");
+        DBFullTextIndex.removeLogs("geocode NOT IN (SELECT geocode FROM " + dbTableCaches + ")", null);
         database.delete(dbTableLogs, "geocode NOT IN (SELECT geocode FROM " + dbTableCaches + ")", null);
 
         Log.d("Database clean: removing non-existing logs from logimages");
@@ -4417,8 +4692,14 @@ public class DataStore {
                 }
                 final String geocodeList = StringUtils.join(quotedGeocodes.toArray(), ',');
                 final String baseWhereClause = "geocode IN (" + geocodeList + ")";
+                String wayPointClause = baseWhereClause;
+                if (!removeFlags.contains(RemoveFlag.OWN_WAYPOINTS_ONLY_FOR_TESTING)) {
+                    wayPointClause += " AND type <> 'own'";
+                }
                 database.beginTransaction();
                 try {
+                    DBFullTextIndex.removeCaches(baseWhereClause);
+                    DBFullTextIndex.removeLogs(baseWhereClause, null);
                     database.delete(dbTableCaches, baseWhereClause, null);
                     database.delete(dbTableAttributes, baseWhereClause, null);
                     database.delete(dbTableSpoilers, baseWhereClause, null);
@@ -4426,10 +4707,6 @@ public class DataStore {
                     database.delete(dbTableLogs, baseWhereClause, null);
                     database.delete(dbTableLogCount, baseWhereClause, null);
                     DBLogOfflineUtils.remove(baseWhereClause, null);
-                    String wayPointClause = baseWhereClause;
-                    if (!removeFlags.contains(RemoveFlag.OWN_WAYPOINTS_ONLY_FOR_TESTING)) {
-                        wayPointClause += " AND type <> 'own'";
-                    }
                     database.delete(dbTableWaypoints, wayPointClause, null);
                     database.delete(dbTableVariables, baseWhereClause, null);
                     database.delete(dbTableCategories, baseWhereClause, null);
@@ -5097,7 +5374,8 @@ public class DataStore {
     public static Set<Waypoint> loadWaypoints(final Viewport viewport) {
         return withAccessLock(() -> {
 
-            final StringBuilder where = buildCoordinateWhere(dbTableWaypoints, viewport);
+            final Viewport searchViewport = viewport.resize(1.5);
+            final StringBuilder where = searchViewport.sqlWhere(dbTableWaypoints);
 
             final StringBuilder query = new StringBuilder("SELECT ");
             for (int i = 0; i < WAYPOINT_COLUMNS.length; i++) {
@@ -5111,10 +5389,32 @@ public class DataStore {
         });
     }
 
+    /**
+     * Returns the query plan of a viewport query on the given table, to check that it uses the coordinate index.
+     */
+    @NonNull
+    static String getViewportQueryPlan(@NonNull final String table, @NonNull final Viewport viewport) {
+        return withAccessLock(() -> {
+
+            init();
+
+            final StringBuilder plan = new StringBuilder();
+            try (Cursor cursor = database.rawQuery("EXPLAIN QUERY PLAN SELECT geocode FROM " + table + " WHERE " + viewport.sqlWhere(table), null)) {
+                final int indexDetail = cursor.getColumnIndexOrThrow("detail");
+                while (cursor.moveToNext()) {
+                    plan.append(cursor.getString(indexDetail)).append('\n');
+                }
+            }
+            return plan.toString();
+        });
+    }
+
     public static void saveChangedCache(final Geocache cache) {
         saveCache(cache, cache.inDatabase() ? LoadFlags.SAVE_ALL : EnumSet.of(SaveFlag.CACHE));
     }
 
+    private static final String CLEAN_LOG_WHERE = "geocode = ? AND date >= ? AND date <= ? AND type = ? AND author = ?";
+
     private enum PreparedStatement {
 
         HISTORY_COUNT("SELECT COUNT(*) FROM " + dbTableCaches + " WHERE visiteddate > 0 OR geocode IN (SELECT geocode FROM " + dbTableLogsOffline + ")"),
@@ -5131,7 +5431,7 @@ public class DataStore {
         COUNT_CACHES_ON_STANDARD_LIST("SELECT COUNT(geocode) FROM " + dbTableCachesLists + " WHERE list_id = " + StoredList.STANDARD_LIST_ID),
         COUNT_ALL_CACHES("SELECT COUNT(DISTINCT(geocode)) FROM " + dbTableCachesLists + " WHERE list_id >= " + StoredList.STANDARD_LIST_ID),
         INSERT_LOG("INSERT INTO " + dbTableLogs + " (geocode, updated, service_log_id, type, author, author_guid, log, date, found, friend) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)"),
-        CLEAN_LOG("DELETE FROM " + dbTableLogs + " WHERE geocode = ? AND date >= ? AND date <= ? AND type = ? AND author = ?"),
+        CLEAN_LOG("DELETE FROM " + dbTableLogs + " WHERE " + CLEAN_LOG_WHERE),
         INSERT_ATTRIBUTE("INSERT INTO " + dbTableAttributes + " (geocode, updated, attribute) VALUES (?, ?, ?)"),
         INSERT_CATEGORY("INSERT INTO " + dbTableCategories + " (geocode, category) VALUES (?, ?)"),
         ADD_TO_LIST("INSERT OR REPLACE INTO " + dbTableCachesLists + " (list_id, geocode) VALUES (?, ?)"),
@@ -5151,7 +5451,9 @@ public class DataStore {
         SEQUENCE_UPDATE("UPDATE " + dbTableSequences + " SET seq = ? WHERE name = ?"),
         SEQUENCE_INSERT("INSERT INTO " + dbTableSequences + " (name, seq) VALUES (?, ?)"),
         GET_ALL_STORED_LOCATIONS("SELECT DISTINCT c.location FROM " + dbTableCaches + " c WHERE c.location IS NOT NULL"),
-        SET_CACHE_ICON("UPDATE " + dbTableCaches + " SET emoji = ? WHERE geocode = ?");
+        SET_CACHE_ICON("UPDATE " + dbTableCaches + " SET emoji = ? WHERE geocode = ?"),
+        FULLTEXT_ADD_CACHE("INSERT INTO " + dbTableCachesFullText + " (docid, " + StringUtils.join(FULLTEXT_CACHE_COLUMNS, ", ") + ") SELECT _id, " + StringUtils.join(FULLTEXT_CACHE_COLUMNS, ", ") + " FROM " + dbTableCaches + " WHERE geocode = ?"),
+        FULLTEXT_ADD_LOG("INSERT INTO " + dbTableLogsFullText + " (docid, " + dbFieldLogs_author + ", " + dbFieldLogs_log + ") VALUES (?, ?, ?)");
 
         private static final List<PreparedStatement> statements = new ArrayList<>();
 
@@ -5287,7 +5589,7 @@ public class DataStore {
             final GeocacheSearchSuggestionCursor resultCursor = new GeocacheSearchSuggestionCursor();
             try {
                 final String selectionArg = getSuggestionArgument(searchTerm);
-                findCaches(resultCursor, selectionArg);
+                findCaches(resultCursor, searchTerm, selectionArg);
                 findTrackables(resultCursor, selectionArg);
             } catch (final Exception e) {
                 Log.e("DataStore.loadBatchOfStoredGeocodes", e);
@@ -5296,11 +5598,15 @@ public class DataStore {
         });
     }
 
-    private static void findCaches(final GeocacheSearchSuggestionCursor resultCursor, final String selectionArg) {
+    private static void findCaches(final GeocacheSearchSuggestionCursor resultCursor, final String searchTerm, final String selectionArg) {
+        // name and owner are matched as substrings. Terms following a separator within the search term must start a word,
+        // which allows to narrow down candidates via the full text index first
+        final String fullTextCondition = DBFullTextIndex.getCondition(dbTableCaches, "_id", getFullTextPrefixTerms(searchTerm, false), "name", "owner");
         final Cursor cursor = database.query(
                 dbTableCaches,
                 new String[]{"geocode", "name", "type"},
-                "geocode IS NOT NULL AND geocode != '' AND (geocode LIKE ? OR name LIKE ? OR owner LIKE ?)",
+                "geocode IS NOT NULL AND geocode != '' AND (geocode LIKE ? OR ("
+                        + (fullTextCondition == null ? "" : fullTextCondition + " AND ") + "(name LIKE ? OR owner LIKE ?)))",
                 new String[]{selectionArg, selectionArg, selectionArg},
                 null,
                 null,
@@ -5342,6 +5648,69 @@ public class DataStore {
         cursor.close();
     }
 
+    /**
+     * Splits a search text into terms usable as prefix queries on the full text index.
+     * <br>
+     * Only terms which must be the beginning of a word in every text containing the search text are returned:
+     * terms following a separator within the search text, and the first term only if the search text itself
+     * is known to start at a word boundary (e.g. for "starts with" searches). Terms containing non-ASCII characters are
+     * skipped, as the index tokenizer does not fold their case.
+     *
+     * @param text                        search text
+     * @param textStartsAtWordBoundary    true if the text is known to start at the beginning of a word
+     * @return lowercase terms, possibly empty
+     */
+    @NonNull
+    public static List<String> getFullTextPrefixTerms(@Nullable final String text, final boolean textStartsAtWordBoundary) {
+        final List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        int termStart = -1;
+        for (int pos = 0; pos <= text.length(); pos++) {
+            final boolean isTermChar = pos < text.length() && isFullTextTermChar(text.charAt(pos));
+            if (isTermChar && termStart < 0) {
+                termStart = pos;
+            } else if (!isTermChar && termStart >= 0) {
+                final String term = text.substring(termStart, pos);
+                if ((termStart > 0 || textStartsAtWordBoundary) && StringUtils.isAsciiPrintable(term)) {
+                    terms.add(term.toLowerCase(Locale.US));
+                }
+                termStart = -1;
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * characters considered part of a word by the "simple" tokenizer of the full text index
+     */
+    private static boolean isFullTextTermChar(final char c) {
+        return c >= 128 || (c >= '0' && c <= '9') || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    /**
+     * Returns an SQL condition which is true for caches if each of the given prefix terms starts a word in the given column.
+     * Returns null if the column is not full text indexed, the index is not available or there are no terms.
+     * <br>
+     * The condition is meant to narrow down candidates only, exact matching (e.g. by LIKE) must still be done by the caller.
+     *
+     * @param idExpression SQL expression for the "_id" column of the cache to check
+     * @param prefixTerms  see {@link #getFullTextPrefixTerms(String, boolean)}
+     */
+    @Nullable
+    public static String getCachesFullTextCondition(final String idExpression, final List<String> prefixTerms, final String column) {
+        return withAccessLock(() -> DBFullTextIndex.getCondition(dbTableCaches, idExpression, prefixTerms, column));
+    }
+
+    /**
+     * Same as {@link #getCachesFullTextCondition(String, List, String)}, but for logs
+     */
+    @Nullable
+    public static String getLogsFullTextCondition(final String idExpression, final List<String> prefixTerms, final String column) {
+        return withAccessLock(() -> DBFullTextIndex.getCondition(dbTableLogs, idExpression, prefixTerms, column));
+    }
+
     @NonNull
     public static String[] getSuggestions(final String table, final String column, final String input) {
         return getSuggestions(table, column, column, input, null);
@@ -5352,9 +5721,11 @@ public class DataStore {
         return withAccessLock(() -> {
 
             try {
+                // input is matched as substring. If the column is full text indexed, narrow down candidates by the terms which must start a word
+                final String fullTextCondition = DBFullTextIndex.getCondition(table, "_id", getFullTextPrefixTerms(input, false), columnSearchValue);
                 final Cursor cursor = database.rawQuery("SELECT DISTINCT " + columnReturnValue
                         + " FROM " + table
-                        + " WHERE " + columnSearchValue + " LIKE ?"
+                        + " WHERE " + (fullTextCondition == null ? "" : fullTextCondition + " AND ") + columnSearchValue + " LIKE ?"
                         + " ORDER BY " + columnSearchValue + " COLLATE NOCASE ASC;", new String[]{getSuggestionArgument(input)});
                 final Collection<String> coll = cursorToColl(cursor, new LinkedList<>(), GET_STRING_0);
                 if (processor == null) {
@@ -5416,6 +5787,17 @@ public class DataStore {
         return getSuggestions(dbTableCaches, "location", "location", input, s -> s.split(","));
     }
 
+    /**
+     * @return summaries of last caches opened in the details view, ordered by most recent first
+     */
+    @NonNull
+    public static List<GeocacheSummary> getLastOpenedCacheSummaries() {
+        final List<String> geocodes = Settings.getLastOpenedCaches();
+        final List<GeocacheSummary> caches = loadCacheSummaries(geocodes, CacheProjection.LIST_ROW);
+        Collections.sort(caches, (lhs, rhs) -> Integer.compare(geocodes.indexOf(lhs.getGeocode()), geocodes.indexOf(rhs.getGeocode())));
+        return caches;
+    }
+
     /**
      * @return list of last caches opened in the details view, ordered by most recent first
      */
@@ -5501,6 +5883,19 @@ public class DataStore {
         return 0;
     }
 
+    public static boolean isWriteAheadLoggingEnabled() {
+        final SQLiteDatabase db = database;
+        return db != null && db.isWriteAheadLoggingEnabled();
+    }
+
+    /**
+     * @return usage statistics (size, hit rate, evictions) of the in-memory cache of caches, for diagnostics
+     */
+    @NonNull
+    public static String getCacheCacheStatistics() {
+        return cacheCache.getStatistics();
+    }
+
     public static Map<String, Long> getTableCounts() {
         final Map<String, Long> result = new TreeMap<>();
 
@@ -5535,6 +5930,134 @@ public class DataStore {
         }
     }
 
+    /**
+     * FTS4 full text index over text columns of caches and logs, keyed by their "_id" (docid of the index).
+     * <br>
+     * The index tables use the base tables as external content, so texts are not stored twice.
+     * Thus index entries must always be removed BEFORE the indexed columns of a base table row are changed or the row is deleted.
+     * The index is only used to narrow down candidates, callers always re-check the exact condition on the base table.
+     */
+    private static class DBFullTextIndex {
+
+        private static volatile Boolean available = null;
+
+        /**
+         * creates (if necessary) and completely rebuilds the full text index tables
+         */
+        static void create(final SQLiteDatabase db) {
+            try {
+                db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS " + dbTableCachesFullText + " USING fts4(content=\"" + dbTableCaches + "\", "
+                        + StringUtils.join(FULLTEXT_CACHE_COLUMNS, ", ") + ")");
+                db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS " + dbTableLogsFullText + " USING fts4(content=\"" + dbTableLogs + "\", "
+                        + dbFieldLogs_author + ", " + dbFieldLogs_log + ")");
+                db.execSQL("INSERT INTO " + dbTableCachesFullText + "(" + dbTableCachesFullText + ") VALUES('rebuild')");
+                db.execSQL("INSERT INTO " + dbTableLogsFullText + "(" + dbTableLogsFullText + ") VALUES('rebuild')");
+            } catch (final SQLException e) {
+                Log.w("[DB] Full text index could not be created, using LIKE queries only", e);
+            }
+            reset();
+        }
+
+        static void reset() {
+            available = null;
+        }
+
+        static boolean isAvailable() {
+            Boolean result = available;
+            if (result == null) {
+                init();
+                result = DatabaseUtils.queryNumEntries(database, "sqlite_master", "type = 'table' AND name IN (?, ?)",
+                        new String[]{dbTableCachesFullText, dbTableLogsFullText}) == 2;
+                available = result;
+            }
+            return result;
+        }
+
+        /**
+         * removes the index entry of a cache. Must be called before the cache row is changed
+         */
+        static void removeCache(final String geocode) {
+            removeCaches("geocode = " + DatabaseUtils.sqlEscapeString(geocode));
+        }
+
+        /**
+         * adds the index entry of a cache from its current row in {@link #dbTableCaches}
+         */
+        static void addCache(final String geocode) {
+            if (!isAvailable()) {
+                return;
+            }
+            final SQLiteStatement add = PreparedStatement.FULLTEXT_ADD_CACHE.getStatement();
+            add.bindString(1, geocode);
+            add.executeInsert();
+        }
+
+        /**
+         * removes the index entries of all caches matching the given where clause. Must be called before the cache rows are changed or deleted
+         */
+        static void removeCaches(final String cacheWhereClause) {
+            if (isAvailable()) {
+                database.delete(dbTableCachesFullText, "docid IN (SELECT _id FROM " + dbTableCaches + " WHERE " + cacheWhereClause + ")", null);
+            }
+        }
+
+        static void addLog(final long logId, final String author, final String text) {
+            if (logId < 0 || !isAvailable()) {
+                return;
+            }
+            final SQLiteStatement add = PreparedStatement.FULLTEXT_ADD_LOG.getStatement();
+            add.bindLong(1, logId);
+            add.bindString(2, StringUtils.defaultString(author));
+            add.bindString(3, StringUtils.defaultString(text));
+            add.executeInsert();
+        }
+
+        /**
+         * removes the index entries of all logs matching the given where clause. Must be called before the log rows are deleted
+         */
+        static void removeLogs(final String logWhereClause, @Nullable final String[] whereArgs) {
+            if (isAvailable()) {
+                database.delete(dbTableLogsFullText, "docid IN (SELECT _id FROM " + dbTableLogs + " WHERE " + logWhereClause + ")", whereArgs);
+            }
+        }
+
+        @Nullable
+        static String getCondition(final String table, final String idExpression, final List<String> prefixTerms, final String... columns) {
+            final String fullTextTable = getFullTextTable(table, columns);
+            if (fullTextTable == null || prefixTerms.isEmpty() || !isAvailable()) {
+                return null;
+            }
+            // for each term, one of the columns must contain a word starting with it.
+            // Android uses the standard query syntax without parentheses, where OR binds tighter than the implicit AND
+            final StringBuilder query = new StringBuilder();
+            for (final String term : prefixTerms) {
+                for (int i = 0; i < columns.length; i++) {
+                    if (query.length() > 0) {
+                        query.append(i == 0 ? " " : " OR ");
+                    }
+                    query.append(columns[i]).append(':').append(term).append('*');
+                }
+            }
+            return idExpression + " IN (SELECT docid FROM " + fullTextTable + " WHERE " + fullTextTable + " MATCH " + DatabaseUtils.sqlEscapeString(query.toString()) + ")";
+        }
+
+        @Nullable
+        private static String getFullTextTable(final String table, final String... columns) {
+            final List<String> indexedColumns;
+            final String fullTextTable;
+            if (dbTableCaches.equals(table)) {
+                indexedColumns = Arrays.asList(FULLTEXT_CACHE_COLUMNS);
+                fullTextTable = dbTableCachesFullText;
+            } else if (dbTableLogs.equals(table)) {
+                indexedColumns = Arrays.asList(dbFieldLogs_author, dbFieldLogs_log);
+                fullTextTable = dbTableLogsFullText;
+            } else {
+                return null;
+            }
+            return indexedColumns.containsAll(Arrays.asList(columns)) ? fullTextTable : null;
+        }
+    }
+
     /** Helper methods for Offline Logs */
     private static class DBLogOfflineUtils {
 
@@ -1,5 +1,7 @@
 package cgeo.geocaching.storage;
 
+import cgeo.geocaching.utils.Log;
+
 import androidx.annotation.NonNull;
 
 import java.io.Closeable;
@@ -13,11 +15,13 @@ import org.apache.commons.io.IOUtils;
 /**
  * Helper to read files when only a {@link java.nio.channels.FileChannel} is available.
  * <br>
- * Mimics the necessary parts of RandomAccessFile
+ * Mimics the necessary parts of RandomAccessFile. Optionally the file can be memory mapped (see {@link #map()}),
+ * then reads are copied from the mapping instead of issuing a read call for each of them.
  */
 public class FileByteReader implements Closeable {
 
     private final FileChannel fileChannel;
+    private ByteBuffer mappedFile = null;
 
     public FileByteReader(final FileChannel fileChannel) {
         this.fileChannel = fileChannel;
@@ -36,7 +40,7 @@ public class FileByteReader implements Closeable {
      * @throws IOException in case anything goes wrong
      */
     public void readFully(final long startPos, final int length, @NonNull final byte[] buffer) throws IOException {
-        final int readBytes = readFile(this.fileChannel, startPos, length, buffer, 0);
+        final int readBytes = mappedFile != null ? readMapped(mappedFile, startPos, length, buffer) : readFile(this.fileChannel, startPos, length, buffer, 0);
         if (readBytes != length) {
             throw new IOException("Could not read requested number of bytes (" + buffer.length + "), read only " + readBytes + " bytges");
         }
@@ -51,12 +55,55 @@ public class FileByteReader implements Closeable {
         return channel.read(bb, startPos);
     }
 
+    /**
+     * Maps the whole file into memory (read-only). Not all channels can be mapped (e.g. pipes provided for some
+     * document URIs, or files too large for the address space), in which case reading continues the usual way.
+     *
+     * @return true if the file is mapped now
+     */
+    public boolean map() {
+        if (mappedFile != null) {
+            return true;
+        }
+        try {
+            final long size = fileChannel.size();
+            if (size > Integer.MAX_VALUE) {
+                return false;
+            }
+            mappedFile = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            Log.d("FileByteReader: cannot map file, using reads: " + e);
+            return false;
+        }
+    }
+
+    public boolean isMapped() {
+        return mappedFile != null;
+    }
+
+    private static int readMapped(@NonNull final ByteBuffer mapped, final long startPos, final int length, @NonNull final byte[] buffer) {
+        if (length > buffer.length) {
+            throw new IllegalArgumentException("Requested read length " + length + " will not fit in given buffer length " + buffer.length + " (offset: 0)");
+        }
+        if (startPos >= mapped.limit()) {
+            return -1;
+        }
+        // duplicate, so that concurrent reads don't share a position
+        final ByteBuffer view = mapped.duplicate();
+        view.position((int) startPos);
+        final int readBytes = Math.min(length, view.remaining());
+        view.get(buffer, 0, readBytes);
+        return readBytes;
+    }
+
     public long size() throws IOException {
         return this.fileChannel.size();
     }
 
     @Override
     public void close() {
+        mappedFile = null; // mapping is released by garbage collection
         IOUtils.closeQuietly(this.fileChannel);
     }
 }
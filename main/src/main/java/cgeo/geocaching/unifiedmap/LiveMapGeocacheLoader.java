@@ -1,18 +1,23 @@
 package cgeo.geocaching.unifiedmap;
 
 import cgeo.geocaching.connector.ConnectorFactory;
+import cgeo.geocaching.connector.capability.ISearchByViewPort;
 import cgeo.geocaching.enumerations.LoadFlags;
 import cgeo.geocaching.enumerations.StatusCode;
 import cgeo.geocaching.filters.core.GeocacheFilter;
 import cgeo.geocaching.location.Geopoint;
 import cgeo.geocaching.location.Viewport;
 import cgeo.geocaching.models.Geocache;
+import cgeo.geocaching.storage.DataStore;
 import cgeo.geocaching.utils.Log;
 
 import androidx.annotation.NonNull;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
@@ -22,13 +27,17 @@ import java.util.stream.Collectors;
 import io.reactivex.rxjava3.disposables.Disposable;
 import io.reactivex.rxjava3.schedulers.Schedulers;
 
-/** accepts requests to load geocaches online but allows configuring of a maximum update rate */
+/**
+ * accepts requests to load geocaches online but allows configuring of a maximum update rate.
+ * Results are cached per connector and map tile (see {@link LiveMapTileCache}), so only areas not known yet are requested online.
+ */
 public class LiveMapGeocacheLoader {
 
     private static final String LOGPRAEFIX = "LiveMapGeocacheLoader:";
 
     public static final long PROCESS_DELAY = 3000; // value is in milliseconds
     private static final long CACHE_EXPIRY = 10 * 60000; // value is in milliseconds
+    private static final int MAX_CACHED_TILES = 2000; // over all connectors and filters
 
     private final Disposable actionDisposable;
 
@@ -44,9 +53,17 @@ public class LiveMapGeocacheLoader {
         public final Viewport cachedViewport;
         public final Map<String, ConnectorState> connectorStates;
         public final Set<String> connectorInError;
+        public final long tileCacheHits;
+        public final long tileCacheMisses;
 
         LiveDataState(final LoadState state, final Viewport cachedViewport, final Map<String, ConnectorState> connectorStates) {
+            this(state, cachedViewport, connectorStates, 0, 0);
+        }
+
+        LiveDataState(final LoadState state, final Viewport cachedViewport, final Map<String, ConnectorState> connectorStates, final long tileCacheHits, final long tileCacheMisses) {
             this.loadState = state;
+            this.tileCacheHits = tileCacheHits;
+            this.tileCacheMisses = tileCacheMisses;
             this.cachedViewport = cachedViewport;
             this.connectorStates = Collections.unmodifiableMap(connectorStates == null ? Collections.emptyMap() : connectorStates);
             this.connectorInError = this.connectorStates.entrySet().stream()
@@ -61,6 +78,18 @@ public class LiveMapGeocacheLoader {
             return this.cachedViewport != null && !cachedViewport.includes(viewport);
         }
 
+        /** share of map tiles which could be served from tile cache since loader was started, between 0 and 1 */
+        public float getTileHitRate() {
+            final long lookups = tileCacheHits + tileCacheMisses;
+            return lookups == 0 ? 0f : (float) tileCacheHits / lookups;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "[" + loadState + ",cv=" + cachedViewport + ",tiles:" + tileCacheHits + "/" + (tileCacheHits + tileCacheMisses) + ",c=" + connectorStates + "]";
+        }
+
     }
 
 
@@ -73,9 +102,14 @@ public class LiveMapGeocacheLoader {
         public final int countFiltered;
         public final long duration;
         public final String message;
+        /** number of map tiles of the requested viewport served from tile cache */
+        public final int tilesFromCache;
+        /** number of map tiles loaded online (including prefetched tiles) */
+        public final int tilesLoaded;
 
         ConnectorState(final String connectorName, final StatusCode statusCode, final Viewport viewport,
-                       final int countOriginal, final int countInDb, final int countFiltered, final long duration, final String message) {
+                       final int countOriginal, final int countInDb, final int countFiltered, final long duration, final String message,
+                       final int tilesFromCache, final int tilesLoaded) {
             this.connectorName = connectorName;
             this.statusCode = statusCode;
             this.viewport = viewport;
@@ -84,6 +118,8 @@ public class LiveMapGeocacheLoader {
             this.countFiltered = countFiltered;
             this.duration = duration;
             this.message = message;
+            this.tilesFromCache = tilesFromCache;
+            this.tilesLoaded = tilesLoaded;
         }
 
         public boolean isError() {
@@ -97,7 +133,7 @@ public class LiveMapGeocacheLoader {
         @NonNull
         @Override
         public String toString() {
-            return "[" + connectorName + ":" + statusCode + ",v=" + viewport + ", #:" + countOriginal + "," + countInDb + "," + countFiltered + ";" + duration + "ms;msg=" + message + "]";
+            return "[" + connectorName + ":" + statusCode + ",v=" + viewport + ", #:" + countOriginal + "," + countInDb + "," + countFiltered + ";" + duration + "ms;tiles:" + tilesFromCache + "+" + tilesLoaded + ";msg=" + message + "]";
         }
 
         @NonNull
@@ -112,17 +148,38 @@ public class LiveMapGeocacheLoader {
         }
     }
 
+    /** tiles to request online resp. found in tile cache for one live map request */
+    private static final class RequestPlan {
+        final int tileZoom;
+        final List<LiveMapTileCache.Tile> viewportTiles;
+        final String filterKey;
+        final Map<ISearchByViewPort, List<LiveMapTileCache.Tile>> requestTiles = new HashMap<>();
+        final Map<String, Set<String>> cachedGeocodes = new HashMap<>();
+        int hits = 0;
+        int misses = 0;
+
+        RequestPlan(final Viewport viewport, final GeocacheFilter filter) {
+            this.tileZoom = LiveMapTileCache.getTileZoom(viewport);
+            this.viewportTiles = LiveMapTileCache.getTiles(viewport, tileZoom);
+            this.filterKey = LiveMapTileCache.getFilterKey(filter);
+        }
+    }
+
     private static final class Action implements Runnable {
 
         private final LiveMapGeocacheLoader loader;
         private final Consumer<LiveDataState> onStateChange;
         private final Consumer<Set<Geocache>> onResult;
+        private final LiveMapTileCache tileCache = new LiveMapTileCache(MAX_CACHED_TILES, CACHE_EXPIRY);
 
         private long cachedResultTs;
         private GeocacheFilter cachedResultFilter;
         private Viewport cachedResultAvailableViewport;
         private boolean cachedResultWasComplete = true;
         private Geopoint cachedResultCenter;
+        private int cachedResultTileZoom = -1;
+        private String sentFilterKey = null;
+        private final Set<String> sentGeocodes = Collections.synchronizedSet(new HashSet<>());
 
         private Map<String, ConnectorState> lastConnectorStates = Collections.emptyMap();
 
@@ -143,6 +200,7 @@ public class LiveMapGeocacheLoader {
 
                 final Viewport viewport;
                 final GeocacheFilter filter;
+                final RequestPlan plan;
                 synchronized (loader) {
                     //check whether current request was already served with last request
                     viewport = this.loader.viewport;
@@ -158,83 +216,82 @@ public class LiveMapGeocacheLoader {
                     }
 
                     final boolean cacheIsValidForFilter = GeocacheFilter.filtersSame(cachedResultFilter, filter) && (System.currentTimeMillis() - cachedResultTs) < CACHE_EXPIRY;
+                    plan = createPlan(viewport, filter);
+
+                    //requests fully served by tile cache are processed without delay
+                    if (!plan.requestTiles.isEmpty()) {
+
+                        //quick exit on previous PARTIAL or ERROR result if viewport hasn't moved much
+                        if (cacheIsValidForFilter && !cachedResultWasComplete && cachedResultCenter != null) {
+                            final float distanceCachedCall = viewport.getCenter().distanceTo(cachedResultCenter);
+                            final float distanceCenterCorner = viewport.getCenter().distanceTo(viewport.bottomLeft);
+                            if (distanceCachedCall <= distanceCenterCorner * 0.2) {
+                                Log.iForce(LOGPRAEFIX + "NO RELOAD AFTER NONCOMPLETE RESULT AND TOO CLOSE TO PREVIOUS " + logParams);
+                                setState(LoadState.STOPPED);
+                                this.loader.dirtyTime = -1;
+                                return;
+                            }
+                        }
 
-                    //quick exit on unconditional cache hit
-                    if (cacheIsValidForFilter && cachedResultAvailableViewport != null && cachedResultAvailableViewport.includes(viewport)) {
-                        Log.iForce(LOGPRAEFIX + "CACHE HIT " + logParams);
-                        setState(LoadState.STOPPED);
-                        this.loader.dirtyTime = -1;
-                        return;
-                    }
-
-                    //quick exit on previous PARTIAL or ERROR result if viewport hasn't moved much
-                    if (cacheIsValidForFilter && !cachedResultWasComplete && cachedResultCenter != null) {
-                        final float distanceCachedCall = viewport.getCenter().distanceTo(cachedResultCenter);
-                        final float distanceCenterCorner = viewport.getCenter().distanceTo(viewport.bottomLeft);
-                        if (distanceCachedCall <= distanceCenterCorner * 0.2) {
-                            Log.iForce(LOGPRAEFIX + "NO RELOAD AFTER NONCOMPLETE RESULT AND TOO CLOSE TO PREVIOUS " + logParams);
-                            setState(LoadState.STOPPED);
-                            this.loader.dirtyTime = -1;
+                        //if request is real check if its time to really request
+                        final long requestAge = System.currentTimeMillis() - this.loader.dirtyTime;
+                        if (requestAge < PROCESS_DELAY) {
+                            setState(LoadState.REQUESTED);
                             return;
                         }
                     }
 
-
-                    //if request is real check if its time to really request
-                    final long requestAge = System.currentTimeMillis() - this.loader.dirtyTime;
-                    if (requestAge < PROCESS_DELAY) {
-                        setState(LoadState.REQUESTED);
-                        return;
-                    }
-
-                    //if we come here we HAVE to do an online request. Reset dirty state
+                    //if we come here we HAVE to serve the request. Reset dirty state
                     this.loader.dirtyTime = -1;
                 }
 
-                Log.iForce(LOGPRAEFIX + "START" + logParams);
-                setState(LoadState.RUNNING);
-
-
+                tileCache.recordLookups(plan.hits, plan.misses);
                 final Map<String, ConnectorState> stateData = Collections.synchronizedMap(new HashMap<>());
-                // DO ONLINE REQUEST retrieving live caches for x times the requested size (to fill up cache)
-                final Viewport retrievalViewport = viewport.resize(3.0);
-                final long startTs = System.currentTimeMillis();
-                final boolean[] isOverallComplete = new boolean[] { true };
-                ConnectorFactory.searchByViewport(retrievalViewport, filter, (c, sr) -> {
-                    final long duration = System.currentTimeMillis() - startTs;
-                    //handle and send cache results for one connector
-                    final int countOriginal = sr.getCount();
-                    final Set<Geocache> result = sr.getCachesFromSearchResult(LoadFlags.LOAD_CACHE_OR_DB);
-                    final int countInDb = result.size();
-                    if (filter != null) {
-                        filter.filterList(result);
+                final Viewport tilesViewport = LiveMapTileCache.getViewport(plan.viewportTiles);
+
+                //send caches known from tile cache first. Skip those already sent for the current filter
+                if (!plan.filterKey.equals(sentFilterKey)) {
+                    sentFilterKey = plan.filterKey;
+                    sentGeocodes.clear();
+                }
+                final Set<String> cachedGeocodes = new HashSet<>();
+                for (Map.Entry<String, Set<String>> cached : plan.cachedGeocodes.entrySet()) {
+                    for (String geocode : cached.getValue()) {
+                        if (sentGeocodes.add(geocode)) {
+                            cachedGeocodes.add(geocode);
+                        }
                     }
-                    final int countFiltered = result.size();
-                    onResult.accept(result);
-
-                    //collect caching information
-                    final boolean isPartial = !sr.getPartialConnectors().isEmpty();
-                    final StatusCode errorCode = sr.getError();
-                    final Viewport connectorViewport;
-                    if (errorCode != StatusCode.NO_ERROR) { // || isPartial && !connector supports centered-results!!!
-                        connectorViewport = null;
-                        isOverallComplete[0] = false;
-                    } else if (isPartial) {
-                       connectorViewport = Viewport.containing(result);
-                        isOverallComplete[0] = false;
-                    } else {
-                        connectorViewport = retrievalViewport;
+                    if (!isRequested(plan, cached.getKey())) {
+                        final int count = cached.getValue().size();
+                        stateData.put(cached.getKey(), new ConnectorState(cached.getKey(), StatusCode.NO_ERROR, tilesViewport, count, count, count, 0, null, plan.viewportTiles.size(), 0));
+                    }
+                }
+                if (!cachedGeocodes.isEmpty()) {
+                    final Set<Geocache> cachedResult = DataStore.loadCaches(cachedGeocodes, LoadFlags.LOAD_CACHE_OR_DB);
+                    if (cachedResult.size() < cachedGeocodes.size()) {
+                        requestEvicted(plan, cachedGeocodes, cachedResult);
+                    }
+                    if (filter != null) {
+                        filter.filterList(cachedResult);
                     }
-                    //set state data
-                    stateData.put(c.getName(), new ConnectorState(c.getName(), errorCode, connectorViewport, countOriginal, countInDb, countFiltered, duration, null));
-                });
+                    onResult.accept(cachedResult);
+                }
+
+                if (plan.requestTiles.isEmpty()) {
+                    Log.iForce(LOGPRAEFIX + "CACHE HIT " + logParams + ": " + tileCache.getStatistics());
+                } else {
+                    Log.iForce(LOGPRAEFIX + "START" + logParams);
+                    setState(LoadState.RUNNING);
+                    requestOnline(plan, filter, tilesViewport, stateData);
+                }
 
                 //adjust result cache. cachedResultViewportOverall will be null on intersect if one connector failed
                 this.cachedResultAvailableViewport = Viewport.intersect(stateData.values(), sd -> sd.viewport);
                 this.cachedResultFilter = filter;
                 this.cachedResultTs = System.currentTimeMillis();
                 this.cachedResultCenter = viewport.getCenter();
-                this.cachedResultWasComplete = isOverallComplete[0];
+                this.cachedResultTileZoom = plan.tileZoom;
+                this.cachedResultWasComplete = stateData.values().stream().allMatch(sd -> !sd.isError() && tilesViewport.equals(sd.viewport));
 
                 //do status update
                 setState(LoadState.STOPPED, stateData);
@@ -244,7 +301,7 @@ public class LiveMapGeocacheLoader {
             } catch (Exception e) {
                 Log.e(LOGPRAEFIX + "UNEXPECTED ERROR" + logParams, e);
                 setState(LoadState.STOPPED, Collections.singletonMap("Overall",
-                    new ConnectorState("Overall", StatusCode.UNKNOWN_ERROR, null, 0, 0, 0, -1, "Exception: " + e.getMessage())));
+                    new ConnectorState("Overall", StatusCode.UNKNOWN_ERROR, null, 0, 0, 0, -1, "Exception: " + e.getMessage(), 0, 0)));
             }
             //if we have just done an online request, ensure that there's a grace period for the next
             synchronized (loader) {
@@ -254,6 +311,130 @@ public class LiveMapGeocacheLoader {
             }
         }
 
+        /**
+         * Looks up the tiles covering the viewport in tile cache. For each connector missing at least one tile,
+         * the bounding box of its missing tiles plus not yet cached neighbour tiles in direction of map movement is requested
+         */
+        private RequestPlan createPlan(final Viewport viewport, final GeocacheFilter filter) {
+            final RequestPlan plan = new RequestPlan(viewport, filter);
+            final List<LiveMapTileCache.Tile> prefetchTiles = LiveMapTileCache.getPrefetchTiles(viewport, plan.tileZoom,
+                    plan.tileZoom == cachedResultTileZoom ? cachedResultCenter : null);
+
+            for (ISearchByViewPort connector : ConnectorFactory.getSearchByViewportConnectors()) {
+                if (!connector.isActive()) {
+                    continue;
+                }
+                final Set<String> cached = new HashSet<>();
+                final List<LiveMapTileCache.Tile> missing = new ArrayList<>();
+                for (LiveMapTileCache.Tile tile : plan.viewportTiles) {
+                    final Set<String> geocodes = tileCache.get(connector.getName(), plan.filterKey, tile);
+                    if (geocodes == null) {
+                        missing.add(tile);
+                    } else {
+                        cached.addAll(geocodes);
+                    }
+                }
+                plan.hits += plan.viewportTiles.size() - missing.size();
+                plan.misses += missing.size();
+                plan.cachedGeocodes.put(connector.getName(), cached);
+
+                if (!missing.isEmpty()) {
+                    for (LiveMapTileCache.Tile tile : prefetchTiles) {
+                        if (tileCache.get(connector.getName(), plan.filterKey, tile) == null) {
+                            missing.add(tile);
+                        }
+                    }
+                    plan.requestTiles.put(connector, LiveMapTileCache.getBoundingTiles(missing));
+                }
+            }
+            return plan;
+        }
+
+        /**
+         * Caches known from tile cache but neither stored nor still in CacheCache (live map only caches evicted in the meantime)
+         * can't be loaded any more. The viewport tiles of connectors with such caches are dropped from tile cache and requested again
+         */
+        private void requestEvicted(final RequestPlan plan, final Set<String> cachedGeocodes, final Set<Geocache> cachedResult) {
+            final Set<String> evicted = new HashSet<>(cachedGeocodes);
+            for (Geocache cache : cachedResult) {
+                evicted.remove(cache.getGeocode());
+            }
+            sentGeocodes.removeAll(evicted);
+            for (ISearchByViewPort connector : ConnectorFactory.getSearchByViewportConnectors()) {
+                final Set<String> cached = plan.cachedGeocodes.get(connector.getName());
+                if (cached == null || Collections.disjoint(cached, evicted)) {
+                    continue;
+                }
+                Log.iForce(LOGPRAEFIX + "EVICTED CACHES of " + connector.getName() + ", request tiles again");
+                tileCache.remove(connector.getName(), plan.filterKey, plan.viewportTiles);
+                final List<LiveMapTileCache.Tile> requested = plan.requestTiles.get(connector);
+                final List<LiveMapTileCache.Tile> tiles = new ArrayList<>(plan.viewportTiles);
+                if (requested != null) {
+                    tiles.addAll(requested);
+                }
+                plan.requestTiles.put(connector, LiveMapTileCache.getBoundingTiles(tiles));
+            }
+        }
+
+        private static boolean isRequested(final RequestPlan plan, final String connectorName) {
+            for (ISearchByViewPort connector : plan.requestTiles.keySet()) {
+                if (connector.getName().equals(connectorName)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void requestOnline(final RequestPlan plan, final GeocacheFilter filter, final Viewport tilesViewport, final Map<String, ConnectorState> stateData) {
+            final Map<ISearchByViewPort, Viewport> requestViewports = new HashMap<>();
+            for (Map.Entry<ISearchByViewPort, List<LiveMapTileCache.Tile>> request : plan.requestTiles.entrySet()) {
+                requestViewports.put(request.getKey(), LiveMapTileCache.getViewport(request.getValue()));
+            }
+
+            final long startTs = System.currentTimeMillis();
+            ConnectorFactory.searchByViewport(requestViewports, filter, (c, sr) -> {
+                final long duration = System.currentTimeMillis() - startTs;
+                //handle and send cache results for one connector
+                final int countOriginal = sr.getCount();
+                final Set<Geocache> result = sr.getCachesFromSearchResult(LoadFlags.LOAD_CACHE_OR_DB);
+                final int countInDb = result.size();
+                if (filter != null) {
+                    filter.filterList(result);
+                }
+                final int countFiltered = result.size();
+                onResult.accept(result);
+                for (Geocache cache : result) {
+                    sentGeocodes.add(cache.getGeocode());
+                }
+
+                //collect caching information
+                final List<LiveMapTileCache.Tile> requestedTiles = plan.requestTiles.get(c);
+                final int tilesFromCache = plan.viewportTiles.size() - (int) plan.viewportTiles.stream().filter(requestedTiles::contains).count();
+                final boolean isPartial = !sr.getPartialConnectors().isEmpty();
+                final StatusCode errorCode = sr.getError();
+                final Viewport connectorViewport;
+                int tilesLoaded = 0;
+                if (errorCode != StatusCode.NO_ERROR) { // || isPartial && !connector supports centered-results!!!
+                    connectorViewport = null;
+                } else if (isPartial) {
+                    connectorViewport = Viewport.containing(result);
+                } else {
+                    //only complete results may be used for later requests
+                    final Map<String, Geopoint> coords = new HashMap<>();
+                    for (Geocache cache : result) {
+                        if (cache.getCoords() != null) {
+                            coords.put(cache.getGeocode(), cache.getCoords());
+                        }
+                    }
+                    tileCache.put(c.getName(), plan.filterKey, requestedTiles, coords);
+                    tilesLoaded = requestedTiles.size();
+                    connectorViewport = tilesViewport;
+                }
+                //set state data
+                stateData.put(c.getName(), new ConnectorState(c.getName(), errorCode, connectorViewport, countOriginal, countInDb, countFiltered, duration, null, tilesFromCache, tilesLoaded));
+            });
+        }
+
         private void setState(final LoadState newState) {
             setState(newState, null);
         }
@@ -262,7 +443,7 @@ public class LiveMapGeocacheLoader {
             if (connStates != null) {
                 this.lastConnectorStates = connStates;
             }
-            final LiveDataState ldState = new LiveDataState(newState, this.cachedResultAvailableViewport, this.lastConnectorStates);
+            final LiveDataState ldState = new LiveDataState(newState, this.cachedResultAvailableViewport, this.lastConnectorStates, tileCache.getHitCount(), tileCache.getMissCount());
             Log.iForce(LOGPRAEFIX + "set state to " + ldState);
             onStateChange.accept(ldState);
         }
@@ -0,0 +1,336 @@
+package cgeo.geocaching.unifiedmap;
+
+import cgeo.geocaching.filters.core.GeocacheFilter;
+import cgeo.geocaching.location.Geopoint;
+import cgeo.geocaching.location.Viewport;
+import cgeo.geocaching.utils.LeastRecentlyUsedMap;
+import cgeo.geocaching.utils.config.JsonConfigurationUtils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Caches live map search results per connector, filter and map tile.
+ * <br>
+ * Tiles are standard web mercator tiles identified by their quadkey. The tile zoom level is chosen depending on
+ * the size of the requested viewport (see {@link #getTileZoom(Viewport)}), so a viewport is always covered by a few tiles only.
+ * A tile entry holds the geocodes of all caches a connector returned for the tile, it is only stored if the
+ * connector's result was complete. Entries expire after a given time and the least recently used ones are dropped
+ * if the maximum number of entries is exceeded.
+ * <br>
+ * A tile is also considered cached if one of its parent tiles is, thus cached results can still be used after zooming in.
+ * <br>
+ * Thread-safe.
+ */
+public class LiveMapTileCache {
+
+    public static final int MIN_TILE_ZOOM = 2;
+    public static final int MAX_TILE_ZOOM = 16;
+
+    private static final double MAX_MERCATOR_LATITUDE = 85.05112878;
+
+    private final LeastRecentlyUsedMap<String, Entry> entries;
+    private final long expiry;
+
+    private long hitCount = 0;
+    private long missCount = 0;
+
+    /** web mercator tile */
+    public static final class Tile {
+        public final int zoom;
+        public final int x;
+        public final int y;
+
+        Tile(final int zoom, final int x, final int y) {
+            this.zoom = zoom;
+            this.x = x;
+            this.y = y;
+        }
+
+        @NonNull
+        public String getQuadKey() {
+            final StringBuilder sb = new StringBuilder(zoom);
+            for (int i = zoom; i > 0; i--) {
+                final int mask = 1 << (i - 1);
+                sb.append((char) ('0' + ((x & mask) != 0 ? 1 : 0) + ((y & mask) != 0 ? 2 : 0)));
+            }
+            return sb.toString();
+        }
+
+        @Nullable
+        public Tile getParent() {
+            return zoom <= 0 ? null : new Tile(zoom - 1, x >> 1, y >> 1);
+        }
+
+        @NonNull
+        public Viewport getViewport() {
+            return new Viewport(tileYToLatitude(y + 1, zoom), tileXToLongitude(x, zoom), tileYToLatitude(y, zoom), tileXToLongitude(x + 1, zoom));
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof Tile)) {
+                return false;
+            }
+            final Tile other = (Tile) o;
+            return zoom == other.zoom && x == other.x && y == other.y;
+        }
+
+        @Override
+        public int hashCode() {
+            return (zoom * 31 + x) * 31 + y;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return getQuadKey();
+        }
+    }
+
+    private static final class Entry {
+        final long timestamp;
+        final Set<String> geocodes;
+
+        Entry(final long timestamp, final Set<String> geocodes) {
+            this.timestamp = timestamp;
+            this.geocodes = geocodes;
+        }
+    }
+
+    public LiveMapTileCache(final int maxEntries, final long expiry) {
+        this.entries = new LeastRecentlyUsedMap.LruCache<>(maxEntries);
+        this.expiry = expiry;
+    }
+
+    /** cache key part for a filter. Results for different filters are cached independently */
+    @NonNull
+    public static String getFilterKey(@Nullable final GeocacheFilter filter) {
+        return filter == null || !filter.isFiltering() ? "" : filter.isIncludeInconclusive() + ":" + JsonConfigurationUtils.toJsonConfigString(filter.getTree());
+    }
+
+    /** tile zoom level for which about 2 to 3 tiles in each direction cover the given viewport */
+    public static int getTileZoom(@NonNull final Viewport viewport) {
+        final double span = Math.max(viewport.getLongitudeSpan(), viewport.getLatitudeSpan());
+        if (span <= 0) {
+            return MAX_TILE_ZOOM;
+        }
+        final int zoom = (int) Math.floor(Math.log(360 / span) / Math.log(2)) + 1;
+        return Math.max(MIN_TILE_ZOOM, Math.min(MAX_TILE_ZOOM, zoom));
+    }
+
+    /** all tiles of given zoom level intersecting the viewport */
+    @NonNull
+    public static List<Tile> getTiles(@NonNull final Viewport viewport, final int zoom) {
+        return getTiles(zoom, longitudeToTileX(viewport.getLongitudeMin(), zoom), longitudeToTileX(viewport.getLongitudeMax(), zoom),
+                latitudeToTileY(viewport.getLatitudeMax(), zoom), latitudeToTileY(viewport.getLatitudeMin(), zoom));
+    }
+
+    /**
+     * tiles bordering the viewport's tiles which are likely to be needed next.
+     *
+     * @param previousCenter center of the previously requested viewport. If given, only tiles in the direction of movement
+     *                       from there are returned, otherwise all tiles surrounding the viewport
+     */
+    @NonNull
+    public static List<Tile> getPrefetchTiles(@NonNull final Viewport viewport, final int zoom, @Nullable final Geopoint previousCenter) {
+        final int minX = longitudeToTileX(viewport.getLongitudeMin(), zoom);
+        final int maxX = longitudeToTileX(viewport.getLongitudeMax(), zoom);
+        final int minY = latitudeToTileY(viewport.getLatitudeMax(), zoom);
+        final int maxY = latitudeToTileY(viewport.getLatitudeMin(), zoom);
+
+        int dx = 0;
+        int dy = 0;
+        if (previousCenter != null) {
+            // ignore movements smaller than a quarter of the viewport
+            final Geopoint center = viewport.getCenter();
+            final double lonDelta = center.getLongitude() - previousCenter.getLongitude();
+            final double latDelta = center.getLatitude() - previousCenter.getLatitude();
+            dx = Math.abs(lonDelta) < viewport.getLongitudeSpan() / 4 ? 0 : (int) Math.signum(lonDelta);
+            dy = Math.abs(latDelta) < viewport.getLatitudeSpan() / 4 ? 0 : -(int) Math.signum(latDelta);
+            if (dx == 0 && dy == 0) {
+                return Collections.emptyList();
+            }
+        }
+
+        final boolean allDirections = previousCenter == null;
+        final Set<Tile> result = new HashSet<>();
+        if (allDirections || dx < 0) {
+            result.addAll(getTiles(zoom, minX - 1, minX - 1, minY - 1, maxY + 1));
+        }
+        if (allDirections || dx > 0) {
+            result.addAll(getTiles(zoom, maxX + 1, maxX + 1, minY - 1, maxY + 1));
+        }
+        if (allDirections || dy < 0) {
+            result.addAll(getTiles(zoom, minX - 1, maxX + 1, minY - 1, minY - 1));
+        }
+        if (allDirections || dy > 0) {
+            result.addAll(getTiles(zoom, minX - 1, maxX + 1, maxY + 1, maxY + 1));
+        }
+        return new ArrayList<>(result);
+    }
+
+    /** all tiles within the bounding box of given tiles (which must have the same zoom level) */
+    @NonNull
+    public static List<Tile> getBoundingTiles(@NonNull final Collection<Tile> tiles) {
+        if (tiles.isEmpty()) {
+            return Collections.emptyList();
+        }
+        int minX = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        int zoom = 0;
+        for (Tile tile : tiles) {
+            minX = Math.min(minX, tile.x);
+            maxX = Math.max(maxX, tile.x);
+            minY = Math.min(minY, tile.y);
+            maxY = Math.max(maxY, tile.y);
+            zoom = tile.zoom;
+        }
+        return getTiles(zoom, minX, maxX, minY, maxY);
+    }
+
+    /** smallest viewport containing all given tiles */
+    @Nullable
+    public static Viewport getViewport(@NonNull final Collection<Tile> tiles) {
+        final Viewport.ContainingViewportBuilder builder = new Viewport.ContainingViewportBuilder();
+        for (Tile tile : tiles) {
+            builder.add(tile.getViewport());
+        }
+        return builder.getViewport();
+    }
+
+    /** tile of given zoom level containing the coordinates */
+    @NonNull
+    public static Tile getTile(@NonNull final Geopoint coords, final int zoom) {
+        return new Tile(zoom, longitudeToTileX(coords.getLongitude(), zoom), latitudeToTileY(coords.getLatitude(), zoom));
+    }
+
+    /**
+     * looks up a tile. Lookups are not counted in the hit statistics, use {@link #recordLookups(int, int)} for that.
+     *
+     * @return geocodes cached for the tile (might contain caches outside of the tile if taken from a parent tile) or null if tile is not cached
+     */
+    @Nullable
+    public synchronized Set<String> get(@NonNull final String connectorName, @NonNull final String filterKey, @NonNull final Tile tile) {
+        final long now = System.currentTimeMillis();
+        for (Tile t = tile; t != null && t.zoom >= MIN_TILE_ZOOM; t = t.getParent()) {
+            final String key = getKey(connectorName, filterKey, t);
+            final Entry entry = entries.get(key);
+            if (entry != null) {
+                if (now - entry.timestamp < expiry) {
+                    return entry.geocodes;
+                }
+                entries.remove(key);
+            }
+        }
+        return null;
+    }
+
+    /** adds the outcome of tile lookups done for one live map request to the hit statistics */
+    public synchronized void recordLookups(final int hits, final int misses) {
+        hitCount += hits;
+        missCount += misses;
+    }
+
+    /** stores a complete result of a connector for the given tiles, distributing the caches to the tiles by their coordinates */
+    public synchronized void put(@NonNull final String connectorName, @NonNull final String filterKey, @NonNull final Collection<Tile> tiles, @NonNull final Map<String, Geopoint> caches) {
+        if (tiles.isEmpty()) {
+            return;
+        }
+        final int zoom = tiles.iterator().next().zoom;
+        final Map<Tile, Set<String>> geocodesPerTile = new HashMap<>();
+        for (Tile tile : tiles) {
+            geocodesPerTile.put(tile, new HashSet<>());
+        }
+        for (Map.Entry<String, Geopoint> cache : caches.entrySet()) {
+            final Set<String> geocodes = geocodesPerTile.get(getTile(cache.getValue(), zoom));
+            if (geocodes != null) {
+                geocodes.add(cache.getKey());
+            }
+        }
+        final long now = System.currentTimeMillis();
+        for (Map.Entry<Tile, Set<String>> tile : geocodesPerTile.entrySet()) {
+            entries.put(getKey(connectorName, filterKey, tile.getKey()), new Entry(now, Collections.unmodifiableSet(tile.getValue())));
+        }
+    }
+
+    /** removes the given tiles of a connector, including the parent tiles they would be served from */
+    public synchronized void remove(@NonNull final String connectorName, @NonNull final String filterKey, @NonNull final Collection<Tile> tiles) {
+        for (Tile tile : tiles) {
+            for (Tile t = tile; t != null && t.zoom >= MIN_TILE_ZOOM; t = t.getParent()) {
+                entries.remove(getKey(connectorName, filterKey, t));
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    @NonNull
+    public synchronized String getStatistics() {
+        final long lookups = hitCount + missCount;
+        return String.format(Locale.US, "tiles: %d, hits: %d, misses: %d (hit rate %.1f%%)",
+                entries.size(), hitCount, missCount, lookups == 0 ? 0f : hitCount * 100f / lookups);
+    }
+
+    private static String getKey(final String connectorName, final String filterKey, final Tile tile) {
+        return connectorName + "|" + tile.getQuadKey() + "|" + filterKey;
+    }
+
+    private static List<Tile> getTiles(final int zoom, final int minX, final int maxX, final int minY, final int maxY) {
+        final int max = (1 << zoom) - 1;
+        final List<Tile> result = new ArrayList<>();
+        for (int x = Math.max(0, minX); x <= Math.min(max, maxX); x++) {
+            for (int y = Math.max(0, minY); y <= Math.min(max, maxY); y++) {
+                result.add(new Tile(zoom, x, y));
+            }
+        }
+        return result;
+    }
+
+    private static int longitudeToTileX(final double longitude, final int zoom) {
+        final int tiles = 1 << zoom;
+        return Math.max(0, Math.min(tiles - 1, (int) Math.floor((longitude + 180) / 360 * tiles)));
+    }
+
+    private static int latitudeToTileY(final double latitude, final int zoom) {
+        final int tiles = 1 << zoom;
+        final double lat = Math.toRadians(Math.max(-MAX_MERCATOR_LATITUDE, Math.min(MAX_MERCATOR_LATITUDE, latitude)));
+        final double fraction = (1 - Math.log(Math.tan(lat) + 1 / Math.cos(lat)) / Math.PI) / 2;
+        return Math.max(0, Math.min(tiles - 1, (int) Math.floor(fraction * tiles)));
+    }
+
+    private static double tileXToLongitude(final int x, final int zoom) {
+        return x * 360.0 / (1 << zoom) - 180;
+    }
+
+    private static double tileYToLatitude(final int y, final int zoom) {
+        final double n = Math.PI - 2 * Math.PI * y / (1 << zoom);
+        return Math.toDegrees(Math.atan(Math.sinh(n)));
+    }
+}
@@ -148,6 +148,7 @@ public class UnifiedMapActivity extends AbstractNavigationBarMapActivity impleme
     private final List<GeoItemLayer<?>> layers = new ArrayList<>();
     GeoItemLayer<String> clickableItemsLayer;
     GeoItemLayer<String> nonClickableItemsLayer;
+    private GeoItemsLayer geoItemsLayer;
     NavigationTargetLayer navigationTargetLayer = null;
 
     private LocUpdater geoDirUpdate;
@@ -245,7 +246,7 @@ public class UnifiedMapActivity extends AbstractNavigationBarMapActivity impleme
         new GeofenceCirclesLayer(this, nonClickableItemsLayer);
 
         new IndividualRouteLayer(this, clickableItemsLayer);
-        new GeoItemsLayer(this, clickableItemsLayer);
+        geoItemsLayer = new GeoItemsLayer(this, clickableItemsLayer);
 
         WherigoLayer.get().setLayer(clickableItemsLayer);
 
@@ -634,7 +635,9 @@ public class UnifiedMapActivity extends AbstractNavigationBarMapActivity impleme
         final String errorMsg = errors.length() == 0 ? null : LocalizationUtils.getString(R.string.live_map_status_error, errors);
         final String partialMsg = partials.length() == 0 ? null : LocalizationUtils.getString(R.string.live_map_status_partial, partials);
         final String normalMsg = normals.length() == 0 ? null : LocalizationUtils.getString(R.string.live_map_status_normal, normals);
-        final String msgWithMarkup = TextUtils.join(Arrays.asList(errorMsg, partialMsg, normalMsg), s -> s, "\n\n").toString();
+        final String tileCacheMsg = Settings.enableFeatureUnifiedDebug() && status.tileCacheHits + status.tileCacheMisses > 0
+                ? "Tile cache: " + Math.round(status.getTileHitRate() * 100) + "% hits (" + status.tileCacheHits + "/" + (status.tileCacheHits + status.tileCacheMisses) + ")" : null;
+        final String msgWithMarkup = TextUtils.join(Arrays.asList(errorMsg, partialMsg, normalMsg, tileCacheMsg), s -> s, "\n\n").toString();
         final CharSequence msg = TextParam.text(msgWithMarkup).setMarkdown(true).getText(null);
 
         SimpleDialog.ofContext(this).setMessage(TextParam.text(msg)).show();
@@ -1117,9 +1120,15 @@ public class UnifiedMapActivity extends AbstractNavigationBarMapActivity impleme
 
         // lookup elements touched by this
         final LinkedList<MapSelectableItem> result = new LinkedList<>();
+        Viewport touchedCluster = null;
 
         for (String key : clickableItemsLayer.getTouched(Geopoint.forE6(latitudeE6, longitudeE6))) {
 
+            final String clusterId = GeoItemsLayer.getClusterId(key);
+            if (clusterId != null && !isLongTap) {
+                touchedCluster = geoItemsLayer.getClusterViewport(clusterId);
+            }
+
             if (key.startsWith(UnifiedMapViewModel.CACHE_KEY_PREFIX)) {
                 final String geocode = key.substring(UnifiedMapViewModel.CACHE_KEY_PREFIX.length());
 
@@ -1174,6 +1183,12 @@ public class UnifiedMapActivity extends AbstractNavigationBarMapActivity impleme
         }
         Log.d("touched elements on " + touchedPoint + " (" + result.size() + "): " + result);
 
+        if (result.isEmpty() && touchedCluster != null) {
+            // expand cluster by zooming in on the caches it contains
+            mapFragment.zoomToBounds(touchedCluster);
+            return;
+        }
+
         if (result.isEmpty()) {
             if (isLongTap) {
                 viewModel.longTapCoords.setValue(touchedPoint);
@@ -26,6 +26,7 @@ import androidx.annotation.NonNull;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
 
+import java.util.Collections;
 import java.util.Set;
 
 public class UnifiedMapViewModel extends ViewModel implements IndividualRoute.UpdateIndividualRoute {
@@ -33,6 +34,7 @@ public class UnifiedMapViewModel extends ViewModel implements IndividualRoute.Up
 
     public static final String CACHE_KEY_PREFIX = "CACHE_";
     public static final String CACHE_STAR_KEY_PREFIX = "CACHE_STAR_";
+    public static final String CACHE_CLUSTER_KEY_PREFIX = "CLUSTER_";
     public static final String WAYPOINT_KEY_PREFIX = "WP_";
     public static final String COORDSPOINT_KEY_PREFIX = "COORDS_";
 
@@ -65,6 +67,8 @@ public class UnifiedMapViewModel extends ViewModel implements IndividualRoute.Up
     public final LiveMapDataHandler liveMapHandler = new LiveMapDataHandler(this);
 
     public final CollectionLiveData<String, Set<String>> cachesWithStarDrawn = CollectionLiveData.set(() -> new LeastRecentlyUsedSet<>(MAX_CACHES));
+    // geocodes of the caches shown as part of a cluster marker instead of individually, see GeoItemsLayer
+    public final MutableLiveData<Set<String>> clusteredGeocodes = new MutableLiveData<>(Collections.emptySet());
 
     public final MutableLiveData<Geopoint> longTapCoords = new MutableLiveData<>();
     public final MutableLiveData<Geopoint> coordsIndicator = new MutableLiveData<>(); // null if coords indicator should be hidden
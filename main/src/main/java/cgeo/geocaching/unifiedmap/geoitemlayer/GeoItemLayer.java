@@ -10,6 +10,8 @@ import cgeo.geocaching.utils.AsynchronousMapWrapper;
 import cgeo.geocaching.utils.CommonUtils;
 import cgeo.geocaching.utils.ContextLogger;
 import cgeo.geocaching.utils.Log;
+import cgeo.geocaching.utils.functions.Action1;
+import cgeo.geocaching.utils.functions.Action2;
 
 import android.util.Pair;
 
@@ -21,6 +23,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -49,7 +52,10 @@ public class GeoItemLayer<K> {
 
     //Key of mapWriter is always instance of either K or GeoGroupKey<K>
     private AsynchronousMapWrapper<Object, GeoPrimitive, Object> mapWriter;
+    private MapWriter mapWriterExecutor;
     private IProviderGeoItemLayer<?> providerLayer = null;
+    //if non-null, changes to mapWriter are collected here and sent as one command later (see runInBatch)
+    private List<Action2<Action2<Object, GeoPrimitive>, Action1<Object>>> changeBatch = null;
 
     public static final IProviderGeoItemLayer<Object> NOOP_GEOITEM_LAYER = new IProviderGeoItemLayer<Object>() {
 
@@ -124,6 +130,13 @@ public class GeoItemLayer<K> {
         private long removeProcessedInBatch = 0;
         private long replaceProcessedInBatch = 0;
 
+        //timing of batches, measured from first change in a batch until batch end
+        private long batchStartNanos = 0;
+        private volatile long batchCount = 0;
+        private volatile long batchNanosTotal = 0;
+        private volatile long batchNanosMax = 0;
+        private volatile long batchNanosLast = 0;
+
         @SuppressWarnings("unchecked")
         MapWriter(final String logPraefix, final IProviderGeoItemLayer<?> providerLayer) {
             this.providerLayer = (IProviderGeoItemLayer<Object>) providerLayer;
@@ -133,6 +146,7 @@ public class GeoItemLayer<K> {
         @Override
         public Object add(final Object key, final GeoPrimitive value) {
             Log.d(this.logPraefix + "ADD '" + key + "'");
+            startBatchTimingIfNeeded();
             addProcessed++;
             addProcessedInBatch++;
 
@@ -146,6 +160,7 @@ public class GeoItemLayer<K> {
         @Override
         public void remove(final Object key, final GeoPrimitive value, final Object context) {
             Log.d(this.logPraefix + "REMOVE '" + key + "'");
+            startBatchTimingIfNeeded();
             removeProcessed++;
             removeProcessedInBatch++;
 
@@ -159,6 +174,7 @@ public class GeoItemLayer<K> {
         @Override
         public Object replace(final Object key, final GeoPrimitive oldValue, final Object oldContext, final GeoPrimitive newValue) {
             Log.d(this.logPraefix + "REPLACE '" + key + "'");
+            startBatchTimingIfNeeded();
             replaceProcessed++;
             replaceProcessedInBatch++;
 
@@ -179,6 +195,20 @@ public class GeoItemLayer<K> {
             return null;
         }
 
+        private void startBatchTimingIfNeeded() {
+            if (addProcessedInBatch == 0 && removeProcessedInBatch == 0 && replaceProcessedInBatch == 0) {
+                batchStartNanos = System.nanoTime();
+            }
+        }
+
+        @NonNull
+        public String getStatistics() {
+            final long count = batchCount;
+            return String.format(Locale.US, "ADDS:%d, REMOVES:%d, REPLACES:%d, batches:%d (avg %.1fms, max %.1fms, last %.1fms)",
+                    addProcessed, removeProcessed, replaceProcessed, count,
+                    count == 0 ? 0.0 : batchNanosTotal / 1e6 / count, batchNanosMax / 1e6, batchNanosLast / 1e6);
+        }
+
         @Override
         public void runCommandChain(final Runnable runnable) {
             if (providerLayer != null) {
@@ -209,10 +239,16 @@ public class GeoItemLayer<K> {
                 batchEndMsg = providerLayer.onMapChangeBatchEnd(processedCount);
             }
             if (addProcessedInBatch > 0 || removeProcessedInBatch > 0 || replaceProcessedInBatch > 0) {
+                final long batchNanos = System.nanoTime() - batchStartNanos;
+                batchCount++;
+                batchNanosTotal += batchNanos;
+                batchNanosLast = batchNanos;
+                batchNanosMax = Math.max(batchNanosMax, batchNanos);
                 Log.iForce(logPraefix + "BATCH-END - " +
                         "ADDS:" + addProcessedInBatch + "(" + addProcessed + "), " +
                         "REMOVES:" + removeProcessedInBatch + "(" + removeProcessed + "), " +
-                        "REPLACES:" + replaceProcessedInBatch + "(" + replaceProcessed + ")" +
+                        "REPLACES:" + replaceProcessedInBatch + "(" + replaceProcessed + "), " +
+                        "TIME:" + (batchNanos / 1000000) + "ms" +
                         (batchEndMsg == null ? "" : "[" + batchEndMsg + "]"));
             }
             addProcessedInBatch = 0;
@@ -248,6 +284,7 @@ public class GeoItemLayer<K> {
             this.mapWriter.destroy();
             this.mapWriter = null;
         }
+        this.mapWriterExecutor = null;
         this.providerLayer = null;
     }
 
@@ -263,12 +300,21 @@ public class GeoItemLayer<K> {
         Log.d(logPraefix + " init " + zLevel);
         providerLayer.init(zLevel);
         this.providerLayer = providerLayer;
-        this.mapWriter = new AsynchronousMapWrapper<>(new MapWriter(logPraefix, providerLayer));
-        for (Map.Entry<K, Pair<GeoItem, Boolean>> entry : this.itemMap.entrySet()) {
-            if (entry.getValue().second) {
-                putToMap(entry.getKey(), entry.getValue().first, null);
+        this.mapWriterExecutor = new MapWriter(logPraefix, providerLayer);
+        this.mapWriter = new AsynchronousMapWrapper<>(mapWriterExecutor);
+        runInBatch(() -> {
+            for (Map.Entry<K, Pair<GeoItem, Boolean>> entry : this.itemMap.entrySet()) {
+                if (entry.getValue().second) {
+                    putToMap(entry.getKey(), entry.getValue().first, null);
+                }
             }
-        }
+        });
+    }
+
+    /** Returns counters and batch timings of the changes written to the map provider so far, for diagnostics */
+    @NonNull
+    public synchronized String getMapWriterStatistics() {
+        return mapWriterExecutor == null ? "-" : mapWriterExecutor.getStatistics();
     }
 
     /** Puts a new GeoItem onto the layer. If an object for same key already exists, it is replaced */
@@ -287,6 +333,10 @@ public class GeoItemLayer<K> {
         }
 
         final Pair<GeoItem, Boolean> previousItem = itemMap.get(key);
+        if (previousItem != null && previousItem.second == show && Objects.equals(previousItem.first, item)) {
+            //unchanged item (equality check is cheap due to cached hash codes) -> nothing to do
+            return;
+        }
         if (previousItem != null && previousItem.second && !show) {
             //item for key existed and is currently shown, but new key should NOT be shown -> remove from map
             removeFromMap(key, previousItem.first);
@@ -338,13 +388,49 @@ public class GeoItemLayer<K> {
                 keysToRemove.add(key);
             }
         }
-        //remove what needs to be removed
-        for (K key : keysToRemove) {
-            remove(key);
+        //unchanged items are skipped by put, so only leaving, entering and changed items produce map changes
+        runInBatch(() -> {
+            //remove what needs to be removed
+            for (K key : keysToRemove) {
+                remove(key);
+            }
+            //put all the rest
+            for (Map.Entry<K, GeoItem> entry : items.entrySet()) {
+                put(entry.getKey(), entry.getValue(), show);
+            }
+        });
+    }
+
+    /**
+     * Executes the given action, sending all map changes resulting from it to the map writer as one command.
+     * CALL ONLY WHILE HOLDING THE MONITOR OF THIS LAYER
+     */
+    private void runInBatch(final Runnable action) {
+        if (mapWriter == null || changeBatch != null) {
+            action.run();
+            return;
+        }
+        final List<Action2<Action2<Object, GeoPrimitive>, Action1<Object>>> batch = new ArrayList<>();
+        changeBatch = batch;
+        try {
+            action.run();
+        } finally {
+            changeBatch = null;
+        }
+        if (!batch.isEmpty()) {
+            mapWriter.multiChange((putAction, removeAction) -> {
+                for (Action2<Action2<Object, GeoPrimitive>, Action1<Object>> change : batch) {
+                    change.call(putAction, removeAction);
+                }
+            });
         }
-        //put all the rest
-        for (Map.Entry<K, GeoItem> entry : items.entrySet()) {
-            put(entry.getKey(), entry.getValue(), show);
+    }
+
+    private void writeToMap(final Action2<Action2<Object, GeoPrimitive>, Action1<Object>> change) {
+        if (changeBatch != null) {
+            changeBatch.add(change);
+        } else {
+            mapWriter.multiChange(change);
         }
     }
 
@@ -369,20 +455,20 @@ public class GeoItemLayer<K> {
 
         if (itemIsPrimitive && (oldItem == null || oldItemIsPrimitive)) {
             //->insert or replace one GeoPrimitive with another
-            mapWriter.put(key, (GeoPrimitive) item);
+            writeToMap((putAction, removeAction) -> putAction.call(key, (GeoPrimitive) item));
         } else if (item == null && oldItemIsPrimitive) {
             //->remove a GeoPrimitive
-            mapWriter.remove(key);
+            writeToMap((putAction, removeAction) -> removeAction.call(key));
         } else if (!itemIsPrimitive && !oldItemIsPrimitive) {
             //->insert or replace a GeoGroup with another, or remove a GeoGroup
             replaceGroupInMap(key, oldItem, item);
         } else if (itemIsPrimitive) {
             //->replace a GeoGroup with a GeoPrimitive
             replaceGroupInMap(key, oldItem, null);
-            mapWriter.put(key, (GeoPrimitive) item);
+            writeToMap((putAction, removeAction) -> putAction.call(key, (GeoPrimitive) item));
         } else {
             //->replace a GeoPrimitive with a GeoGroup
-            mapWriter.remove(key);
+            writeToMap((putAction, removeAction) -> removeAction.call(key));
             replaceGroupInMap(key, null, item);
         }
     }
@@ -393,7 +479,7 @@ public class GeoItemLayer<K> {
 
     private void replaceGroupInMap(final K key, @Nullable final GeoItem oldItem, @Nullable final GeoItem newItem) {
 
-        mapWriter.multiChange((putAction, removeAction) -> {
+        writeToMap((putAction, removeAction) -> {
             final Map<Integer, GeoPrimitive> toRemove = LOCAL_MAP.get();
             final Map<Integer, GeoPrimitive> toPut = LOCAL_MAP_2.get();
 
@@ -459,22 +545,26 @@ public class GeoItemLayer<K> {
 
     /** All objects in this layer are made visible */
     public synchronized void showAll() {
-        for (Map.Entry<K, Pair<GeoItem, Boolean>> entry : this.itemMap.entrySet()) {
-            if (!entry.getValue().second) {
-                entry.setValue(new Pair<>(entry.getValue().first, true));
-                putToMap(entry.getKey(), entry.getValue().first, null);
+        runInBatch(() -> {
+            for (Map.Entry<K, Pair<GeoItem, Boolean>> entry : this.itemMap.entrySet()) {
+                if (!entry.getValue().second) {
+                    entry.setValue(new Pair<>(entry.getValue().first, true));
+                    putToMap(entry.getKey(), entry.getValue().first, null);
+                }
             }
-        }
+        });
     }
 
     /** All objects in this layer are made invisible */
     public synchronized void hideAll() {
-        for (Map.Entry<K, Pair<GeoItem, Boolean>> entry : this.itemMap.entrySet()) {
-            if (entry.getValue().second) {
-                entry.setValue(new Pair<>(entry.getValue().first, false));
-                removeFromMap(entry.getKey(), entry.getValue().first);
+        runInBatch(() -> {
+            for (Map.Entry<K, Pair<GeoItem, Boolean>> entry : this.itemMap.entrySet()) {
+                if (entry.getValue().second) {
+                    entry.setValue(new Pair<>(entry.getValue().first, false));
+                    removeFromMap(entry.getKey(), entry.getValue().first);
+                }
             }
-        }
+        });
     }
 
     /** Gets the overall viewport for all objects in this layer (visible or invisible) */
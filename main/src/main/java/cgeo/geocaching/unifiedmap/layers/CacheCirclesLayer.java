@@ -12,9 +12,13 @@ import cgeo.geocaching.unifiedmap.UnifiedMapViewModel;
 import cgeo.geocaching.unifiedmap.geoitemlayer.GeoItemLayer;
 import cgeo.geocaching.utils.MapLineUtils;
 
+import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.lifecycle.ViewModelProvider;
 
+import java.util.Collection;
+import java.util.Set;
+
 public class CacheCirclesLayer {
 
     private static final String KEY_CACHE_CIRCLES = "cache_circles";
@@ -26,27 +30,9 @@ public class CacheCirclesLayer {
     public CacheCirclesLayer(final AppCompatActivity activity, final GeoItemLayer<String> layer) {
         final UnifiedMapViewModel viewModel = new ViewModelProvider(activity).get(UnifiedMapViewModel.class);
 
-        viewModel.caches.observeForRead(activity, caches -> {
-
-            if (Settings.isShowCircles()) {
-                final GeoGroup.Builder geoGroup = GeoGroup.builder();
-
-                for (Geocache cache : caches) {
-                    if (cache.applyDistanceRule()) {
-                        geoGroup.addItems(
-                                GeoPrimitive.createCircle(cache.getCoords(), radius, GeoStyle.builder()
-                                        .setStrokeWidth(2.0f)
-                                        .setStrokeColor(MapLineUtils.getCircleColor())
-                                        .setFillColor(MapLineUtils.getCircleFillColor())
-                                        .build()
-                                ).buildUpon().setZLevel(LayerHelper.ZINDEX_CIRCLE).build());
-                    }
-                }
-                layer.put(KEY_CACHE_CIRCLES, geoGroup.build());
-            } else {
-                layer.remove(KEY_CACHE_CIRCLES);
-            }
-        });
+        viewModel.caches.observeForRead(activity, caches -> refreshCacheCircles(layer, caches, viewModel.clusteredGeocodes.getValue()));
+        // caches shown as part of a cluster marker get no circle
+        viewModel.clusteredGeocodes.observe(activity, clustered -> viewModel.caches.read(caches -> refreshCacheCircles(layer, caches, clustered)));
 
         viewModel.waypoints.observeForRead(activity, waypoints -> {
 
@@ -72,4 +58,25 @@ public class CacheCirclesLayer {
         });
 
     }
+
+    private static void refreshCacheCircles(final GeoItemLayer<String> layer, final Collection<Geocache> caches, @Nullable final Set<String> clusteredGeocodes) {
+        if (Settings.isShowCircles()) {
+            final GeoGroup.Builder geoGroup = GeoGroup.builder();
+
+            for (Geocache cache : caches) {
+                if (cache.applyDistanceRule() && (clusteredGeocodes == null || !clusteredGeocodes.contains(cache.getGeocode()))) {
+                    geoGroup.addItems(
+                            GeoPrimitive.createCircle(cache.getCoords(), radius, GeoStyle.builder()
+                                    .setStrokeWidth(2.0f)
+                                    .setStrokeColor(MapLineUtils.getCircleColor())
+                                    .setFillColor(MapLineUtils.getCircleFillColor())
+                                    .build()
+                            ).buildUpon().setZLevel(LayerHelper.ZINDEX_CIRCLE).build());
+                }
+            }
+            layer.put(KEY_CACHE_CIRCLES, geoGroup.build());
+        } else {
+            layer.remove(KEY_CACHE_CIRCLES);
+        }
+    }
 }
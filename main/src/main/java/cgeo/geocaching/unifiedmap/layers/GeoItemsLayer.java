@@ -1,9 +1,11 @@
 package cgeo.geocaching.unifiedmap.layers;
 
 import cgeo.geocaching.enumerations.LoadFlags;
+import cgeo.geocaching.location.Geopoint;
 import cgeo.geocaching.location.Viewport;
 import cgeo.geocaching.maps.CacheMarker;
 import cgeo.geocaching.maps.MapStarUtils;
+import cgeo.geocaching.maps.MapUtils;
 import cgeo.geocaching.models.Geocache;
 import cgeo.geocaching.models.ICoordinate;
 import cgeo.geocaching.models.Waypoint;
@@ -23,11 +25,19 @@ import cgeo.geocaching.utils.MapMarkerUtils;
 
 import android.graphics.Color;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
 import androidx.lifecycle.ViewModelProvider;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 public class GeoItemsLayer {
 
@@ -35,6 +45,10 @@ public class GeoItemsLayer {
     private Map<String, String> lastDisplayedWaypoints = new HashMap<>();
     private final CollectionDiff<String, String, String> lastDisplayedCacheStars = new CollectionDiff<>(k -> k);
     private boolean lastForceCompactIconMode = false;
+    private final GeocacheClusterIndex clusterIndex = new GeocacheClusterIndex();
+    private Map<String, String> lastDisplayedClusters = new HashMap<>();
+    private int lastClusterLevel = -1;
+    private Set<String> clusteredGeocodes = Collections.emptySet();
 
 
     private static String getKeyFor(final ICoordinate coords, final CacheMarker marker) {
@@ -45,51 +59,19 @@ public class GeoItemsLayer {
         final UnifiedMapViewModel viewModel = new ViewModelProvider(activity).get(UnifiedMapViewModel.class);
 
 
-        viewModel.caches.observeForRead(activity, caches -> { // this is always executed on UI thread, thus doesn't need to be thread save
+        viewModel.caches.observeForRead(activity, caches -> refreshCaches(activity, viewModel, layer, caches));
 
-            final Map<String, String> currentlyDisplayedGeocaches = new HashMap<>();
-
-            final boolean forceCompactIconMode = CompactIconModeUtils.forceCompactIconMode();
-            if (lastForceCompactIconMode != forceCompactIconMode) {
-                lastForceCompactIconMode = forceCompactIconMode;
-                viewModel.waypoints.notifyDataChanged();
-            }
-
-            for (Geocache cache : caches) {
-                final CacheMarker cm = forceCompactIconMode ? MapMarkerUtils.getCacheDotMarker(activity.getResources(), cache) : MapMarkerUtils.getCacheMarker(activity.getResources(), cache, null, true);
-                final String contentKey = getKeyFor(cache, cm);
-                currentlyDisplayedGeocaches.put(cache.getGeocode(), contentKey);
-
-                if (!lastDisplayedGeocaches.containsKey(cache.getGeocode()) || !lastDisplayedGeocaches.get(cache.getGeocode()).equals(contentKey)) {
-
-                    layer.put(UnifiedMapViewModel.CACHE_KEY_PREFIX + cache.getGeocode(), GeoPrimitive.createMarker(cache.getCoords(),
-                        GeoIcon.builder()
-                            .setBitmap(cm.getBitmap())
-                            .setHotspot(forceCompactIconMode ? GeoIcon.Hotspot.CENTER : GeoIcon.Hotspot.BOTTOM_CENTER)
-                            .build()
-                    ).buildUpon().setZLevel(LayerHelper.ZINDEX_GEOCACHE).build());
-                }
+        // clusters depend on zoom level, so caches need to be redisplayed if cluster level changes
+        viewModel.zoomLevel.observe(activity, zoomLevel -> refreshIfClusterLevelChanged(activity, viewModel, layer));
+        // same if clustering has been switched on or off in the settings meanwhile
+        activity.getLifecycle().addObserver(new DefaultLifecycleObserver() {
+            @Override
+            public void onResume(@NonNull final LifecycleOwner owner) {
+                refreshIfClusterLevelChanged(activity, viewModel, layer);
             }
-
-            for (String geocode : currentlyDisplayedGeocaches.keySet()) {
-                lastDisplayedGeocaches.remove(geocode);
-            }
-
-            for (String geocode : lastDisplayedGeocaches.keySet()) {
-                layer.remove(UnifiedMapViewModel.CACHE_KEY_PREFIX + geocode);
-            }
-
-            lastDisplayedGeocaches = currentlyDisplayedGeocaches;
-
         });
 
-        viewModel.cachesWithStarDrawn.observeForRead(activity, starCodes -> lastDisplayedCacheStars.executeDiff(starCodes, true, addStar -> {
-            final Geocache cache = DataStore.loadCache(addStar, LoadFlags.LOAD_CACHE_OR_DB);
-            final GeoItem star = MapStarUtils.createStar(cache);
-            if (star != null) {
-                layer.put(UnifiedMapViewModel.CACHE_STAR_KEY_PREFIX + addStar, star);
-            }
-        }, removeStar -> layer.remove(UnifiedMapViewModel.CACHE_STAR_KEY_PREFIX + removeStar)));
+        viewModel.cachesWithStarDrawn.observeForRead(activity, starCodes -> refreshStars(layer, starCodes));
 
 
         viewModel.waypoints.observeForRead(activity, waypoints -> { // this is always executed on UI thread, thus doesn't need to be thread save
@@ -148,4 +130,140 @@ public class GeoItemsLayer {
 
     }
 
+    /** returns the id of the cluster represented by given layer key, or null if key does not denote a cluster */
+    @Nullable
+    public static String getClusterId(final String key) {
+        return key.startsWith(UnifiedMapViewModel.CACHE_CLUSTER_KEY_PREFIX) ? key.substring(UnifiedMapViewModel.CACHE_CLUSTER_KEY_PREFIX.length()) : null;
+    }
+
+    /** smallest viewport containing all caches of a currently displayed cluster, or null if cluster no longer exists */
+    @Nullable
+    public Viewport getClusterViewport(final String clusterId) {
+        final GeocacheClusterIndex.Cluster cluster = clusterIndex.getCluster(clusterId);
+        return cluster == null ? null : cluster.getViewport();
+    }
+
+    private void refreshIfClusterLevelChanged(final AppCompatActivity activity, final UnifiedMapViewModel viewModel, final GeoItemLayer<String> layer) {
+        if (getClusterLevel(viewModel.zoomLevel.getValue()) != lastClusterLevel) {
+            viewModel.caches.read(caches -> refreshCaches(activity, viewModel, layer, caches));
+        }
+    }
+
+    /** stars are drawn for caches displayed individually only */
+    private void refreshStars(final GeoItemLayer<String> layer, final Set<String> starCodes) {
+        final Set<String> visibleStars = new HashSet<>(starCodes);
+        visibleStars.removeAll(clusteredGeocodes);
+        lastDisplayedCacheStars.executeDiff(visibleStars, true, addStar -> {
+            final Geocache cache = DataStore.loadCache(addStar, LoadFlags.LOAD_CACHE_OR_DB);
+            final GeoItem star = MapStarUtils.createStar(cache);
+            if (star != null) {
+                layer.put(UnifiedMapViewModel.CACHE_STAR_KEY_PREFIX + addStar, star);
+            }
+        }, removeStar -> layer.remove(UnifiedMapViewModel.CACHE_STAR_KEY_PREFIX + removeStar));
+    }
+
+    private static int getClusterLevel(@Nullable final Float zoomLevel) {
+        return zoomLevel == null || !Settings.clusterCachesOnMap() ? -1 : GeocacheClusterIndex.getLevel(zoomLevel);
+    }
+
+    private void refreshCaches(final AppCompatActivity activity, final UnifiedMapViewModel viewModel, final GeoItemLayer<String> layer, final Collection<Geocache> caches) { // this is always executed on UI thread, thus doesn't need to be thread save
+
+        final Map<String, String> currentlyDisplayedGeocaches = new HashMap<>();
+
+        final boolean forceCompactIconMode = CompactIconModeUtils.forceCompactIconMode();
+        if (lastForceCompactIconMode != forceCompactIconMode) {
+            lastForceCompactIconMode = forceCompactIconMode;
+            viewModel.waypoints.notifyDataChanged();
+        }
+
+        // keep cluster grid up to date, this only touches caches which were added, moved or removed
+        final Set<String> geocodes = new HashSet<>();
+        for (Geocache cache : caches) {
+            geocodes.add(cache.getGeocode());
+            if (cache.getCoords() != null) {
+                clusterIndex.put(cache.getGeocode(), cache.getCoords());
+            } else {
+                clusterIndex.remove(cache.getGeocode());
+            }
+        }
+        clusterIndex.retainAll(geocodes);
+
+        lastClusterLevel = getClusterLevel(viewModel.zoomLevel.getValue());
+        final Set<String> clustered = refreshClusters(layer);
+        if (!clustered.equals(clusteredGeocodes)) {
+            clusteredGeocodes = clustered;
+            viewModel.cachesWithStarDrawn.read(starCodes -> refreshStars(layer, starCodes));
+            viewModel.clusteredGeocodes.setValue(clustered);
+        }
+
+        for (Geocache cache : caches) {
+            if (clusteredGeocodes.contains(cache.getGeocode())) {
+                continue;
+            }
+            final CacheMarker cm = forceCompactIconMode ? MapMarkerUtils.getCacheDotMarker(activity.getResources(), cache) : MapMarkerUtils.getCacheMarker(activity.getResources(), cache, null, true);
+            final String contentKey = getKeyFor(cache, cm);
+            currentlyDisplayedGeocaches.put(cache.getGeocode(), contentKey);
+
+            if (!lastDisplayedGeocaches.containsKey(cache.getGeocode()) || !lastDisplayedGeocaches.get(cache.getGeocode()).equals(contentKey)) {
+
+                layer.put(UnifiedMapViewModel.CACHE_KEY_PREFIX + cache.getGeocode(), GeoPrimitive.createMarker(cache.getCoords(),
+                    GeoIcon.builder()
+                        .setBitmap(cm.getBitmap())
+                        .setHotspot(forceCompactIconMode ? GeoIcon.Hotspot.CENTER : GeoIcon.Hotspot.BOTTOM_CENTER)
+                        .build()
+                ).buildUpon().setZLevel(LayerHelper.ZINDEX_GEOCACHE).build());
+            }
+        }
+
+        for (String geocode : currentlyDisplayedGeocaches.keySet()) {
+            lastDisplayedGeocaches.remove(geocode);
+        }
+
+        for (String geocode : lastDisplayedGeocaches.keySet()) {
+            layer.remove(UnifiedMapViewModel.CACHE_KEY_PREFIX + geocode);
+        }
+
+        lastDisplayedGeocaches = currentlyDisplayedGeocaches;
+    }
+
+    /**
+     * displays cluster markers for the current cluster level and removes outdated ones
+     *
+     * @return geocodes of all caches represented by a cluster marker (and thus not to be displayed individually)
+     */
+    private Set<String> refreshClusters(final GeoItemLayer<String> layer) {
+        final Set<String> clusteredGeocodes = new HashSet<>();
+        final Map<String, String> currentlyDisplayedClusters = new HashMap<>();
+
+        for (GeocacheClusterIndex.Cluster cluster : clusterIndex.getClusters(lastClusterLevel)) {
+            if (cluster.getCount() < GeocacheClusterIndex.MIN_CLUSTER_SIZE) {
+                continue;
+            }
+            clusteredGeocodes.addAll(cluster.getGeocodes());
+            final Geopoint center = cluster.getCenter();
+            final String contentKey = center + "-" + cluster.getCount();
+            currentlyDisplayedClusters.put(cluster.getId(), contentKey);
+
+            if (!contentKey.equals(lastDisplayedClusters.get(cluster.getId()))) {
+                layer.put(UnifiedMapViewModel.CACHE_CLUSTER_KEY_PREFIX + cluster.getId(), GeoPrimitive.createMarker(center,
+                        GeoIcon.builder()
+                                .setBitmap(MapUtils.getClusterBitmap(cluster.getCount()))
+                                .setHotspot(GeoIcon.Hotspot.CENTER)
+                                .build()
+                ).buildUpon().setZLevel(LayerHelper.ZINDEX_GEOCACHE).build());
+            }
+        }
+
+        for (String clusterId : currentlyDisplayedClusters.keySet()) {
+            lastDisplayedClusters.remove(clusterId);
+        }
+
+        for (String clusterId : lastDisplayedClusters.keySet()) {
+            layer.remove(UnifiedMapViewModel.CACHE_CLUSTER_KEY_PREFIX + clusterId);
+        }
+
+        lastDisplayedClusters = currentlyDisplayedClusters;
+        return clusteredGeocodes;
+    }
+
 }
@@ -0,0 +1,240 @@
+package cgeo.geocaching.unifiedmap.layers;
+
+import cgeo.geocaching.location.Geopoint;
+import cgeo.geocaching.location.Viewport;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hierarchical grid of geocache positions used to group dense caches into clusters on low zoom levels.
+ * <br>
+ * For each zoom level below {@link #CLUSTER_MAX_ZOOM} the (web mercator projected) world is divided into square cells
+ * of roughly {@link #CELL_SIZE_PX} screen pixels, each cell counting the caches inside. The grid is updated incrementally
+ * when caches are added, moved or removed, so switching zoom levels does not require any recalculation.
+ * Independent of map provider, since it works on coordinates only.
+ * <br>
+ * Not thread-safe, is meant to be used from UI thread only.
+ */
+public class GeocacheClusterIndex {
+
+    /** starting with this zoom level, caches are no longer clustered */
+    public static final int CLUSTER_MAX_ZOOM = 14;
+
+    /** approximate size of a grid cell on screen (for a tile size of 256 pixel) */
+    public static final int CELL_SIZE_PX = 64;
+
+    /** minimum number of caches in a cell to be displayed as cluster */
+    public static final int MIN_CLUSTER_SIZE = 2;
+
+    private static final int FINEST_LEVEL = CLUSTER_MAX_ZOOM - 1;
+    // cells per tile side is 256 / CELL_SIZE_PX = 4 = 2^2
+    private static final int FINEST_GRID_BITS = FINEST_LEVEL + 2;
+    private static final int FINEST_GRID_SIZE = 1 << FINEST_GRID_BITS;
+    private static final double MAX_MERCATOR_LATITUDE = 85.05112878;
+
+    private final Map<String, Geopoint> positions = new HashMap<>();
+    private final Map<String, long[]> cellsPerGeocode = new HashMap<>();
+    private final ArrayList<Map<Long, Cluster>> levels = new ArrayList<>(CLUSTER_MAX_ZOOM);
+
+    /** group of caches falling into the same grid cell on one zoom level */
+    public static class Cluster {
+
+        private final String id;
+        private final Map<String, Geopoint> members = new HashMap<>();
+        private double latitudeSum = 0;
+        private double longitudeSum = 0;
+
+        private Cluster(final String id) {
+            this.id = id;
+        }
+
+        /** identifier of this cluster, unique and stable over all zoom levels */
+        @NonNull
+        public String getId() {
+            return id;
+        }
+
+        public int getCount() {
+            return members.size();
+        }
+
+        /** average position of all caches in this cluster */
+        @NonNull
+        public Geopoint getCenter() {
+            return new Geopoint(latitudeSum / members.size(), longitudeSum / members.size());
+        }
+
+        @NonNull
+        public Set<String> getGeocodes() {
+            return Collections.unmodifiableSet(members.keySet());
+        }
+
+        /** smallest viewport containing all caches in this cluster */
+        @Nullable
+        public Viewport getViewport() {
+            return Viewport.containing(members.values());
+        }
+
+        private void add(final String geocode, final Geopoint coords) {
+            members.put(geocode, coords);
+            latitudeSum += coords.getLatitude();
+            longitudeSum += coords.getLongitude();
+        }
+
+        private void remove(final String geocode) {
+            final Geopoint coords = members.remove(geocode);
+            if (coords != null) {
+                latitudeSum -= coords.getLatitude();
+                longitudeSum -= coords.getLongitude();
+            }
+        }
+    }
+
+    public GeocacheClusterIndex() {
+        for (int level = 0; level < CLUSTER_MAX_ZOOM; level++) {
+            levels.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * Grid level to use for clustering on given zoom level, or -1 if caches should not be clustered at all
+     */
+    public static int getLevel(final float zoomLevel) {
+        if (zoomLevel >= CLUSTER_MAX_ZOOM) {
+            return -1;
+        }
+        return Math.max(0, (int) Math.floor(zoomLevel));
+    }
+
+    /**
+     * adds a cache to resp. moves a cache within the grid
+     *
+     * @return true if grid was changed, false if cache was already indexed at these coordinates
+     */
+    public boolean put(@NonNull final String geocode, @NonNull final Geopoint coords) {
+        final Geopoint oldCoords = positions.get(geocode);
+        if (coords.equals(oldCoords)) {
+            return false;
+        }
+        if (oldCoords != null) {
+            remove(geocode);
+        }
+        positions.put(geocode, coords);
+
+        final int x = toGridX(coords.getLongitude());
+        final int y = toGridY(coords.getLatitude());
+        final long[] cells = new long[CLUSTER_MAX_ZOOM];
+        for (int level = 0; level < CLUSTER_MAX_ZOOM; level++) {
+            final int shift = FINEST_LEVEL - level;
+            final long cell = toCellKey(level, x >> shift, y >> shift);
+            cells[level] = cell;
+            Cluster cluster = levels.get(level).get(cell);
+            if (cluster == null) {
+                cluster = new Cluster(Long.toString(cell, Character.MAX_RADIX));
+                levels.get(level).put(cell, cluster);
+            }
+            cluster.add(geocode, coords);
+        }
+        cellsPerGeocode.put(geocode, cells);
+        return true;
+    }
+
+    /**
+     * @return true if grid was changed, false if cache was not indexed
+     */
+    public boolean remove(@NonNull final String geocode) {
+        final long[] cells = cellsPerGeocode.remove(geocode);
+        positions.remove(geocode);
+        if (cells == null) {
+            return false;
+        }
+        for (int level = 0; level < CLUSTER_MAX_ZOOM; level++) {
+            final Map<Long, Cluster> clusters = levels.get(level);
+            final Cluster cluster = clusters.get(cells[level]);
+            if (cluster != null) {
+                cluster.remove(geocode);
+                if (cluster.getCount() == 0) {
+                    clusters.remove(cells[level]);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * removes all caches not contained in given collection
+     *
+     * @return true if grid was changed
+     */
+    public boolean retainAll(@NonNull final Collection<String> geocodes) {
+        final ArrayList<String> toRemove = new ArrayList<>();
+        for (String geocode : positions.keySet()) {
+            if (!geocodes.contains(geocode)) {
+                toRemove.add(geocode);
+            }
+        }
+        for (String geocode : toRemove) {
+            remove(geocode);
+        }
+        return !toRemove.isEmpty();
+    }
+
+    public void clear() {
+        positions.clear();
+        cellsPerGeocode.clear();
+        for (Map<Long, Cluster> clusters : levels) {
+            clusters.clear();
+        }
+    }
+
+    public int size() {
+        return positions.size();
+    }
+
+    /** all non-empty grid cells of given level, including those with only one cache */
+    @NonNull
+    public Collection<Cluster> getClusters(final int level) {
+        if (level < 0 || level >= CLUSTER_MAX_ZOOM) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableCollection(levels.get(level).values());
+    }
+
+    /** looks up a cluster by its id on any level, returns null if this cluster no longer exists */
+    @Nullable
+    public Cluster getCluster(@NonNull final String id) {
+        final long cell;
+        try {
+            cell = Long.parseLong(id, Character.MAX_RADIX);
+        } catch (NumberFormatException nfe) {
+            return null;
+        }
+        final int level = (int) (cell >>> 40);
+        return level < CLUSTER_MAX_ZOOM ? levels.get(level).get(cell) : null;
+    }
+
+    private static long toCellKey(final int level, final int x, final int y) {
+        return ((long) level << 40) | ((long) x << 20) | y;
+    }
+
+    private static int toGridX(final double longitude) {
+        return clampToGrid((longitude + 180) / 360);
+    }
+
+    private static int toGridY(final double latitude) {
+        final double lat = Math.toRadians(Math.max(-MAX_MERCATOR_LATITUDE, Math.min(MAX_MERCATOR_LATITUDE, latitude)));
+        return clampToGrid((1 - Math.log(Math.tan(lat) + 1 / Math.cos(lat)) / Math.PI) / 2);
+    }
+
+    private static int clampToGrid(final double fraction) {
+        return Math.max(0, Math.min(FINEST_GRID_SIZE - 1, (int) Math.floor(fraction * FINEST_GRID_SIZE)));
+    }
+}
@@ -33,6 +33,13 @@ public abstract class LazyInitializedList<ElementType> extends AbstractList<Elem
         return list;
     }
 
+    /**
+     * @return true if the list content has already been loaded, without triggering the load
+     */
+    public boolean isInitialized() {
+        return list != null;
+    }
+
     @Override
     public boolean add(final ElementType element) {
         return getUnderlyingList().add(element);
@@ -45,6 +45,13 @@ public class LazyInitializedSet<T> extends AbstractSet<T> {
         return set;
     }
 
+    /**
+     * @return true if the set content has already been loaded, without triggering the load
+     */
+    public boolean isInitialized() {
+        return set != null;
+    }
+
     @Override
     public boolean add(final T element) {
         return getUnderlyingSet().add(element);
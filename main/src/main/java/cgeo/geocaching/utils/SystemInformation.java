@@ -10,6 +10,7 @@ import cgeo.geocaching.filters.core.GeocacheFilter;
 import cgeo.geocaching.filters.core.GeocacheFilterContext;
 import cgeo.geocaching.maps.interfaces.MapSource;
 import cgeo.geocaching.maps.mapsforge.v6.RenderThemeHelper;
+import cgeo.geocaching.maps.routing.Routing;
 import cgeo.geocaching.maps.routing.RoutingMode;
 import cgeo.geocaching.permission.PermissionContext;
 import cgeo.geocaching.playservices.GooglePlayServices;
@@ -136,6 +137,7 @@ public final class SystemInformation {
             body.append("\n- Last successful login on geocaching.com: ").append(Formatter.formatDateForFilename(gcSuccess));
         }
         body.append("\n- Routing: ").append(Settings.useInternalRouting() ? "internal" : "external").append(" / BRouter installed: ").append(ProcessUtils.isInstalled(context.getString(R.string.package_brouter)));
+        body.append("\n- Route cache: ").append(Routing.getRouteCacheStatistics());
 
         appendPermissions(context, body);
 
@@ -179,10 +181,12 @@ public final class SystemInformation {
         final File dbFile = DataStore.databasePath();
         body.append("\n- File: ").append(dbFile)
                 .append(" (").append(versionInfoToString(DataStore.getActualDBVersion(), DataStore.getExpectedDBVersion()))
-                .append(", Size:").append(Formatter.formatBytes(dbFile.length())).append(") on ")
+                .append(", Size:").append(Formatter.formatBytes(dbFile.length()))
+                .append(DataStore.isWriteAheadLoggingEnabled() ? ", WAL" : "").append(") on ")
                 .append(Settings.isDbOnSDCard() ? "user storage" : "system internal storage");
         body.append("\n- Data: ").append(DataStore.getTableCounts());
         body.append("\n- Extension Data: ").append(DataStore.getExtensionTableKeyCounts());
+        body.append("\n- Memory cache: ").append(DataStore.getCacheCacheStatistics());
     }
 
     private static void appendSettings(@NonNull final StringBuilder body) {
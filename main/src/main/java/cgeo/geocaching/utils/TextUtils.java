@@ -108,28 +108,40 @@ public final class TextUtils {
      * @return defaultValue or the n-th group if the pattern matches (trimmed if wanted)
      */
     @Nullable
-    @SuppressFBWarnings("DM_STRING_CTOR")
     public static String getMatch(@Nullable final String data, final Pattern pattern, final boolean trim, final int group, @Nullable final String defaultValue, final boolean last) {
         if (data != null) {
-            final Matcher matcher = pattern.matcher(data);
-            if (matcher.find()) {
-                String result = matcher.group(group);
-                while (last && matcher.find()) {
-                    result = matcher.group(group);
-                }
+            return getMatch(pattern.matcher(data), trim, group, defaultValue, last);
+        }
 
-                if (result != null) {
-                    final Matcher remover = PATTERN_REMOVE_NONPRINTABLE.matcher(result);
-                    final String untrimmed = remover.replaceAll(" ");
-
-                    // Some versions of Java copy the whole page String, when matching with regular expressions
-                    // later this would block the garbage collector, as we only need tiny parts of the page
-                    // see http://developer.android.com/reference/java/lang/String.html#backing_array
-                    // Thus the creation of a new String via String constructor is voluntary here!!
-                    // And BTW: You cannot even see that effect in the debugger, but must use a separate memory profiler!
-                    //noinspection StringOperationCanBeSimplified
-                    return trim ? new String(untrimmed).trim() : new String(untrimmed);
-                }
+        return defaultValue;
+    }
+
+    /**
+     * Searches with a matcher prepared by the caller, e.g. restricted to a region of the data. If the pattern is not
+     * found defaultValue is returned
+     *
+     * @see #getMatch(String, Pattern, boolean, int, String, boolean)
+     */
+    @Nullable
+    @SuppressFBWarnings("DM_STRING_CTOR")
+    public static String getMatch(@NonNull final Matcher matcher, final boolean trim, final int group, @Nullable final String defaultValue, final boolean last) {
+        if (matcher.find()) {
+            String result = matcher.group(group);
+            while (last && matcher.find()) {
+                result = matcher.group(group);
+            }
+
+            if (result != null) {
+                final Matcher remover = PATTERN_REMOVE_NONPRINTABLE.matcher(result);
+                final String untrimmed = remover.replaceAll(" ");
+
+                // Some versions of Java copy the whole page String, when matching with regular expressions
+                // later this would block the garbage collector, as we only need tiny parts of the page
+                // see http://developer.android.com/reference/java/lang/String.html#backing_array
+                // Thus the creation of a new String via String constructor is voluntary here!!
+                // And BTW: You cannot even see that effect in the debugger, but must use a separate memory profiler!
+                //noinspection StringOperationCanBeSimplified
+                return trim ? new String(untrimmed).trim() : new String(untrimmed);
             }
         }
 
@@ -189,6 +201,16 @@ public final class TextUtils {
         final int length = data.length();
         final char[] chars = new char[length];
         data.getChars(0, length, chars, 0);
+        return String.valueOf(chars, 0, replaceWhitespace(chars));
+    }
+
+    /**
+     * Same as {@link #replaceWhitespace(String)}, in place.
+     *
+     * @param chars complete HTML page, replaced by the page as a single line
+     * @return the length of the single line at the beginning of the array
+     */
+    public static int replaceWhitespace(final char[] chars) {
         int resultSize = 0;
         boolean lastWasWhitespace = true;
         for (final char c : chars) {
@@ -202,7 +224,7 @@ public final class TextUtils {
                 lastWasWhitespace = false;
             }
         }
-        return String.valueOf(chars, 0, resultSize);
+        return resultSize;
     }
 
     /**
@@ -0,0 +1,190 @@
+package cgeo.geocaching.utils.xml;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+/**
+ * Element of a tree of listeners, which is read by a streaming {@link XmlPullParser}. Works like the listener
+ * tree of android.sax.RootElement, but doesn't need the Android SAX classes.
+ * <br>
+ * Listeners are registered on the elements of interest, then {@link #parse(XmlPullParser)} reads the document.
+ * Subtrees of unregistered elements are skipped without collecting their text. Text is only collected for elements
+ * having an end text listener, and such elements must not contain child elements.
+ * <br>
+ * Children are looked up by their local name first and namespace second, without creating any keys while parsing.
+ */
+public final class XmlPullElement {
+
+    public interface StartElementListener {
+        /**
+         * @param parser positioned on the start tag, to read the attributes from. Must not be moved.
+         */
+        void start(@NonNull XmlPullParser parser);
+    }
+
+    public interface EndElementListener {
+        void end();
+    }
+
+    public interface EndTextElementListener {
+        void end(@NonNull String body);
+    }
+
+    @NonNull private final String namespace;
+    @NonNull private final String name;
+    @Nullable private Map<String, List<XmlPullElement>> children;
+
+    @Nullable private StartElementListener startElementListener;
+    @Nullable private EndElementListener endElementListener;
+    @Nullable private EndTextElementListener endTextElementListener;
+
+    /**
+     * @param namespace namespace of the element, empty for no namespace
+     */
+    public XmlPullElement(@NonNull final String namespace, @NonNull final String name) {
+        this.namespace = namespace;
+        this.name = name;
+    }
+
+    /**
+     * @return the child with the given namespace and name, created if not yet existing
+     */
+    @NonNull
+    public XmlPullElement getChild(@NonNull final String childNamespace, @NonNull final String childName) {
+        if (children == null) {
+            children = new HashMap<>();
+        }
+        List<XmlPullElement> sameName = children.get(childName);
+        if (sameName == null) {
+            sameName = new ArrayList<>(1);
+            children.put(childName, sameName);
+        }
+        for (final XmlPullElement child : sameName) {
+            if (child.namespace.equals(childNamespace)) {
+                return child;
+            }
+        }
+        final XmlPullElement child = new XmlPullElement(childNamespace, childName);
+        sameName.add(child);
+        return child;
+    }
+
+    public void setStartElementListener(@Nullable final StartElementListener listener) {
+        startElementListener = listener;
+    }
+
+    public void setEndElementListener(@Nullable final EndElementListener listener) {
+        endElementListener = listener;
+    }
+
+    public void setEndTextElementListener(@Nullable final EndTextElementListener listener) {
+        endTextElementListener = listener;
+    }
+
+    /**
+     * Reads the document with this element as root element. The parser has to be namespace aware, if namespaces are
+     * used in the tree.
+     *
+     * @throws XmlPullParserException if the document is malformed or its root element doesn't match this element
+     */
+    public void parse(@NonNull final XmlPullParser parser) throws XmlPullParserException, IOException {
+        int eventType = parser.getEventType();
+        while (eventType != XmlPullParser.START_TAG) {
+            if (eventType == XmlPullParser.END_DOCUMENT) {
+                throw new XmlPullParserException("Missing root element " + this, parser, null);
+            }
+            eventType = parser.next();
+        }
+        if (!name.equals(parser.getName()) || !namespace.equals(parser.getNamespace())) {
+            throw new XmlPullParserException("Root element name does not match. Expected: " + this + ", Got: " + parser.getNamespace() + ":" + parser.getName(), parser, null);
+        }
+        read(parser);
+        // check the rest of the document to be well-formed
+        while (parser.next() != XmlPullParser.END_DOCUMENT) {
+            // nothing to do
+        }
+    }
+
+    private void read(@NonNull final XmlPullParser parser) throws XmlPullParserException, IOException {
+        if (startElementListener != null) {
+            startElementListener.start(parser);
+        }
+        if (endTextElementListener != null) {
+            final String body = parser.nextText();
+            if (endElementListener != null) {
+                endElementListener.end();
+            }
+            endTextElementListener.end(body);
+            return;
+        }
+        for (int eventType = parser.next(); eventType != XmlPullParser.END_TAG; eventType = parser.next()) {
+            if (eventType == XmlPullParser.START_TAG) {
+                final XmlPullElement child = findChild(parser.getNamespace(), parser.getName());
+                if (child != null) {
+                    child.read(parser);
+                } else {
+                    skipSubtree(parser);
+                }
+            } else if (eventType == XmlPullParser.END_DOCUMENT) {
+                throw new XmlPullParserException("Unexpected end of document in " + this, parser, null);
+            }
+        }
+        if (endElementListener != null) {
+            endElementListener.end();
+        }
+    }
+
+    @Nullable
+    private XmlPullElement findChild(final String childNamespace, final String childName) {
+        if (children == null) {
+            return null;
+        }
+        final List<XmlPullElement> sameName = children.get(childName);
+        if (sameName == null) {
+            return null;
+        }
+        for (int i = 0; i < sameName.size(); i++) {
+            final XmlPullElement child = sameName.get(i);
+            if (child.namespace.equals(childNamespace)) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * skips the element the parser is positioned on, including all its children
+     */
+    private static void skipSubtree(@NonNull final XmlPullParser parser) throws XmlPullParserException, IOException {
+        int depth = 1;
+        while (depth > 0) {
+            switch (parser.next()) {
+                case XmlPullParser.START_TAG:
+                    depth++;
+                    break;
+                case XmlPullParser.END_TAG:
+                    depth--;
+                    break;
+                case XmlPullParser.END_DOCUMENT:
+                    throw new XmlPullParserException("Unexpected end of document", parser, null);
+                default:
+                    break;
+            }
+        }
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "'" + namespace + "':" + name;
+    }
+}
@@ -6,6 +6,7 @@ import androidx.annotation.NonNull;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Reader;
 
 import org.xmlpull.v1.XmlPullParser;
 import org.xmlpull.v1.XmlPullParserException;
@@ -67,6 +68,19 @@ public final class XmlUtils {
         }
     }
 
+    public static XmlPullParser createParser(@NonNull final Reader input, final boolean namespaceAware) throws XmlPullParserException {
+        if (XPP_FACTORY == null) {
+            throw new XmlPullParserException("XmlUtils: can't create XML Parser, no factory available");
+        }
+
+        synchronized (XPP_FACTORY) {
+            final XmlPullParser parser = XPP_FACTORY.newPullParser();
+            parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, namespaceAware);
+            parser.setInput(input);
+            return parser;
+        }
+    }
+
     private static XmlPullParserFactory safeCreateFactory() {
         try {
             return XmlPullParserFactory.newInstance();
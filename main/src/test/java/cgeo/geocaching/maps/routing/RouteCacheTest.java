@@ -0,0 +1,84 @@
+package cgeo.geocaching.maps.routing;
+
+import cgeo.geocaching.location.Geopoint;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Test;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+public class RouteCacheTest {
+
+    private static final Geopoint START = new Geopoint(48.137, 11.575);
+    private static final Geopoint DESTINATION = new Geopoint(48.152, 11.560);
+    private static final Geopoint[] TRACK = {START, new Geopoint(48.145, 11.570), DESTINATION};
+
+    @Test
+    public void testHitAndMiss() {
+        final RouteCache cache = new RouteCache(100000);
+        final RouteCache.Key key = RouteCache.key(START, DESTINATION, "foot", "shortest.brf:1");
+        assertThat(cache.get(key, null)).isNull();
+
+        cache.put(key, TRACK, Arrays.asList(510f, 515f, 520f));
+        final ArrayList<Float> elevation = new ArrayList<>();
+        assertThat(cache.get(key, elevation)).containsExactly(TRACK);
+        assertThat(elevation).containsExactly(510f, 515f, 520f);
+
+        final RouteCache.Statistics statistics = cache.getStatistics();
+        assertThat(statistics.hits).isEqualTo(1);
+        assertThat(statistics.misses).isEqualTo(1);
+        assertThat(statistics.size).isEqualTo(1);
+    }
+
+    @Test
+    public void testTrackWithoutElevationMissesElevationRequest() {
+        final RouteCache cache = new RouteCache(100000);
+        final RouteCache.Key key = RouteCache.key(START, DESTINATION, "foot", "shortest.brf:1");
+        cache.put(key, TRACK, null);
+        assertThat(cache.get(key, null)).containsExactly(TRACK);
+        assertThat(cache.get(key, new ArrayList<>())).isNull();
+
+        // calculated again with elevations, which serves both kinds of requests
+        cache.put(key, TRACK, Arrays.asList(510f, 515f, 520f));
+        final ArrayList<Float> elevation = new ArrayList<>();
+        assertThat(cache.get(key, elevation)).containsExactly(TRACK);
+        assertThat(elevation).containsExactly(510f, 515f, 520f);
+        assertThat(cache.get(key, null)).containsExactly(TRACK);
+        assertThat(cache.getStatistics().size).isEqualTo(1);
+    }
+
+    @Test
+    public void testKeySnapsEndpoints() {
+        final RouteCache.Key key = RouteCache.key(START, DESTINATION, "foot", "shortest.brf:1");
+        assertThat(RouteCache.key(new Geopoint(48.137002, 11.575003), DESTINATION, "foot", "shortest.brf:1")).isEqualTo(key);
+        assertThat(RouteCache.key(new Geopoint(48.13705, 11.575), DESTINATION, "foot", "shortest.brf:1")).isNotEqualTo(key);
+        assertThat(RouteCache.key(START, DESTINATION, "bicycle", "shortest.brf:1")).isNotEqualTo(key);
+        assertThat(RouteCache.key(START, DESTINATION, "foot", "shortest.brf:2")).isNotEqualTo(key);
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        final RouteCache probe = new RouteCache(Long.MAX_VALUE);
+        probe.put(RouteCache.key(START, DESTINATION, "foot", ""), TRACK, null);
+        final long entryBytes = probe.getStatistics().bytes;
+
+        final RouteCache cache = new RouteCache(2 * entryBytes);
+        final RouteCache.Key first = RouteCache.key(START, DESTINATION, "foot", "");
+        final RouteCache.Key second = RouteCache.key(DESTINATION, START, "foot", "");
+        final RouteCache.Key third = RouteCache.key(START, START, "foot", "");
+        cache.put(first, TRACK, null);
+        cache.put(second, TRACK, null);
+        assertThat(cache.get(first, null)).isNotNull(); // now second is the least recently used one
+        cache.put(third, TRACK, null);
+
+        assertThat(cache.get(second, null)).isNull();
+        assertThat(cache.get(first, null)).isNotNull();
+        assertThat(cache.get(third, null)).isNotNull();
+        assertThat(cache.getStatistics().evictions).isEqualTo(1);
+
+        cache.clear();
+        assertThat(cache.get(first, null)).isNull();
+        assertThat(cache.getStatistics().bytes).isZero();
+    }
+}
@@ -0,0 +1,101 @@
+package cgeo.geocaching.storage;
+
+import cgeo.geocaching.location.Geopoint;
+import cgeo.geocaching.location.Viewport;
+import cgeo.geocaching.models.Geocache;
+
+import androidx.annotation.Nullable;
+
+import org.junit.Test;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+public class CacheCacheTest {
+
+    private static Geocache createCache(final String geocode, @Nullable final Geopoint coords) {
+        final Geocache cache = new Geocache();
+        cache.setGeocode(geocode);
+        cache.setCoords(coords);
+        return cache;
+    }
+
+    @Test
+    public void testHitsAndMisses() {
+        final CacheCache cacheCache = new CacheCache(1024 * 1024);
+        cacheCache.putCacheInCache(createCache("GC1", new Geopoint(48, 11)));
+
+        assertThat(cacheCache.getCacheFromCache("GC1")).isNotNull();
+        assertThat(cacheCache.getCacheFromCache("GC2")).isNull();
+        assertThat(cacheCache.getHitCount()).isEqualTo(1);
+        assertThat(cacheCache.getMissCount()).isEqualTo(1);
+
+        cacheCache.removeCacheFromCache("GC1");
+        assertThat(cacheCache.getCacheFromCache("GC1")).isNull();
+        assertThat(cacheCache.size()).isEqualTo(0);
+        assertThat(cacheCache.getWeight()).isEqualTo(0);
+    }
+
+    @Test
+    public void testEvictionByWeight() {
+        final CacheCache cacheCache = new CacheCache(0);
+        for (int i = 0; i < 100; i++) {
+            final Geocache cache = createCache("GC" + i, new Geopoint(48, 11));
+            cacheCache.putCacheInCache(cache);
+            // the cache just added is never evicted
+            assertThat(cacheCache.getCacheFromCache(cache.getGeocode())).isSameAs(cache);
+        }
+        assertThat(cacheCache.size()).isLessThanOrEqualTo(16);
+        assertThat(cacheCache.getEvictionCount()).isEqualTo(100 - cacheCache.size());
+        assertThat(cacheCache.getInViewport(new Viewport(new Geopoint(47, 10), new Geopoint(49, 12)))).hasSize(cacheCache.size());
+    }
+
+    @Test
+    public void testGetInViewport() {
+        final CacheCache cacheCache = new CacheCache(1024 * 1024);
+        cacheCache.putCacheInCache(createCache("GCIN", new Geopoint(48.15, 11.55)));
+        cacheCache.putCacheInCache(createCache("GCBORDER", new Geopoint(48.2, 11.6)));
+        cacheCache.putCacheInCache(createCache("GCOUT", new Geopoint(48.25, 11.55)));
+        cacheCache.putCacheInCache(createCache("GCFAR", new Geopoint(-33, 151)));
+        final Geocache noCoords = createCache("GCNOCOORDS", null);
+        cacheCache.putCacheInCache(noCoords);
+
+        final Viewport viewport = new Viewport(new Geopoint(48.1, 11.5), new Geopoint(48.2, 11.6));
+        assertThat(cacheCache.getInViewport(viewport)).containsOnly("GCIN", "GCBORDER");
+
+        // caches without coordinates are still found once they got some
+        noCoords.setCoords(new Geopoint(48.12, 11.52));
+        assertThat(cacheCache.getInViewport(viewport)).containsOnly("GCIN", "GCBORDER", "GCNOCOORDS");
+
+        // a world wide viewport visits the occupied cells instead of all cells
+        assertThat(cacheCache.getInViewport(new Viewport(new Geopoint(-90, -180), new Geopoint(90, 180))))
+                .containsOnly("GCIN", "GCBORDER", "GCOUT", "GCFAR", "GCNOCOORDS");
+
+        // moving a cache updates the grid when it is stored again
+        final Geocache moved = cacheCache.getCacheFromCache("GCFAR");
+        moved.setCoords(new Geopoint(48.18, 11.58));
+        cacheCache.putCacheInCache(moved);
+        assertThat(cacheCache.getInViewport(viewport)).containsOnly("GCIN", "GCBORDER", "GCNOCOORDS", "GCFAR");
+
+        cacheCache.removeAllFromCache();
+        assertThat(cacheCache.getInViewport(viewport)).isEmpty();
+    }
+
+    @Test
+    public void testStoringAgainMovesCache() {
+        final CacheCache cacheCache = new CacheCache(1024 * 1024);
+        final Geocache cache = createCache("GC1", new Geopoint(-33, 151));
+        cacheCache.putCacheInCache(cache);
+        final Viewport viewport = new Viewport(new Geopoint(48.1, 11.5), new Geopoint(48.2, 11.6));
+
+        // changed coordinates take effect once the cache is stored again
+        cache.setCoords(new Geopoint(48.15, 11.55));
+        assertThat(cacheCache.getInViewport(viewport)).isEmpty();
+        cacheCache.putCacheInCache(cache);
+        assertThat(cacheCache.getInViewport(viewport)).containsOnly("GC1");
+
+        cache.setCoords(new Geopoint(-33, 151));
+        cacheCache.putCacheInCache(cache);
+        assertThat(cacheCache.getInViewport(viewport)).isEmpty();
+        assertThat(cacheCache.size()).isEqualTo(1);
+    }
+
+}
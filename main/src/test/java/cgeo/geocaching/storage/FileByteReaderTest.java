@@ -43,6 +43,28 @@ public class FileByteReaderTest {
         assertThat(buffer).isEqualTo(new byte[]{5, 6, 7, 8, 9, 10, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0});
     }
 
+    @Test
+    public void mapped() throws IOException {
+        final byte[] buffer = new byte[10];
+
+        final File testFile = createTestFile(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10});
+        final FileByteReader fbr = new FileByteReader(new FileInputStream(testFile));
+        assertThat(fbr.map()).isTrue();
+        assertThat(fbr.isMapped()).isTrue();
+
+        fbr.readFully(2, 5, buffer);
+        assertThat(buffer).isEqualTo(new byte[]{3, 4, 5, 6, 7, 0, 0, 0, 0, 0});
+
+        try {
+            fbr.readFully(4, 10, buffer);
+            fail("Expected IOException because we read more data than available in file");
+        } catch (IOException ioe) {
+            //expected!
+        }
+        assertThat(buffer).isEqualTo(new byte[]{5, 6, 7, 8, 9, 10, 0, 0, 0, 0});
+        fbr.close();
+    }
+
     private static File createTestFile(final byte[] data) throws IOException {
         final File newFile = File.createTempFile("cgeo-test-" + System.currentTimeMillis(), ".txt");
         IOUtils.write(data, new FileOutputStream(newFile, false));
@@ -0,0 +1,141 @@
+package cgeo.geocaching.unifiedmap;
+
+import cgeo.geocaching.location.Geopoint;
+import cgeo.geocaching.location.Viewport;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+public class LiveMapTileCacheTest {
+
+    private static final long EXPIRY = 60000;
+
+    @Test
+    public void testQuadKey() {
+        // Bing maps example: tile 3/3/5 has quadkey "213"
+        assertThat(new LiveMapTileCache.Tile(3, 3, 5).getQuadKey()).isEqualTo("213");
+        assertThat(new LiveMapTileCache.Tile(3, 3, 5).getParent().getQuadKey()).isEqualTo("21");
+        assertThat(new LiveMapTileCache.Tile(0, 0, 0).getQuadKey()).isEmpty();
+    }
+
+    @Test
+    public void testTileViewport() {
+        final LiveMapTileCache.Tile tile = LiveMapTileCache.getTile(new Geopoint(48.1, 11.5), 10);
+        final Viewport viewport = tile.getViewport();
+        assertThat(viewport.contains(new Geopoint(48.1, 11.5))).isTrue();
+        assertThat(viewport.getLongitudeSpan()).isEqualTo(360.0 / 1024, offset(1e-6));
+        assertThat(LiveMapTileCache.getTiles(viewport.resize(0.5), 10)).containsExactly(tile);
+    }
+
+    @Test
+    public void testViewportIsCoveredByFewTiles() {
+        final Viewport viewport = new Viewport(new Geopoint(48.0, 11.0), new Geopoint(48.2, 11.3));
+        final int zoom = LiveMapTileCache.getTileZoom(viewport);
+        final List<LiveMapTileCache.Tile> tiles = LiveMapTileCache.getTiles(viewport, zoom);
+        assertThat(tiles.size()).isBetween(4, 16);
+        assertThat(LiveMapTileCache.getViewport(tiles).includes(viewport)).isTrue();
+        assertThat(LiveMapTileCache.getBoundingTiles(tiles)).containsOnlyElementsOf(tiles);
+    }
+
+    @Test
+    public void testPrefetchInDirectionOfMovement() {
+        final Viewport viewport = new Viewport(new Geopoint(48.0, 11.0), new Geopoint(48.2, 11.3));
+        final int zoom = LiveMapTileCache.getTileZoom(viewport);
+        final List<LiveMapTileCache.Tile> tiles = LiveMapTileCache.getTiles(viewport, zoom);
+        final int maxX = tiles.stream().mapToInt(t -> t.x).max().getAsInt();
+        final int minY = tiles.stream().mapToInt(t -> t.y).min().getAsInt();
+
+        // moved east: only the column right of the viewport
+        final List<LiveMapTileCache.Tile> east = LiveMapTileCache.getPrefetchTiles(viewport, zoom, new Geopoint(48.1, 10.9));
+        assertThat(east).isNotEmpty();
+        for (LiveMapTileCache.Tile tile : east) {
+            assertThat(tile.x).isEqualTo(maxX + 1);
+        }
+
+        // moved north: only the row above the viewport
+        final List<LiveMapTileCache.Tile> north = LiveMapTileCache.getPrefetchTiles(viewport, zoom, new Geopoint(47.9, 11.15));
+        assertThat(north).isNotEmpty();
+        for (LiveMapTileCache.Tile tile : north) {
+            assertThat(tile.y).isEqualTo(minY - 1);
+        }
+
+        // hardly moved: nothing to prefetch
+        assertThat(LiveMapTileCache.getPrefetchTiles(viewport, zoom, new Geopoint(48.11, 11.16))).isEmpty();
+
+        // no previous position: all surrounding tiles
+        final List<LiveMapTileCache.Tile> ring = LiveMapTileCache.getPrefetchTiles(viewport, zoom, null);
+        assertThat(ring).doesNotContainAnyElementsOf(tiles);
+        assertThat(LiveMapTileCache.getBoundingTiles(ring)).hasSize(ring.size() + tiles.size());
+    }
+
+    @Test
+    public void testPutAndGet() {
+        final LiveMapTileCache cache = new LiveMapTileCache(100, EXPIRY);
+        final LiveMapTileCache.Tile tile1 = LiveMapTileCache.getTile(new Geopoint(48.1, 11.5), 10);
+        final LiveMapTileCache.Tile tile2 = LiveMapTileCache.getTile(new Geopoint(52.5, 13.4), 10);
+        final Map<String, Geopoint> caches = new HashMap<>();
+        caches.put("GC1", new Geopoint(48.1, 11.5));
+        caches.put("GC2", new Geopoint(52.5, 13.4));
+        cache.put("GC", "", Collections.singletonList(tile1), caches);
+
+        assertThat(cache.get("GC", "", tile1)).containsOnly("GC1");
+        assertThat(cache.get("GC", "", tile2)).isNull();
+        assertThat(cache.get("OC", "", tile1)).isNull();
+        assertThat(cache.get("GC", "otherfilter", tile1)).isNull();
+
+        // children of a cached tile are cached as well
+        final LiveMapTileCache.Tile child = LiveMapTileCache.getTile(new Geopoint(48.1, 11.5), 12);
+        assertThat(cache.get("GC", "", child)).containsOnly("GC1");
+
+        // empty tiles are cached too
+        cache.put("GC", "", Collections.singletonList(tile2), Collections.emptyMap());
+        assertThat(cache.get("GC", "", tile2)).isEmpty();
+    }
+
+    @Test
+    public void testRemove() {
+        final LiveMapTileCache cache = new LiveMapTileCache(100, EXPIRY);
+        final LiveMapTileCache.Tile parent = LiveMapTileCache.getTile(new Geopoint(48.1, 11.5), 9);
+        final LiveMapTileCache.Tile tile = LiveMapTileCache.getTile(new Geopoint(48.1, 11.5), 10);
+        final Map<String, Geopoint> caches = Collections.singletonMap("GC1", new Geopoint(48.1, 11.5));
+        cache.put("GC", "", Collections.singletonList(parent), caches);
+        cache.put("OC", "", Collections.singletonList(tile), caches);
+
+        // a tile served by its parent is removed together with the parent
+        cache.remove("GC", "", Collections.singletonList(tile));
+        assertThat(cache.get("GC", "", tile)).isNull();
+        assertThat(cache.get("GC", "", parent)).isNull();
+        assertThat(cache.get("OC", "", tile)).containsOnly("GC1");
+    }
+
+    @Test
+    public void testExpiryAndEviction() {
+        final LiveMapTileCache expired = new LiveMapTileCache(100, 0);
+        final LiveMapTileCache.Tile tile = LiveMapTileCache.getTile(new Geopoint(48.1, 11.5), 10);
+        expired.put("GC", "", Collections.singletonList(tile), Collections.emptyMap());
+        assertThat(expired.get("GC", "", tile)).isNull();
+        assertThat(expired.size()).isEqualTo(0);
+
+        final LiveMapTileCache small = new LiveMapTileCache(2, EXPIRY);
+        final Viewport viewport = new Viewport(new Geopoint(48.0, 11.0), new Geopoint(48.2, 11.3));
+        final List<LiveMapTileCache.Tile> tiles = LiveMapTileCache.getTiles(viewport, 12);
+        small.put("GC", "", tiles, Collections.emptyMap());
+        assertThat(small.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void testStatistics() {
+        final LiveMapTileCache cache = new LiveMapTileCache(100, EXPIRY);
+        cache.recordLookups(3, 1);
+        cache.recordLookups(0, 4);
+        assertThat(cache.getHitCount()).isEqualTo(3);
+        assertThat(cache.getMissCount()).isEqualTo(5);
+        assertThat(cache.getStatistics()).contains("hit rate 37.5%");
+    }
+}
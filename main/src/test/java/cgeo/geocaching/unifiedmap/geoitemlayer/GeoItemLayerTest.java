@@ -2,6 +2,7 @@ package cgeo.geocaching.unifiedmap.geoitemlayer;
 
 import cgeo.geocaching.location.Geopoint;
 import cgeo.geocaching.models.geoitem.GeoGroup;
+import cgeo.geocaching.models.geoitem.GeoItem;
 import cgeo.geocaching.models.geoitem.GeoPrimitive;
 import cgeo.geocaching.models.geoitem.ToScreenProjector;
 import cgeo.geocaching.test.AssertUtils;
@@ -342,6 +343,36 @@ public class GeoItemLayerTest {
         assertActions(layer, Action.remove(CIRCLE_1));
     }
 
+    @Test
+    public void replaceOnlyTouchesChangedItems() {
+        final TestGeoItemLayer layer = createLayer();
+        final Map<String, GeoItem> items = new HashMap<>();
+        items.put("circle", CIRCLE_1);
+        items.put("polygon", POLYGON_1);
+        items.put("group", GROUP_1);
+        layer.replace(null, items, true);
+        assertActions(layer, Action.anyorder(Action.add(CIRCLE_1), Action.add(POLYGON_1), Action.add(CIRCLE_1), Action.add(POLYGON_1)));
+        layer.clearActions();
+
+        //equal but not identical items -> no map changes at all
+        final Map<String, GeoItem> sameItems = new HashMap<>();
+        sameItems.put("circle", GeoPrimitive.createCircle(GP_1, 40, null));
+        sameItems.put("polygon", GeoPrimitive.createPolygon(Arrays.asList(GP_1, GP_2, GP_3), null));
+        sameItems.put("group", GeoGroup.create(CIRCLE_1, POLYGON_1));
+        layer.replace(null, sameItems, true);
+        assertActions(layer);
+
+        //"moved viewport": only leaving and entering items are touched
+        final Map<String, GeoItem> movedItems = new HashMap<>();
+        movedItems.put("polygon", POLYGON_1);
+        movedItems.put("group", GROUP_1);
+        movedItems.put("circle2", CIRCLE_2);
+        layer.replace(null, movedItems, true);
+        assertActions(layer, Action.remove(CIRCLE_1), Action.add(CIRCLE_2));
+        assertThat(layer.keySet()).containsExactlyInAnyOrder("polygon", "group", "circle2");
+        assertThat(layer.getMapWriterStatistics()).startsWith("ADDS:5, REMOVES:1, REPLACES:0, batches:");
+    }
+
     public static void assertActions(final TestGeoItemLayer layer, final Object ... actions) {
         final TestMapProvider tmp = layer.getProvider();
         final List<Action> actionsToAssert = tmp.getActions();
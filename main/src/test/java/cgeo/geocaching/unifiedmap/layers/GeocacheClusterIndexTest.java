@@ -0,0 +1,99 @@
+package cgeo.geocaching.unifiedmap.layers;
+
+import cgeo.geocaching.location.Geopoint;
+import cgeo.geocaching.location.Viewport;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+public class GeocacheClusterIndexTest {
+
+    @Test
+    public void testGetLevel() {
+        assertThat(GeocacheClusterIndex.getLevel(-1f)).isEqualTo(0);
+        assertThat(GeocacheClusterIndex.getLevel(3.7f)).isEqualTo(3);
+        assertThat(GeocacheClusterIndex.getLevel(GeocacheClusterIndex.CLUSTER_MAX_ZOOM - 0.01f)).isEqualTo(GeocacheClusterIndex.CLUSTER_MAX_ZOOM - 1);
+        assertThat(GeocacheClusterIndex.getLevel(GeocacheClusterIndex.CLUSTER_MAX_ZOOM)).isEqualTo(-1);
+        assertThat(GeocacheClusterIndex.getLevel(18f)).isEqualTo(-1);
+    }
+
+    @Test
+    public void testNearbyCachesAreClusteredOnLowLevels() {
+        final GeocacheClusterIndex index = new GeocacheClusterIndex();
+        index.put("GC1", new Geopoint(48.1000, 11.5000));
+        index.put("GC2", new Geopoint(48.1300, 11.5300));
+        index.put("GC3", new Geopoint(52.5, 13.4));
+
+        // on the whole world, all caches share one cell
+        assertThat(index.getClusters(0)).hasSize(1);
+        assertThat(index.getClusters(0).iterator().next().getCount()).isEqualTo(3);
+
+        // on a country level, the caches far apart are separated
+        assertThat(index.getClusters(8)).hasSize(2);
+
+        // on the finest level, caches ~4km apart are separated
+        assertThat(index.getClusters(GeocacheClusterIndex.CLUSTER_MAX_ZOOM - 1)).hasSize(3);
+        assertThat(index.getClusters(GeocacheClusterIndex.CLUSTER_MAX_ZOOM)).isEmpty();
+    }
+
+    @Test
+    public void testClusterContent() {
+        final GeocacheClusterIndex index = new GeocacheClusterIndex();
+        index.put("GC1", new Geopoint(48.0, 11.0));
+        index.put("GC2", new Geopoint(48.2, 11.2));
+
+        final GeocacheClusterIndex.Cluster cluster = index.getClusters(0).iterator().next();
+        assertThat(cluster.getGeocodes()).containsOnly("GC1", "GC2");
+        assertThat(cluster.getCenter()).isEqualTo(new Geopoint(48.1, 11.1));
+        final Viewport viewport = cluster.getViewport();
+        assertThat(viewport.getLatitudeMin()).isEqualTo(48.0);
+        assertThat(viewport.getLongitudeMax()).isEqualTo(11.2);
+        assertThat(index.getCluster(cluster.getId())).isSameAs(cluster);
+        assertThat(index.getCluster("not-an-id")).isNull();
+    }
+
+    @Test
+    public void testIncrementalUpdates() {
+        final GeocacheClusterIndex index = new GeocacheClusterIndex();
+        assertThat(index.put("GC1", new Geopoint(48.0, 11.0))).isTrue();
+        assertThat(index.put("GC1", new Geopoint(48.0, 11.0))).isFalse();
+        assertThat(index.put("GC2", new Geopoint(48.0, 11.0))).isTrue();
+        final String id = index.getClusters(5).iterator().next().getId();
+
+        // moving a cache moves it to another cell
+        assertThat(index.put("GC2", new Geopoint(-33.0, 151.0))).isTrue();
+        assertThat(index.getClusters(5)).hasSize(2);
+        assertThat(index.getCluster(id).getGeocodes()).containsOnly("GC1");
+        assertThat(index.getCluster(id).getCenter()).isEqualTo(new Geopoint(48.0, 11.0));
+
+        // empty cells are removed
+        assertThat(index.remove("GC1")).isTrue();
+        assertThat(index.remove("GC1")).isFalse();
+        assertThat(index.getCluster(id)).isNull();
+        assertThat(index.size()).isEqualTo(1);
+
+        index.put("GC3", new Geopoint(10.0, 10.0));
+        assertThat(index.retainAll(Arrays.asList("GC3", "GC4"))).isTrue();
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.getClusters(0).iterator().next().getGeocodes()).containsOnly("GC3");
+
+        index.clear();
+        assertThat(index.size()).isEqualTo(0);
+        for (int level = 0; level < GeocacheClusterIndex.CLUSTER_MAX_ZOOM; level++) {
+            assertThat(index.getClusters(level)).isEmpty();
+        }
+    }
+
+    @Test
+    public void testExtremeCoordinates() {
+        final GeocacheClusterIndex index = new GeocacheClusterIndex();
+        index.put("NORTH", new Geopoint(90.0, 180.0));
+        index.put("SOUTH", new Geopoint(-90.0, -180.0));
+        // coordinates beyond the mercator projection limits are clamped to the border cells
+        for (int level = 0; level < GeocacheClusterIndex.CLUSTER_MAX_ZOOM; level++) {
+            assertThat(index.getClusters(level)).hasSize(2);
+        }
+    }
+}
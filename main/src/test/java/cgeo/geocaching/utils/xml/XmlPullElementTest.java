@@ -0,0 +1,141 @@
+package cgeo.geocaching.utils.xml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+public class XmlPullElementTest {
+
+    private static final String NS_TEST = "http://cgeo.org/test";
+    private static final String NS_GPX = "http://www.topografix.com/GPX/1/1";
+    private static final String NS_GROUNDSPEAK = "http://www.groundspeak.com/cache/1/0/1";
+
+    private static XmlPullParser createParser(final String xml) throws XmlPullParserException {
+        return XmlUtils.createParser(new StringReader(xml), true);
+    }
+
+    private static String getResource(final String resourceName) throws IOException {
+        final InputStream is = XmlPullElementTest.class.getResourceAsStream(resourceName);
+        Objects.requireNonNull(is);
+        try {
+            return IOUtils.toString(is, StandardCharsets.UTF_8);
+        } finally {
+            IOUtils.closeQuietly(is);
+        }
+    }
+
+    @Test
+    public void testTextAndAttributes() throws Exception {
+        final List<String> urls = new ArrayList<>();
+        final List<String> names = new ArrayList<>();
+        final List<String> streets = new ArrayList<>();
+        final List<String> states = new ArrayList<>();
+
+        final XmlPullElement root = new XmlPullElement("", "websites");
+        final XmlPullElement website = root.getChild("", "website");
+        website.setStartElementListener(parser -> urls.add(parser.getAttributeValue(null, "url")));
+        website.getChild("", "name").setEndTextElementListener(names::add);
+        website.getChild("", "address").getChild("", "street").setEndTextElementListener(streets::add);
+        website.getChild(NS_TEST, "status").setEndTextElementListener(states::add);
+        root.parse(createParser(getResource("/xml/example.xml")));
+
+        assertThat(urls).containsExactly("https://cgeo.org", "https://geocaching.com", "https://google.com");
+        assertThat(names).containsExactly("cgeo", "Groundspeak", "Android Creators");
+        assertThat(streets).containsExactly("Somewherestreet 5", "WhoKnows 6");
+        assertThat(states).containsExactly("green", "red", "yellow");
+    }
+
+    @Test
+    public void testNamespaceMustMatch() throws Exception {
+        final List<String> states = new ArrayList<>();
+        final XmlPullElement root = new XmlPullElement("", "websites");
+        root.getChild("", "website").getChild("", "status").setEndTextElementListener(states::add);
+        root.parse(createParser(getResource("/xml/example.xml")));
+        assertThat(states).isEmpty();
+    }
+
+    @Test
+    public void testEndListenerAfterChildren() throws Exception {
+        final List<String> events = new ArrayList<>();
+        final XmlPullElement root = new XmlPullElement("", "a");
+        final XmlPullElement b = root.getChild("", "b");
+        b.setStartElementListener(parser -> events.add("start " + parser.getAttributeValue(null, "id")));
+        b.setEndElementListener(() -> events.add("end"));
+        b.getChild("", "c").setEndTextElementListener(body -> events.add("text " + body));
+        root.parse(createParser("<a><b id=\"1\"><c>x</c><c/></b><b id=\"2\"/></a>"));
+        assertThat(events).containsExactly("start 1", "text x", "text ", "end", "start 2", "end");
+    }
+
+    @Test
+    public void testSkipsUnregisteredSubtrees() throws Exception {
+        final List<String> texts = new ArrayList<>();
+        final XmlPullElement root = new XmlPullElement("", "a");
+        root.getChild("", "b").setEndTextElementListener(texts::add);
+        root.parse(createParser("<a><x><b>1</b><y><b>2</b></y></x><b>3<![CDATA[<4>]]>&amp;</b></a>"));
+        assertThat(texts).containsExactly("3<4>&");
+    }
+
+    @Test(expected = XmlPullParserException.class)
+    public void testRootMustMatch() throws Exception {
+        new XmlPullElement(NS_GPX, "gpx").parse(createParser(getResource("/xml/example.xml")));
+    }
+
+    @Test(expected = XmlPullParserException.class)
+    public void testNoMixedContentInTextElement() throws Exception {
+        final XmlPullElement root = new XmlPullElement("", "a");
+        root.getChild("", "b").setEndTextElementListener(body -> {
+            // nothing
+        });
+        root.parse(createParser("<a><b>text<c/></b></a>"));
+    }
+
+    @Test(expected = XmlPullParserException.class)
+    public void testMalformedSkippedSubtree() throws Exception {
+        new XmlPullElement("", "a").parse(createParser("<a><x><y></x></a>"));
+    }
+
+    @Test
+    public void testGpx() throws Exception {
+        final GpxCounter counter = new GpxCounter();
+        counter.root.parse(createParser(getResource("/xml/gc3t1xg_gsak_110.gpx")));
+        assertThat(counter.names).containsExactly("GC3T1XG");
+        assertThat(counter.cacheIds).containsExactly("3106063");
+        assertThat(counter.logs.get()).isEqualTo(5);
+    }
+
+    /**
+     * listener tree for some elements of a GPX 1.1 file with groundspeak extensions
+     */
+    private static final class GpxCounter {
+        final XmlPullElement root = new XmlPullElement(NS_GPX, "gpx");
+        final List<String> names = new ArrayList<>();
+        final List<String> cacheIds = new ArrayList<>();
+        final AtomicInteger logs = new AtomicInteger();
+
+        GpxCounter() {
+            final XmlPullElement wpt = root.getChild(NS_GPX, "wpt");
+            wpt.getChild(NS_GPX, "name").setEndTextElementListener(names::add);
+            final XmlPullElement cache = wpt.getChild(NS_GPX, "extensions").getChild(NS_GROUNDSPEAK, "cache");
+            cache.setStartElementListener(parser -> cacheIds.add(parser.getAttributeValue(null, "id")));
+            cache.getChild(NS_GROUNDSPEAK, "long_description").setEndTextElementListener(body -> {
+                // only collect the text
+            });
+            final XmlPullElement log = cache.getChild(NS_GROUNDSPEAK, "logs").getChild(NS_GROUNDSPEAK, "log");
+            log.setEndElementListener(logs::incrementAndGet);
+            log.getChild(NS_GROUNDSPEAK, "text").setEndTextElementListener(body -> {
+                // only collect the text
+            });
+        }
+    }
+}